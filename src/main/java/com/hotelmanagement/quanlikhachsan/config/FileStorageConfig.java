@@ -1,23 +0,0 @@
-package com.hotelmanagement.quanlikhachsan.config;
-
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
-import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
-
-/**
- * Configuration for serving static files (uploaded images).
- */
-@Configuration
-public class FileStorageConfig implements WebMvcConfigurer {
-
-    @Value("${file.upload-dir:uploads/room-images}")
-    private String uploadDir;
-
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        // Serve uploaded files from /uploads/room-images/**
-        registry.addResourceHandler("/uploads/room-images/**")
-                .addResourceLocations("file:" + uploadDir + "/");
-    }
-}
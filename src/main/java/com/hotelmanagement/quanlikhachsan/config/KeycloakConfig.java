@@ -6,6 +6,9 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+
 @Configuration
 public class KeycloakConfig {
 
@@ -34,4 +37,16 @@ public class KeycloakConfig {
                 .password(password)
                 .build();
     }
+
+    /**
+     * Shared HTTP client for user token grants against the realm token endpoint.
+     * Keeps connections alive across logins.
+     */
+    @Bean
+    public HttpClient keycloakHttpClient() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
 }
@@ -0,0 +1,64 @@
+package com.hotelmanagement.quanlikhachsan.config;
+
+import com.hotelmanagement.quanlikhachsan.services.storage.LocalObjectStorage;
+import com.hotelmanagement.quanlikhachsan.services.storage.ObjectStorage;
+import com.hotelmanagement.quanlikhachsan.services.storage.S3ObjectStorage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+
+/**
+ * Selects where stored files live with {@code file.storage.backend}.
+ */
+@Configuration
+@Slf4j
+public class ObjectStorageConfig {
+
+    @Value("${file.storage.backend:local}")
+    private String backend;
+
+    @Value("${file.upload-dir:uploads/room-images}")
+    private String uploadDir;
+
+    // Empty means AWS itself; set for MinIO and other S3-compatible stores
+    @Value("${file.storage.s3.endpoint:}")
+    private String endpoint;
+
+    @Value("${file.storage.s3.region:us-east-1}")
+    private String region;
+
+    @Value("${file.storage.s3.bucket:hotel-room-images}")
+    private String bucket;
+
+    @Value("${file.storage.s3.key-prefix:room-images/}")
+    private String keyPrefix;
+
+    // Empty uses the default AWS chain: environment, profile, instance role
+    @Value("${file.storage.s3.access-key:}")
+    private String accessKey;
+
+    @Value("${file.storage.s3.secret-key:}")
+    private String secretKey;
+
+    @Value("${file.storage.s3.path-style-access:false}")
+    private boolean pathStyleAccess;
+
+    @Value("${file.storage.s3.part-size-bytes:8388608}")
+    private int partSize;
+
+    @Bean
+    public ObjectStorage objectStorage() {
+        return switch (backend) {
+            case "local" -> new LocalObjectStorage(Paths.get(uploadDir));
+            case "s3" -> {
+                log.info("Storing files in bucket {} at {}", bucket, endpoint.isBlank() ? "AWS" : endpoint);
+                yield new S3ObjectStorage(S3ObjectStorage.client(endpoint, region, accessKey, secretKey,
+                        pathStyleAccess), bucket, keyPrefix, partSize);
+            }
+            default -> throw new IllegalStateException("Unknown file.storage.backend: " + backend);
+        };
+    }
+}
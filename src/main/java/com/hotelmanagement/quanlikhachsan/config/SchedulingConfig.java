@@ -0,0 +1,12 @@
+package com.hotelmanagement.quanlikhachsan.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs (revocation filter rebuilds, etc.)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -39,6 +39,8 @@ public class SecurityConfig {
                         .requestMatchers("/api/v1/room-statuses/**").permitAll() // Allow public access to room statuses
                         .requestMatchers("/api/v1/reservations/**").permitAll() // Allow public access to reservations
                         .requestMatchers("/uploads/**").permitAll() // Allow public access to uploaded images
+                        // Finance reports are for hotel staff only
+                        .requestMatchers("/api/v1/reports/**").hasAnyRole("ADMIN", "STAFF")
                         // Protected endpoints
                         .anyRequest().authenticated())
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
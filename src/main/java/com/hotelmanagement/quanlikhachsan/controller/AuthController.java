@@ -4,7 +4,10 @@ import com.hotelmanagement.quanlikhachsan.dto.request.auth.LoginRequest;
 import com.hotelmanagement.quanlikhachsan.dto.request.auth.RegisterRequest;
 import com.hotelmanagement.quanlikhachsan.dto.response.ApiResponse;
 import com.hotelmanagement.quanlikhachsan.dto.response.auth.AuthResponse;
+import com.hotelmanagement.quanlikhachsan.dto.response.auth.RegistrationStatusResponse;
 import com.hotelmanagement.quanlikhachsan.dto.response.auth.UserInfo;
+import com.hotelmanagement.quanlikhachsan.security.ratelimit.RateLimitKey;
+import com.hotelmanagement.quanlikhachsan.security.ratelimit.RateLimited;
 import com.hotelmanagement.quanlikhachsan.services.auth.AuthService;
 import com.hotelmanagement.quanlikhachsan.util.JwtUtil;
 import jakarta.servlet.http.Cookie;
@@ -13,9 +16,13 @@ import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
+import java.util.UUID;
+
 @RestController
 @RequestMapping("/api/v1/auth")
 @RequiredArgsConstructor
@@ -26,8 +33,15 @@ public class AuthController {
     private final JwtUtil jwtUtil;
 
     private static final String JWT_COOKIE_NAME = "jwt";
-    private static final int COOKIE_MAX_AGE = 24 * 60 * 60; // 24 hours in seconds
+    private static final String REFRESH_COOKIE_NAME = "refresh_token";
+    // Refresh token only travels to the auth endpoints, never to the rest of the API
+    private static final String REFRESH_COOKIE_PATH = "/api/v1/auth";
+
+    @Value("${jwt.refresh-expiration:604800000}")
+    private long refreshExpiration;
 
+    @RateLimited(policy = "login", key = RateLimitKey.IP)
+    @RateLimited(policy = "login-email", key = RateLimitKey.EMAIL)
     @PostMapping("/login")
     public ResponseEntity<ApiResponse<AuthResponse>> login(
             @Valid @RequestBody LoginRequest request,
@@ -36,56 +50,59 @@ public class AuthController {
 
         AuthResponse authResponse = authService.login(request);
 
-        // Set JWT in httpOnly cookie
-        Cookie jwtCookie = createJwtCookie(authResponse.accessToken());
-        response.addCookie(jwtCookie);
+        // Set JWT and refresh token in httpOnly cookies
+        addAuthCookies(response, authResponse);
 
         log.info("User logged in successfully: {}", request.email());
 
-        // Return response without token (since it's in cookie)
-        AuthResponse responseWithoutToken = new AuthResponse(
-                null, // Don't send token in response body
-                authResponse.tokenType(),
-                authResponse.expiresIn(),
-                authResponse.user());
-
-        return ResponseEntity.ok(ApiResponse.success(responseWithoutToken));
+        // Return response without tokens (since they're in cookies)
+        return ResponseEntity.ok(ApiResponse.success(withoutTokens(authResponse)));
     }
 
+    /**
+     * Start a registration. Provisioning finishes in the background; poll the
+     * returned Location until the registration is COMPLETED, then log in.
+     */
     @PostMapping("/register")
-    public ResponseEntity<ApiResponse<AuthResponse>> register(
-            @Valid @RequestBody RegisterRequest request,
-            HttpServletResponse response) {
+    public ResponseEntity<ApiResponse<RegistrationStatusResponse>> register(
+            @Valid @RequestBody RegisterRequest request) {
         log.info("Registration attempt for email: {}", request.email());
 
-        AuthResponse authResponse = authService.register(request);
+        RegistrationStatusResponse registration = authService.register(request);
 
-        // Set JWT in httpOnly cookie
-        Cookie jwtCookie = createJwtCookie(authResponse.accessToken());
-        response.addCookie(jwtCookie);
-
-        log.info("User registered successfully: {}", request.email());
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/auth/registrations/" + registration.id()))
+                .body(ApiResponse.success(registration));
+    }
 
-        // Return response without token
-        AuthResponse responseWithoutToken = new AuthResponse(
-                null,
-                authResponse.tokenType(),
-                authResponse.expiresIn(),
-                authResponse.user());
+    @GetMapping("/registrations/{id}")
+    public ResponseEntity<ApiResponse<RegistrationStatusResponse>> getRegistration(@PathVariable UUID id) {
+        return ResponseEntity.ok(ApiResponse.success(authService.getRegistrationStatus(id)));
+    }
 
-        return ResponseEntity.ok(ApiResponse.success(responseWithoutToken));
+    /**
+     * Rotate the refresh token and issue a new short-lived access token.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<ApiResponse<AuthResponse>> refresh(HttpServletRequest request,
+            HttpServletResponse response) {
+        AuthResponse authResponse = authService.refresh(extractCookie(request, REFRESH_COOKIE_NAME));
+        addAuthCookies(response, authResponse);
+        return ResponseEntity.ok(ApiResponse.success(withoutTokens(authResponse)));
     }
 
     @PostMapping("/logout")
-    public ResponseEntity<ApiResponse<String>> logout(HttpServletResponse response) {
-        // Clear JWT cookie
-        Cookie jwtCookie = new Cookie(JWT_COOKIE_NAME, null);
-        jwtCookie.setHttpOnly(true);
-        jwtCookie.setSecure(false); // Set to true in production with HTTPS
-        jwtCookie.setPath("/");
-        jwtCookie.setMaxAge(0); // Delete cookie
+    public ResponseEntity<ApiResponse<String>> logout(HttpServletRequest request, HttpServletResponse response) {
+        // Revoke the tokens server-side so copied cookies stop working too
+        String token = extractTokenFromCookie(request);
+        String refreshToken = extractCookie(request, REFRESH_COOKIE_NAME);
+        if (token != null || refreshToken != null) {
+            authService.logout(token, refreshToken);
+        }
 
-        response.addCookie(jwtCookie);
+        // Clear JWT and refresh cookies
+        response.addCookie(createCookie(JWT_COOKIE_NAME, null, "/", 0));
+        response.addCookie(createCookie(REFRESH_COOKIE_NAME, null, REFRESH_COOKIE_PATH, 0));
 
         return ResponseEntity.ok(ApiResponse.success("Đăng xuất thành công"));
     }
@@ -94,7 +111,7 @@ public class AuthController {
     public ResponseEntity<ApiResponse<UserInfo>> getCurrentUser(HttpServletRequest request) {
         String token = extractTokenFromCookie(request);
 
-        if (token == null || !jwtUtil.isTokenValid(token)) {
+        if (token == null || !jwtUtil.isTokenValid(token) || authService.isRevoked(token)) {
             return ResponseEntity.status(401)
                     .body(ApiResponse.error("Unauthorized: Token không hợp lệ"));
         }
@@ -103,22 +120,45 @@ public class AuthController {
         return ResponseEntity.ok(ApiResponse.success(userInfo));
     }
 
-    private Cookie createJwtCookie(String token) {
-        Cookie cookie = new Cookie(JWT_COOKIE_NAME, token);
+    private void addAuthCookies(HttpServletResponse response, AuthResponse authResponse) {
+        // Access cookie lives exactly as long as the token inside it
+        response.addCookie(createCookie(JWT_COOKIE_NAME, authResponse.accessToken(), "/",
+                authResponse.expiresIn().intValue()));
+        if (authResponse.refreshToken() != null) {
+            response.addCookie(createCookie(REFRESH_COOKIE_NAME, authResponse.refreshToken(), REFRESH_COOKIE_PATH,
+                    (int) (refreshExpiration / 1000)));
+        }
+    }
+
+    private static AuthResponse withoutTokens(AuthResponse authResponse) {
+        return new AuthResponse(
+                null, // Don't send tokens in response body
+                authResponse.tokenType(),
+                authResponse.expiresIn(),
+                null,
+                authResponse.user());
+    }
+
+    private Cookie createCookie(String name, String value, String path, int maxAge) {
+        Cookie cookie = new Cookie(name, value);
         cookie.setHttpOnly(true); // Cannot be accessed by JavaScript
         cookie.setSecure(false); // Set to true in production with HTTPS
-        cookie.setPath("/");
-        cookie.setMaxAge(COOKIE_MAX_AGE);
+        cookie.setPath(path);
+        cookie.setMaxAge(maxAge);
         // cookie.setSameSite("Strict"); // Requires Servlet 6.0+
 
         return cookie;
     }
 
     private String extractTokenFromCookie(HttpServletRequest request) {
+        return extractCookie(request, JWT_COOKIE_NAME);
+    }
+
+    private String extractCookie(HttpServletRequest request, String name) {
         Cookie[] cookies = request.getCookies();
         if (cookies != null) {
             for (Cookie cookie : cookies) {
-                if (JWT_COOKIE_NAME.equals(cookie.getName())) {
+                if (name.equals(cookie.getName())) {
                     return cookie.getValue();
                 }
             }
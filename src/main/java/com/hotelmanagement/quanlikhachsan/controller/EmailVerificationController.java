@@ -4,6 +4,8 @@ import com.hotelmanagement.quanlikhachsan.dto.request.email.*;
 import com.hotelmanagement.quanlikhachsan.dto.response.ApiResponse;
 import com.hotelmanagement.quanlikhachsan.dto.response.email.*;
 import com.hotelmanagement.quanlikhachsan.exception.email.*;
+import com.hotelmanagement.quanlikhachsan.security.ratelimit.RateLimitKey;
+import com.hotelmanagement.quanlikhachsan.security.ratelimit.RateLimited;
 import com.hotelmanagement.quanlikhachsan.services.email.EmailVerificationService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -34,6 +36,8 @@ public class EmailVerificationController {
      * 
      * POST /api/v1/email/send-otp
      */
+    @RateLimited(policy = "otp-send", key = RateLimitKey.EMAIL)
+    @RateLimited(policy = "otp-send-ip", key = RateLimitKey.IP)
     @PostMapping("/send-otp")
     public ResponseEntity<ApiResponse<OTPResponse>> sendOTP(
             @Valid @RequestBody SendOTPRequest request) {
@@ -69,6 +73,7 @@ public class EmailVerificationController {
      * 
      * POST /api/v1/email/verify-otp
      */
+    @RateLimited(policy = "otp-verify", key = RateLimitKey.IP)
     @PostMapping("/verify-otp")
     public ResponseEntity<ApiResponse<VerificationResponse>> verifyOTP(
             @Valid @RequestBody VerifyOTPRequest request) {
@@ -134,6 +139,8 @@ public class EmailVerificationController {
      * 
      * POST /api/v1/email/resend-otp
      */
+    @RateLimited(policy = "otp-send", key = RateLimitKey.EMAIL)
+    @RateLimited(policy = "otp-send-ip", key = RateLimitKey.IP)
     @PostMapping("/resend-otp")
     public ResponseEntity<ApiResponse<OTPResponse>> resendOTP(
             @Valid @RequestBody ResendOTPRequest request) {
@@ -0,0 +1,34 @@
+package com.hotelmanagement.quanlikhachsan.controller;
+
+import com.hotelmanagement.quanlikhachsan.services.image.ImageDeliveryService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+/**
+ * Serves uploaded room images and their variants.
+ */
+@RestController
+@RequestMapping("/uploads/room-images")
+@RequiredArgsConstructor
+public class ImageController {
+
+    private final ImageDeliveryService imageDeliveryService;
+
+    /**
+     * Get a stored image; supports HEAD, Range and If-None-Match.
+     *
+     * @param filename the stored filename
+     */
+    @GetMapping("/{filename:.+}")
+    public void getImage(@PathVariable String filename, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        imageDeliveryService.serve(filename, request, response);
+    }
+}
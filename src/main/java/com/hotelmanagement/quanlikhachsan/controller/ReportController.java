@@ -0,0 +1,43 @@
+package com.hotelmanagement.quanlikhachsan.controller;
+
+import com.hotelmanagement.quanlikhachsan.dto.response.ApiResponse;
+import com.hotelmanagement.quanlikhachsan.dto.response.payment.DailySettlementResponse;
+import com.hotelmanagement.quanlikhachsan.services.payment.PaymentLedgerService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * REST Controller for finance reports, served from the daily settlement rollup.
+ */
+@RestController
+@RequestMapping("/api/v1/reports")
+@RequiredArgsConstructor
+@Slf4j
+public class ReportController {
+
+    private final PaymentLedgerService paymentLedgerService;
+
+    /**
+     * Get revenue, refunds and failure rate per day.
+     *
+     * @param from first day, inclusive
+     * @param to   last day, inclusive
+     * @return one entry per day with payment activity
+     */
+    @GetMapping("/settlements")
+    public ResponseEntity<ApiResponse<List<DailySettlementResponse>>> getSettlements(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.info("Fetching settlements from {} to {}", from, to);
+        return ResponseEntity.ok(ApiResponse.success(paymentLedgerService.settlements(from, to)));
+    }
+}
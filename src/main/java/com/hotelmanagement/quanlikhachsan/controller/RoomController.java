@@ -6,6 +6,9 @@ import com.hotelmanagement.quanlikhachsan.dto.response.ApiResponse;
 import com.hotelmanagement.quanlikhachsan.dto.response.RoomResponse;
 import com.hotelmanagement.quanlikhachsan.dto.response.room.RoomAvailabilityResponse;
 import com.hotelmanagement.quanlikhachsan.services.IRoomService;
+import com.hotelmanagement.quanlikhachsan.services.catalog.CatalogAggregate;
+import com.hotelmanagement.quanlikhachsan.services.catalog.CatalogSnapshotService;
+import com.hotelmanagement.quanlikhachsan.services.catalog.CatalogVersionService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -15,6 +18,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalDate;
@@ -26,22 +30,38 @@ import java.util.Optional;
 @RequiredArgsConstructor
 @Slf4j
 public class RoomController {
+    // Room responses embed type and status, so all three stamps apply
+    private static final CatalogAggregate[] ROOM_AGGREGATES = {
+            CatalogAggregate.ROOMS, CatalogAggregate.ROOM_TYPES, CatalogAggregate.ROOM_STATUSES };
+
     private final IRoomService roomService;
+    private final CatalogVersionService catalogVersionService;
+    private final CatalogSnapshotService catalogSnapshotService;
 
     @GetMapping
-    public ResponseEntity<ApiResponse<List<RoomResponse>>> getAllRooms() {
-        List<RoomResponse> response = roomService.getAllRooms();
-        return ResponseEntity.ok(ApiResponse.success(response));
+    public ResponseEntity<byte[]> getAllRooms(WebRequest webRequest) {
+        if (catalogSnapshotService.checkNotModified(webRequest, ROOM_AGGREGATES)) {
+            return null;
+        }
+        return catalogSnapshotService.respond("rooms:all", webRequest, roomService::getAllRooms, ROOM_AGGREGATES);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<Optional<RoomResponse>>> getRoomById(@PathVariable String id) {
+    public ResponseEntity<ApiResponse<Optional<RoomResponse>>> getRoomById(@PathVariable String id,
+            WebRequest webRequest) {
+        if (catalogVersionService.checkNotModified(webRequest, ROOM_AGGREGATES)) {
+            return null;
+        }
         Optional<RoomResponse> response = roomService.getRoomById(id);
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
     @GetMapping("/status/{statusName}")
-    public ResponseEntity<ApiResponse<List<RoomResponse>>> getRoomsByStatus(@PathVariable String statusName) {
+    public ResponseEntity<ApiResponse<List<RoomResponse>>> getRoomsByStatus(@PathVariable String statusName,
+            WebRequest webRequest) {
+        if (catalogVersionService.checkNotModified(webRequest, ROOM_AGGREGATES)) {
+            return null;
+        }
         List<RoomResponse> response = roomService.getRoomsByStatusName(statusName);
         return ResponseEntity.ok(ApiResponse.success(response));
     }
@@ -3,12 +3,14 @@ package com.hotelmanagement.quanlikhachsan.controller;
 import com.hotelmanagement.quanlikhachsan.dto.response.ApiResponse;
 import com.hotelmanagement.quanlikhachsan.dto.response.RoomStatusResponse;
 import com.hotelmanagement.quanlikhachsan.services.IRoomStatusService;
+import com.hotelmanagement.quanlikhachsan.services.catalog.CatalogAggregate;
+import com.hotelmanagement.quanlikhachsan.services.catalog.CatalogSnapshotService;
+import com.hotelmanagement.quanlikhachsan.services.catalog.CatalogVersionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
+import org.springframework.web.context.request.WebRequest;
 
 /**
  * REST Controller for Room Status management.
@@ -20,22 +22,30 @@ import java.util.List;
 public class RoomStatusController {
 
     private final IRoomStatusService roomStatusService;
+    private final CatalogVersionService catalogVersionService;
+    private final CatalogSnapshotService catalogSnapshotService;
 
     /**
      * Get all room statuses
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<RoomStatusResponse>>> getAllRoomStatuses() {
-        log.info("Fetching all room statuses");
-        List<RoomStatusResponse> roomStatuses = roomStatusService.getAllRoomStatuses();
-        return ResponseEntity.ok(ApiResponse.success(roomStatuses));
+    public ResponseEntity<byte[]> getAllRoomStatuses(WebRequest webRequest) {
+        if (catalogSnapshotService.checkNotModified(webRequest, CatalogAggregate.ROOM_STATUSES)) {
+            return null;
+        }
+        return catalogSnapshotService.respond("room-statuses:all", webRequest,
+                roomStatusService::getAllRoomStatuses, CatalogAggregate.ROOM_STATUSES);
     }
 
     /**
      * Get room status by ID
      */
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<RoomStatusResponse>> getRoomStatusById(@PathVariable String id) {
+    public ResponseEntity<ApiResponse<RoomStatusResponse>> getRoomStatusById(@PathVariable String id,
+            WebRequest webRequest) {
+        if (catalogVersionService.checkNotModified(webRequest, CatalogAggregate.ROOM_STATUSES)) {
+            return null;
+        }
         log.info("Fetching room status with ID: {}", id);
         RoomStatusResponse roomStatus = roomStatusService.getRoomStatusById(id);
         return ResponseEntity.ok(ApiResponse.success(roomStatus));
@@ -45,7 +55,11 @@ public class RoomStatusController {
      * Get room status by name
      */
     @GetMapping("/name/{name}")
-    public ResponseEntity<ApiResponse<RoomStatusResponse>> getRoomStatusByName(@PathVariable String name) {
+    public ResponseEntity<ApiResponse<RoomStatusResponse>> getRoomStatusByName(@PathVariable String name,
+            WebRequest webRequest) {
+        if (catalogVersionService.checkNotModified(webRequest, CatalogAggregate.ROOM_STATUSES)) {
+            return null;
+        }
         log.info("Fetching room status with name: {}", name);
         RoomStatusResponse roomStatus = roomStatusService.getRoomStatusByName(name);
         return ResponseEntity.ok(ApiResponse.success(roomStatus));
@@ -3,12 +3,14 @@ package com.hotelmanagement.quanlikhachsan.controller;
 import com.hotelmanagement.quanlikhachsan.dto.response.ApiResponse;
 import com.hotelmanagement.quanlikhachsan.dto.response.RoomTypeResponse;
 import com.hotelmanagement.quanlikhachsan.services.IRoomTypeService;
+import com.hotelmanagement.quanlikhachsan.services.catalog.CatalogAggregate;
+import com.hotelmanagement.quanlikhachsan.services.catalog.CatalogSnapshotService;
+import com.hotelmanagement.quanlikhachsan.services.catalog.CatalogVersionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
+import org.springframework.web.context.request.WebRequest;
 
 /**
  * REST Controller for Room Type management.
@@ -20,22 +22,30 @@ import java.util.List;
 public class RoomTypeController {
 
     private final IRoomTypeService roomTypeService;
+    private final CatalogVersionService catalogVersionService;
+    private final CatalogSnapshotService catalogSnapshotService;
 
     /**
      * Get all room types
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<RoomTypeResponse>>> getAllRoomTypes() {
-        log.info("Fetching all room types");
-        List<RoomTypeResponse> roomTypes = roomTypeService.getAllRoomTypes();
-        return ResponseEntity.ok(ApiResponse.success(roomTypes));
+    public ResponseEntity<byte[]> getAllRoomTypes(WebRequest webRequest) {
+        if (catalogSnapshotService.checkNotModified(webRequest, CatalogAggregate.ROOM_TYPES)) {
+            return null;
+        }
+        return catalogSnapshotService.respond("room-types:all", webRequest,
+                roomTypeService::getAllRoomTypes, CatalogAggregate.ROOM_TYPES);
     }
 
     /**
      * Get room type by ID
      */
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<RoomTypeResponse>> getRoomTypeById(@PathVariable String id) {
+    public ResponseEntity<ApiResponse<RoomTypeResponse>> getRoomTypeById(@PathVariable String id,
+            WebRequest webRequest) {
+        if (catalogVersionService.checkNotModified(webRequest, CatalogAggregate.ROOM_TYPES)) {
+            return null;
+        }
         log.info("Fetching room type with ID: {}", id);
         RoomTypeResponse roomType = roomTypeService.getRoomTypeById(id);
         return ResponseEntity.ok(ApiResponse.success(roomType));
@@ -45,7 +55,11 @@ public class RoomTypeController {
      * Get room type by name
      */
     @GetMapping("/name/{name}")
-    public ResponseEntity<ApiResponse<RoomTypeResponse>> getRoomTypeByName(@PathVariable String name) {
+    public ResponseEntity<ApiResponse<RoomTypeResponse>> getRoomTypeByName(@PathVariable String name,
+            WebRequest webRequest) {
+        if (catalogVersionService.checkNotModified(webRequest, CatalogAggregate.ROOM_TYPES)) {
+            return null;
+        }
         log.info("Fetching room type with name: {}", name);
         RoomTypeResponse roomType = roomTypeService.getRoomTypeByName(name);
         return ResponseEntity.ok(ApiResponse.success(roomType));
@@ -6,6 +6,9 @@ public record RoomImageResponse(
         String id,
         String roomId,
         String imageUrl,
+        String thumbnailUrl,
+        String cardUrl,
+        String fullUrl,
         String description,
         Boolean isPrimary,
         short displayOrder,
@@ -4,9 +4,14 @@ public record AuthResponse(
         String accessToken,
         String tokenType,  // "Bearer"
         Long expiresIn,    // seconds
+        String refreshToken,
         UserInfo user
 ) {
     public static AuthResponse of(String accessToken, Long expiresIn, UserInfo user) {
-        return new AuthResponse(accessToken, "Bearer", expiresIn, user);
+        return new AuthResponse(accessToken, "Bearer", expiresIn, null, user);
+    }
+
+    public static AuthResponse of(String accessToken, Long expiresIn, String refreshToken, UserInfo user) {
+        return new AuthResponse(accessToken, "Bearer", expiresIn, refreshToken, user);
     }
 }
@@ -0,0 +1,10 @@
+package com.hotelmanagement.quanlikhachsan.dto.response.auth;
+
+import java.util.UUID;
+
+public record RegistrationStatusResponse(
+        UUID id,
+        String status,     // "PENDING", "COMPLETED" or "FAILED"
+        String message
+) {
+}
@@ -0,0 +1,18 @@
+package com.hotelmanagement.quanlikhachsan.dto.response.payment;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Settled payments for one day. The failure rate is failed over completed
+ * plus failed, or null when neither happened.
+ */
+public record DailySettlementResponse(
+        LocalDate date,
+        BigDecimal revenue,
+        long completedCount,
+        BigDecimal refunded,
+        long refundedCount,
+        long failedCount,
+        Double failureRate) {
+}
@@ -38,7 +38,18 @@ public enum ErrorDefinition {
             "PAYMENT_005"),
     PAYMENT_WEBHOOK_ERROR("Webhook processing failed.", HttpStatus.BAD_REQUEST, "PAYMENT_006"),
     PAYMENT_SESSION_EXPIRED("Payment session has expired. Please initiate a new payment.",
-            HttpStatus.GONE, "PAYMENT_007");
+            HttpStatus.GONE, "PAYMENT_007"),
+    PAYMENT_PROVIDER_UNAVAILABLE("Payment provider is temporarily unavailable. Please try again shortly.",
+            HttpStatus.SERVICE_UNAVAILABLE, "PAYMENT_008"),
+
+    // Auth errors
+    EMAIL_ALREADY_REGISTERED("Email is already registered.", HttpStatus.CONFLICT, "AUTH_001"),
+    REGISTRATION_IN_PROGRESS("A registration for this email is already in progress.", HttpStatus.CONFLICT,
+            "AUTH_002"),
+    REGISTRATION_NOT_FOUND("Registration not found.", HttpStatus.NOT_FOUND, "AUTH_003"),
+
+    // Rate limiting
+    RATE_LIMITED("Too many requests. Please try again later.", HttpStatus.TOO_MANY_REQUESTS, "RATE_001");
 
     private final String message;
     private final HttpStatus statusCode;
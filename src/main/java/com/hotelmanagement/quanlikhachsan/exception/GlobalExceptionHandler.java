@@ -2,8 +2,10 @@ package com.hotelmanagement.quanlikhachsan.exception;
 
 import com.hotelmanagement.quanlikhachsan.dto.response.ApiResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -31,7 +33,12 @@ public class GlobalExceptionHandler {
         errorDetails.put("errorCode", ex.getErrorCode());
 
         ApiResponse<Map<String, Object>> response = ApiResponse.error(errorDetails, ex.getMessage());
-        return ResponseEntity.status(ex.getStatusCode()).body(response);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(ex.getStatusCode());
+        Object retryAfter = ex.getDetails().get("retryAfterSeconds");
+        if (retryAfter != null) {
+            builder.header(HttpHeaders.RETRY_AFTER, retryAfter.toString());
+        }
+        return builder.body(response);
     }
 
     /**
@@ -69,6 +76,17 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
     }
 
+    /**
+     * Handle failed logins and rejected refresh tokens.
+     */
+    @ExceptionHandler(AuthenticationException.class)
+    public ResponseEntity<ApiResponse<String>> handleAuthenticationException(AuthenticationException ex) {
+        log.warn("Authentication failed: {}", ex.getMessage());
+
+        ApiResponse<String> response = ApiResponse.error("Unauthorized: " + ex.getMessage());
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+    }
+
     /**
      * Handle all other uncaught exceptions.
      */
@@ -1,20 +1,23 @@
 package com.hotelmanagement.quanlikhachsan.mapper;
 
-import com.hotelmanagement.quanlikhachsan.dto.response.RoomImageResponse;
 import com.hotelmanagement.quanlikhachsan.dto.response.RoomResponse;
 import com.hotelmanagement.quanlikhachsan.dto.response.RoomStatusResponse;
 import com.hotelmanagement.quanlikhachsan.dto.response.RoomTypeResponse;
 import com.hotelmanagement.quanlikhachsan.dto.response.guest.GuestResponse;
 import com.hotelmanagement.quanlikhachsan.dto.response.reservation.ReservationResponse;
 import com.hotelmanagement.quanlikhachsan.model.reservation.Reservation;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Component
+@RequiredArgsConstructor
 public class ReservationMapper {
 
+        private final RoomImageMapper roomImageMapper;
+
         // Reservation mappings
         public ReservationResponse toResponse(Reservation reservation) {
                 return new ReservationResponse(
@@ -40,14 +43,7 @@ public class ReservationMapper {
                                                                         room.getRoom().getStatus().getName()),
                                                                 room.getRoom().getFloor(), room.getRoom().getNote(),
                                                                 room.getRoom().getImages().stream()
-                                                                                .map(image -> new RoomImageResponse(
-                                                                                                image.getId(),
-                                                                                                image.getRoom().getId(),
-                                                                                                image.getImageUrl(),
-                                                                                                image.getDescription(),
-                                                                                                image.getIsPrimary(),
-                                                                                                image.getDisplayOrder(),
-                                                                                                image.getCreatedAt()))
+                                                                                .map(roomImageMapper::toResponse)
                                                                                 .collect(Collectors.toList())))
                                                 .collect(Collectors.toList()),
                                 reservation.getCheckIn(),
@@ -7,14 +7,24 @@ import org.springframework.stereotype.Component;
 @Component
 public class RoomImageMapper {
 
+    /**
+     * Variants not produced yet fall back to the original upload.
+     */
     public RoomImageResponse toResponse(RoomImage image) {
         return new RoomImageResponse(
                 image.getId(),
                 image.getRoom().getId(),
                 image.getImageUrl(),
+                variantOrOriginal(image.getThumbnailUrl(), image),
+                variantOrOriginal(image.getCardUrl(), image),
+                variantOrOriginal(image.getFullUrl(), image),
                 image.getDescription(),
                 image.getIsPrimary(),
                 image.getDisplayOrder(),
                 image.getCreatedAt());
     }
+
+    private static String variantOrOriginal(String variantUrl, RoomImage image) {
+        return variantUrl != null ? variantUrl : image.getImageUrl();
+    }
 }
@@ -0,0 +1,21 @@
+package com.hotelmanagement.quanlikhachsan.model.auth;
+
+/**
+ * Steps of the registration saga.
+ * PENDING -> KEYCLOAK_CREATED -> COMPLETED on the happy path;
+ * COMPENSATING removes the Keycloak user before ending in FAILED.
+ */
+public enum RegistrationSagaStatus {
+    PENDING,
+    KEYCLOAK_CREATED,
+    COMPENSATING,
+    COMPLETED,
+    FAILED;
+
+    /**
+     * @return true while the worker still has a step to run
+     */
+    public boolean isActive() {
+        return this == PENDING || this == KEYCLOAK_CREATED || this == COMPENSATING;
+    }
+}
@@ -0,0 +1,6 @@
+package com.hotelmanagement.quanlikhachsan.model.campaign;
+
+public enum CampaignRunStatus {
+    RUNNING,
+    COMPLETED
+}
@@ -0,0 +1,11 @@
+package com.hotelmanagement.quanlikhachsan.model.email;
+
+/**
+ * Kind of transactional email, kept on the outbox row for monitoring.
+ */
+public enum EmailCategory {
+    VERIFICATION,
+    WELCOME,
+    BOOKING_CONFIRMATION,
+    PRE_ARRIVAL
+}
@@ -0,0 +1,80 @@
+package com.hotelmanagement.quanlikhachsan.model.email;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "email_outbox")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EmailOutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private EmailCategory category;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    // Lower-cased domain part of the recipient, the unit of rate limiting
+    @Column(name = "recipient_domain", nullable = false)
+    private String recipientDomain;
+
+    @Column(nullable = false)
+    private String subject;
+
+    // Rendered HTML; cleared once the message is finished, it may carry an OTP
+    @Column(name = "html_body", columnDefinition = "TEXT")
+    private String htmlBody;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EmailOutboxStatus status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    // Not worth sending after this, e.g. an OTP that has already expired
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
+    // Set on campaign emails so a rerun cannot queue the same one twice
+    @Column(name = "dedupe_key", length = 100)
+    private String dedupeKey;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,11 @@
+package com.hotelmanagement.quanlikhachsan.model.email;
+
+/**
+ * Delivery state of an outbox message.
+ * PENDING until the SMTP server accepts it (SENT) or retries run out (FAILED).
+ */
+public enum EmailOutboxStatus {
+    PENDING,
+    SENT,
+    FAILED
+}
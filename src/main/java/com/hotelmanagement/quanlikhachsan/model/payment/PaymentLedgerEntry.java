@@ -0,0 +1,52 @@
+package com.hotelmanagement.quanlikhachsan.model.payment;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One payment status transition. Rows are only ever inserted; the table
+ * rejects updates and deletes.
+ */
+@Entity
+@Table(name = "payment_ledger")
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentLedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "payment_id", nullable = false, updatable = false)
+    private UUID paymentId;
+
+    @Column(name = "reservation_id", nullable = false, updatable = false)
+    private UUID reservationId;
+
+    @Column(name = "from_status", length = 50, updatable = false)
+    private String fromStatus;
+
+    @Column(name = "to_status", nullable = false, length = 50, updatable = false)
+    private String toStatus;
+
+    @Column(nullable = false, precision = 10, scale = 2, updatable = false)
+    private BigDecimal amount;
+
+    @Column(nullable = false, length = 50, updatable = false)
+    private String method;
+
+    @Column(name = "stripe_session_id", updatable = false)
+    private String stripeSessionId;
+
+    @Column(name = "stripe_payment_intent_id", length = 100, updatable = false)
+    private String stripePaymentIntentId;
+
+    @Column(name = "recorded_at", nullable = false, updatable = false)
+    private LocalDateTime recordedAt;
+}
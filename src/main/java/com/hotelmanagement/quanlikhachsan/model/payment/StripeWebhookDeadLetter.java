@@ -0,0 +1,44 @@
+package com.hotelmanagement.quanlikhachsan.model.payment;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A webhook event that failed every processing attempt.
+ */
+@Entity
+@Table(name = "stripe_webhook_dead_letters")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StripeWebhookDeadLetter {
+
+    @Id
+    @Column(name = "event_id")
+    private String eventId;
+
+    @Column(nullable = false, length = 100)
+    private String type;
+
+    @Column(name = "ordering_key", nullable = false)
+    private String orderingKey;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    @Column(name = "failed_at", nullable = false)
+    private LocalDateTime failedAt;
+}
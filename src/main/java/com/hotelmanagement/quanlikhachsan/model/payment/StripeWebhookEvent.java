@@ -0,0 +1,50 @@
+package com.hotelmanagement.quanlikhachsan.model.payment;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "stripe_webhook_events")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StripeWebhookEvent {
+
+    // Stripe event id (evt_...)
+    @Id
+    private String id;
+
+    @Column(nullable = false, length = 100)
+    private String type;
+
+    // Reservation id when the event carries one; events sharing it are processed in order
+    @Column(name = "ordering_key", nullable = false)
+    private String orderingKey;
+
+    // Raw body as signed by Stripe
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private StripeWebhookEventStatus status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "received_at", nullable = false, updatable = false)
+    private LocalDateTime receivedAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+}
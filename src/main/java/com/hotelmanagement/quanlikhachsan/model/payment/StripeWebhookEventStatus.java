@@ -0,0 +1,11 @@
+package com.hotelmanagement.quanlikhachsan.model.payment;
+
+/**
+ * Processing state of a received Stripe webhook event.
+ * PENDING until the worker applies it (PROCESSED); events that run out of
+ * retries move to the dead-letter table instead.
+ */
+public enum StripeWebhookEventStatus {
+    PENDING,
+    PROCESSED
+}
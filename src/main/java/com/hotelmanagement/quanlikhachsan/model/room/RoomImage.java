@@ -13,8 +13,9 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 public class RoomImage {
+    // Assigned before insert, so new images of a room go out as one JDBC batch
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.UUID)
     private String id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -24,6 +25,15 @@ public class RoomImage {
     @Column(name = "image_url")
     private String imageUrl;
 
+    @Column(name = "thumbnail_url")
+    private String thumbnailUrl;
+
+    @Column(name = "card_url")
+    private String cardUrl;
+
+    @Column(name = "full_url")
+    private String fullUrl;
+
     private String description;
 
     @Column(name = "is_primary")
@@ -0,0 +1,40 @@
+package com.hotelmanagement.quanlikhachsan.model.storage;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * An uploaded file, stored once under the SHA-256 digest of its content.
+ * Reference counts are changed with atomic updates in the repository, never
+ * through this entity.
+ */
+@Entity
+@Table(name = "stored_blobs")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StoredBlob {
+
+    @Id
+    @Column(length = 64)
+    private String digest;
+
+    @Column(nullable = false, length = 100)
+    private String filename;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,37 @@
+package com.hotelmanagement.quanlikhachsan.repository;
+
+import com.hotelmanagement.quanlikhachsan.model.campaign.CampaignRun;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface CampaignRunRepository extends JpaRepository<CampaignRun, UUID> {
+
+    /**
+     * Create the run for a campaign and date unless another node already has.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO campaign_runs (campaign, target_date, status, enqueued, started_at)
+            VALUES (:campaign, :targetDate, 'RUNNING', 0, :startedAt)
+            ON CONFLICT (campaign, target_date) DO NOTHING
+            """, nativeQuery = true)
+    int createIfAbsent(@Param("campaign") String campaign, @Param("targetDate") LocalDate targetDate,
+            @Param("startedAt") LocalDateTime startedAt);
+
+    /**
+     * Lock the run for the calling transaction, so only one node advances its cursor at a time.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<CampaignRun> findByCampaignAndTargetDate(String campaign, LocalDate targetDate);
+}
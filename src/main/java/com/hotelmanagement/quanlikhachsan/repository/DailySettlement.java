@@ -0,0 +1,18 @@
+package com.hotelmanagement.quanlikhachsan.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Payments that reached a status on one day, from payment_settlements_daily.
+ */
+public interface DailySettlement {
+
+    LocalDate getSettlementDate();
+
+    String getStatus();
+
+    long getPaymentCount();
+
+    BigDecimal getAmount();
+}
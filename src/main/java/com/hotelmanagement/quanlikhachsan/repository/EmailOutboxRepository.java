@@ -0,0 +1,36 @@
+package com.hotelmanagement.quanlikhachsan.repository;
+
+import com.hotelmanagement.quanlikhachsan.model.email.EmailOutboxMessage;
+import com.hotelmanagement.quanlikhachsan.model.email.EmailOutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, UUID> {
+
+    /**
+     * Lock due messages for the calling transaction. Rows locked by another
+     * worker are skipped rather than waited on.
+     */
+    @Query(value = """
+            SELECT * FROM email_outbox
+            WHERE status = 'PENDING'
+              AND next_attempt_at <= :now
+            ORDER BY next_attempt_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<EmailOutboxMessage> lockDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Query("SELECT m.dedupeKey FROM EmailOutboxMessage m WHERE m.dedupeKey IN :keys")
+    List<String> findExistingDedupeKeys(@Param("keys") Collection<String> keys);
+
+    long deleteByStatusInAndUpdatedAtBefore(Collection<EmailOutboxStatus> statuses, LocalDateTime cutoff);
+}
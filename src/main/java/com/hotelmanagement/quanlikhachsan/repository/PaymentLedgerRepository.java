@@ -0,0 +1,39 @@
+package com.hotelmanagement.quanlikhachsan.repository;
+
+import com.hotelmanagement.quanlikhachsan.model.payment.PaymentLedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface PaymentLedgerRepository extends JpaRepository<PaymentLedgerEntry, Long> {
+
+    List<PaymentLedgerEntry> findByPaymentIdOrderByIdAsc(UUID paymentId);
+
+    /**
+     * Add transitions to the day's rollup row for their target status.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO payment_settlements_daily (settlement_date, status, payment_count, amount) " +
+            "VALUES (:settlementDate, :status, :paymentCount, :amount) " +
+            "ON CONFLICT (settlement_date, status) DO UPDATE SET " +
+            "payment_count = payment_settlements_daily.payment_count + EXCLUDED.payment_count, " +
+            "amount = payment_settlements_daily.amount + EXCLUDED.amount", nativeQuery = true)
+    int addToSettlement(@Param("settlementDate") LocalDate settlementDate,
+            @Param("status") String status,
+            @Param("paymentCount") long paymentCount,
+            @Param("amount") BigDecimal amount);
+
+    @Query(value = "SELECT settlement_date AS settlementDate, status, payment_count AS paymentCount, amount " +
+            "FROM payment_settlements_daily " +
+            "WHERE settlement_date BETWEEN :from AND :to " +
+            "ORDER BY settlement_date, status", nativeQuery = true)
+    List<DailySettlement> findSettlements(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
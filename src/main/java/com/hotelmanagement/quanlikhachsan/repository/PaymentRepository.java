@@ -1,9 +1,19 @@
 package com.hotelmanagement.quanlikhachsan.repository;
 
 import com.hotelmanagement.quanlikhachsan.model.payment.Payment;
+import com.hotelmanagement.quanlikhachsan.model.payment.PaymentStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -14,4 +24,43 @@ public interface PaymentRepository extends JpaRepository<Payment, UUID> {
     Optional<Payment> findByStripeSessionId(String stripeSessionId);
 
     Optional<Payment> findByReservationId(UUID reservationId);
+
+    List<Payment> findByStatus_NameAndPaymentDateBeforeOrderByPaymentDateAsc(String statusName,
+            LocalDateTime before, Limit limit);
+
+    /**
+     * One keyset page of payments in a status since before a cutoff, oldest
+     * first. Pass the payment date and id of the last row of the previous page.
+     */
+    @Query("SELECT p.id AS id, p.reservation.id AS reservationId, p.method AS method, " +
+            "p.stripeSessionId AS stripeSessionId, p.transactionCode AS transactionCode, " +
+            "p.paymentDate AS paymentDate " +
+            "FROM Payment p " +
+            "WHERE p.status.name = :statusName AND p.paymentDate < :before " +
+            "AND (p.paymentDate > :afterDate OR (p.paymentDate = :afterDate AND p.id > :afterId)) " +
+            "ORDER BY p.paymentDate, p.id")
+    List<PendingPaymentRef> findByStatusAfter(
+            @Param("statusName") String statusName,
+            @Param("before") LocalDateTime before,
+            @Param("afterDate") LocalDateTime afterDate,
+            @Param("afterId") UUID afterId,
+            Limit limit);
+
+    /**
+     * Lock the payments among {@code ids} that are still in a status.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Payment p WHERE p.id IN :ids AND p.status = :status")
+    List<Payment> findForUpdateByIdInAndStatus(@Param("ids") Collection<UUID> ids,
+            @Param("status") PaymentStatus status);
+
+    /**
+     * Move payments still in {@code expected} to {@code target}; payments a
+     * webhook has settled meanwhile are left as they are.
+     */
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = :target WHERE p.id IN :ids AND p.status = :expected")
+    int updateStatus(@Param("ids") Collection<UUID> ids,
+            @Param("expected") PaymentStatus expected,
+            @Param("target") PaymentStatus target);
 }
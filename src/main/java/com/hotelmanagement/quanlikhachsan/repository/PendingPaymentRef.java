@@ -0,0 +1,23 @@
+package com.hotelmanagement.quanlikhachsan.repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A pending payment and the Stripe object that will settle it.
+ */
+public interface PendingPaymentRef {
+
+    UUID getId();
+
+    UUID getReservationId();
+
+    String getMethod();
+
+    String getStripeSessionId();
+
+    // PaymentIntent id
+    String getTransactionCode();
+
+    LocalDateTime getPaymentDate();
+}
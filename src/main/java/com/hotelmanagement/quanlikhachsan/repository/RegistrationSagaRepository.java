@@ -0,0 +1,33 @@
+package com.hotelmanagement.quanlikhachsan.repository;
+
+import com.hotelmanagement.quanlikhachsan.model.auth.RegistrationSaga;
+import com.hotelmanagement.quanlikhachsan.model.auth.RegistrationSagaStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface RegistrationSagaRepository extends JpaRepository<RegistrationSaga, UUID> {
+
+    boolean existsByEmailAndStatusIn(String email, Collection<RegistrationSagaStatus> statuses);
+
+    /**
+     * Lock due sagas for the calling transaction. Rows locked by another
+     * worker are skipped rather than waited on.
+     */
+    @Query(value = """
+            SELECT * FROM registration_sagas
+            WHERE status IN ('PENDING', 'KEYCLOAK_CREATED', 'COMPENSATING')
+              AND next_attempt_at <= :now
+            ORDER BY next_attempt_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<RegistrationSaga> lockDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
@@ -2,12 +2,15 @@ package com.hotelmanagement.quanlikhachsan.repository;
 
 import com.hotelmanagement.quanlikhachsan.model.reservation.Reservation;
 import com.hotelmanagement.quanlikhachsan.model.reservation.ReservationStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -34,5 +37,34 @@ public interface ReservationRepository extends JpaRepository<Reservation, UUID>
                         @Param("checkIn") LocalDate checkIn,
                         @Param("checkOut") LocalDate checkOut);
 
+        /**
+         * One keyset page of reservations arriving on a date, with the guest's
+         * contact details joined in. Pass the last id of the previous page, or
+         * the nil UUID for the first.
+         */
+        @Query("SELECT r.id AS reservationId, r.checkIn AS checkIn, r.checkOut AS checkOut, " +
+                        "g.email AS email, g.fullName AS fullName " +
+                        "FROM Reservation r JOIN r.guest g " +
+                        "WHERE r.status = :status AND r.checkIn = :checkIn AND r.id > :afterId " +
+                        "ORDER BY r.id")
+        List<UpcomingArrival> findArrivalsAfter(
+                        @Param("status") ReservationStatus status,
+                        @Param("checkIn") LocalDate checkIn,
+                        @Param("afterId") UUID afterId,
+                        Limit limit);
+
+        @Query("SELECT r.id FROM Reservation r WHERE r.id IN :ids AND r.status = :status")
+        List<UUID> findIdsByIdInAndStatus(@Param("ids") Collection<UUID> ids,
+                        @Param("status") ReservationStatus status);
+
+        /**
+         * Move reservations still in {@code expected} to {@code target}; others are left as they are.
+         */
+        @Modifying
+        @Query("UPDATE Reservation r SET r.status = :target WHERE r.id IN :ids AND r.status = :expected")
+        int updateStatus(@Param("ids") Collection<UUID> ids,
+                        @Param("expected") ReservationStatus expected,
+                        @Param("target") ReservationStatus target);
+
         void deleteById(UUID keycloakUserId);
 }
@@ -7,6 +7,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -17,6 +18,18 @@ public interface ReservationRoomRepository extends JpaRepository<ReservationRoom
 
     List<ReservationRoom> findByRoomId(String roomId);
 
+    /**
+     * Rooms of several reservations in one query, for bulk emails.
+     */
+    @Query("""
+            SELECT rr.reservation.id AS reservationId, rm.roomNumber AS roomNumber, t.name AS roomType
+            FROM ReservationRoom rr
+            JOIN rr.room rm
+            LEFT JOIN rm.type t
+            WHERE rr.reservation.id IN :reservationIds
+            """)
+    List<ReservedRoom> findRoomsByReservationIds(@Param("reservationIds") Collection<UUID> reservationIds);
+
     void deleteByReservationIdAndRoomId(UUID reservationId, String roomId);
 
     boolean existsByReservationIdAndRoomId(UUID reservationId, String roomId);
@@ -0,0 +1,15 @@
+package com.hotelmanagement.quanlikhachsan.repository;
+
+import java.util.UUID;
+
+/**
+ * A room on a reservation, as shown in guest emails.
+ */
+public interface ReservedRoom {
+
+    UUID getReservationId();
+
+    String getRoomNumber();
+
+    String getRoomType();
+}
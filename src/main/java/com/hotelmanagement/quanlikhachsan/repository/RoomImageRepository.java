@@ -1,8 +1,13 @@
 package com.hotelmanagement.quanlikhachsan.repository;
 
 import com.hotelmanagement.quanlikhachsan.model.room.RoomImage;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -32,4 +37,24 @@ public interface RoomImageRepository extends JpaRepository<RoomImage, String> {
      * @param roomId the room ID
      */
     void deleteByRoomId(String roomId);
+
+    /**
+     * Ids of images the derivative pipeline has not handled yet, oldest first.
+     */
+    @Query("SELECT i.id FROM RoomImage i WHERE i.thumbnailUrl IS NULL ORDER BY i.createdAt")
+    List<String> findIdsWithoutVariants(Limit limit);
+
+    /**
+     * Record the variant URLs of an image without touching its other columns.
+     *
+     * @return 1 if updated, 0 if the image was deleted meanwhile
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE RoomImage i SET i.thumbnailUrl = :thumbnailUrl, i.cardUrl = :cardUrl, i.fullUrl = :fullUrl
+            WHERE i.id = :id
+            """)
+    int updateVariants(@Param("id") String id, @Param("thumbnailUrl") String thumbnailUrl,
+            @Param("cardUrl") String cardUrl, @Param("fullUrl") String fullUrl);
 }
@@ -3,8 +3,10 @@ package com.hotelmanagement.quanlikhachsan.repository;
 import com.hotelmanagement.quanlikhachsan.model.room.Room;
 import com.hotelmanagement.quanlikhachsan.model.room.RoomStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,4 +22,11 @@ public interface RoomRepository extends JpaRepository<Room, String> {
     List<Room> findAllByStatusName(String statusName);
 
     boolean existsByRoomNumber(String roomNumber);
+
+    /**
+     * Latest modification time across all rooms, used to seed the catalog
+     * Last-Modified stamp on startup.
+     */
+    @Query("SELECT MAX(r.updatedAt) FROM Room r")
+    Optional<LocalDateTime> findLatestUpdatedAt();
 }
@@ -0,0 +1,65 @@
+package com.hotelmanagement.quanlikhachsan.repository;
+
+import com.hotelmanagement.quanlikhachsan.model.storage.StoredBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StoredBlobRepository extends JpaRepository<StoredBlob, String> {
+
+    /**
+     * Add a reference to the blob, creating it on first upload. The row stays
+     * locked until the calling transaction ends, so a concurrent purge of the
+     * same blob waits for it.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO stored_blobs (digest, filename, size_bytes, content_type, ref_count, created_at)
+            VALUES (:digest, :filename, :sizeBytes, :contentType, 1, :createdAt)
+            ON CONFLICT (digest) DO UPDATE SET ref_count = stored_blobs.ref_count + 1
+            """, nativeQuery = true)
+    int acquire(@Param("digest") String digest, @Param("filename") String filename,
+            @Param("sizeBytes") long sizeBytes, @Param("contentType") String contentType,
+            @Param("createdAt") LocalDateTime createdAt);
+
+    /**
+     * Drop a reference to the blob.
+     *
+     * @return 1 if released, 0 if the blob is unknown or already unreferenced
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE stored_blobs SET ref_count = ref_count - 1 WHERE digest = :digest AND ref_count > 0",
+            nativeQuery = true)
+    int release(@Param("digest") String digest);
+
+    @Query(value = "SELECT filename FROM stored_blobs WHERE digest = :digest", nativeQuery = true)
+    Optional<String> findFilename(@Param("digest") String digest);
+
+    @Query(value = "SELECT ref_count FROM stored_blobs WHERE digest = :digest", nativeQuery = true)
+    Optional<Integer> findRefCount(@Param("digest") String digest);
+
+    /**
+     * Lock the blob for the calling transaction if nothing references it.
+     */
+    @Query(value = "SELECT * FROM stored_blobs WHERE digest = :digest AND ref_count = 0 FOR UPDATE",
+            nativeQuery = true)
+    Optional<StoredBlob> lockUnreferenced(@Param("digest") String digest);
+
+    /**
+     * Lock unreferenced blobs for the calling transaction, skipping ones
+     * locked by an upload or another purge.
+     */
+    @Query(value = "SELECT * FROM stored_blobs WHERE ref_count = 0 LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<StoredBlob> lockAllUnreferenced(@Param("limit") int limit);
+}
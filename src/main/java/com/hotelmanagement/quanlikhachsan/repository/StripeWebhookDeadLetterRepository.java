@@ -0,0 +1,9 @@
+package com.hotelmanagement.quanlikhachsan.repository;
+
+import com.hotelmanagement.quanlikhachsan.model.payment.StripeWebhookDeadLetter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StripeWebhookDeadLetterRepository extends JpaRepository<StripeWebhookDeadLetter, String> {
+}
@@ -0,0 +1,56 @@
+package com.hotelmanagement.quanlikhachsan.repository;
+
+import com.hotelmanagement.quanlikhachsan.model.payment.StripeWebhookEvent;
+import com.hotelmanagement.quanlikhachsan.model.payment.StripeWebhookEventStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StripeWebhookEventRepository extends JpaRepository<StripeWebhookEvent, String> {
+
+    /**
+     * Store a received event unless it is already stored.
+     *
+     * @return 1 if stored, 0 for a redelivery
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO stripe_webhook_events (id, type, ordering_key, payload, status, attempts,
+                                               next_attempt_at, received_at)
+            VALUES (:id, :type, :orderingKey, :payload, 'PENDING', 0, :receivedAt, :receivedAt)
+            ON CONFLICT (id) DO NOTHING
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("id") String id, @Param("type") String type, @Param("orderingKey") String orderingKey,
+            @Param("payload") String payload, @Param("receivedAt") LocalDateTime receivedAt);
+
+    /**
+     * Lock due events for the calling transaction, only the oldest pending
+     * event per ordering key, so events for one reservation are never
+     * processed concurrently or out of order. Rows locked by another worker
+     * are skipped rather than waited on.
+     */
+    @Query(value = """
+            SELECT * FROM stripe_webhook_events e
+            WHERE e.status = 'PENDING'
+              AND e.next_attempt_at <= :now
+              AND NOT EXISTS (
+                  SELECT 1 FROM stripe_webhook_events earlier
+                  WHERE earlier.ordering_key = e.ordering_key
+                    AND earlier.status = 'PENDING'
+                    AND (earlier.received_at, earlier.id) < (e.received_at, e.id))
+            ORDER BY e.received_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<StripeWebhookEvent> lockDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    long deleteByStatusAndProcessedAtBefore(StripeWebhookEventStatus status, LocalDateTime cutoff);
+}
@@ -0,0 +1,20 @@
+package com.hotelmanagement.quanlikhachsan.repository;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Reservation and guest contact details needed for a pre-arrival email.
+ */
+public interface UpcomingArrival {
+
+    UUID getReservationId();
+
+    LocalDate getCheckIn();
+
+    LocalDate getCheckOut();
+
+    String getEmail();
+
+    String getFullName();
+}
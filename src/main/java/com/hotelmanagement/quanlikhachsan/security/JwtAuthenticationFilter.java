@@ -1,5 +1,6 @@
 package com.hotelmanagement.quanlikhachsan.security;
 
+import com.hotelmanagement.quanlikhachsan.services.auth.TokenRevocationService;
 import com.hotelmanagement.quanlikhachsan.util.JwtUtil;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -8,6 +9,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -25,7 +27,10 @@ import java.util.Collections;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
+    private final KeycloakTokenVerifier keycloakTokenVerifier;
+    private final TokenRevocationService tokenRevocationService;
     private static final String JWT_COOKIE_NAME = "jwt";
+    private static final String BEARER_PREFIX = "Bearer ";
 
     @Override
     protected void doFilterInternal(
@@ -36,18 +41,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = extractJwtFromCookie(request);
 
-            if (jwt != null && jwtUtil.isTokenValid(jwt) && !jwtUtil.isTokenExpired(jwt)) {
-                String email = jwtUtil.extractEmail(jwt);
-                String role = jwtUtil.extractRole(jwt);
-
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                        email,
-                        null,
-                        Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role)));
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-
-                log.debug("Authenticated user: {} with role: {}", email, role);
+            if (jwt != null) {
+                // Single verification per request; repeat tokens hit JwtUtil's claims cache.
+                // The revocation check is a Bloom filter probe unless the token may be revoked.
+                jwtUtil.verify(jwt)
+                        .filter(claims -> !tokenRevocationService.isRevoked(claims.tokenId()))
+                        .ifPresent(claims -> authenticate(request, claims.email(), claims.role()));
+            } else {
+                // API clients may present a Keycloak access token directly. These are not in the
+                // revocation list: logout only revokes our own JWTs, so a bearer token stays valid
+                // until it expires or its Keycloak session is ended.
+                String bearer = extractBearerToken(request);
+                if (bearer != null) {
+                    // The principal is looked up by email everywhere, so a token without one is useless
+                    keycloakTokenVerifier.verify(bearer)
+                            .filter(claims -> claims.email() != null)
+                            .ifPresent(claims -> authenticate(request, claims.email(), claims.role()));
+                }
             }
         } catch (Exception e) {
             log.error("Cannot set user authentication: {}", e.getMessage());
@@ -56,6 +66,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private void authenticate(HttpServletRequest request, String principal, String role) {
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                principal,
+                null,
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role)));
+        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+        log.debug("Authenticated user: {} with role: {}", principal, role);
+    }
+
+    private String extractBearerToken(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            return header.substring(BEARER_PREFIX.length()).trim();
+        }
+        return null;
+    }
+
     private String extractJwtFromCookie(HttpServletRequest request) {
         Cookie[] cookies = request.getCookies();
         if (cookies != null) {
@@ -0,0 +1,42 @@
+package com.hotelmanagement.quanlikhachsan.security;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Verified claims of a Keycloak-issued access token.
+ */
+public record KeycloakTokenClaims(
+        String userId,
+        String email,
+        String firstName,
+        String lastName,
+        List<String> realmRoles,
+        Instant expiresAt) {
+
+    /**
+     * Application role derived from realm roles (ADMIN > STAFF > USER)
+     */
+    public String role() {
+        return highestRole(realmRoles);
+    }
+
+    public String fullName() {
+        String fullName = ((firstName != null ? firstName : "") + " " + (lastName != null ? lastName : "")).trim();
+        return fullName.isEmpty() ? "User" : fullName;
+    }
+
+    /**
+     * Map upper-cased Keycloak realm roles to the single application role.
+     */
+    public static String highestRole(Collection<String> roles) {
+        if (roles.contains("ADMIN")) {
+            return "ADMIN";
+        }
+        if (roles.contains("STAFF")) {
+            return "STAFF";
+        }
+        return "USER";
+    }
+}
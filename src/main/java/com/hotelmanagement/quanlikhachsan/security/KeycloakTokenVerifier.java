@@ -0,0 +1,196 @@
+package com.hotelmanagement.quanlikhachsan.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.JwkSet;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PublicJwk;
+import io.jsonwebtoken.security.UnsupportedKeyException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.Key;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Verifies Keycloak access tokens locally against the realm JWKS.
+ *
+ * Signing keys are fetched on first use and cached by key id. A token
+ * signed with an unknown kid triggers a refresh (key rotation), limited to
+ * one fetch per {@link #MIN_REFRESH_INTERVAL} so garbage tokens cannot
+ * hammer Keycloak.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class KeycloakTokenVerifier {
+
+    private static final Duration MIN_REFRESH_INTERVAL = Duration.ofSeconds(30);
+    private static final Duration JWKS_REQUEST_TIMEOUT = Duration.ofSeconds(5);
+
+    private final HttpClient keycloakHttpClient;
+
+    @Value("${keycloak.auth-server-url}")
+    private String authServerUrl;
+
+    @Value("${keycloak.realm}")
+    private String realm;
+
+    @Value("${keycloak.resource}")
+    private String clientId;
+
+    // Optional: the public issuer URL can differ from auth-server-url behind a proxy;
+    // when empty the issuer is auth-server-url/realms/<realm>
+    @Value("${keycloak.issuer:}")
+    private String issuer;
+
+    private volatile Map<String, Key> signingKeys = Map.of();
+    private volatile long lastRefreshNanos;
+    private final Object refreshLock = new Object();
+
+    private final JwtParser parser = Jwts.parser()
+            .keyLocator(new LocatorAdapter<Key>() {
+                @Override
+                protected Key locate(JwsHeader header) {
+                    return findSigningKey(header.getKeyId());
+                }
+            })
+            .clockSkewSeconds(30)
+            .build();
+
+    /**
+     * Verify signature, expiry, client and issuer of a Keycloak access token.
+     *
+     * @return claims, or empty if the token is not a valid access token for this client
+     */
+    public Optional<KeycloakTokenClaims> verify(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+
+        try {
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+
+            if (claims.getExpiration() == null || !"Bearer".equals(claims.get("typ", String.class))) {
+                log.debug("Rejected Keycloak token with typ {}", claims.get("typ"));
+                return Optional.empty();
+            }
+            String azp = claims.get("azp", String.class);
+            Set<String> audience = claims.getAudience();
+            if (!clientId.equals(azp) && (audience == null || !audience.contains(clientId))) {
+                log.debug("Rejected Keycloak token issued to client {}", azp);
+                return Optional.empty();
+            }
+            if (!expectedIssuer().equals(claims.getIssuer())) {
+                log.debug("Rejected Keycloak token from issuer {}", claims.getIssuer());
+                return Optional.empty();
+            }
+
+            return Optional.of(new KeycloakTokenClaims(
+                    claims.getSubject(),
+                    claims.get("email", String.class),
+                    claims.get("given_name", String.class),
+                    claims.get("family_name", String.class),
+                    realmRoles(claims),
+                    claims.getExpiration().toInstant()));
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Rejected Keycloak token: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private String expectedIssuer() {
+        if (!issuer.isBlank()) {
+            return issuer;
+        }
+        String base = authServerUrl.endsWith("/")
+                ? authServerUrl.substring(0, authServerUrl.length() - 1)
+                : authServerUrl;
+        return base + "/realms/" + realm;
+    }
+
+    private Key findSigningKey(String keyId) {
+        if (keyId == null) {
+            throw new UnsupportedKeyException("Token has no key id");
+        }
+        Key key = signingKeys.get(keyId);
+        if (key == null) {
+            refreshSigningKeys(keyId);
+            key = signingKeys.get(keyId);
+        }
+        if (key == null) {
+            throw new UnsupportedKeyException("Unknown signing key id: " + keyId);
+        }
+        return key;
+    }
+
+    private void refreshSigningKeys(String wantedKeyId) {
+        synchronized (refreshLock) {
+            // Another thread may have fetched it while we waited
+            if (signingKeys.containsKey(wantedKeyId)) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (lastRefreshNanos != 0 && now - lastRefreshNanos < MIN_REFRESH_INTERVAL.toNanos()) {
+                return;
+            }
+            lastRefreshNanos = now;
+
+            try {
+                HttpRequest request = HttpRequest.newBuilder()
+                        .uri(URI.create(authServerUrl + "/realms/" + realm + "/protocol/openid-connect/certs"))
+                        .timeout(JWKS_REQUEST_TIMEOUT)
+                        .GET()
+                        .build();
+                HttpResponse<String> response = keycloakHttpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() != 200) {
+                    log.warn("JWKS fetch returned status {}", response.statusCode());
+                    return;
+                }
+
+                JwkSet jwkSet = Jwks.setParser().build().parse(response.body());
+                Map<String, Key> keys = new HashMap<>();
+                jwkSet.getKeys().forEach(jwk -> {
+                    // Keycloak also publishes encryption keys; only signature keys matter here
+                    if (jwk instanceof PublicJwk<?> publicJwk && !"enc".equals(publicJwk.getPublicKeyUse())
+                            && jwk.getId() != null) {
+                        keys.put(jwk.getId(), publicJwk.toKey());
+                    }
+                });
+                signingKeys = Map.copyOf(keys);
+                log.info("Loaded {} Keycloak signing keys for realm {}", keys.size(), realm);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.warn("Failed to refresh Keycloak JWKS: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static List<String> realmRoles(Claims claims) {
+        Object realmAccess = claims.get("realm_access");
+        if (realmAccess instanceof Map<?, ?> access && access.get("roles") instanceof Collection<?> roles) {
+            return roles.stream()
+                    .map(role -> String.valueOf(role).toUpperCase(Locale.ROOT))
+                    .toList();
+        }
+        return List.of();
+    }
+}
@@ -0,0 +1,53 @@
+package com.hotelmanagement.quanlikhachsan.security.ratelimit;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Applies the IP and USER limits of {@link RateLimited} handlers before they
+ * run. EMAIL limits need the request body and are applied by
+ * {@link RateLimitedBodyAdvice} once it is read.
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final RateLimiter rateLimiter;
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+            @NonNull Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        for (RateLimited limit : AnnotatedElementUtils.findMergedRepeatableAnnotations(handlerMethod.getMethod(),
+                RateLimited.class)) {
+            switch (limit.key()) {
+                case IP -> rateLimiter.acquire(limit, request.getRemoteAddr());
+                case USER -> rateLimiter.acquire(limit, userKey(request));
+                case EMAIL -> {
+                    // Applied after the body is read
+                }
+            }
+        }
+        return true;
+    }
+
+    private static String userKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return "ip:" + request.getRemoteAddr();
+        }
+        return "user:" + authentication.getName();
+    }
+}
@@ -0,0 +1,13 @@
+package com.hotelmanagement.quanlikhachsan.security.ratelimit;
+
+/**
+ * What a {@link RateLimited} bucket is kept per.
+ */
+public enum RateLimitKey {
+    // Client address as resolved by server.forward-headers-strategy
+    IP,
+    // Authenticated user; anonymous requests fall back to IP
+    USER,
+    // The email field of the request body, lower-cased
+    EMAIL
+}
@@ -0,0 +1,41 @@
+package com.hotelmanagement.quanlikhachsan.security.ratelimit;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Limit how often a controller method may be called, with a token bucket per
+ * policy and key shared by all nodes through Redis.
+ *
+ * The bucket size and refill come only from
+ * {@code rate-limit.policies.<policy>.capacity} and {@code .refill-per-minute};
+ * a policy missing there is a configuration error. Requests over the limit get
+ * 429 with a Retry-After header.
+ *
+ * <pre>
+ * &#64;RateLimited(policy = "login", key = RateLimitKey.IP)
+ * &#64;RateLimited(policy = "login-email", key = RateLimitKey.EMAIL)
+ * &#64;PostMapping("/login")
+ * </pre>
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Repeatable(RateLimited.List.class)
+public @interface RateLimited {
+
+    String policy();
+
+    RateLimitKey key() default RateLimitKey.IP;
+
+    @Target(ElementType.METHOD)
+    @Retention(RetentionPolicy.RUNTIME)
+    @Documented
+    @interface List {
+        RateLimited[] value();
+    }
+}
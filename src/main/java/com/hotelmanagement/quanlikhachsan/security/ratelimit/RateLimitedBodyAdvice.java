@@ -0,0 +1,70 @@
+package com.hotelmanagement.quanlikhachsan.security.ratelimit;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.lang.NonNull;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.util.Locale;
+
+/**
+ * Applies the EMAIL limits of {@link RateLimited} handlers to the email
+ * field of the request body, before validation and the handler run.
+ */
+@ControllerAdvice
+@RequiredArgsConstructor
+public class RateLimitedBodyAdvice extends RequestBodyAdviceAdapter {
+
+    private final RateLimiter rateLimiter;
+
+    @Override
+    public boolean supports(@NonNull MethodParameter methodParameter, @NonNull Type targetType,
+            @NonNull Class<? extends HttpMessageConverter<?>> converterType) {
+        return methodParameter.getMethod() != null
+                && AnnotatedElementUtils.findMergedRepeatableAnnotations(methodParameter.getMethod(), RateLimited.class)
+                        .stream().anyMatch(limit -> limit.key() == RateLimitKey.EMAIL);
+    }
+
+    @Override
+    @NonNull
+    public Object afterBodyRead(@NonNull Object body, @NonNull HttpInputMessage inputMessage,
+            @NonNull MethodParameter parameter, @NonNull Type targetType,
+            @NonNull Class<? extends HttpMessageConverter<?>> converterType) {
+        String email = email(body);
+        if (email != null) {
+            for (RateLimited limit : AnnotatedElementUtils.findMergedRepeatableAnnotations(parameter.getMethod(),
+                    RateLimited.class)) {
+                if (limit.key() == RateLimitKey.EMAIL) {
+                    rateLimiter.acquire(limit, email);
+                }
+            }
+        }
+        return body;
+    }
+
+    /**
+     * The {@code email} component of a request record; a blank one is left to validation.
+     */
+    static String email(Object body) {
+        if (!body.getClass().isRecord()) {
+            return null;
+        }
+        for (RecordComponent component : body.getClass().getRecordComponents()) {
+            if (component.getName().equals("email") && component.getType() == String.class) {
+                try {
+                    String email = (String) component.getAccessor().invoke(body);
+                    return email == null || email.isBlank() ? null : email.trim().toLowerCase(Locale.ROOT);
+                } catch (ReflectiveOperationException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+}
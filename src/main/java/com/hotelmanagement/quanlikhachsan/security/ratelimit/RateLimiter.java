@@ -0,0 +1,119 @@
+package com.hotelmanagement.quanlikhachsan.security.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hotelmanagement.quanlikhachsan.exception.ErrorDefinition;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Token buckets in Redis, one per policy and key.
+ *
+ * Refill and take run in one Lua script (src/main/resources/redis), so a
+ * check is a single round trip and concurrent requests on any node cannot
+ * take the same token. A policy with {@code local-batch} above 1 takes that
+ * many tokens at once and hands them out from memory for up to
+ * {@code local-ttl-ms}; this absorbs bursts on hot keys at the cost of
+ * precision, so keep it at 1 for strict limits like login.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RateLimiter {
+
+    private static final String KEY_PREFIX = "ratelimit:";
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> TOKEN_BUCKET_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/rate-limit.lua"), List.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rate-limit.local-ttl-ms:1000}")
+    private long localTtlMillis;
+
+    // Tokens taken from Redis but not yet used; unused ones lapse with the entry
+    private Cache<String, AtomicInteger> localTokens;
+
+    @PostConstruct
+    void init() {
+        localTokens = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofMillis(localTtlMillis))
+                .build();
+    }
+
+    /**
+     * Take a token for the key, or fail with RATE_LIMITED carrying the
+     * seconds until one is available.
+     */
+    public void acquire(RateLimited limit, String key) {
+        if (!enabled) {
+            return;
+        }
+        String policy = limit.policy();
+        String bucketKey = KEY_PREFIX + policy + ":" + key;
+
+        AtomicInteger cached = localTokens.getIfPresent(bucketKey);
+        if (cached != null && cached.getAndDecrement() > 0) {
+            return;
+        }
+
+        int capacity = setting(policy, "capacity");
+        int refillPerMinute = setting(policy, "refill-per-minute");
+        int batch = Math.min(capacity, Math.max(1, environment.getProperty(
+                "rate-limit.policies." + policy + ".local-batch", Integer.class, 1)));
+
+        List<?> result;
+        try {
+            result = stringRedisTemplate.execute(TOKEN_BUCKET_SCRIPT, List.of(bucketKey),
+                    String.valueOf(capacity),
+                    String.valueOf(refillPerMinute / (double) TimeUnit.MINUTES.toMillis(1)),
+                    String.valueOf(System.currentTimeMillis()),
+                    String.valueOf(batch));
+        } catch (Exception e) {
+            // Failing closed would turn a Redis outage into a login outage
+            log.warn("Rate limit check for {} skipped, Redis unavailable: {}", policy, e.getMessage());
+            return;
+        }
+        if (result == null || result.size() < 2) {
+            throw new IllegalStateException("Unexpected rate limit script result: " + result);
+        }
+
+        long granted = ((Number) result.get(0)).longValue();
+        if (granted > 1) {
+            localTokens.put(bucketKey, new AtomicInteger((int) granted - 1));
+        }
+        if (granted > 0) {
+            return;
+        }
+
+        long waitMillis = ((Number) result.get(1)).longValue();
+        long retryAfterSeconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(waitMillis + 999));
+        meterRegistry.counter("ratelimit.rejected", "policy", policy).increment();
+        log.warn("Rate limit {} exceeded for {}", policy, key);
+        throw ErrorDefinition.RATE_LIMITED.toAppError().withDetail("retryAfterSeconds", retryAfterSeconds);
+    }
+
+    private int setting(String policy, String name) {
+        return environment.getRequiredProperty("rate-limit.policies." + policy + "." + name, Integer.class);
+    }
+}
@@ -1,31 +1,90 @@
 package com.hotelmanagement.quanlikhachsan.services;
 
+import com.hotelmanagement.quanlikhachsan.model.storage.StoredBlob;
+import com.hotelmanagement.quanlikhachsan.repository.StoredBlobRepository;
+import com.hotelmanagement.quanlikhachsan.services.storage.ObjectStorage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
-import java.util.UUID;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.regex.Pattern;
 
 /**
  * Service for handling file storage operations.
- * Stores files locally on the server.
+ * Files are kept in the configured {@link ObjectStorage}: the upload
+ * directory of this node, or a bucket shared by all nodes. Uploads are
+ * staged in the upload directory either way.
+ *
+ * Uploads are content-addressed: each is hashed while it streams to a
+ * temporary file and kept once under its SHA-256 digest, however many room
+ * images use it. The stored_blobs table counts the references; a blob and
+ * its derivatives are removed once the count drops to zero. A stored file
+ * never changes, so its URL can be cached as immutable.
  */
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class FileStorageService {
 
+    private static final String URL_PATH = "/uploads/room-images/";
+    private static final Pattern DIGEST = Pattern.compile("[0-9a-f]{64}");
+    private static final Pattern EXTENSION = Pattern.compile("\\.[a-z0-9]{1,5}");
+
+    private final StoredBlobRepository storedBlobRepository;
+    private final ObjectStorage objectStorage;
+    private final TransactionTemplate transactionTemplate;
+
     @Value("${file.upload-dir:uploads/room-images}")
     private String uploadDir;
 
     @Value("${file.base-url:http://localhost:8080}")
     private String baseUrl;
 
+    @Value("${file.blob-sweep-batch-size:100}")
+    private int blobSweepBatchSize;
+
+    @Value("${file.upload-parallelism:4}")
+    private int uploadParallelism;
+
+    // Uploads block on the request body and the disk, so one virtual thread per file
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private Semaphore uploadPermits;
+
+    @PostConstruct
+    void initPermits() {
+        uploadPermits = new Semaphore(uploadParallelism);
+    }
+
     /**
      * Initialize storage directory on startup.
      */
@@ -42,37 +101,289 @@ public class FileStorageService {
     }
 
     /**
-     * Store a file and return its URL.
+     * An upload written to a temporary file in the upload directory, with
+     * the digest of its content.
+     */
+    public record StagedFile(Path tempFile, String digest, String filename, long size, String contentType) {
+    }
+
+    /**
+     * Store a file and return its URL. Content already stored is not written
+     * again; the existing blob gains a reference instead.
      *
      * @param file the file to store
      * @return the URL to access the stored file
      */
     public String storeFile(MultipartFile file) {
+        return store(stage(List.of(file))).get(0);
+    }
+
+    /**
+     * Stream uploads to temporary files in parallel, hashing each on the way.
+     * Meant to run before a transaction opens, so a slow upload does not hold
+     * a connection; the files are not visible until {@link #store} commits.
+     *
+     * @param files the uploads
+     * @return the staged files, in the order given
+     */
+    public List<StagedFile> stage(List<MultipartFile> files) {
         init(); // Ensure directory exists
 
+        List<Future<StagedFile>> futures = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            futures.add(executor.submit(() -> {
+                uploadPermits.acquire();
+                try {
+                    return stage(file);
+                } finally {
+                    uploadPermits.release();
+                }
+            }));
+        }
+
+        List<StagedFile> staged = new ArrayList<>(files.size());
+        Throwable failure = null;
+        for (Future<StagedFile> future : futures) {
+            try {
+                staged.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = e;
+            } catch (ExecutionException e) {
+                failure = failure != null ? failure : e.getCause();
+            }
+        }
+        if (failure != null) {
+            discard(staged);
+            log.error("Failed to store file", failure);
+            throw new RuntimeException("Failed to store file: " + failure.getMessage(), failure);
+        }
+        return staged;
+    }
+
+    private StagedFile stage(MultipartFile file) throws IOException, NoSuchAlgorithmException {
+        Path tempFile = Files.createTempFile(Paths.get(uploadDir), ".upload-", ".tmp");
         try {
-            // Generate unique filename
-            String originalFilename = file.getOriginalFilename();
-            String extension = "";
-            if (originalFilename != null && originalFilename.contains(".")) {
-                extension = originalFilename.substring(originalFilename.lastIndexOf("."));
+            // Hash while copying, so the upload is read only once
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            long size;
+            try (InputStream input = new DigestInputStream(file.getInputStream(), sha256)) {
+                size = Files.copy(input, tempFile, StandardCopyOption.REPLACE_EXISTING);
             }
-            String filename = UUID.randomUUID().toString() + extension;
+            String digest = HexFormat.of().formatHex(sha256.digest());
+            return new StagedFile(tempFile, digest, digest + extension(file.getOriginalFilename()), size,
+                    file.getContentType());
+        } catch (IOException | NoSuchAlgorithmException | RuntimeException e) {
+            deleteQuietly(tempFile);
+            throw e;
+        }
+    }
+
+    /**
+     * Add a reference to the blob of each staged file in the current
+     * transaction. The files are moved into place once it commits and
+     * deleted if it rolls back; without a transaction they are moved at once.
+     *
+     * @param staged the staged files
+     * @return the URL of each file, in the order given
+     */
+    public List<String> store(List<StagedFile> staged) {
+        List<String> urls = new ArrayList<>(staged.size());
+        List<String> targets = new ArrayList<>(staged.size());
+        for (StagedFile file : staged) {
+            storedBlobRepository.acquire(file.digest(), file.filename(), file.size(), file.contentType(),
+                    LocalDateTime.now());
+            // The first upload's name is kept; a later one may carry another extension
+            String filename = storedBlobRepository.findFilename(file.digest())
+                    .orElseThrow(() -> new IllegalStateException("Stored blob not found: " + file.digest()));
+            targets.add(filename);
+            urls.add(urlOf(filename));
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            moveIntoPlace(staged, targets);
+            return urls;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                moveIntoPlace(staged, targets);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                // After commit only duplicates of stored content are left
+                discard(staged);
+            }
+
+            @Override
+            public int getOrder() {
+                // Before the after-commit listeners, which hand the new images to the derivative workers
+                return Ordered.HIGHEST_PRECEDENCE;
+            }
+        });
+        return urls;
+    }
+
+    private void moveIntoPlace(List<StagedFile> staged, List<String> targets) {
+        for (int i = 0; i < staged.size(); i++) {
+            StagedFile file = staged.get(i);
+            String target = targets.get(i);
+            try {
+                if (objectStorage.exists(target)) {
+                    log.info("Reused stored file: {}", target);
+                    continue;
+                }
+                objectStorage.put(target, file.tempFile(), file.contentType());
+                log.info("Stored file: {}", target);
+            } catch (IOException e) {
+                // Committed already; a later upload of the same content writes it again
+                log.error("Failed to move {} into place", target, e);
+            }
+        }
+        discard(staged);
+    }
+
+    /**
+     * Delete the temporary files of staged uploads that were not stored.
+     *
+     * @param staged the staged files
+     */
+    public void discard(List<StagedFile> staged) {
+        staged.forEach(file -> deleteQuietly(file.tempFile()));
+    }
+
+    /**
+     * Drop one reference to a stored file. Once nothing references it, the
+     * file and its derivatives are deleted after the surrounding transaction
+     * commits.
+     *
+     * @param fileUrl the file URL
+     */
+    public void release(String fileUrl) {
+        String filename = extractFilename(fileUrl);
+        if (filename == null) {
+            return;
+        }
+        String digest = digestOf(filename);
+        if (digest == null) {
+            // Stored before content addressing, under a name of its own
+            deleteFile(filename);
+            deleteDerivatives(baseName(filename));
+            return;
+        }
+        if (storedBlobRepository.release(digest) == 0
+                || storedBlobRepository.findRefCount(digest).orElse(-1) != 0) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    purge(digest);
+                }
+            });
+        } else {
+            purge(digest);
+        }
+    }
+
+    /**
+     * Delete the blob if it is still unreferenced; a failure is left to the
+     * sweep.
+     */
+    void purge(String digest) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    storedBlobRepository.lockUnreferenced(digest).ifPresent(this::deleteBlob));
+        } catch (Exception e) {
+            log.warn("Failed to delete unreferenced file {}: {}", digest, e.getMessage());
+        }
+    }
+
+    /**
+     * Delete blobs left unreferenced by a failed or interrupted purge.
+     */
+    @Scheduled(fixedDelayString = "${file.blob-sweep-interval-ms:3600000}")
+    public void purgeUnreferenced() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<StoredBlob> blobs = storedBlobRepository.lockAllUnreferenced(blobSweepBatchSize);
+                blobs.forEach(this::deleteBlob);
+                if (!blobs.isEmpty()) {
+                    log.info("Deleted {} unreferenced files", blobs.size());
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Failed to delete unreferenced files: {}", e.getMessage());
+        }
+    }
 
-            // Copy file to upload directory
-            Path targetLocation = Paths.get(uploadDir).resolve(filename);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+    // Runs under the row lock: an upload of the same content waits, then finds the file gone and writes it again
+    private void deleteBlob(StoredBlob blob) {
+        deleteFile(blob.getFilename());
+        deleteDerivatives(blob.getDigest());
+        storedBlobRepository.delete(blob);
+    }
 
-            log.info("Stored file: {}", filename);
+    /**
+     * Store content generated on the server, such as a resized image, under
+     * the given filename. The content is written to a temporary file and
+     * moved into place, so a reader never sees a partial file.
+     *
+     * @param filename the filename to store under
+     * @param content  the file content
+     * @return the URL to access the stored file
+     */
+    public String storeDerivative(String filename, byte[] content) {
+        try {
+            String contentType = MediaTypeFactory.getMediaType(filename).map(Object::toString).orElse(null);
+            objectStorage.put(filename, new ByteArrayInputStream(content), contentType);
 
-            // Return URL to access the file
-            return baseUrl + "/uploads/room-images/" + filename;
+            log.debug("Stored derivative: {}", filename);
+            return urlOf(filename);
         } catch (IOException e) {
-            log.error("Failed to store file", e);
+            log.error("Failed to store derivative {}", filename, e);
             throw new RuntimeException("Failed to store file: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Open a stored file for reading.
+     *
+     * @param filename the stored filename
+     * @return the file content; the caller closes it
+     * @throws java.nio.file.NoSuchFileException if the file is not stored
+     */
+    public InputStream open(String filename) throws IOException {
+        return objectStorage.read(filename);
+    }
+
+    /**
+     * Check whether a file is stored.
+     *
+     * @param filename the stored filename
+     * @return true if the file exists
+     */
+    public boolean exists(String filename) {
+        try {
+            return objectStorage.exists(filename);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Build the URL of a stored file.
+     *
+     * @param filename the stored filename
+     * @return the URL to access the file
+     */
+    public String urlOf(String filename) {
+        return baseUrl + URL_PATH + filename;
+    }
+
     /**
      * Delete a file by its filename.
      *
@@ -80,8 +391,7 @@ public class FileStorageService {
      */
     public void deleteFile(String filename) {
         try {
-            Path filePath = Paths.get(uploadDir).resolve(filename);
-            Files.deleteIfExists(filePath);
+            objectStorage.delete(filename);
             log.info("Deleted file: {}", filename);
         } catch (IOException e) {
             log.error("Failed to delete file: {}", filename, e);
@@ -89,6 +399,20 @@ public class FileStorageService {
         }
     }
 
+    /**
+     * Delete the files derived from a stored file, named after it with a
+     * suffix.
+     *
+     * @param baseName the stored filename without its extension
+     */
+    private void deleteDerivatives(String baseName) {
+        try {
+            objectStorage.deleteByPrefix(baseName + "-");
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to delete file: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Extract filename from URL.
      *
@@ -101,5 +425,44 @@ public class FileStorageService {
         }
         return fileUrl.substring(fileUrl.lastIndexOf("/") + 1);
     }
-}
 
+    /**
+     * The stored filename without its extension.
+     *
+     * @param filename the stored filename
+     * @return the digest for content-addressed files
+     */
+    public String baseName(String filename) {
+        int dot = filename.lastIndexOf('.');
+        return dot > 0 ? filename.substring(0, dot) : filename;
+    }
+
+    private String digestOf(String filename) {
+        String baseName = baseName(filename);
+        return DIGEST.matcher(baseName).matches() ? baseName : null;
+    }
+
+    private static String extension(String originalFilename) {
+        if (originalFilename == null || !originalFilename.contains(".")) {
+            return "";
+        }
+        String extension = originalFilename.substring(originalFilename.lastIndexOf(".")).toLowerCase(Locale.ROOT);
+        return EXTENSION.matcher(extension).matches() ? extension : "";
+    }
+
+    @PreDestroy
+    void shutdownExecutor() {
+        executor.close();
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete temporary file {}: {}", file, e.getMessage());
+        }
+    }
+}
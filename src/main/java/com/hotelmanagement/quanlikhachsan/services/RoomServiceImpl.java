@@ -16,11 +16,18 @@ import com.hotelmanagement.quanlikhachsan.repository.RoomImageRepository;
 import com.hotelmanagement.quanlikhachsan.repository.RoomRepository;
 import com.hotelmanagement.quanlikhachsan.repository.RoomStatusRepository;
 import com.hotelmanagement.quanlikhachsan.repository.RoomTypeRepository;
+import com.hotelmanagement.quanlikhachsan.services.FileStorageService.StagedFile;
+import com.hotelmanagement.quanlikhachsan.services.catalog.CatalogAggregate;
+import com.hotelmanagement.quanlikhachsan.services.catalog.CatalogChangedEvent;
+import com.hotelmanagement.quanlikhachsan.services.image.RoomImagesStoredEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.math.BigDecimal;
@@ -44,6 +51,8 @@ public class RoomServiceImpl implements IRoomService {
     private final RoomImageRepository roomImageRepository;
     private final RoomTypeRepository roomTypeRepository;
     private final RoomStatusRepository roomStatusRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
 
     /*
      * Return all rooms in hotel
@@ -83,14 +92,26 @@ public class RoomServiceImpl implements IRoomService {
      * Bước 1: Validate room number không trùng
      * Bước 2: Validate và set default status nếu null
      * Bước 3: Lưu Room entity trước để có room.id
-     * Bước 4: Xử lý vòng lặp ảnh - lưu từng file và tạo RoomImage
+     * Bước 4: Xử lý ảnh - ghi file tạm song song trước khi mở transaction,
+     * rồi lưu tất cả RoomImage bằng một batch INSERT
      */
     @Override
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public RoomResponse createRoom(RoomRequest request, MultipartFile[] images, List<String> imageOrder) {
         log.info("Creating room: {} with {} images", request.roomNumber(),
                 images != null ? images.length : 0);
 
+        // Slow uploads must not hold a connection; files go into place only on commit
+        List<StagedFile> staged = fileStorageService.stage(images != null ? List.of(images) : List.of());
+        try {
+            return transactionTemplate.execute(status -> saveNewRoom(request, staged));
+        } catch (RuntimeException e) {
+            fileStorageService.discard(staged);
+            throw e;
+        }
+    }
+
+    private RoomResponse saveNewRoom(RoomRequest request, List<StagedFile> staged) {
         // Bước 1: Validate room number
         if (roomRepository.existsByRoomNumber(request.roomNumber())) {
             throw ErrorDefinition.DUPLICATE_ID.toAppError()
@@ -129,33 +150,28 @@ public class RoomServiceImpl implements IRoomService {
         Room savedRoom = roomRepository.save(room);
         log.debug("Room saved with ID: {}", savedRoom.getId());
 
-        // Bước 6: Xử lý vòng lặp ảnh
-        if (images != null && images.length > 0) {
-            for (int i = 0; i < images.length; i++) {
-                MultipartFile imageFile = images[i];
-
-                // 3.1: Lưu file vào disk
-                String fileName = fileStorageService.storeFile(imageFile);
-                log.debug("Image file saved: {}", fileName);
+        // Bước 6: Xử lý ảnh
+        if (!staged.isEmpty()) {
+            // 6.1: Tham chiếu file đã ghi tạm; file được chuyển vào chỗ khi commit
+            List<String> imageUrls = fileStorageService.store(staged);
 
-                // 3.2: Tạo RoomImage entity
-                RoomImage roomImage = RoomImage.builder()
+            // 6.2: Tạo RoomImage entity
+            List<RoomImage> roomImages = new ArrayList<>(imageUrls.size());
+            for (int i = 0; i < imageUrls.size(); i++) {
+                roomImages.add(RoomImage.builder()
                         .room(savedRoom)
-                        .imageUrl("/uploads/" + fileName)
+                        .imageUrl(imageUrls.get(i))
                         .isPrimary(i == 0) // Ảnh đầu tiên là primary
                         .displayOrder((short) i)
-                        .build();
-
-                // 3.3: Lưu RoomImage vào database
-                roomImageRepository.save(roomImage);
-                log.debug("RoomImage saved for room: {}, order: {}", savedRoom.getId(), i);
+                        .build());
             }
 
-            // Refresh room để load images
-            savedRoom = roomRepository.findById(savedRoom.getId())
-                    .orElseThrow(() -> ErrorDefinition.ROOM_NOT_FOUND.toAppError());
+            // 6.3: Lưu RoomImage vào database
+            saveImages(savedRoom, roomImages);
+            log.debug("{} RoomImages saved for room: {}", roomImages.size(), savedRoom.getId());
         }
 
+        publishRoomsChanged();
         return roomMapper.toResponse(savedRoom);
     }
 
@@ -163,12 +179,22 @@ public class RoomServiceImpl implements IRoomService {
      * ✅ FLOW CHUẨN: Update room WITH new images
      */
     @Override
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public RoomResponse updateRoom(String roomId, RoomRequest request, MultipartFile[] newImages,
             List<String> imageOrder) {
         log.info("Updating room: {} with {} new images", roomId,
                 newImages != null ? newImages.length : 0);
 
+        List<StagedFile> staged = fileStorageService.stage(newImages != null ? List.of(newImages) : List.of());
+        try {
+            return transactionTemplate.execute(status -> saveRoomUpdate(roomId, request, staged));
+        } catch (RuntimeException e) {
+            fileStorageService.discard(staged);
+            throw e;
+        }
+    }
+
+    private RoomResponse saveRoomUpdate(String roomId, RoomRequest request, List<StagedFile> staged) {
         Room room = roomRepository.findById(roomId)
                 .orElseThrow(() -> ErrorDefinition.ROOM_NOT_FOUND.toAppError().withDetail("roomId", roomId));
 
@@ -189,33 +215,27 @@ public class RoomServiceImpl implements IRoomService {
         Room updatedRoom = roomRepository.save(room);
 
         // Add new images if provided
-        if (newImages != null && newImages.length > 0) {
+        if (!staged.isEmpty()) {
             // Get current max display order
             int currentMaxOrder = room.getImages().stream()
                     .mapToInt(RoomImage::getDisplayOrder)
                     .max()
                     .orElse(-1);
 
-            for (int i = 0; i < newImages.length; i++) {
-                MultipartFile imageFile = newImages[i];
-
-                String fileName = fileStorageService.storeFile(imageFile);
-
-                RoomImage roomImage = RoomImage.builder()
+            List<String> imageUrls = fileStorageService.store(staged);
+            List<RoomImage> roomImages = new ArrayList<>(imageUrls.size());
+            for (int i = 0; i < imageUrls.size(); i++) {
+                roomImages.add(RoomImage.builder()
                         .room(updatedRoom)
-                        .imageUrl("/uploads/" + fileName)
+                        .imageUrl(imageUrls.get(i))
                         .isPrimary(false) // Don't override existing primary
                         .displayOrder((short) (currentMaxOrder + i + 1))
-                        .build();
-
-                roomImageRepository.save(roomImage);
+                        .build());
             }
-
-            // Refresh to load new images
-            updatedRoom = roomRepository.findById(updatedRoom.getId())
-                    .orElseThrow(() -> ErrorDefinition.ROOM_NOT_FOUND.toAppError());
+            saveImages(updatedRoom, roomImages);
         }
 
+        publishRoomsChanged();
         return roomMapper.toResponse(updatedRoom);
     }
 
@@ -235,7 +255,9 @@ public class RoomServiceImpl implements IRoomService {
                     .withDetail("status", statusName);
         }
 
+        room.getImages().forEach(image -> fileStorageService.release(image.getImageUrl()));
         roomRepository.delete(room);
+        publishRoomsChanged();
     }
 
     @Override
@@ -314,6 +336,7 @@ public class RoomServiceImpl implements IRoomService {
                         .withDetail("roomId", roomId));
 
         List<String> imageUrls = new ArrayList<>();
+        List<String> imageIds = new ArrayList<>();
 
         // Check if this is the first image (should be primary)
         boolean isFirstImage = roomImageRepository.findByRoomId(roomId).isEmpty();
@@ -333,10 +356,13 @@ public class RoomServiceImpl implements IRoomService {
 
             roomImageRepository.save(roomImage);
             imageUrls.add(imageUrl);
+            imageIds.add(roomImage.getId());
 
             log.info("Saved image {} for room {}", roomImage.getId(), roomId);
         }
 
+        eventPublisher.publishEvent(new RoomImagesStoredEvent(imageIds));
+        publishRoomsChanged();
         return imageUrls;
     }
 
@@ -355,11 +381,8 @@ public class RoomServiceImpl implements IRoomService {
                     .withDetail("message", "Image does not belong to this room");
         }
 
-        // Delete file from storage
-        String filename = fileStorageService.extractFilename(roomImage.getImageUrl());
-        if (filename != null) {
-            fileStorageService.deleteFile(filename);
-        }
+        // Release the stored file; it is deleted once no image uses it
+        fileStorageService.release(roomImage.getImageUrl());
 
         // If this was primary image, set another image as primary
         if (roomImage.getIsPrimary()) {
@@ -376,6 +399,7 @@ public class RoomServiceImpl implements IRoomService {
 
         // Delete from database
         roomImageRepository.delete(roomImage);
+        publishRoomsChanged();
         log.info("Deleted image {} for room {}", imageId, roomId);
     }
 
@@ -406,7 +430,26 @@ public class RoomServiceImpl implements IRoomService {
         // Set new primary image
         roomImage.setIsPrimary(true);
         roomImageRepository.save(roomImage);
+        publishRoomsChanged();
 
         log.info("Set image {} as primary for room {}", imageId, roomId);
     }
+
+    /**
+     * Insert new images in one JDBC batch and attach them to the room, so
+     * the response needs no re-read. Their variants are made after commit.
+     */
+    private void saveImages(Room room, List<RoomImage> roomImages) {
+        roomImageRepository.saveAll(roomImages);
+        room.getImages().addAll(roomImages);
+        eventPublisher.publishEvent(new RoomImagesStoredEvent(roomImages.stream().map(RoomImage::getId).toList()));
+    }
+
+    /**
+     * Room responses are served with a catalog ETag; any write must bump it.
+     * The bump itself happens after commit (see CatalogVersionService).
+     */
+    private void publishRoomsChanged() {
+        eventPublisher.publishEvent(new CatalogChangedEvent(CatalogAggregate.ROOMS));
+    }
 }
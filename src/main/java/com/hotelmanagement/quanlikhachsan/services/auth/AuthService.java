@@ -4,18 +4,26 @@ import com.hotelmanagement.quanlikhachsan.dto.request.auth.LoginRequest;
 import com.hotelmanagement.quanlikhachsan.dto.request.auth.RegisterRequest;
 import com.hotelmanagement.quanlikhachsan.dto.request.guest.GuestRequest;
 import com.hotelmanagement.quanlikhachsan.dto.response.auth.AuthResponse;
+import com.hotelmanagement.quanlikhachsan.dto.response.auth.RegistrationStatusResponse;
 import com.hotelmanagement.quanlikhachsan.dto.response.auth.UserInfo;
 import com.hotelmanagement.quanlikhachsan.dto.response.guest.GuestResponse;
+import com.hotelmanagement.quanlikhachsan.security.KeycloakTokenClaims;
+import com.hotelmanagement.quanlikhachsan.security.KeycloakTokenVerifier;
 import com.hotelmanagement.quanlikhachsan.services.guest.IGuestService;
-import com.hotelmanagement.quanlikhachsan.services.keycloak.IKeycloakService;
 import com.hotelmanagement.quanlikhachsan.util.JwtUtil;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.keycloak.representations.AccessTokenResponse;
-import org.keycloak.representations.idm.UserRepresentation;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 /**
  * Authentication Service Implementation
  * Following SOLID Principles:
@@ -34,16 +42,22 @@ public class AuthService {
     // Dependencies injected via constructor (Dependency Inversion Principle)
     private final KeycloakAuthenticationService keycloakAuthService;
     private final JwtUtil jwtUtil;
-    private final IKeycloakService keycloakService;
     private final IGuestService guestService;
+    private final KeycloakTokenVerifier keycloakTokenVerifier;
+    private final TokenRevocationService tokenRevocationService;
+    private final RefreshTokenService refreshTokenService;
+    private final RegistrationSagaService registrationSagaService;
+
+    // Login branches are blocking I/O (HTTP + JDBC), so one virtual thread per task
+    private final ExecutorService loginExecutor = Executors.newVirtualThreadPerTaskExecutor();
 
     /**
      * Authenticate user and generate JWT token
      * Flow:
-     * 1. Authenticate with Keycloak
-     * 2. Retrieve user from Keycloak
-     * 3. Get guest info from database
-     * 4. Generate JWT token
+     * 1. In parallel: authenticate with Keycloak and look up the guest by email
+     * 2. Verify the Keycloak access token locally; user id and roles come from its claims
+     * 3. Resolve the guest (JIT-provision if missing)
+     * 4. Generate JWT token and start a refresh session
      * 
      * @param request Login credentials
      * @return AuthResponse with JWT and user info
@@ -53,47 +67,47 @@ public class AuthService {
         try {
             log.info("Login attempt for user: {}", request.email());
 
-            // Step 1: Authenticate with Keycloak
-            AccessTokenResponse tokenResponse = keycloakAuthService.authenticateUser(
-                    request.email(),
-                    request.password());
+            // Step 1: The password grant and the guest DB lookup are independent
+            CompletableFuture<AccessTokenResponse> tokenFuture = CompletableFuture.supplyAsync(
+                    () -> keycloakAuthService.authenticateUser(request.email(), request.password()),
+                    loginExecutor);
+            CompletableFuture<Optional<GuestResponse>> guestFuture = CompletableFuture.supplyAsync(
+                    () -> findGuestByEmail(request.email()),
+                    loginExecutor);
 
-            // Step 2: Get user info from Keycloak
-            UserRepresentation keycloakUser = keycloakAuthService.getUserByEmail(request.email());
-            String keycloakUserId = keycloakUser.getId();
+            // Step 2: The access token already carries subject and realm roles,
+            // so no admin API round trips are needed
+            AccessTokenResponse tokenResponse = await(tokenFuture);
+            KeycloakTokenClaims keycloakClaims = keycloakTokenVerifier.verify(tokenResponse.getToken())
+                    .orElseThrow(() -> new BadCredentialsException("Keycloak token could not be verified"));
+            java.util.UUID keycloakUserId = java.util.UUID.fromString(keycloakClaims.userId());
 
             // Step 3: Get guest info from database or create if not exists (JIT
-            // Provisioning)
-            GuestResponse guest;
-            try {
-                guest = guestService.getGuestByKeycloakUserId(
-                        java.util.UUID.fromString(keycloakUserId));
-            } catch (Exception e) {
+            // Provisioning). The email match only counts if it belongs to this Keycloak user.
+            GuestResponse guest = await(guestFuture)
+                    .filter(found -> keycloakUserId.equals(found.keycloakUserId()))
+                    .or(() -> findGuest(keycloakUserId))
+                    .orElse(null);
+            if (guest == null) {
                 // User exists in Keycloak but not in DB -> Create local user
                 log.info("User not found in local DB, creating new guest for: {}", request.email());
 
-                String firstName = keycloakUser.getFirstName();
-                String lastName = keycloakUser.getLastName();
-                String fullName = (firstName != null ? firstName : "") + " " + (lastName != null ? lastName : "");
-                fullName = fullName.trim().isEmpty() ? "User" : fullName.trim();
-
                 GuestRequest newGuestRequest = new GuestRequest(
-                        fullName,
+                        keycloakClaims.fullName(),
                         request.email(),
                         null, // phone
                         null, // address
                         java.util.UUID.randomUUID().toString(), // dummy password
-                        java.util.UUID.fromString(keycloakUserId));
+                        keycloakUserId);
 
                 guest = guestService.createGuest(newGuestRequest);
                 log.info("Successfully JIT provisioned guest: {}", request.email());
             }
 
-            // Step 4: Get user role from Keycloak
-            String userRole = keycloakAuthService.getUserRole(keycloakUserId);
+            String userRole = keycloakClaims.role();
             log.info("User {} has role: {}", request.email(), userRole);
 
-            // Step 5: Generate our own JWT token with role from Keycloak
+            // Step 4: Generate our own JWT token with role from Keycloak
             String jwtToken = jwtUtil.generateToken(
                     guest.id(),
                     request.email(),
@@ -107,7 +121,8 @@ public class AuthService {
                     userRole); // Use role from Keycloak
 
             log.info("User logged in successfully: {}", request.email());
-            return AuthResponse.of(jwtToken, jwtUtil.getExpirationTime(), userInfo);
+            return AuthResponse.of(jwtToken, jwtUtil.getExpirationTime(), refreshTokenService.issue(userInfo),
+                    userInfo);
 
         } catch (BadCredentialsException e) {
             log.warn("Login failed for user {}: {}", request.email(), e.getMessage());
@@ -118,71 +133,116 @@ public class AuthService {
         }
     }
 
-    /**
-     * Register new user in both Keycloak and database
-     * 
-     * Flow:
-     * 1. Parse full name
-     * 2. Create user in Keycloak
-     * 3. Create guest in database
-     * 4. Generate JWT token
-     * 
-     * @param request Registration data
-     * @return AuthResponse with JWT and user info
-     * @throws RuntimeException if registration fails
-     */
-    public AuthResponse register(RegisterRequest request) {
+    private Optional<GuestResponse> findGuestByEmail(String email) {
         try {
-            log.info("Registration attempt for email: {}", request.email());
+            return Optional.ofNullable(guestService.getGuestByEmail(email));
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
 
-            // Step 1: Parse full name into firstName and lastName
-            String[] nameParts = request.fullName().trim().split("\\s+", 2);
-            String firstName = nameParts[0];
-            String lastName = nameParts.length > 1 ? nameParts[1] : "";
+    private Optional<GuestResponse> findGuest(java.util.UUID keycloakUserId) {
+        try {
+            return Optional.ofNullable(guestService.getGuestByKeycloakUserId(keycloakUserId));
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
 
-            // Step 2: Create user in Keycloak
-            String keycloakUserId = keycloakService.createUser(
-                    request.email(),
-                    request.password(),
-                    firstName,
-                    lastName);
+    /**
+     * Join a login branch, rethrowing the original exception instead of the
+     * CompletionException wrapper so BadCredentialsException reaches the caller.
+     */
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
 
-            // Step 3: Create guest in database
-            GuestRequest guestRequest = new GuestRequest(
-                    request.fullName(),
-                    request.email(),
-                    request.phone(),
-                    request.address(), // address from RegisterRequest (can be null)
-                    request.password(),
-                    java.util.UUID.fromString(keycloakUserId) // Convert String to UUID
-            );
+    @PreDestroy
+    void shutdownLoginExecutor() {
+        loginExecutor.close();
+    }
 
-            GuestResponse guest = guestService.createGuest(guestRequest);
+    /**
+     * Register new user
+     * 
+     * Keycloak and database provisioning run asynchronously as a registration
+     * saga; the caller polls {@link #getRegistrationStatus} and logs in once it
+     * has completed.
+     * 
+     * @param request Registration data
+     * @return the pending registration
+     */
+    public RegistrationStatusResponse register(RegisterRequest request) {
+        log.info("Registration attempt for email: {}", request.email());
+        return registrationSagaService.start(request);
+    }
 
-            // Step 4: Get user role from Keycloak
-            String userRole = keycloakAuthService.getUserRole(keycloakUserId);
-            log.info("New user {} has role: {}", request.email(), userRole);
+    /**
+     * @param registrationId id returned by {@link #register}
+     * @return current state of the registration
+     */
+    public RegistrationStatusResponse getRegistrationStatus(java.util.UUID registrationId) {
+        return registrationSagaService.getStatus(registrationId);
+    }
 
-            // Step 5: Generate JWT token with role from Keycloak
-            String jwtToken = jwtUtil.generateToken(
-                    guest.id(),
-                    request.email(),
-                    guest.fullName(),
-                    userRole); // Use role from Keycloak
+    /**
+     * Exchange a refresh token for a new access token and a rotated refresh token.
+     * The access token is minted locally from the refresh session; Keycloak is not contacted.
+     * 
+     * @param refreshToken opaque refresh token
+     * @return AuthResponse with the new tokens and user info
+     * @throws BadCredentialsException if the refresh token is invalid, expired or reused
+     */
+    public AuthResponse refresh(String refreshToken) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
+        UserInfo userInfo = rotation.session().toUserInfo();
 
-            UserInfo userInfo = new UserInfo(
-                    guest.id(),
-                    guest.fullName(),
-                    request.email(),
-                    userRole); // Use role from Keycloak
+        String jwtToken = jwtUtil.generateToken(
+                userInfo.id(),
+                userInfo.email(),
+                userInfo.fullName(),
+                userInfo.role());
 
-            log.info("User registered successfully: {}", request.email());
-            return AuthResponse.of(jwtToken, jwtUtil.getExpirationTime(), userInfo);
+        log.debug("Refreshed access token for user: {}", userInfo.email());
+        return AuthResponse.of(jwtToken, jwtUtil.getExpirationTime(), rotation.refreshToken(), userInfo);
+    }
 
-        } catch (Exception e) {
-            log.error("Registration failed for email: {}", request.email(), e);
-            throw new RuntimeException("Registration failed: " + e.getMessage());
+    /**
+     * Revoke the given JWT for the rest of its lifetime and end its refresh session.
+     * Keycloak access tokens presented as bearer tokens are not revoked here; they
+     * expire on their own or when their Keycloak session ends.
+     * 
+     * @param token        JWT token, may be null
+     * @param refreshToken refresh token, may be null
+     */
+    public void logout(String token, String refreshToken) {
+        refreshTokenService.revoke(refreshToken);
+        if (token == null) {
+            return;
         }
+        jwtUtil.verify(token).ifPresent(claims -> {
+            tokenRevocationService.revoke(claims.tokenId(), claims.expiresAt());
+            log.info("User logged out: {}", claims.email());
+        });
+    }
+
+    /**
+     * Check whether a JWT has been revoked
+     * 
+     * @param token JWT token
+     * @return true if revoked or not verifiable
+     */
+    public boolean isRevoked(String token) {
+        return jwtUtil.verify(token)
+                .map(claims -> tokenRevocationService.isRevoked(claims.tokenId()))
+                .orElse(true);
     }
 
     /**
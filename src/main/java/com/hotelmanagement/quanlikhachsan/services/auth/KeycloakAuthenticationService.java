@@ -1,17 +1,23 @@
 package com.hotelmanagement.quanlikhachsan.services.auth;
 
-import com.hotelmanagement.quanlikhachsan.dto.response.auth.UserInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.keycloak.admin.client.Keycloak;
-import org.keycloak.admin.client.KeycloakBuilder;
 import org.keycloak.representations.AccessTokenResponse;
 import org.keycloak.representations.idm.UserRepresentation;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationServiceException;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 
 /**
  * Service responsible for Keycloak authentication operations
@@ -23,6 +29,10 @@ import java.util.List;
 public class KeycloakAuthenticationService {
 
     private final Keycloak adminKeycloak;
+    private final HttpClient keycloakHttpClient;
+    private final ObjectMapper objectMapper;
+
+    private static final Duration TOKEN_REQUEST_TIMEOUT = Duration.ofSeconds(10);
 
     @Value("${keycloak.auth-server-url}")
     private String authServerUrl;
@@ -40,55 +50,46 @@ public class KeycloakAuthenticationService {
      * @param password User password
      * @return AccessTokenResponse if authentication successful
      * @throws BadCredentialsException if credentials are invalid
+     * @throws AuthenticationServiceException if the thread is interrupted while waiting for Keycloak
      */
     public AccessTokenResponse authenticateUser(String email, String password) {
         try {
-            // Create user-specific Keycloak instance for authentication
-            Keycloak userKeycloak = KeycloakBuilder.builder()
-                    .serverUrl(authServerUrl)
-                    .realm(realm)
-                    .clientId(clientId)
-                    .username(email)
-                    .password(password)
-                    .grantType("password") // Resource Owner Password Credentials flow
+            // Resource Owner Password Credentials grant over the shared HTTP client,
+            // so logins reuse pooled connections instead of building a client each time
+            String form = "grant_type=password"
+                    + "&client_id=" + urlEncode(clientId)
+                    + "&username=" + urlEncode(email)
+                    + "&password=" + urlEncode(password);
+
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(authServerUrl + "/realms/" + realm + "/protocol/openid-connect/token"))
+                    .timeout(TOKEN_REQUEST_TIMEOUT)
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString(form))
                     .build();
 
-            // Attempt to get access token - this validates credentials
-            AccessTokenResponse tokenResponse = userKeycloak.tokenManager().getAccessToken();
+            HttpResponse<byte[]> response = keycloakHttpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                throw new BadCredentialsException("Token endpoint returned " + response.statusCode());
+            }
 
-            if (tokenResponse == null) {
+            AccessTokenResponse tokenResponse = objectMapper.readValue(response.body(), AccessTokenResponse.class);
+            if (tokenResponse == null || tokenResponse.getToken() == null) {
                 throw new BadCredentialsException("Authentication failed");
             }
 
             log.info("Successfully authenticated user: {}", email);
             return tokenResponse;
 
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AuthenticationServiceException("Authentication was interrupted", e);
         } catch (Exception e) {
             log.error("Authentication failed for user: {}", email, e);
             throw new BadCredentialsException("Invalid email or password");
         }
     }
 
-    /**
-     * Get user information from Keycloak by email
-     * 
-     * @param email User email
-     * @return UserRepresentation from Keycloak
-     * @throws BadCredentialsException if user not found
-     */
-    public UserRepresentation getUserByEmail(String email) {
-        List<UserRepresentation> users = adminKeycloak.realm(realm)
-                .users()
-                .search(null, null, null, email, 0, 1); // search by email
-
-        if (users.isEmpty()) {
-            log.error("User not found in Keycloak: {}", email);
-            throw new BadCredentialsException("User not found");
-        }
-
-        return users.get(0);
-    }
-
     /**
      * Get user information from Keycloak by user ID
      * 
@@ -102,45 +103,7 @@ public class KeycloakAuthenticationService {
                 .toRepresentation();
     }
 
-    /**
-     * Get user role from Keycloak
-     * Checks realm roles and returns the highest priority role (ADMIN > STAFF >
-     * USER)
-     * 
-     * @param userId Keycloak user ID
-     * @return User role (ADMIN, STAFF, or USER)
-     */
-    public String getUserRole(String userId) {
-        try {
-            // Get user's realm roles
-            List<String> roles = adminKeycloak.realm(realm)
-                    .users()
-                    .get(userId)
-                    .roles()
-                    .realmLevel()
-                    .listEffective()
-                    .stream()
-                    .map(roleRepresentation -> roleRepresentation.getName().toUpperCase())
-                    .toList();
-
-            log.info("User {} has roles: {}", userId, roles);
-
-            // Check for admin role first (highest priority)
-            if (roles.contains("ADMIN")) {
-                return "ADMIN";
-            }
-
-            // Then check for staff role
-            if (roles.contains("STAFF")) {
-                return "STAFF";
-            }
-
-            // Default to USER role
-            return "USER";
-
-        } catch (Exception e) {
-            log.error("Error getting user role for userId: {}", userId, e);
-            return "USER"; // Default to USER on error
-        }
+    private static String urlEncode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
     }
 }
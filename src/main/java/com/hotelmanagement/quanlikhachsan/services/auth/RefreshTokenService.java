@@ -0,0 +1,154 @@
+package com.hotelmanagement.quanlikhachsan.services.auth;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotelmanagement.quanlikhachsan.dto.response.auth.UserInfo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opaque refresh tokens with rotation and reuse detection.
+ *
+ * Tokens are random 256-bit values handed to the client; Redis only sees
+ * their SHA-256 under {@code auth:refresh:<hash>}. Every token belongs to a
+ * family (one login session) whose key caps the session's absolute
+ * lifetime. Rotating a token consumes it and leaves a "used" marker behind;
+ * presenting a used token again means it was copied, so the whole family
+ * is revoked and the legitimate holder has to log in again.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RefreshTokenService {
+
+    private static final String TOKEN_PREFIX = "auth:refresh:";
+    private static final String USED_PREFIX = "auth:refresh:used:";
+    private static final String FAMILY_PREFIX = "auth:refresh:family:";
+    private static final int TOKEN_BYTES = 32;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Value("${jwt.refresh-expiration:604800000}")
+    private long refreshExpiration;
+
+    /**
+     * User and session a refresh token was issued for.
+     */
+    public record RefreshSession(String userId, String email, String fullName, String role, String familyId) {
+
+        public UserInfo toUserInfo() {
+            return new UserInfo(userId, fullName, email, role);
+        }
+    }
+
+    /**
+     * Result of a rotation: the session and the token that replaces the consumed one.
+     */
+    public record Rotation(RefreshSession session, String refreshToken) {
+    }
+
+    /**
+     * Start a new session for the user.
+     *
+     * @return the opaque refresh token
+     */
+    public String issue(UserInfo user) {
+        String familyId = UUID.randomUUID().toString();
+        Duration lifetime = Duration.ofMillis(refreshExpiration);
+        stringRedisTemplate.opsForValue().set(FAMILY_PREFIX + familyId, user.id(), lifetime);
+        return store(new RefreshSession(user.id(), user.email(), user.fullName(), user.role(), familyId), lifetime);
+    }
+
+    /**
+     * Consume a refresh token and issue its successor in the same session.
+     *
+     * @return the session and the new refresh token
+     * @throws BadCredentialsException if the token is unknown, expired or reused
+     */
+    public Rotation rotate(String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank()) {
+            throw new BadCredentialsException("Refresh token is missing");
+        }
+        String hash = hash(refreshToken);
+
+        // GETDEL is atomic, so of two concurrent rotations only one gets the session
+        String stored = stringRedisTemplate.opsForValue().getAndDelete(TOKEN_PREFIX + hash);
+        if (stored == null) {
+            String reusedFamily = stringRedisTemplate.opsForValue().get(USED_PREFIX + hash);
+            if (reusedFamily != null) {
+                stringRedisTemplate.delete(FAMILY_PREFIX + reusedFamily);
+                log.warn("Refresh token reuse detected, revoked session {}", reusedFamily);
+            }
+            throw new BadCredentialsException("Refresh token is invalid or expired");
+        }
+
+        RefreshSession session = read(stored);
+        Long remainingMillis = stringRedisTemplate.getExpire(FAMILY_PREFIX + session.familyId(), TimeUnit.MILLISECONDS);
+        if (remainingMillis == null || remainingMillis <= 0) {
+            throw new BadCredentialsException("Refresh session has been revoked");
+        }
+
+        Duration remaining = Duration.ofMillis(remainingMillis);
+        stringRedisTemplate.opsForValue().set(USED_PREFIX + hash, session.familyId(), remaining);
+        return new Rotation(session, store(session, remaining));
+    }
+
+    /**
+     * Revoke the whole session the token belongs to. Unknown tokens are ignored.
+     */
+    public void revoke(String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank()) {
+            return;
+        }
+        String stored = stringRedisTemplate.opsForValue().getAndDelete(TOKEN_PREFIX + hash(refreshToken));
+        if (stored != null) {
+            stringRedisTemplate.delete(FAMILY_PREFIX + read(stored).familyId());
+        }
+    }
+
+    private String store(RefreshSession session, Duration ttl) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        try {
+            stringRedisTemplate.opsForValue().set(TOKEN_PREFIX + hash(token),
+                    objectMapper.writeValueAsString(session), ttl);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize refresh session", e);
+        }
+        return token;
+    }
+
+    private RefreshSession read(String json) {
+        try {
+            return objectMapper.readValue(json, RefreshSession.class);
+        } catch (JsonProcessingException e) {
+            throw new BadCredentialsException("Refresh token is invalid or expired");
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
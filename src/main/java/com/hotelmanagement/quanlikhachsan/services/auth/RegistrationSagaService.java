@@ -0,0 +1,97 @@
+package com.hotelmanagement.quanlikhachsan.services.auth;
+
+import com.hotelmanagement.quanlikhachsan.dto.request.auth.RegisterRequest;
+import com.hotelmanagement.quanlikhachsan.dto.response.auth.RegistrationStatusResponse;
+import com.hotelmanagement.quanlikhachsan.exception.ErrorDefinition;
+import com.hotelmanagement.quanlikhachsan.model.auth.RegistrationSaga;
+import com.hotelmanagement.quanlikhachsan.model.auth.RegistrationSagaStatus;
+import com.hotelmanagement.quanlikhachsan.repository.GuestRepository;
+import com.hotelmanagement.quanlikhachsan.repository.RegistrationSagaRepository;
+import com.hotelmanagement.quanlikhachsan.util.SecretCipher;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Entry point of the registration saga.
+ * Records the request and hands it to {@link RegistrationSagaWorker}; the
+ * caller gets a pending registration back without waiting on Keycloak.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RegistrationSagaService {
+
+    private static final Set<RegistrationSagaStatus> ACTIVE = EnumSet.of(
+            RegistrationSagaStatus.PENDING,
+            RegistrationSagaStatus.KEYCLOAK_CREATED,
+            RegistrationSagaStatus.COMPENSATING);
+
+    private final RegistrationSagaRepository sagaRepository;
+    private final GuestRepository guestRepository;
+    private final SecretCipher secretCipher;
+    private final RegistrationSagaWorker worker;
+
+    /**
+     * Persist a new registration and start provisioning it in the background.
+     *
+     * @param request Registration data
+     * @return the pending registration
+     */
+    public RegistrationStatusResponse start(RegisterRequest request) {
+        if (guestRepository.existsByEmail(request.email())) {
+            throw ErrorDefinition.EMAIL_ALREADY_REGISTERED.toAppError();
+        }
+        if (sagaRepository.existsByEmailAndStatusIn(request.email(), ACTIVE)) {
+            throw ErrorDefinition.REGISTRATION_IN_PROGRESS.toAppError();
+        }
+
+        RegistrationSaga saga = RegistrationSaga.builder()
+                .email(request.email())
+                .fullName(request.fullName().trim())
+                .phone(request.phone())
+                .address(request.address())
+                .passwordCiphertext(secretCipher.encrypt(request.password()))
+                .status(RegistrationSagaStatus.PENDING)
+                .nextAttemptAt(LocalDateTime.now())
+                .build();
+        try {
+            saga = sagaRepository.save(saga);
+        } catch (DataIntegrityViolationException e) {
+            // Lost the race against a concurrent registration for the same email
+            throw ErrorDefinition.REGISTRATION_IN_PROGRESS.toAppError().wrap(e);
+        }
+
+        log.info("Registration {} started for email: {}", saga.getId(), saga.getEmail());
+        worker.trigger();
+        return toResponse(saga);
+    }
+
+    /**
+     * @param id registration id returned by {@link #start}
+     * @return current state of the registration
+     */
+    public RegistrationStatusResponse getStatus(UUID id) {
+        return sagaRepository.findById(id)
+                .map(RegistrationSagaService::toResponse)
+                .orElseThrow(() -> ErrorDefinition.REGISTRATION_NOT_FOUND.toAppError().withDetail("id", id));
+    }
+
+    private static RegistrationStatusResponse toResponse(RegistrationSaga saga) {
+        // Intermediate steps are an implementation detail; clients only see three states
+        return switch (saga.getStatus()) {
+            case PENDING, KEYCLOAK_CREATED -> new RegistrationStatusResponse(saga.getId(), "PENDING",
+                    "Registration is being processed");
+            case COMPLETED -> new RegistrationStatusResponse(saga.getId(), "COMPLETED",
+                    "Registration completed. You can now log in.");
+            case COMPENSATING, FAILED -> new RegistrationStatusResponse(saga.getId(), "FAILED",
+                    "Registration failed. Please try again.");
+        };
+    }
+}
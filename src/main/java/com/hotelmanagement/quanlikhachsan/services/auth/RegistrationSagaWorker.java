@@ -0,0 +1,272 @@
+package com.hotelmanagement.quanlikhachsan.services.auth;
+
+import com.hotelmanagement.quanlikhachsan.dto.request.guest.GuestRequest;
+import com.hotelmanagement.quanlikhachsan.dto.response.guest.GuestResponse;
+import com.hotelmanagement.quanlikhachsan.exception.AppError;
+import com.hotelmanagement.quanlikhachsan.model.auth.RegistrationSaga;
+import com.hotelmanagement.quanlikhachsan.model.auth.RegistrationSagaStatus;
+import com.hotelmanagement.quanlikhachsan.repository.RegistrationSagaRepository;
+import com.hotelmanagement.quanlikhachsan.services.guest.IGuestService;
+import com.hotelmanagement.quanlikhachsan.services.keycloak.IKeycloakService;
+import com.hotelmanagement.quanlikhachsan.util.SecretCipher;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Drives registration sagas to completion.
+ *
+ * Steps, each retried with exponential backoff:
+ * 1. PENDING: create the Keycloak user, then drop the stored password. A user
+ *    found by email is adopted only while keycloak_requested_at is set, which
+ *    means a create was sent and its outcome is unknown
+ * 2. KEYCLOAK_CREATED: insert the guest and mark the saga COMPLETED in one transaction
+ * 3. COMPENSATING: delete the Keycloak user after the guest insert gave up, then FAILED
+ *
+ * Due sagas are claimed with FOR UPDATE SKIP LOCKED and leased by pushing
+ * next_attempt_at forward, so several nodes can poll without double work
+ * and a saga abandoned by a crashed node is picked up once its lease ends.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RegistrationSagaWorker {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final RegistrationSagaRepository sagaRepository;
+    private final IKeycloakService keycloakService;
+    private final IGuestService guestService;
+    private final SecretCipher secretCipher;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${auth.registration.batch-size:20}")
+    private int batchSize;
+
+    @Value("${auth.registration.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${auth.registration.lease-ms:60000}")
+    private long leaseMillis;
+
+    @Value("${auth.registration.backoff-ms:2000}")
+    private long backoffMillis;
+
+    @Value("${auth.registration.max-backoff-ms:300000}")
+    private long maxBackoffMillis;
+
+    // Steps block on Keycloak and JDBC, so one virtual thread per saga
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Process due sagas now instead of waiting for the next poll.
+     */
+    public void trigger() {
+        executor.execute(this::poll);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.registration.poll-interval-ms:2000}")
+    public void poll() {
+        try {
+            for (RegistrationSaga saga : claimDue()) {
+                executor.execute(() -> advance(saga));
+            }
+        } catch (Exception e) {
+            log.warn("Failed to poll registration sagas: {}", e.getMessage());
+        }
+    }
+
+    List<RegistrationSaga> claimDue() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<RegistrationSaga> due = sagaRepository.lockDue(now, batchSize);
+            LocalDateTime leaseUntil = now.plus(Duration.ofMillis(leaseMillis));
+            due.forEach(saga -> saga.setNextAttemptAt(leaseUntil));
+            return due;
+        });
+    }
+
+    /**
+     * Run steps until the saga finishes or a step fails.
+     */
+    void advance(RegistrationSaga saga) {
+        while (saga.getStatus().isActive()) {
+            try {
+                switch (saga.getStatus()) {
+                    case PENDING -> createKeycloakUser(saga);
+                    case KEYCLOAK_CREATED -> createGuest(saga);
+                    case COMPENSATING -> compensate(saga);
+                    default -> throw new IllegalStateException("Unexpected status " + saga.getStatus());
+                }
+            } catch (Exception e) {
+                recordFailure(saga, e);
+                return;
+            }
+        }
+    }
+
+    private void createKeycloakUser(RegistrationSaga saga) {
+        Optional<String> existing = keycloakService.findUserIdByEmail(saga.getEmail());
+        String keycloakUserId;
+        if (existing.isPresent()) {
+            if (saga.getKeycloakRequestedAt() == null) {
+                // Someone else's account; never adopt it, or compensation could delete it
+                finish(saga, RegistrationSagaStatus.FAILED, "Email already exists in Keycloak");
+                return;
+            }
+            // An earlier create timed out or lost its response, so this is most likely our user
+            keycloakUserId = existing.get();
+        } else {
+            if (saga.getKeycloakRequestedAt() == null) {
+                saga.setKeycloakRequestedAt(LocalDateTime.now());
+                sagaRepository.save(saga);
+            }
+            String[] nameParts = splitName(saga.getFullName());
+            try {
+                keycloakUserId = keycloakService.createUser(
+                        saga.getEmail(),
+                        secretCipher.decrypt(saga.getPasswordCiphertext()),
+                        nameParts[0],
+                        nameParts[1]);
+            } catch (AppError e) {
+                if (e.getStatusCode() != HttpStatus.CONFLICT) {
+                    throw e;
+                }
+                // Keycloak answered that the email is taken: the outcome is known and the
+                // user is not ours, so neither adopt it later nor let compensation delete it
+                saga.setKeycloakRequestedAt(null);
+                finish(saga, RegistrationSagaStatus.FAILED, "Email already exists in Keycloak");
+                return;
+            }
+        }
+
+        saga.setKeycloakUserId(UUID.fromString(keycloakUserId));
+        saga.setPasswordCiphertext(null);
+        saga.setStatus(RegistrationSagaStatus.KEYCLOAK_CREATED);
+        saga.setAttempts(0);
+        saga.setLastError(null);
+        sagaRepository.save(saga);
+        log.info("Registration {}: Keycloak user {} created", saga.getId(), keycloakUserId);
+    }
+
+    private void createGuest(RegistrationSaga saga) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                GuestResponse guest = guestService.createGuest(new GuestRequest(
+                        saga.getFullName(),
+                        saga.getEmail(),
+                        saga.getPhone(),
+                        saga.getAddress(),
+                        UUID.randomUUID().toString(), // dummy password, credentials live in Keycloak
+                        saga.getKeycloakUserId()));
+                saga.setGuestId(UUID.fromString(guest.id()));
+                saga.setStatus(RegistrationSagaStatus.COMPLETED);
+                saga.setLastError(null);
+                sagaRepository.save(saga);
+            });
+        } catch (RuntimeException e) {
+            // The commit may fail after the in-memory saga was already marked completed
+            saga.setGuestId(null);
+            saga.setStatus(RegistrationSagaStatus.KEYCLOAK_CREATED);
+            throw e;
+        }
+        log.info("Registration {} completed for email: {}", saga.getId(), saga.getEmail());
+    }
+
+    private void compensate(RegistrationSaga saga) {
+        // Without a recorded id, only a create we actually sent can have left a user behind
+        String keycloakUserId = saga.getKeycloakUserId() != null
+                ? saga.getKeycloakUserId().toString()
+                : keycloakService.findUserIdByEmail(saga.getEmail()).orElse(null);
+        if (keycloakUserId != null) {
+            keycloakService.deleteUser(keycloakUserId);
+        }
+        finish(saga, RegistrationSagaStatus.FAILED, saga.getLastError());
+        log.warn("Registration {} compensated, Keycloak user {} removed", saga.getId(), keycloakUserId);
+    }
+
+    private void recordFailure(RegistrationSaga saga, Exception e) {
+        int attempts = saga.getAttempts() + 1;
+        saga.setAttempts(attempts);
+        saga.setLastError(truncate(e.getMessage()));
+
+        // A duplicate guest will not go away by retrying
+        boolean permanent = e instanceof DataIntegrityViolationException;
+        boolean exhausted = permanent || attempts >= maxAttempts;
+
+        if (saga.getStatus() == RegistrationSagaStatus.COMPENSATING) {
+            // Keep trying: giving up here is exactly the orphaned user we want to avoid
+            if (attempts >= maxAttempts) {
+                log.error("Registration {}: compensation still failing after {} attempts: {}",
+                        saga.getId(), attempts, e.getMessage());
+            }
+            saga.setNextAttemptAt(LocalDateTime.now().plus(backoff(attempts)));
+        } else if (exhausted && saga.getKeycloakRequestedAt() == null) {
+            // Keycloak was never asked to create the user, so there is nothing to undo
+            log.warn("Registration {} failed after {} attempts: {}", saga.getId(), attempts, e.getMessage());
+            saga.setStatus(RegistrationSagaStatus.FAILED);
+            saga.setPasswordCiphertext(null);
+        } else if (exhausted) {
+            // A failed create may still have reached Keycloak, so PENDING compensates too
+            log.warn("Registration {} giving up on {} after {} attempts: {}",
+                    saga.getId(), saga.getStatus(), attempts, e.getMessage());
+            saga.setStatus(RegistrationSagaStatus.COMPENSATING);
+            saga.setPasswordCiphertext(null);
+            saga.setAttempts(0);
+            saga.setNextAttemptAt(LocalDateTime.now());
+        } else {
+            log.warn("Registration {} step {} failed (attempt {}): {}",
+                    saga.getId(), saga.getStatus(), attempts, e.getMessage());
+            saga.setNextAttemptAt(LocalDateTime.now().plus(backoff(attempts)));
+        }
+        sagaRepository.save(saga);
+    }
+
+    private void finish(RegistrationSaga saga, RegistrationSagaStatus status, String error) {
+        saga.setStatus(status);
+        saga.setPasswordCiphertext(null);
+        saga.setLastError(error);
+        sagaRepository.save(saga);
+    }
+
+    private Duration backoff(int attempts) {
+        long delay = Math.min(maxBackoffMillis, backoffMillis << Math.min(attempts - 1, 20));
+        // Up to 20% jitter so sagas that failed together do not retry together
+        return Duration.ofMillis(delay + ThreadLocalRandom.current().nextLong(delay / 5 + 1));
+    }
+
+    /**
+     * Split a full name into Keycloak first and last name.
+     */
+    static String[] splitName(String fullName) {
+        String[] nameParts = fullName.trim().split("\\s+", 2);
+        return new String[] { nameParts[0], nameParts.length > 1 ? nameParts[1] : "" };
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    @PreDestroy
+    void shutdownExecutor() {
+        executor.close();
+    }
+}
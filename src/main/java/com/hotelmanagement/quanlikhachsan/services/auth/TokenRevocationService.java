@@ -0,0 +1,186 @@
+package com.hotelmanagement.quanlikhachsan.services.auth;
+
+import com.hotelmanagement.quanlikhachsan.util.BloomFilter;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Revocation list for application-issued JWTs.
+ *
+ * Revoked token ids live in Redis as {@code auth:revoked:<jti>} with a TTL
+ * equal to the token's remaining life. Each node keeps a Bloom filter of
+ * revoked ids in front of Redis, so the usual not-revoked check never
+ * leaves the JVM; only Bloom hits are confirmed against Redis.
+ *
+ * Nodes learn about revocations from each other over pub/sub. The filter
+ * is rebuilt from a Redis SCAN at startup and periodically, which also
+ * sheds ids whose tokens have expired. Until the first rebuild succeeds the
+ * filter knows nothing, so every check goes to Redis and the rebuild is
+ * retried with backoff rather than waiting for the next periodic one.
+ *
+ * Pub/sub drops messages sent while a node is disconnected, so each
+ * (re)subscription puts the filter back in that unloaded state until a
+ * fresh rebuild has caught up. Messages lost for other reasons are bounded
+ * by the periodic rebuild, which runs about once per access-token lifetime.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TokenRevocationService implements MessageListener, SubscriptionListener {
+
+    private static final String REVOKED_PREFIX = "auth:revoked:";
+    private static final String CHANNEL = "auth:revoked";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    @Value("${auth.revocation.bloom.expected-insertions:100000}")
+    private long expectedInsertions;
+
+    @Value("${auth.revocation.bloom.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    @Value("${auth.revocation.bloom.retry-backoff-ms:1000}")
+    private long retryBackoffMillis;
+
+    @Value("${auth.revocation.bloom.max-retry-backoff-ms:60000}")
+    private long maxRetryBackoffMillis;
+
+    private volatile BloomFilter bloomFilter;
+    // False until a rebuild has loaded every revoked id from Redis
+    private volatile boolean loaded;
+    private int failedLoads;
+    private long nextLoadAt;
+    // Non-null while a rebuild is scanning, so revocations made meanwhile land in both filters
+    private volatile BloomFilter rebuilding;
+
+    @PostConstruct
+    public void init() {
+        bloomFilter = new BloomFilter(expectedInsertions, falsePositiveRate);
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        rebuild();
+    }
+
+    /**
+     * Revoke a token until it would have expired anyway.
+     *
+     * @param jti       token id
+     * @param expiresAt token expiry
+     */
+    public void revoke(String jti, Instant expiresAt) {
+        if (jti == null) {
+            return;
+        }
+        Duration remaining = Duration.between(Instant.now(), expiresAt);
+        if (remaining.isNegative() || remaining.isZero()) {
+            return;
+        }
+
+        stringRedisTemplate.opsForValue().set(REVOKED_PREFIX + jti, "1", remaining);
+        remember(jti);
+        try {
+            stringRedisTemplate.convertAndSend(CHANNEL, jti);
+        } catch (Exception e) {
+            // Other nodes still pick it up on their next rebuild
+            log.warn("Failed to broadcast token revocation: {}", e.getMessage());
+        }
+        log.info("Revoked token {} for {}s", jti, remaining.toSeconds());
+    }
+
+    /**
+     * @return true if the token id has been revoked
+     */
+    public boolean isRevoked(String jti) {
+        if (jti == null || (loaded && !bloomFilter.mightContain(jti))) {
+            return false;
+        }
+        try {
+            return Boolean.TRUE.equals(stringRedisTemplate.hasKey(REVOKED_PREFIX + jti));
+        } catch (Exception e) {
+            // The filter says it may be revoked, or has not loaded, and we cannot confirm; err on the side of rejecting
+            log.warn("Revocation lookup failed for {}: {}", jti, e.getMessage());
+            return true;
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        remember(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void onChannelSubscribed(byte[] channel, long count) {
+        // Revocations broadcast while we were not subscribed never arrive; fall back to
+        // Redis and let retryLoad() rebuild off the listener thread
+        loaded = false;
+        log.info("Subscribed to token revocations; resyncing the filter");
+    }
+
+    /**
+     * Rebuild the Bloom filter from the revocation keys currently in Redis.
+     */
+    @Scheduled(fixedDelayString = "${auth.revocation.bloom.rebuild-interval-ms:900000}",
+            initialDelayString = "${auth.revocation.bloom.rebuild-interval-ms:900000}")
+    public void rebuild() {
+        BloomFilter fresh = new BloomFilter(expectedInsertions, falsePositiveRate);
+        rebuilding = fresh;
+        int count = 0;
+        try (Cursor<String> cursor = stringRedisTemplate.scan(
+                ScanOptions.scanOptions().match(REVOKED_PREFIX + "*").count(1000).build())) {
+            while (cursor.hasNext()) {
+                fresh.put(cursor.next().substring(REVOKED_PREFIX.length()));
+                count++;
+            }
+            bloomFilter = fresh;
+            loaded = true;
+            failedLoads = 0;
+            log.info("Rebuilt token revocation filter with {} entries", count);
+        } catch (Exception e) {
+            // Keep the current filter; ids revoked since it was built may be missing until a rebuild succeeds
+            log.warn("Failed to rebuild token revocation filter: {}", e.getMessage());
+            if (!loaded) {
+                failedLoads++;
+                long delay = Math.min(maxRetryBackoffMillis, retryBackoffMillis << Math.min(failedLoads - 1, 20));
+                nextLoadAt = System.currentTimeMillis() + delay;
+            }
+        } finally {
+            rebuilding = null;
+        }
+    }
+
+    /**
+     * Retry a failed or pending rebuild of an unloaded filter once its backoff has passed.
+     */
+    @Scheduled(fixedDelayString = "${auth.revocation.bloom.retry-poll-ms:1000}")
+    public void retryLoad() {
+        if (loaded || System.currentTimeMillis() < nextLoadAt) {
+            return;
+        }
+        rebuild();
+    }
+
+    private void remember(String jti) {
+        // Feed the in-progress filter first so a swap in between cannot drop the id
+        BloomFilter next = rebuilding;
+        if (next != null) {
+            next.put(jti);
+        }
+        bloomFilter.put(jti);
+    }
+}
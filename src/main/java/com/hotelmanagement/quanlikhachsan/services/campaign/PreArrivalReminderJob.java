@@ -0,0 +1,204 @@
+package com.hotelmanagement.quanlikhachsan.services.campaign;
+
+import com.hotelmanagement.quanlikhachsan.model.campaign.CampaignRun;
+import com.hotelmanagement.quanlikhachsan.model.campaign.CampaignRunStatus;
+import com.hotelmanagement.quanlikhachsan.model.email.EmailOutboxMessage;
+import com.hotelmanagement.quanlikhachsan.model.reservation.ReservationStatus;
+import com.hotelmanagement.quanlikhachsan.repository.CampaignRunRepository;
+import com.hotelmanagement.quanlikhachsan.repository.EmailOutboxRepository;
+import com.hotelmanagement.quanlikhachsan.repository.ReservationRepository;
+import com.hotelmanagement.quanlikhachsan.repository.ReservationRoomRepository;
+import com.hotelmanagement.quanlikhachsan.repository.ReservedRoom;
+import com.hotelmanagement.quanlikhachsan.repository.UpcomingArrival;
+import com.hotelmanagement.quanlikhachsan.services.email.EmailService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Sends reminder and upsell emails to guests arriving in {@code days-before} days.
+ *
+ * Confirmed reservations for the arrival date are read in keyset chunks
+ * (ordered by id), so memory stays flat however many guests arrive. Each
+ * chunk is one transaction that writes its emails to the outbox and moves
+ * the run's cursor in campaign_runs; a restarted or second node locks the
+ * run row and carries on after the last committed chunk. Emails get paced
+ * send times so the run trickles out at {@code send-rate-per-minute}
+ * instead of queueing ahead of transactional mail.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PreArrivalReminderJob {
+
+    static final String CAMPAIGN = "PRE_ARRIVAL";
+    private static final UUID FIRST_ID = new UUID(0, 0);
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private final CampaignRunRepository campaignRunRepository;
+    private final ReservationRepository reservationRepository;
+    private final ReservationRoomRepository reservationRoomRepository;
+    private final EmailOutboxRepository outboxRepository;
+    private final EmailService emailService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${campaign.pre-arrival.enabled:true}")
+    private boolean enabled;
+
+    @Value("${campaign.pre-arrival.days-before:3}")
+    private int daysBefore;
+
+    @Value("${campaign.pre-arrival.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${campaign.pre-arrival.send-rate-per-minute:600}")
+    private int sendRatePerMinute;
+
+    /**
+     * Runs repeatedly during the day: the first run does the work, later ones
+     * resume an interrupted run or find it completed with a single query.
+     */
+    @Scheduled(cron = "${campaign.pre-arrival.cron:0 */15 8-20 * * *}")
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        LocalDate arrivalDate = LocalDate.now().plusDays(daysBefore);
+        try {
+            int chunks = 0;
+            while (processChunk(arrivalDate)) {
+                chunks++;
+            }
+            if (chunks > 0) {
+                log.info("Pre-arrival campaign for {} processed {} chunks", arrivalDate, chunks);
+            }
+        } catch (Exception e) {
+            // The cursor only moves with committed chunks; the next run resumes from it
+            log.error("Pre-arrival campaign for {} stopped: {}", arrivalDate, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Queue emails for the next chunk of arrivals and advance the cursor.
+     *
+     * @return whether there may be more to do
+     */
+    boolean processChunk(LocalDate arrivalDate) {
+        Boolean more = transactionTemplate.execute(status -> {
+            campaignRunRepository.createIfAbsent(CAMPAIGN, arrivalDate, LocalDateTime.now());
+            CampaignRun run = campaignRunRepository.findByCampaignAndTargetDate(CAMPAIGN, arrivalDate)
+                    .orElseThrow(() -> new IllegalStateException("Campaign run missing for " + arrivalDate));
+            if (run.getStatus() == CampaignRunStatus.COMPLETED) {
+                return false;
+            }
+
+            UUID cursor = run.getLastReservationId() != null ? run.getLastReservationId() : FIRST_ID;
+            List<UpcomingArrival> arrivals = reservationRepository.findArrivalsAfter(
+                    ReservationStatus.CONFIRMED, arrivalDate, cursor, Limit.of(chunkSize));
+            if (arrivals.isEmpty()) {
+                run.setStatus(CampaignRunStatus.COMPLETED);
+                run.setCompletedAt(LocalDateTime.now());
+                campaignRunRepository.save(run);
+                log.info("Pre-arrival campaign for {} completed: {} emails queued", arrivalDate, run.getEnqueued());
+                return false;
+            }
+
+            List<EmailOutboxMessage> messages = buildMessages(run, arrivals);
+            if (!messages.isEmpty()) {
+                emailService.enqueueAll(messages);
+            }
+
+            run.setLastReservationId(arrivals.get(arrivals.size() - 1).getReservationId());
+            run.setEnqueued(run.getEnqueued() + messages.size());
+            campaignRunRepository.save(run);
+            return true;
+        });
+        return Boolean.TRUE.equals(more);
+    }
+
+    private List<EmailOutboxMessage> buildMessages(CampaignRun run, List<UpcomingArrival> arrivals) {
+        List<UUID> reservationIds = arrivals.stream().map(UpcomingArrival::getReservationId).toList();
+        Map<UUID, String> roomInfo = roomInfoByReservation(reservationIds);
+
+        // Skip anything already queued, e.g. by a run whose checkpoint was lost
+        Map<String, UpcomingArrival> byKey = new LinkedHashMap<>();
+        arrivals.forEach(arrival -> byKey.put(dedupeKey(run, arrival.getReservationId()), arrival));
+        Set<String> alreadyQueued = new HashSet<>(outboxRepository.findExistingDedupeKeys(byKey.keySet()));
+
+        List<EmailOutboxMessage> messages = new ArrayList<>(arrivals.size());
+        long daysUntilArrival = Math.max(0, ChronoUnit.DAYS.between(LocalDate.now(), run.getTargetDate()));
+        LocalDateTime chunkStart = chunkStart(run);
+        for (Map.Entry<String, UpcomingArrival> entry : byKey.entrySet()) {
+            if (alreadyQueued.contains(entry.getKey())) {
+                continue;
+            }
+            UpcomingArrival arrival = entry.getValue();
+            try {
+                messages.add(emailService.buildPreArrivalReminder(
+                        arrival.getEmail(),
+                        arrival.getFullName(),
+                        arrival.getReservationId().toString(),
+                        roomInfo.getOrDefault(arrival.getReservationId(), "N/A"),
+                        arrival.getCheckIn().format(DATE_FORMAT),
+                        arrival.getCheckOut().format(DATE_FORMAT),
+                        daysUntilArrival,
+                        chunkStart.plus(sendInterval().multipliedBy(messages.size())),
+                        entry.getKey()));
+            } catch (Exception e) {
+                // One bad row should not hold back the rest of the run
+                log.warn("Skipping pre-arrival email for reservation {}: {}",
+                        arrival.getReservationId(), e.getMessage());
+            }
+        }
+        return messages;
+    }
+
+    private Map<UUID, String> roomInfoByReservation(List<UUID> reservationIds) {
+        return reservationRoomRepository.findRoomsByReservationIds(reservationIds).stream()
+                .collect(Collectors.groupingBy(ReservedRoom::getReservationId,
+                        Collectors.mapping(PreArrivalReminderJob::describe, Collectors.joining(", "))));
+    }
+
+    private static String describe(ReservedRoom room) {
+        return room.getRoomType() != null
+                ? "Phòng " + room.getRoomNumber() + " (" + room.getRoomType() + ")"
+                : "Phòng " + room.getRoomNumber();
+    }
+
+    /**
+     * Where this chunk starts on the run's schedule, which spreads its emails
+     * evenly from the start of the run. A run resumed late continues from now
+     * rather than releasing its backlog at once.
+     */
+    private LocalDateTime chunkStart(CampaignRun run) {
+        LocalDateTime scheduled = run.getStartedAt().plus(sendInterval().multipliedBy(run.getEnqueued()));
+        LocalDateTime now = LocalDateTime.now();
+        return scheduled.isAfter(now) ? scheduled : now;
+    }
+
+    private Duration sendInterval() {
+        return Duration.ofMinutes(1).dividedBy(Math.max(1, sendRatePerMinute));
+    }
+
+    private static String dedupeKey(CampaignRun run, UUID reservationId) {
+        return CAMPAIGN + ":" + run.getTargetDate() + ":" + reservationId;
+    }
+}
@@ -0,0 +1,11 @@
+package com.hotelmanagement.quanlikhachsan.services.catalog;
+
+/**
+ * Read-mostly aggregates served by the public catalog endpoints.
+ * Each one carries its own version stamp in {@link CatalogVersionService}.
+ */
+public enum CatalogAggregate {
+    ROOMS,
+    ROOM_TYPES,
+    ROOM_STATUSES
+}
@@ -0,0 +1,8 @@
+package com.hotelmanagement.quanlikhachsan.services.catalog;
+
+/**
+ * Published by write paths when a catalog aggregate changes.
+ * The version stamp is bumped only after the surrounding transaction commits.
+ */
+public record CatalogChangedEvent(CatalogAggregate aggregate) {
+}
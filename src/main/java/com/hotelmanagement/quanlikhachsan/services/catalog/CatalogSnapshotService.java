@@ -0,0 +1,182 @@
+package com.hotelmanagement.quanlikhachsan.services.catalog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotelmanagement.quanlikhachsan.dto.response.ApiResponse;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serves catalog list endpoints from pre-serialized snapshots.
+ *
+ * Each snapshot holds the UTF-8 JSON of the full {@link ApiResponse} plus a
+ * gzip copy, tagged with the catalog ETag it was built for. A request only
+ * pays for mapping, serialization and compression when the version in
+ * {@link CatalogVersionService} has moved since the last build; otherwise it
+ * is a plain byte-array write.
+ *
+ * The two bodies are different representations, so the gzip one is tagged
+ * with the catalog ETag plus a {@code -gz} suffix, and every response
+ * carries {@code Vary: Accept-Encoding}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogSnapshotService {
+
+    private static final MediaType JSON_UTF8 = new MediaType(MediaType.APPLICATION_JSON, StandardCharsets.UTF_8);
+
+    private final CatalogVersionService catalogVersionService;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, CatalogSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * Immutable serialized response for one endpoint at one catalog version.
+     */
+    record CatalogSnapshot(String etag, byte[] json, byte[] gzip) {
+    }
+
+    /**
+     * Evaluate If-None-Match / If-Modified-Since against the catalog version,
+     * using the ETag of the representation this request would get.
+     * Sets ETag and Last-Modified on the response either way.
+     *
+     * @return true if the caller should return immediately with 304
+     */
+    public boolean checkNotModified(WebRequest request, CatalogAggregate... aggregates) {
+        CatalogVersion version = catalogVersionService.current(aggregates);
+        String etag = acceptsGzip(request) ? gzipEtag(version.etag()) : version.etag();
+        boolean notModified = request.checkNotModified(etag, version.lastModified().toEpochMilli());
+        // A 304 never reaches respond(), which adds Vary to full responses
+        if (notModified && request instanceof NativeWebRequest nativeRequest) {
+            HttpServletResponse response = nativeRequest.getNativeResponse(HttpServletResponse.class);
+            if (response != null) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            }
+        }
+        return notModified;
+    }
+
+    /**
+     * Write the snapshot for {@code key}, rebuilding it from {@code loader}
+     * first if the catalog version has changed.
+     *
+     * @param key        stable name of the endpoint, e.g. "rooms:all"
+     * @param loader     produces the response data; only called on rebuild
+     * @param aggregates catalog aggregates the response depends on
+     */
+    public ResponseEntity<byte[]> respond(String key, WebRequest request, Supplier<?> loader,
+            CatalogAggregate... aggregates) {
+        CatalogSnapshot snapshot = snapshot(key, loader, aggregates);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(JSON_UTF8);
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        byte[] body = snapshot.json();
+        if (acceptsGzip(request)) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            body = snapshot.gzip();
+        }
+        headers.setContentLength(body.length);
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+
+    CatalogSnapshot snapshot(String key, Supplier<?> loader, CatalogAggregate... aggregates) {
+        // Read the version before loading: if a write lands while we build,
+        // the snapshot carries the older tag and the next request rebuilds.
+        String etag = catalogVersionService.current(aggregates).etag();
+
+        CatalogSnapshot cached = snapshots.get(key);
+        if (cached != null && cached.etag().equals(etag)) {
+            return cached;
+        }
+
+        // compute() keeps concurrent misses on the same key to a single rebuild
+        return snapshots.compute(key, (k, existing) -> {
+            if (existing != null && existing.etag().equals(etag)) {
+                return existing;
+            }
+            log.debug("Rebuilding catalog snapshot {} for version {}", k, etag);
+            return build(etag, ApiResponse.success(loader.get()));
+        });
+    }
+
+    private CatalogSnapshot build(String etag, ApiResponse<?> response) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(response);
+            return new CatalogSnapshot(etag, json, gzip(json));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize catalog snapshot", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String gzipEtag(String etag) {
+        // "a-1" becomes "a-1-gz"
+        return etag.substring(0, etag.length() - 1) + "-gz\"";
+    }
+
+    /**
+     * An explicit gzip entry decides, then a {@code *} entry; {@code q=0} refuses.
+     */
+    private static boolean acceptsGzip(WebRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double wildcard = null;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                return quality(parts) > 0;
+            }
+            if (coding.equals("*")) {
+                wildcard = quality(parts);
+            }
+        }
+        return wildcard != null && wildcard > 0;
+    }
+
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
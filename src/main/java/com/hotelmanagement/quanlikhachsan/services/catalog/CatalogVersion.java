@@ -0,0 +1,12 @@
+package com.hotelmanagement.quanlikhachsan.services.catalog;
+
+import java.time.Instant;
+
+/**
+ * Immutable version stamp of one or more catalog aggregates.
+ *
+ * @param etag         strong entity tag (already quoted)
+ * @param lastModified time of the latest change covered by this stamp
+ */
+public record CatalogVersion(String etag, Instant lastModified) {
+}
@@ -0,0 +1,134 @@
+package com.hotelmanagement.quanlikhachsan.services.catalog;
+
+import com.hotelmanagement.quanlikhachsan.repository.RoomRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps per-aggregate version stamps for the catalog endpoints
+ * (rooms, room types, room statuses) so controllers can answer conditional
+ * GETs with 304 before touching the database.
+ *
+ * Stamps live in Redis so every node hands out the same ETag and
+ * Last-Modified: {@code catalog:version:<aggregate>} is INCRed after each
+ * committed change and {@code catalog:modified:<aggregate>} holds the time of
+ * that change in epoch seconds. The first node to start seeds Last-Modified
+ * (rooms from the database); the others keep what it wrote.
+ *
+ * If Redis cannot be read, every call gets a fresh stamp: no 304s and no
+ * snapshot reuse, rather than a stamp that may be out of date.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogVersionService {
+
+    static final String VERSION_PREFIX = "catalog:version:";
+    static final String MODIFIED_PREFIX = "catalog:modified:";
+
+    private final RoomRepository roomRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @PostConstruct
+    public void init() {
+        long now = Instant.now().getEpochSecond();
+        for (CatalogAggregate aggregate : CatalogAggregate.values()) {
+            long seed = aggregate == CatalogAggregate.ROOMS ? latestRoomUpdate(now) : now;
+            try {
+                stringRedisTemplate.opsForValue().setIfAbsent(MODIFIED_PREFIX + aggregate.name(), Long.toString(seed));
+            } catch (Exception e) {
+                log.warn("Could not seed catalog Last-Modified for {}: {}", aggregate, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Current combined stamp for the given aggregates.
+     */
+    public CatalogVersion current(CatalogAggregate... aggregates) {
+        List<String> keys = new ArrayList<>(aggregates.length * 2);
+        for (CatalogAggregate aggregate : aggregates) {
+            keys.add(VERSION_PREFIX + aggregate.name());
+            keys.add(MODIFIED_PREFIX + aggregate.name());
+        }
+
+        List<String> values;
+        try {
+            values = stringRedisTemplate.opsForValue().multiGet(keys);
+        } catch (Exception e) {
+            log.warn("Could not read catalog version: {}", e.getMessage());
+            values = null;
+        }
+        if (values == null) {
+            return new CatalogVersion("\"u" + Long.toString(System.nanoTime(), 36) + "\"", Instant.now());
+        }
+
+        StringBuilder etag = new StringBuilder(32).append('"');
+        long lastModified = 0;
+        for (int i = 0; i < values.size(); i += 2) {
+            long version = parse(values.get(i));
+            long modified = parse(values.get(i + 1));
+            // The seed time tells a flushed Redis apart from the one that issued earlier tags
+            etag.append(i == 0 ? "" : "-")
+                    .append(Long.toString(version, 36)).append('.').append(Long.toString(modified, 36));
+            lastModified = Math.max(lastModified, modified);
+        }
+        return new CatalogVersion(etag.append('"').toString(), Instant.ofEpochSecond(lastModified));
+    }
+
+    /**
+     * Evaluate If-None-Match / If-Modified-Since against the current stamp.
+     * Sets ETag and Last-Modified on the response either way.
+     *
+     * @return true if the caller should return immediately with 304
+     */
+    public boolean checkNotModified(WebRequest request, CatalogAggregate... aggregates) {
+        CatalogVersion version = current(aggregates);
+        return request.checkNotModified(version.etag(), version.lastModified().toEpochMilli());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        String name = event.aggregate().name();
+        try {
+            // Last-Modified first, so a stamp read in between is never newer than its time
+            stringRedisTemplate.opsForValue().set(MODIFIED_PREFIX + name, Long.toString(Instant.now().getEpochSecond()));
+            Long version = stringRedisTemplate.opsForValue().increment(VERSION_PREFIX + name);
+            log.debug("Catalog aggregate {} bumped to version {}", name, version);
+        } catch (Exception e) {
+            log.warn("Failed to bump catalog version for {}: {}", name, e.getMessage());
+        }
+    }
+
+    private long latestRoomUpdate(long fallback) {
+        try {
+            return roomRepository.findLatestUpdatedAt()
+                    .map(updatedAt -> updatedAt.atZone(ZoneId.systemDefault()).toEpochSecond())
+                    .orElse(fallback);
+        } catch (Exception e) {
+            log.warn("Could not seed rooms Last-Modified from database: {}", e.getMessage());
+            return fallback;
+        }
+    }
+
+    private static long parse(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.hotelmanagement.quanlikhachsan.services.email;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+
+/**
+ * Per-recipient-domain token bucket, local to this node.
+ *
+ * Large providers throttle or greylist senders that burst; spreading sends
+ * per domain keeps one provider's limits from failing a whole batch.
+ */
+final class DomainRateLimiter {
+
+    private final double permitsPerNano;
+    private final double burst;
+
+    // Idle domains are dropped, so the map stays bounded by recently mailed domains
+    private final Cache<String, Bucket> buckets = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
+
+    DomainRateLimiter(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Invalid domain rate limit");
+        }
+        this.permitsPerNano = permitsPerSecond / 1_000_000_000d;
+        this.burst = burst;
+    }
+
+    /**
+     * Take a permit for the domain if one is available.
+     *
+     * @return zero if the send may go ahead, otherwise how long until a permit frees up
+     */
+    Duration tryAcquire(String domain) {
+        Bucket bucket = buckets.get(domain, key -> new Bucket(burst, System.nanoTime()));
+        synchronized (bucket) {
+            long now = System.nanoTime();
+            bucket.tokens = Math.min(burst, bucket.tokens + (now - bucket.refilledAt) * permitsPerNano);
+            bucket.refilledAt = now;
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                return Duration.ZERO;
+            }
+            return Duration.ofNanos((long) Math.ceil((1 - bucket.tokens) / permitsPerNano));
+        }
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long refilledAt;
+
+        private Bucket(double tokens, long refilledAt) {
+            this.tokens = tokens;
+            this.refilledAt = refilledAt;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.hotelmanagement.quanlikhachsan.services.email;
+
+import com.hotelmanagement.quanlikhachsan.model.email.EmailOutboxMessage;
+import com.hotelmanagement.quanlikhachsan.model.email.EmailOutboxStatus;
+import com.hotelmanagement.quanlikhachsan.repository.EmailOutboxRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Delivers email outbox messages.
+ *
+ * Due messages are claimed with FOR UPDATE SKIP LOCKED and leased by pushing
+ * next_attempt_at forward, so several nodes can poll without sending twice
+ * and a message abandoned by a crashed node goes out once its lease ends.
+ * Claimed messages are sent in batches, one virtual thread and one pooled
+ * SMTP session per batch, with at most {@code concurrency} batches in
+ * flight; a poll claims enough to fill every free batch slot and spreads a
+ * short backlog across them so free sessions do not sit idle. A batch sends
+ * its messages one after another, so the lease covers the whole batch. Each
+ * recipient domain is rate limited; a throttled message is put back without
+ * counting as an attempt.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EmailOutboxWorker {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final EmailOutboxRepository outboxRepository;
+    private final EmailService emailService;
+    private final TransactionTemplate transactionTemplate;
+
+    // Batches in flight, each holding one SMTP session
+    @Value("${email.outbox.concurrency:4}")
+    private int concurrency;
+
+    @Value("${email.outbox.batch-size:20}")
+    private int batchSize;
+
+    @Value("${email.outbox.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${email.outbox.lease-ms:300000}")
+    private long leaseMillis;
+
+    @Value("${email.outbox.backoff-ms:5000}")
+    private long backoffMillis;
+
+    @Value("${email.outbox.max-backoff-ms:600000}")
+    private long maxBackoffMillis;
+
+    @Value("${email.outbox.domain-rate-per-second:5}")
+    private double domainRatePerSecond;
+
+    @Value("${email.outbox.domain-burst:10}")
+    private int domainBurst;
+
+    @Value("${email.outbox.retention-days:7}")
+    private int retentionDays;
+
+    // SMTP sends block on the network, so one virtual thread per batch
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    // One per batch slot
+    private Semaphore sendPermits;
+    private DomainRateLimiter domainRateLimiter;
+
+    @PostConstruct
+    void init() {
+        sendPermits = new Semaphore(concurrency);
+        domainRateLimiter = new DomainRateLimiter(domainRatePerSecond, domainBurst);
+    }
+
+    /**
+     * Deliver newly queued mail now instead of waiting for the next poll.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmailQueued(EmailQueuedEvent event) {
+        executor.execute(this::poll);
+    }
+
+    @Scheduled(fixedDelayString = "${email.outbox.poll-interval-ms:5000}")
+    public void poll() {
+        // Only claim what can be sent now; the rest stays unleased for other nodes
+        int available = sendPermits.drainPermits();
+        if (available == 0) {
+            return;
+        }
+        List<List<EmailOutboxMessage>> batches;
+        try {
+            batches = split(claimDue(available * batchSize), available);
+        } catch (Exception e) {
+            sendPermits.release(available);
+            log.warn("Failed to poll email outbox: {}", e.getMessage());
+            return;
+        }
+        sendPermits.release(available - batches.size());
+        // One batch per task, sent over a single pooled SMTP session
+        for (List<EmailOutboxMessage> batch : batches) {
+            executor.execute(() -> {
+                try {
+                    processBatch(batch);
+                } finally {
+                    sendPermits.release();
+                }
+            });
+        }
+    }
+
+    /**
+     * Split claimed messages into at most {@code slots} batches of at most
+     * {@code batchSize}, evenly, so a short backlog still uses every slot.
+     */
+    List<List<EmailOutboxMessage>> split(List<EmailOutboxMessage> claimed, int slots) {
+        List<List<EmailOutboxMessage>> batches = new ArrayList<>(slots);
+        if (claimed.isEmpty()) {
+            return batches;
+        }
+        int size = Math.min(batchSize, Math.ceilDiv(claimed.size(), slots));
+        for (int start = 0; start < claimed.size(); start += size) {
+            batches.add(claimed.subList(start, Math.min(start + size, claimed.size())));
+        }
+        return batches;
+    }
+
+    List<EmailOutboxMessage> claimDue(int limit) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<EmailOutboxMessage> due = outboxRepository.lockDue(now, limit);
+            LocalDateTime leaseUntil = now.plus(Duration.ofMillis(leaseMillis));
+            due.forEach(message -> message.setNextAttemptAt(leaseUntil));
+            return due;
+        });
+    }
+
+    /**
+     * Send claimed messages and record the outcome of each.
+     */
+    void processBatch(List<EmailOutboxMessage> messages) {
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailOutboxMessage> sendable = new ArrayList<>(messages.size());
+        for (EmailOutboxMessage message : messages) {
+            if (message.getExpiresAt() != null && now.isAfter(message.getExpiresAt())) {
+                finish(message, EmailOutboxStatus.FAILED, "Expired before delivery");
+                log.warn("Email {} to {} expired before delivery", message.getId(), message.getRecipient());
+                continue;
+            }
+            Duration wait = domainRateLimiter.tryAcquire(message.getRecipientDomain());
+            if (!wait.isZero()) {
+                message.setNextAttemptAt(now.plus(wait));
+                outboxRepository.save(message);
+                continue;
+            }
+            sendable.add(message);
+        }
+        if (sendable.isEmpty()) {
+            return;
+        }
+
+        List<MailException> results;
+        try {
+            results = emailService.deliverBatch(sendable);
+        } catch (Exception e) {
+            sendable.forEach(message -> recordFailure(message, e));
+            return;
+        }
+        for (int i = 0; i < sendable.size(); i++) {
+            EmailOutboxMessage message = sendable.get(i);
+            if (results.get(i) == null) {
+                message.setSentAt(LocalDateTime.now());
+                finish(message, EmailOutboxStatus.SENT, null);
+            } else {
+                recordFailure(message, results.get(i));
+            }
+        }
+    }
+
+    private void recordFailure(EmailOutboxMessage message, Exception e) {
+        int attempts = message.getAttempts() + 1;
+        message.setAttempts(attempts);
+
+        // Bad addresses and broken credentials will not fix themselves
+        boolean permanent = e instanceof MailParseException
+                || e instanceof MailPreparationException
+                || e instanceof MailAuthenticationException;
+        if (permanent || attempts >= maxAttempts) {
+            log.error("Email {} to {} failed after {} attempts: {}",
+                    message.getId(), message.getRecipient(), attempts, e.getMessage());
+            finish(message, EmailOutboxStatus.FAILED, truncate(e.getMessage()));
+            return;
+        }
+
+        log.warn("Email {} to {} failed (attempt {}): {}",
+                message.getId(), message.getRecipient(), attempts, e.getMessage());
+        message.setLastError(truncate(e.getMessage()));
+        message.setNextAttemptAt(LocalDateTime.now().plus(backoff(attempts)));
+        outboxRepository.save(message);
+    }
+
+    private void finish(EmailOutboxMessage message, EmailOutboxStatus status, String error) {
+        message.setStatus(status);
+        message.setHtmlBody(null);
+        message.setLastError(error);
+        outboxRepository.save(message);
+    }
+
+    /**
+     * Drop finished messages once they are no longer useful for troubleshooting.
+     */
+    @Scheduled(fixedDelayString = "${email.outbox.purge-interval-ms:3600000}")
+    public void purge() {
+        try {
+            Long deleted = transactionTemplate.execute(status -> outboxRepository.deleteByStatusInAndUpdatedAtBefore(
+                    EnumSet.of(EmailOutboxStatus.SENT, EmailOutboxStatus.FAILED),
+                    LocalDateTime.now().minusDays(retentionDays)));
+            if (deleted != null && deleted > 0) {
+                log.info("Purged {} finished outbox emails", deleted);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to purge email outbox: {}", e.getMessage());
+        }
+    }
+
+    private Duration backoff(int attempts) {
+        long delay = Math.min(maxBackoffMillis, backoffMillis << Math.min(attempts - 1, 20));
+        // Up to 20% jitter so messages that failed together do not retry together
+        return Duration.ofMillis(delay + ThreadLocalRandom.current().nextLong(delay / 5 + 1));
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    @PreDestroy
+    void shutdownExecutor() {
+        executor.close();
+    }
+}
@@ -0,0 +1,9 @@
+package com.hotelmanagement.quanlikhachsan.services.email;
+
+import java.util.UUID;
+
+/**
+ * Published when a message is written to the email outbox.
+ */
+public record EmailQueuedEvent(UUID messageId) {
+}
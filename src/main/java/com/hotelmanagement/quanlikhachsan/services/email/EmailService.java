@@ -1,18 +1,43 @@
 package com.hotelmanagement.quanlikhachsan.services.email;
 
+import com.hotelmanagement.quanlikhachsan.model.email.EmailCategory;
+import com.hotelmanagement.quanlikhachsan.model.email.EmailOutboxMessage;
+import com.hotelmanagement.quanlikhachsan.model.email.EmailOutboxStatus;
+import com.hotelmanagement.quanlikhachsan.repository.EmailOutboxRepository;
+import com.hotelmanagement.quanlikhachsan.services.email.EmailTemplateEngine.RenderedEmail;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
+import jakarta.mail.AuthenticationFailedException;
+import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 
+import java.io.UnsupportedEncodingException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
 /**
  * Email Service for sending verification emails
  * 
  * Handles email composition and delivery via Spring Mail
- * Uses HTML templates for better presentation
+ * Uses HTML templates for better presentation, rendered by {@link EmailTemplateEngine}
+ * 
+ * The send* methods only render the message and write it to the email
+ * outbox; {@link EmailOutboxWorker} delivers it in batches over pooled SMTP
+ * sessions, so callers never wait on the mail server. Within a transaction
+ * the message is enqueued atomically with the caller's changes.
  */
 @Service
 @RequiredArgsConstructor
@@ -20,6 +45,10 @@ import jakarta.mail.internet.MimeMessage;
 public class EmailService {
 
     private final JavaMailSender mailSender;
+    private final EmailOutboxRepository outboxRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EmailTemplateEngine templateEngine;
+    private final SmtpSessionPool smtpSessionPool;
 
     @Value("${email.from.address}")
     private String fromAddress;
@@ -34,26 +63,16 @@ public class EmailService {
      * @param otp               Generated OTP
      * @param fullName          User's full name
      * @param expirationMinutes OTP expiration time
+     * @param locale            Recipient language, null for the default
      */
-    public void sendVerificationEmail(String toEmail, String otp, String fullName, long expirationMinutes) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setFrom(fromAddress, fromName);
-            helper.setTo(toEmail);
-            helper.setSubject("🔐 Email Verification - Your OTP Code");
-
-            String htmlContent = buildVerificationEmailHtml(otp, fullName, expirationMinutes);
-            helper.setText(htmlContent, true);
-
-            mailSender.send(message);
-            log.info("Verification email sent successfully to: {}", toEmail);
-
-        } catch (Exception e) {
-            log.error("Failed to send verification email to: {}", toEmail, e);
-            throw new RuntimeException("Failed to send verification email: " + e.getMessage());
-        }
+    public void sendVerificationEmail(String toEmail, String otp, String fullName, long expirationMinutes,
+            Locale locale) {
+        RenderedEmail email = templateEngine.render("verification", locale, Map.of(
+                "fullName", fullName,
+                "otp", otp,
+                "expirationMinutes", expirationMinutes));
+        // A code that arrives after it expired is useless, so stop retrying by then
+        enqueue(EmailCategory.VERIFICATION, toEmail, email, LocalDateTime.now().plusMinutes(expirationMinutes));
     }
 
     /**
@@ -61,24 +80,14 @@ public class EmailService {
      * 
      * @param toEmail  Recipient email
      * @param fullName User's full name
+     * @param locale   Recipient language, null for the default
      */
-    public void sendWelcomeEmail(String toEmail, String fullName) {
+    public void sendWelcomeEmail(String toEmail, String fullName, Locale locale) {
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setFrom(fromAddress, fromName);
-            helper.setTo(toEmail);
-            helper.setSubject("🎉 Welcome to Hotel Management System!");
-
-            String htmlContent = buildWelcomeEmailHtml(fullName);
-            helper.setText(htmlContent, true);
-
-            mailSender.send(message);
-            log.info("Welcome email sent successfully to: {}", toEmail);
-
+            RenderedEmail email = templateEngine.render("welcome", locale, Map.of("fullName", fullName));
+            enqueue(EmailCategory.WELCOME, toEmail, email, null);
         } catch (Exception e) {
-            log.error("Failed to send welcome email to: {}", toEmail, e);
+            log.error("Failed to queue welcome email to: {}", toEmail, e);
             // Don't throw exception - welcome email is not critical
         }
     }
@@ -97,271 +106,161 @@ public class EmailService {
     public void sendBookingConfirmationEmail(String toEmail, String fullName, String reservationId,
             String roomInfo, String checkIn, String checkOut, String totalAmount) {
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setFrom(fromAddress, fromName);
-            helper.setTo(toEmail);
-            helper.setSubject(" Xác nhận đặt phòng thành công - " + reservationId.substring(0, 8).toUpperCase());
-
-            String htmlContent = buildBookingConfirmationEmailHtml(fullName, reservationId, roomInfo, checkIn, checkOut,
-                    totalAmount);
-            helper.setText(htmlContent, true);
-
-            mailSender.send(message);
-            log.info("Booking confirmation email sent successfully to: {}", toEmail);
-
+            RenderedEmail email = templateEngine.render("booking-confirmation", null, Map.of(
+                    "fullName", fullName,
+                    "reservationCode", reservationId.substring(0, 8).toUpperCase(),
+                    "roomInfo", roomInfo,
+                    "checkIn", checkIn,
+                    "checkOut", checkOut,
+                    "totalAmount", totalAmount));
+            enqueue(EmailCategory.BOOKING_CONFIRMATION, toEmail, email, null);
         } catch (Exception e) {
-            log.error("Failed to send booking confirmation email to: {}", toEmail, e);
+            log.error("Failed to queue booking confirmation email to: {}", toEmail, e);
             // Don't throw exception - confirmation email is not critical for transaction
         }
     }
 
     /**
-     * Build HTML content for booking confirmation email
+     * Build a pre-arrival reminder for a campaign run. The message is not
+     * saved; campaigns hand their messages to {@link #enqueueAll} in batches.
+     * 
+     * @param toEmail          Recipient email
+     * @param fullName         Guest's full name
+     * @param reservationId    Reservation ID
+     * @param roomInfo         Room information (number, type)
+     * @param checkIn          Check-in date
+     * @param checkOut         Check-out date
+     * @param daysUntilArrival Days left until check-in
+     * @param sendAt           Earliest time to send, used to pace large runs
+     * @param dedupeKey        Unique per reservation and campaign
+     * @return the unsaved outbox message
      */
-    private String buildBookingConfirmationEmailHtml(String fullName, String reservationId,
-            String roomInfo, String checkIn, String checkOut, String totalAmount) {
-        return """
-                <!DOCTYPE html>
-                <html lang="vi">
-                <head>
-                    <meta charset="UTF-8">
-                    <meta name="viewport" content="width=device-width, initial-scale=1.0">
-                </head>
-                <body style="margin: 0; padding: 0; font-family: 'Segoe UI', Tahoma, Geneva, Verdana, sans-serif; background: linear-gradient(135deg, #10b981 0%%, #059669 100%%);">
-                    <table width="100%%" cellpadding="0" cellspacing="0" style="background: linear-gradient(135deg, #10b981 0%%, #059669 100%%);">
-                        <tr>
-                            <td align="center" style="padding: 40px 20px;">
-                                <table width="600" cellpadding="0" cellspacing="0" style="background: white; border-radius: 20px; box-shadow: 0 10px 30px rgba(0,0,0,0.2);">
-                                    <!-- Header -->
-                                    <tr>
-                                        <td style="padding: 40px 40px 20px; text-align: center; background: linear-gradient(135deg, #10b981 0%%, #059669 100%%); border-radius: 20px 20px 0 0;">
-                                            <h1 style="margin: 0; color: white; font-size: 48px;">✅</h1>
-                                            <h2 style="margin: 10px 0 0; color: white; font-size: 24px; font-weight: 700;">
-                                                Đặt phòng thành công!
-                                            </h2>
-                                        </td>
-                                    </tr>
-
-                                    <!-- Content -->
-                                    <tr>
-                                        <td style="padding: 30px 40px;">
-                                            <p style="margin: 0 0 20px; color: #374151; font-size: 16px; line-height: 1.6;">
-                                                Xin chào <strong>%s</strong>,
-                                            </p>
-                                            <p style="margin: 0 0 30px; color: #6b7280; font-size: 15px; line-height: 1.6;">
-                                                Cảm ơn bạn đã đặt phòng tại HotelPro. Thanh toán của bạn đã được xử lý thành công. Dưới đây là thông tin đặt phòng của bạn:
-                                            </p>
-
-                                            <!-- Booking Details Box -->
-                                            <table width="100%%" cellpadding="0" cellspacing="0" style="background: #f9fafb; border-radius: 12px; border: 1px solid #e5e7eb;">
-                                                <tr>
-                                                    <td style="padding: 25px;">
-                                                        <table width="100%%" cellpadding="0" cellspacing="0">
-                                                            <tr>
-                                                                <td style="padding: 8px 0; border-bottom: 1px solid #e5e7eb;">
-                                                                    <span style="color: #6b7280; font-size: 14px;">Mã đặt phòng:</span>
-                                                                    <span style="float: right; color: #111827; font-weight: 600; font-family: monospace; font-size: 14px;">%s</span>
-                                                                </td>
-                                                            </tr>
-                                                            <tr>
-                                                                <td style="padding: 8px 0; border-bottom: 1px solid #e5e7eb;">
-                                                                    <span style="color: #6b7280; font-size: 14px;">Phòng:</span>
-                                                                    <span style="float: right; color: #111827; font-weight: 600; font-size: 14px;">%s</span>
-                                                                </td>
-                                                            </tr>
-                                                            <tr>
-                                                                <td style="padding: 8px 0; border-bottom: 1px solid #e5e7eb;">
-                                                                    <span style="color: #6b7280; font-size: 14px;">Ngày nhận phòng:</span>
-                                                                    <span style="float: right; color: #111827; font-weight: 600; font-size: 14px;">%s</span>
-                                                                </td>
-                                                            </tr>
-                                                            <tr>
-                                                                <td style="padding: 8px 0; border-bottom: 1px solid #e5e7eb;">
-                                                                    <span style="color: #6b7280; font-size: 14px;">Ngày trả phòng:</span>
-                                                                    <span style="float: right; color: #111827; font-weight: 600; font-size: 14px;">%s</span>
-                                                                </td>
-                                                            </tr>
-                                                            <tr>
-                                                                <td style="padding: 12px 0 0;">
-                                                                    <span style="color: #111827; font-size: 16px; font-weight: 700;">💰 Tổng thanh toán:</span>
-                                                                    <span style="float: right; color: #10b981; font-weight: 700; font-size: 18px;">%s</span>
-                                                                </td>
-                                                            </tr>
-                                                        </table>
-                                                    </td>
-                                                </tr>
-                                            </table>
-
-                                            <!-- Info Box -->
-                                            <table width="100%%" cellpadding="0" cellspacing="0" style="background: #ecfdf5; border-left: 4px solid #10b981; border-radius: 8px; margin: 25px 0;">
-                                                <tr>
-                                                    <td style="padding: 15px 20px;">
-                                                        <p style="margin: 0; color: #065f46; font-size: 14px;">
-                                                            Vui lòng xuất trình email này hoặc mã đặt phòng khi đến nhận phòng.
-                                                        </p>
-                                                    </td>
-                                                </tr>
-                                            </table>
+    public EmailOutboxMessage buildPreArrivalReminder(String toEmail, String fullName, String reservationId,
+            String roomInfo, String checkIn, String checkOut, long daysUntilArrival, LocalDateTime sendAt,
+            String dedupeKey) {
+        RenderedEmail email = templateEngine.render("pre-arrival", null, Map.of(
+                "fullName", fullName,
+                "reservationCode", reservationId.substring(0, 8).toUpperCase(),
+                "roomInfo", roomInfo,
+                "checkIn", checkIn,
+                "checkOut", checkOut,
+                "daysUntilArrival", daysUntilArrival));
+        return EmailOutboxMessage.builder()
+                .category(EmailCategory.PRE_ARRIVAL)
+                .recipient(toEmail)
+                .recipientDomain(domainOf(toEmail))
+                .subject(email.subject())
+                .htmlBody(email.html())
+                .status(EmailOutboxStatus.PENDING)
+                .nextAttemptAt(sendAt)
+                .dedupeKey(dedupeKey)
+                .build();
+    }
 
-                                            <p style="margin: 20px 0 0; color: #6b7280; font-size: 14px; line-height: 1.6;">
-                                                Nếu bạn có bất kỳ câu hỏi nào, vui lòng liên hệ với chúng tôi qua email hoặc hotline.
-                                            </p>
-                                        </td>
-                                    </tr>
+    /**
+     * Write a batch of prepared messages to the outbox in one flush. The
+     * worker picks them up as their send time comes due.
+     * 
+     * @param messages Messages from the build* methods
+     */
+    public void enqueueAll(List<EmailOutboxMessage> messages) {
+        outboxRepository.saveAll(messages);
+        log.info("Queued {} campaign emails", messages.size());
+    }
 
-                                    <!-- Footer -->
-                                    <tr>
-                                        <td style="padding: 30px 40px; background: #f9fafb; border-radius: 0 0 20px 20px;">
-                                            <p style="margin: 0; color: #9ca3af; font-size: 13px; text-align: center;">
-                                                © 2024 HotelPro Management System. All rights reserved.
-                                            </p>
-                                            <p style="margin: 10px 0 0; color: #9ca3af; font-size: 12px; text-align: center;">
-                                                📧 support@hotelpro.vn | 1900-xxxx
-                                            </p>
-                                        </td>
-                                    </tr>
-                                </table>
-                            </td>
-                        </tr>
-                    </table>
-                </body>
-                </html>
-                """
-                .formatted(fullName, reservationId.substring(0, 8).toUpperCase(), roomInfo, checkIn, checkOut,
-                        totalAmount);
+    /**
+     * Deliver an outbox message over SMTP.
+     * 
+     * @param outboxMessage Message to send
+     * @throws MailException if the mail server rejects or cannot be reached
+     */
+    public void deliver(EmailOutboxMessage outboxMessage) {
+        MailException failure = deliverBatch(List.of(outboxMessage)).get(0);
+        if (failure != null) {
+            throw failure;
+        }
     }
 
     /**
-     * Build HTML content for verification email
+     * Deliver outbox messages over one pooled SMTP session. Called by the outbox worker.
+     * 
+     * @param outboxMessages Messages to send, in order
+     * @return one entry per message: null if sent, otherwise why it was not
      */
-    private String buildVerificationEmailHtml(String otp, String fullName, long expirationMinutes) {
-        return """
-                <!DOCTYPE html>
-                <html lang="vi">
-                <head>
-                    <meta charset="UTF-8">
-                    <meta name="viewport" content="width=device-width, initial-scale=1.0">
-                </head>
-                <body style="margin: 0; padding: 0; font-family: 'Segoe UI', Tahoma, Geneva, Verdana, sans-serif; background: linear-gradient(135deg, #ea9d66ff 0%%, #e1ddb5ff 100%%);">
-                    <table width="100%%" cellpadding="0" cellspacing="0" style="background: linear-gradient(135deg, #ea9d66ff 0%%, #e1ddb5ff 100%%);">
-                        <tr>
-                            <td align="center" style="padding: 40px 20px;">
-                                <table width="600" cellpadding="0" cellspacing="0" style="background: white; border-radius: 20px; box-shadow: 0 10px 30px rgba(0,0,0,0.2);">
-                                    <!-- Header -->
-                                    <tr>
-                                        <td style="padding: 40px 40px 20px; text-align: center;">
-                                            <h1 style="margin: 0; color: #ea9d66ff; font-size: 32px; font-weight: 700;">
-                                                Hotel Management
-                                            </h1>
-                                            <p style="margin: 10px 0 0; color: #d4ddf0ff; font-size: 16px;">Email Verification</p>
-                                        </td>
-                                    </tr>
+    public List<MailException> deliverBatch(List<EmailOutboxMessage> outboxMessages) {
+        List<MailException> results = new ArrayList<>(Collections.nCopies(outboxMessages.size(), null));
+        List<MimeMessage> mimeMessages = new ArrayList<>(outboxMessages.size());
+        List<Integer> positions = new ArrayList<>(outboxMessages.size());
+        for (int i = 0; i < outboxMessages.size(); i++) {
+            try {
+                mimeMessages.add(toMimeMessage(outboxMessages.get(i)));
+                positions.add(i);
+            } catch (MailException e) {
+                results.set(i, e);
+            }
+        }
 
-                                    <!-- Content -->
-                                    <tr>
-                                        <td style="padding: 20px 40px;">
-                                            <p style="margin: 0 0 20px; color: #e9ebeeff; font-size: 16px; line-height: 1.6;">
-                                                Xin chào <strong>%s</strong>,
-                                            </p>
-                                            <p style="margin: 0 0 30px; color: #d4ddf0ff; font-size: 15px; line-height: 1.6;">
-                                                Cảm ơn bạn đã đăng ký tài khoản. Để hoàn tất quá trình đăng ký, vui lòng nhập mã OTP bên dưới:
-                                            </p>
+        if (mimeMessages.isEmpty()) {
+            return results;
+        }
 
-                                            <!-- OTP Box -->
-                                            <table width="100%%" cellpadding="0" cellspacing="0">
-                                                <tr>
-                                                    <td align="center" style="padding: 30px 0;">
-                                                        <div style="display: inline-block; background: linear-gradient(135deg, #ea9d66ff 0%%, #e1ddb5ff 100%%); padding: 25px 60px; border-radius: 15px; box-shadow: 0 4px 15px rgba(102, 126, 234, 0.3);">
-                                                            <span style="color: white; font-size: 42px; font-weight: 700; letter-spacing: 8px; font-family: 'Courier New', monospace;">
-                                                                %s
-                                                            </span>
-                                                        </div>
-                                                    </td>
-                                                </tr>
-                                            </table>
+        List<MessagingException> sendResults;
+        try {
+            sendResults = smtpSessionPool.sendBatch(mimeMessages);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            MailSendException interrupted = new MailSendException("Interrupted while waiting for an SMTP session");
+            positions.forEach(position -> results.set(position, interrupted));
+            return results;
+        }
 
-                                            <!-- Warning Box -->
-                                            <table width="100%%" cellpadding="0" cellspacing="0" style="background: #fef3c7; border-left: 4px solid #f59e0b; border-radius: 8px; margin: 20px 0;">
-                                                <tr>
-                                                    <td style="padding: 15px 20px;">
-                                                        <p style="margin: 0; color: #db9266ff; font-size: 14px;">
-                                                             Mã OTP này sẽ hết hạn sau <strong>%d phút</strong>
-                                                        </p>
-                                                    </td>
-                                                </tr>
-                                            </table>
+        for (int i = 0; i < positions.size(); i++) {
+            EmailOutboxMessage outboxMessage = outboxMessages.get(positions.get(i));
+            MessagingException error = sendResults.get(i);
+            if (error == null) {
+                log.info("{} email {} sent to: {}", outboxMessage.getCategory(), outboxMessage.getId(),
+                        outboxMessage.getRecipient());
+            } else {
+                results.set(positions.get(i), error instanceof AuthenticationFailedException
+                        ? new MailAuthenticationException(error)
+                        : new MailSendException("Failed to send email " + outboxMessage.getId(), error));
+            }
+        }
+        return results;
+    }
 
-                                            <p style="margin: 20px 0 0; color: #d4ddf0ff; font-size: 14px; line-height: 1.6;">
-                                                Nếu bạn không yêu cầu mã này, vui lòng bỏ qua email này.
-                                            </p>
-                                        </td>
-                                    </tr>
+    private MimeMessage toMimeMessage(EmailOutboxMessage outboxMessage) {
+        MimeMessage message = mailSender.createMimeMessage();
+        try {
+            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+            helper.setFrom(fromAddress, fromName);
+            helper.setTo(outboxMessage.getRecipient());
+            helper.setSubject(outboxMessage.getSubject());
+            helper.setText(outboxMessage.getHtmlBody(), true);
+        } catch (MessagingException | UnsupportedEncodingException e) {
+            throw new MailPreparationException("Could not build message " + outboxMessage.getId(), e);
+        }
+        return message;
+    }
 
-                                    <!-- Footer -->
-                                    <tr>
-                                        <td style="padding: 30px 40px; background: #f9fafb; border-radius: 0 0 20px 20px;">
-                                            <p style="margin: 0; color: #e4ebf7ff; font-size: 13px; text-align: center;">
-                                                © 2024 Hotel Management System. All rights reserved.
-                                            </p>
-                                            <p style="margin: 10px 0 0; color: #e4ebf7ff; font-size: 12px; text-align: center;">
-                                                Email này được gửi tự động, vui lòng không trả lời.
-                                            </p>
-                                        </td>
-                                    </tr>
-                                </table>
-                            </td>
-                        </tr>
-                    </table>
-                </body>
-                </html>
-                """
-                .formatted(fullName, otp, expirationMinutes);
+    private void enqueue(EmailCategory category, String toEmail, RenderedEmail email, LocalDateTime expiresAt) {
+        EmailOutboxMessage message = outboxRepository.save(EmailOutboxMessage.builder()
+                .category(category)
+                .recipient(toEmail)
+                .recipientDomain(domainOf(toEmail))
+                .subject(email.subject())
+                .htmlBody(email.html())
+                .status(EmailOutboxStatus.PENDING)
+                .nextAttemptAt(LocalDateTime.now())
+                .expiresAt(expiresAt)
+                .build());
+        log.info("{} email {} queued for: {}", category, message.getId(), toEmail);
+        // Wakes the worker once the surrounding transaction (if any) commits
+        eventPublisher.publishEvent(new EmailQueuedEvent(message.getId()));
     }
 
-    /**
-     * Build HTML content for welcome email
-     */
-    private String buildWelcomeEmailHtml(String fullName) {
-        return """
-                <!DOCTYPE html>
-                <html lang="vi">
-                <head>
-                    <meta charset="UTF-8">
-                    <meta name="viewport" content="width=device-width, initial-scale=1.0">
-                </head>
-                <body style="margin: 0; padding: 0; font-family: 'Segoe UI', Tahoma, Geneva, Verdana, sans-serif; background: linear-gradient(135deg, #ea9d66ff 0%%, #e1ddb5ff 100%%);">
-                    <table width="100%%" cellpadding="0" cellspacing="0">
-                        <tr>
-                            <td align="center" style="padding: 40px 20px;">
-                                <table width="600" cellpadding="0" cellspacing="0" style="background: white; border-radius: 20px; box-shadow: 0 10px 30px rgba(0,0,0,0.2);">
-                                    <tr>
-                                        <td style="padding: 40px; text-align: center;">
-                                            <h1 style="margin: 0 0 20px; color: #ea9d66ff; font-size: 36px;">🎉</h1>
-                                            <h2 style="margin: 0 0 20px; color: #c4cddbff; font-size: 28px;">Chào mừng, %s!</h2>
-                                            <p style="margin: 0 0 30px; color: #c4cddbff; font-size: 16px; line-height: 1.6;">
-                                                Email của bạn đã được xác thực thành công. Bây giờ bạn có thể trải nghiệm đầy đủ các tính năng của hệ thống quản lý khách sạn.
-                                            </p>
-                                            <a href="http://localhost:5173/login" style="display: inline-block; background: linear-gradient(135deg, #ea9d66ff 0%%, #e1ddb5ff 100%%); color: white; text-decoration: none; padding: 15px 40px; border-radius: 10px; font-size: 16px; font-weight: 600;">
-                                                Đăng nhập ngay
-                                            </a>
-                                        </td>
-                                    </tr>
-                                    <tr>
-                                        <td style="padding: 30px; background: #f9fafb; border-radius: 0 0 20px 20px; text-align: center;">
-                                            <p style="margin: 0; color: #f1cd97ff; font-size: 13px;">
-                                                © 2024 Hotel Management System
-                                            </p>
-                                        </td>
-                                    </tr>
-                                </table>
-                            </td>
-                        </tr>
-                    </table>
-                </body>
-                </html>
-                """
-                .formatted(fullName);
+    static String domainOf(String email) {
+        int atIndex = email.lastIndexOf('@');
+        return (atIndex >= 0 ? email.substring(atIndex + 1) : email).toLowerCase(Locale.ROOT);
     }
 }
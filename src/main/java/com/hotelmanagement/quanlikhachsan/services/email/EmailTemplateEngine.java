@@ -0,0 +1,200 @@
+package com.hotelmanagement.quanlikhachsan.services.email;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Renders the transactional email templates under {@code templates/email}.
+ *
+ * Each {@code <name>.<language>.html} file and each subject in
+ * {@code subjects.properties} is parsed once at startup into literal segments
+ * and {@code {{placeholder}}} slots, so rendering is a single pass of appends
+ * into a pooled buffer. Values are HTML-escaped in bodies; subjects are plain
+ * text. A language without its own variant falls back to the default locale.
+ */
+@Component
+@Slf4j
+public class EmailTemplateEngine {
+
+    private static final String TEMPLATE_LOCATION = "classpath*:templates/email/";
+    private static final String SUBJECTS_FILE = "subjects.properties";
+    private static final int BUFFER_POOL_SIZE = 32;
+    // A buffer grown past this by an unusually large render is not kept
+    private static final int MAX_POOLED_CAPACITY = 256 * 1024;
+
+    private final String defaultLanguage;
+    private final Map<String, Template> bodies = new HashMap<>();
+    private final Map<String, Template> subjects = new HashMap<>();
+
+    // Shared across threads: request and worker threads are virtual, so a ThreadLocal would not be reused
+    private final BlockingQueue<StringBuilder> buffers = new ArrayBlockingQueue<>(BUFFER_POOL_SIZE);
+
+    /**
+     * A rendered email.
+     */
+    public record RenderedEmail(String subject, String html) {
+    }
+
+    public EmailTemplateEngine(@Value("${email.default-locale:vi}") String defaultLocale) {
+        this.defaultLanguage = Locale.forLanguageTag(defaultLocale).getLanguage();
+    }
+
+    @PostConstruct
+    void loadTemplates() {
+        try {
+            PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+            for (Resource resource : resolver.getResources(TEMPLATE_LOCATION + "*.html")) {
+                String key = resource.getFilename().substring(0, resource.getFilename().length() - ".html".length());
+                bodies.put(key, Template.compile(key, resource.getContentAsString(StandardCharsets.UTF_8), true));
+            }
+
+            Properties subjectLines = new Properties();
+            for (Resource resource : resolver.getResources(TEMPLATE_LOCATION + SUBJECTS_FILE)) {
+                try (Reader reader = new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)) {
+                    subjectLines.load(reader);
+                }
+            }
+            subjectLines.forEach((key, value) ->
+                    subjects.put((String) key, Template.compile((String) key, (String) value, false)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load email templates", e);
+        }
+
+        // Fail at startup rather than on the first send
+        for (String key : bodies.keySet()) {
+            String name = key.substring(0, key.lastIndexOf('.'));
+            if (!bodies.containsKey(name + "." + defaultLanguage)) {
+                throw new IllegalStateException("Email template " + name + " has no " + defaultLanguage + " variant");
+            }
+            if (!subjects.containsKey(key)) {
+                throw new IllegalStateException("Email template " + key + " has no subject");
+            }
+        }
+        log.info("Loaded {} email templates", bodies.size());
+    }
+
+    /**
+     * Render a template's subject and body.
+     *
+     * @param name   template name, e.g. {@code verification}
+     * @param locale recipient locale; null or unsupported uses the default locale
+     * @param model  placeholder values; every placeholder in the template must be present
+     * @return the rendered subject and HTML body
+     */
+    public RenderedEmail render(String name, Locale locale, Map<String, ?> model) {
+        String key = resolveKey(name, locale);
+        StringBuilder buffer = acquireBuffer();
+        try {
+            subjects.get(key).renderTo(buffer, model);
+            String subject = buffer.toString();
+            buffer.setLength(0);
+            bodies.get(key).renderTo(buffer, model);
+            return new RenderedEmail(subject, buffer.toString());
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    private String resolveKey(String name, Locale locale) {
+        if (locale != null) {
+            String key = name + "." + locale.getLanguage();
+            if (bodies.containsKey(key)) {
+                return key;
+            }
+        }
+        String key = name + "." + defaultLanguage;
+        if (!bodies.containsKey(key)) {
+            throw new IllegalArgumentException("Unknown email template: " + name);
+        }
+        return key;
+    }
+
+    private StringBuilder acquireBuffer() {
+        StringBuilder buffer = buffers.poll();
+        return buffer != null ? buffer : new StringBuilder(8 * 1024);
+    }
+
+    private void releaseBuffer(StringBuilder buffer) {
+        if (buffer.capacity() <= MAX_POOLED_CAPACITY) {
+            buffer.setLength(0);
+            buffers.offer(buffer);
+        }
+    }
+
+    /**
+     * A template split into literals around its placeholders:
+     * literals[0] slot[0] literals[1] ... slot[n-1] literals[n].
+     */
+    private record Template(String name, String[] literals, String[] slots, boolean escapeHtml) {
+
+        static Template compile(String name, String source, boolean escapeHtml) {
+            List<String> literals = new ArrayList<>();
+            List<String> slots = new ArrayList<>();
+            int position = 0;
+            while (true) {
+                int open = source.indexOf("{{", position);
+                if (open < 0) {
+                    break;
+                }
+                int close = source.indexOf("}}", open + 2);
+                if (close < 0) {
+                    throw new IllegalStateException("Unclosed placeholder in email template " + name);
+                }
+                literals.add(source.substring(position, open));
+                slots.add(source.substring(open + 2, close).trim());
+                position = close + 2;
+            }
+            literals.add(source.substring(position));
+            return new Template(name, literals.toArray(String[]::new), slots.toArray(String[]::new), escapeHtml);
+        }
+
+        void renderTo(StringBuilder out, Map<String, ?> model) {
+            for (int i = 0; i < slots.length; i++) {
+                out.append(literals[i]);
+                Object value = model.get(slots[i]);
+                if (value == null && !model.containsKey(slots[i])) {
+                    throw new IllegalArgumentException("Missing value for {{" + slots[i] + "}} in email template " + name);
+                }
+                String text = value == null ? "" : value.toString();
+                if (escapeHtml) {
+                    appendEscaped(out, text);
+                } else {
+                    out.append(text);
+                }
+            }
+            out.append(literals[slots.length]);
+        }
+
+        private static void appendEscaped(StringBuilder out, String text) {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '<' -> out.append("&lt;");
+                    case '>' -> out.append("&gt;");
+                    case '&' -> out.append("&amp;");
+                    case '"' -> out.append("&quot;");
+                    case '\'' -> out.append("&#39;");
+                    default -> out.append(c);
+                }
+            }
+        }
+    }
+}
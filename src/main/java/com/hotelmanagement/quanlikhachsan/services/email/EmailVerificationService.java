@@ -4,7 +4,12 @@ import com.hotelmanagement.quanlikhachsan.exception.email.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Locale;
 
 /**
  * Email Verification Service
@@ -38,17 +43,11 @@ public class EmailVerificationService {
     public long sendOTP(String email, String fullName) {
         log.info("Sending OTP to email: {}", email);
 
-        // Check cooldown
-        if (!otpService.canResendOTP(email)) {
-            log.warn("Resend cooldown active for email: {}", email);
-            throw new ResendCooldownException("Please wait before requesting another OTP");
-        }
-
-        // Generate OTP
+        // Generate OTP; the cooldown is checked in the same Redis call
         String otp = otpService.generateOTP(email);
 
-        // Send email
-        emailService.sendVerificationEmail(email, otp, fullName, expirationMinutes);
+        // Send email in the language of the request (Accept-Language)
+        emailService.sendVerificationEmail(email, otp, fullName, expirationMinutes, requestLocale());
 
         // Return expiration time
         return expirationMinutes * 60; // Convert to seconds
@@ -67,30 +66,33 @@ public class EmailVerificationService {
     public boolean verifyOTP(String email, String otp) {
         log.info("Verifying OTP for email: {}", email);
 
+        boolean isValid = otpService.validateOTP(email, otp);
+
+        if (!isValid) {
+            throw new OTPInvalidException("Invalid OTP code");
+        }
+
+        log.info("OTP verified successfully for email: {}", email);
+        // Send welcome email asynchronously
         try {
-            boolean isValid = otpService.validateOTP(email, otp);
-
-            if (isValid) {
-                log.info("OTP verified successfully for email: {}", email);
-                // Send welcome email asynchronously
-                try {
-                    emailService.sendWelcomeEmail(email, extractNameFromEmail(email));
-                } catch (Exception e) {
-                    log.error("Failed to send welcome email", e);
-                    // Don't fail verification if welcome email fails
-                }
-                return true;
-            } else {
-                int remainingAttempts = otpService.getRemainingAttempts(email);
-                log.warn("Invalid OTP for email: {}. Remaining attempts: {}", email, remainingAttempts);
-                throw new OTPInvalidException("Invalid OTP code");
-            }
-        } catch (RuntimeException e) {
-            if (e.getMessage().contains("Maximum verification attempts exceeded")) {
-                throw new OTPAttemptsExceededException(e.getMessage());
-            }
-            throw e;
+            emailService.sendWelcomeEmail(email, extractNameFromEmail(email), requestLocale());
+        } catch (Exception e) {
+            log.error("Failed to send welcome email", e);
+            // Don't fail verification if welcome email fails
+        }
+        return true;
+    }
+
+    /**
+     * Language the client asked for, or null so the template engine uses email.default-locale.
+     * LocaleContextHolder is not used because it falls back to the JVM locale.
+     */
+    private static Locale requestLocale() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                && attributes.getRequest().getHeader(HttpHeaders.ACCEPT_LANGUAGE) != null) {
+            return attributes.getRequest().getLocale();
         }
+        return null;
     }
 
     /**
@@ -1,12 +1,19 @@
 package com.hotelmanagement.quanlikhachsan.services.email;
 
+import com.hotelmanagement.quanlikhachsan.exception.email.OTPAttemptsExceededException;
+import com.hotelmanagement.quanlikhachsan.exception.email.OTPExpiredException;
+import com.hotelmanagement.quanlikhachsan.exception.email.ResendCooldownException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
 import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -18,15 +25,28 @@ import java.util.concurrent.TimeUnit;
  * - Automatic expiration
  * - Attempt limiting
  * - Resend cooldown
+ * 
+ * All OTP state for an email (code, attempts, send time, expiry) lives in one
+ * Redis hash, and issue, verify and the resend check each run as a single Lua
+ * script (src/main/resources/redis). Every call is one round trip, and
+ * parallel verify calls cannot both get past the attempt limit.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class OTPService {
 
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
     private static final SecureRandom SECURE_RANDOM = new SecureRandom();
 
+    private static final RedisScript<Long> ISSUE_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/otp-issue.lua"), Long.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> VERIFY_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/otp-verify.lua"), List.class);
+    private static final RedisScript<Long> COOLDOWN_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/otp-cooldown.lua"), Long.class);
+
     @Value("${email.verification.otp-length}")
     private int otpLength;
 
@@ -39,34 +59,33 @@ public class OTPService {
     @Value("${email.verification.resend-cooldown-seconds}")
     private long resendCooldownSeconds;
 
-    private static final String OTP_PREFIX = "otp:";
-    private static final String ATTEMPTS_PREFIX = "otp:attempts:";
-    private static final String COOLDOWN_PREFIX = "otp:cooldown:";
+    // Hash fields: code, attempts, sentAt, expiresAt
+    private static final String OTP_PREFIX = "otp:state:";
     private static final String VERIFIED_PREFIX = "verified:";
+    private static final Duration VERIFIED_TTL = Duration.ofHours(1);
 
     /**
      * Generate a new OTP for the given email
      * 
      * @param email User email
      * @return Generated OTP string
+     * @throws ResendCooldownException if the previous OTP was sent within the cooldown
      */
     public String generateOTP(String email) {
         // Generate 6-digit OTP using SecureRandom
         int otp = SECURE_RANDOM.nextInt((int) Math.pow(10, otpLength));
         String otpString = String.format("%0" + otpLength + "d", otp);
 
-        // Store in Redis with expiration
-        String key = OTP_PREFIX + email;
-        redisTemplate.opsForValue().set(key, otpString, expirationMinutes, TimeUnit.MINUTES);
-
-        // Reset attempts counter
-        String attemptsKey = ATTEMPTS_PREFIX + email;
-        redisTemplate.opsForValue().set(attemptsKey, 0, expirationMinutes, TimeUnit.MINUTES);
-
-        // Set resend cooldown
-        String cooldownKey = COOLDOWN_PREFIX + email;
-        redisTemplate.opsForValue().set(cooldownKey, System.currentTimeMillis(),
-                resendCooldownSeconds, TimeUnit.SECONDS);
+        // Cooldown check, store and attempt reset happen in one script
+        Long cooldownLeft = stringRedisTemplate.execute(ISSUE_SCRIPT, List.of(OTP_PREFIX + email),
+                otpString,
+                String.valueOf(System.currentTimeMillis()),
+                String.valueOf(TimeUnit.MINUTES.toMillis(expirationMinutes)),
+                String.valueOf(TimeUnit.SECONDS.toMillis(resendCooldownSeconds)));
+        if (cooldownLeft != null && cooldownLeft > 0) {
+            log.debug("Resend cooldown active for email: {}. Remaining: {} ms", email, cooldownLeft);
+            throw new ResendCooldownException("Please wait before requesting another OTP");
+        }
 
         log.info("OTP generated for email: {} (expires in {} minutes)", email, expirationMinutes);
         return otpString;
@@ -78,63 +97,54 @@ public class OTPService {
      * @param email User email
      * @param otp   OTP to validate
      * @return true if OTP is valid, false otherwise
-     * @throws RuntimeException if max attempts exceeded
+     * @throws OTPExpiredException          if there is no live OTP for the email
+     * @throws OTPAttemptsExceededException if max attempts exceeded
      */
     public boolean validateOTP(String email, String otp) {
-        String key = OTP_PREFIX + email;
-        String attemptsKey = ATTEMPTS_PREFIX + email;
-
-        // Check if OTP exists
-        String storedOTP = (String) redisTemplate.opsForValue().get(key);
-        if (storedOTP == null) {
-            log.warn("OTP not found or expired for email: {}", email);
-            return false;
-        }
-
-        // Check attempts
-        Integer attempts = (Integer) redisTemplate.opsForValue().get(attemptsKey);
-        if (attempts == null) {
-            attempts = 0;
+        List<?> result = stringRedisTemplate.execute(VERIFY_SCRIPT,
+                List.of(OTP_PREFIX + email, VERIFIED_PREFIX + email),
+                otp,
+                String.valueOf(maxAttempts),
+                String.valueOf(System.currentTimeMillis()),
+                String.valueOf(TimeUnit.SECONDS.toMillis(resendCooldownSeconds)),
+                String.valueOf(VERIFIED_TTL.toMillis()));
+        if (result == null || result.size() < 2) {
+            throw new IllegalStateException("Unexpected OTP script result: " + result);
         }
-
-        if (attempts >= maxAttempts) {
-            log.warn("Max OTP attempts ({}) exceeded for email: {}", maxAttempts, email);
-            // Invalidate OTP
-            invalidateOTP(email);
-            throw new RuntimeException("Maximum verification attempts exceeded. Please request a new OTP.");
+        String status = String.valueOf(result.get(0));
+        long remaining = ((Number) result.get(1)).longValue();
+
+        switch (status) {
+            case "VERIFIED" -> {
+                log.info("OTP validated successfully, email marked as verified: {}", email);
+                return true;
+            }
+            case "INVALID" -> {
+                log.warn("Invalid OTP attempt for email: {}. Attempts: {}/{}",
+                        email, maxAttempts - remaining, maxAttempts);
+                return false;
+            }
+            case "EXHAUSTED" -> {
+                log.warn("Max OTP attempts ({}) exceeded for email: {}", maxAttempts, email);
+                throw new OTPAttemptsExceededException(
+                        "Maximum verification attempts exceeded. Please request a new OTP.");
+            }
+            default -> {
+                log.warn("OTP not found or expired for email: {}", email);
+                throw new OTPExpiredException("OTP has expired or was not requested. Please request a new OTP.");
+            }
         }
-
-        // Increment attempts
-        redisTemplate.opsForValue().increment(attemptsKey);
-
-        // Validate OTP
-        boolean isValid = storedOTP.equals(otp);
-
-        if (isValid) {
-            log.info("OTP validated successfully for email: {}", email);
-            // Mark as verified
-            markAsVerified(email);
-            // Clean up OTP data
-            invalidateOTP(email);
-        } else {
-            log.warn("Invalid OTP attempt for email: {}. Attempts: {}/{}", email, attempts + 1, maxAttempts);
-        }
-
-        return isValid;
     }
 
     /**
      * Invalidate OTP and related data for email
      * 
+     * The send time is kept so the resend cooldown still applies.
+     * 
      * @param email User email
      */
     public void invalidateOTP(String email) {
-        String otpKey = OTP_PREFIX + email;
-        String attemptsKey = ATTEMPTS_PREFIX + email;
-
-        redisTemplate.delete(otpKey);
-        redisTemplate.delete(attemptsKey);
-
+        stringRedisTemplate.opsForHash().delete(OTP_PREFIX + email, "code", "attempts", "expiresAt");
         log.debug("OTP invalidated for email: {}", email);
     }
 
@@ -145,22 +155,17 @@ public class OTPService {
      * @return true if can resend, false if in cooldown
      */
     public boolean canResendOTP(String email) {
-        String cooldownKey = COOLDOWN_PREFIX + email;
-        Long lastSentTime = (Long) redisTemplate.opsForValue().get(cooldownKey);
+        Long cooldownLeft = stringRedisTemplate.execute(COOLDOWN_SCRIPT, List.of(OTP_PREFIX + email),
+                String.valueOf(System.currentTimeMillis()),
+                String.valueOf(TimeUnit.SECONDS.toMillis(resendCooldownSeconds)));
 
-        if (lastSentTime == null) {
+        if (cooldownLeft == null || cooldownLeft == 0) {
             return true;
         }
 
-        long elapsedSeconds = (System.currentTimeMillis() - lastSentTime) / 1000;
-        boolean canResend = elapsedSeconds >= resendCooldownSeconds;
-
-        if (!canResend) {
-            long remainingSeconds = resendCooldownSeconds - elapsedSeconds;
-            log.debug("Resend cooldown active for email: {}. Remaining: {} seconds", email, remainingSeconds);
-        }
-
-        return canResend;
+        log.debug("Resend cooldown active for email: {}. Remaining: {} seconds", email,
+                TimeUnit.MILLISECONDS.toSeconds(cooldownLeft));
+        return false;
     }
 
     /**
@@ -170,26 +175,13 @@ public class OTPService {
      * @return remaining attempts count
      */
     public int getRemainingAttempts(String email) {
-        String attemptsKey = ATTEMPTS_PREFIX + email;
-        Integer attempts = (Integer) redisTemplate.opsForValue().get(attemptsKey);
+        Object attempts = stringRedisTemplate.opsForHash().get(OTP_PREFIX + email, "attempts");
 
         if (attempts == null) {
             return maxAttempts;
         }
 
-        return Math.max(0, maxAttempts - attempts);
-    }
-
-    /**
-     * Mark email as verified
-     * 
-     * @param email User email
-     */
-    private void markAsVerified(String email) {
-        String verifiedKey = VERIFIED_PREFIX + email;
-        redisTemplate.opsForValue().set(verifiedKey, System.currentTimeMillis(),
-                1, TimeUnit.HOURS);
-        log.info("Email marked as verified: {}", email);
+        return Math.max(0, maxAttempts - Integer.parseInt(attempts.toString()));
     }
 
     /**
@@ -200,7 +192,7 @@ public class OTPService {
      */
     public boolean isVerified(String email) {
         String verifiedKey = VERIFIED_PREFIX + email;
-        return redisTemplate.hasKey(verifiedKey);
+        return Boolean.TRUE.equals(stringRedisTemplate.hasKey(verifiedKey));
     }
 
     /**
@@ -210,8 +202,11 @@ public class OTPService {
      * @return remaining seconds, or 0 if expired
      */
     public long getRemainingExpirationTime(String email) {
-        String key = OTP_PREFIX + email;
-        Long expireTime = redisTemplate.getExpire(key, TimeUnit.SECONDS);
-        return expireTime != null && expireTime > 0 ? expireTime : 0;
+        Object expiresAt = stringRedisTemplate.opsForHash().get(OTP_PREFIX + email, "expiresAt");
+        if (expiresAt == null) {
+            return 0;
+        }
+        long remainingMillis = Long.parseLong(expiresAt.toString()) - System.currentTimeMillis();
+        return remainingMillis > 0 ? TimeUnit.MILLISECONDS.toSeconds(remainingMillis) : 0;
     }
 }
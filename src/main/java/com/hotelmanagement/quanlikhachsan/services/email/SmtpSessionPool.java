@@ -0,0 +1,206 @@
+package com.hotelmanagement.quanlikhachsan.services.email;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a few connected, authenticated SMTP transports and sends batches of
+ * messages over them, so bulk runs pay the TCP, STARTTLS and AUTH round
+ * trips once per session rather than once per message.
+ *
+ * Connection settings come from the Spring Mail sender. A session is retired
+ * when it reaches its age or message limit, and discarded after any error
+ * other than a rejected recipient, which leaves the connection usable.
+ */
+@Component
+@Slf4j
+public class SmtpSessionPool {
+
+    private final JavaMailSenderImpl mailSender;
+    private final Semaphore sessionPermits;
+    private final BlockingQueue<PooledSession> idle = new LinkedBlockingQueue<>();
+    private final long maxAgeNanos;
+    private final int maxMessagesPerSession;
+    private final long acquireTimeoutMillis;
+    private volatile boolean closed;
+
+    public SmtpSessionPool(
+            JavaMailSenderImpl mailSender,
+            @Value("${email.smtp-pool.max-sessions:4}") int maxSessions,
+            @Value("${email.smtp-pool.max-age-ms:300000}") long maxAgeMillis,
+            @Value("${email.smtp-pool.max-messages-per-session:100}") int maxMessagesPerSession,
+            @Value("${email.smtp-pool.acquire-timeout-ms:30000}") long acquireTimeoutMillis) {
+        this.mailSender = mailSender;
+        this.sessionPermits = new Semaphore(maxSessions);
+        this.maxAgeNanos = Duration.ofMillis(maxAgeMillis).toNanos();
+        this.maxMessagesPerSession = maxMessagesPerSession;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+    }
+
+    /**
+     * Send messages in order, reusing pooled sessions.
+     *
+     * @return one entry per message: null if the server accepted it, otherwise the failure
+     */
+    public List<MessagingException> sendBatch(List<MimeMessage> messages) throws InterruptedException {
+        List<MessagingException> results = new ArrayList<>(messages.size());
+        if (!sessionPermits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            MessagingException busy = new MessagingException("No SMTP session available");
+            messages.forEach(message -> results.add(busy));
+            return results;
+        }
+
+        PooledSession session = null;
+        MessagingException connectFailure = null;
+        try {
+            for (MimeMessage message : messages) {
+                if (connectFailure != null) {
+                    // Server unreachable; don't wait out a connect timeout per message
+                    results.add(connectFailure);
+                    continue;
+                }
+                try {
+                    message.saveChanges();
+                } catch (MessagingException e) {
+                    results.add(e);
+                    continue;
+                }
+                for (int attempt = 0; ; attempt++) {
+                    if (session == null) {
+                        try {
+                            session = borrow();
+                        } catch (MessagingException e) {
+                            connectFailure = e;
+                            results.add(e);
+                            break;
+                        }
+                    }
+                    try {
+                        session.transport.sendMessage(message, message.getAllRecipients());
+                        session.sent++;
+                        session.idleSince = 0;
+                        results.add(null);
+                        break;
+                    } catch (SendFailedException e) {
+                        // The server refused this message; the session itself is still good
+                        results.add(e);
+                        break;
+                    } catch (MessagingException e) {
+                        // The server may have dropped a connection that sat idle in the pool;
+                        // that deserves one retry on a new connection, anything else does not
+                        boolean stale = session.idleSince != 0 && attempt == 0;
+                        discard(session);
+                        session = null;
+                        if (!stale) {
+                            results.add(e);
+                            break;
+                        }
+                    }
+                }
+                if (session != null && session.sent >= maxMessagesPerSession) {
+                    discard(session);
+                    session = null;
+                }
+            }
+        } finally {
+            if (session != null) {
+                release(session);
+            }
+            sessionPermits.release();
+        }
+        return results;
+    }
+
+    private PooledSession borrow() throws MessagingException {
+        PooledSession session;
+        while ((session = idle.poll()) != null) {
+            if (!session.expired()) {
+                return session;
+            }
+            discard(session);
+        }
+
+        Transport transport = mailSender.getSession().getTransport(protocol());
+        transport.connect(mailSender.getHost(), mailSender.getPort(), emptyToNull(mailSender.getUsername()),
+                emptyToNull(mailSender.getPassword()));
+        log.debug("Opened SMTP session to {}:{}", mailSender.getHost(), mailSender.getPort());
+        return new PooledSession(transport, System.nanoTime() + maxAgeNanos);
+    }
+
+    /**
+     * Null unless spring.mail.protocol is set; resolved the way
+     * JavaMailSenderImpl does for its own sends.
+     */
+    private String protocol() {
+        String protocol = mailSender.getProtocol();
+        if (protocol == null) {
+            protocol = mailSender.getSession().getProperty("mail.transport.protocol");
+        }
+        return protocol != null ? protocol : JavaMailSenderImpl.DEFAULT_PROTOCOL;
+    }
+
+    private void release(PooledSession session) {
+        if (closed || session.expired()) {
+            discard(session);
+        } else {
+            session.idleSince = System.nanoTime();
+            idle.offer(session);
+        }
+    }
+
+    private void discard(PooledSession session) {
+        if (session == null) {
+            return;
+        }
+        try {
+            session.transport.close();
+        } catch (MessagingException e) {
+            log.debug("Error closing SMTP session: {}", e.getMessage());
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    @PreDestroy
+    public void close() {
+        closed = true;
+        PooledSession session;
+        while ((session = idle.poll()) != null) {
+            discard(session);
+        }
+    }
+
+    private static final class PooledSession {
+        private final Transport transport;
+        private final long expiresAtNanos;
+        private int sent;
+        // Non-zero while the session sits in the pool and until it sends again
+        private long idleSince;
+
+        private PooledSession(Transport transport, long expiresAtNanos) {
+            this.transport = transport;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        private boolean expired() {
+            return System.nanoTime() - expiresAtNanos > 0;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.hotelmanagement.quanlikhachsan.services.image;
+
+import com.hotelmanagement.quanlikhachsan.services.FileStorageService;
+import com.hotelmanagement.quanlikhachsan.services.storage.ObjectStorage;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Serves stored room images.
+ *
+ * Files on this node's disk go out through Tomcat's sendfile when the
+ * connector offers it, so the kernel copies file pages to the socket without
+ * passing them through the JVM; small bodies, and other containers, use
+ * FileChannel.transferTo onto the response. Objects in a remote store are
+ * streamed through, fetching only the requested range. Files named by
+ * content digest never change, so their ETag is the digest and they are
+ * cacheable as immutable. A single byte range is honoured, which lets
+ * clients resume large downloads; a request for several ranges gets the
+ * whole file.
+ */
+@Service
+@RequiredArgsConstructor
+public class ImageDeliveryService {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final Pattern FILENAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]{0,127}");
+    // Uploads and their variants, e.g. <digest>.jpg and <digest>-thumb.jpg
+    private static final Pattern CONTENT_ADDRESSED = Pattern.compile("[0-9a-f]{64}(-[a-z]+)?\\.[a-z0-9]{1,5}");
+    private static final Pattern BYTE_RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+
+    private static final String IMMUTABLE =
+            CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable().getHeaderValue();
+    // Files stored before content addressing are never rewritten either, but carry no digest to prove it
+    private static final String REVALIDATE = CacheControl.maxAge(Duration.ofDays(1)).cachePublic().getHeaderValue();
+
+    private final FileStorageService fileStorageService;
+    private final ObjectStorage objectStorage;
+    private final MeterRegistry meterRegistry;
+
+    // Tomcat's own default; below it the sendfile setup costs more than the copy
+    @Value("${file.serving.sendfile-threshold-bytes:49152}")
+    private long sendfileThreshold;
+
+    private record ByteRange(long start, long end) {
+        static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+    }
+
+    /**
+     * Write the stored file, or the status telling the client it has it
+     * already, to the response.
+     */
+    public void serve(String filename, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        Optional<ObjectStorage.ObjectInfo> stored = FILENAME.matcher(filename).matches()
+                ? objectStorage.stat(filename)
+                : Optional.empty();
+        if (stored.isEmpty()) {
+            countRequest(HttpServletResponse.SC_NOT_FOUND);
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        long length = stored.get().size();
+        long lastModified = stored.get().lastModified().toEpochMilli();
+        boolean contentAddressed = CONTENT_ADDRESSED.matcher(filename).matches();
+        String etag = contentAddressed
+                ? "\"" + fileStorageService.baseName(filename) + "\""
+                : "W/\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, contentAddressed ? IMMUTABLE : REVALIDATE);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            boolean notModified = matchesAny(ifNoneMatch, etag);
+            meterRegistry.counter("images.revalidations", "result", notModified ? "not_modified" : "modified")
+                    .increment();
+            if (notModified) {
+                countRequest(HttpServletResponse.SC_NOT_MODIFIED);
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+        }
+
+        response.setContentType(MediaTypeFactory.getMediaType(filename)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM)
+                .toString());
+        response.setHeader("X-Content-Type-Options", "nosniff");
+
+        long start = 0;
+        long end = length - 1;
+        int status = HttpServletResponse.SC_OK;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && length > 0 && ifRangeMatches(request, etag, lastModified)) {
+            ByteRange range = parseRange(rangeHeader, length);
+            if (range == ByteRange.UNSATISFIABLE) {
+                countRequest(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (range != null) {
+                start = range.start();
+                end = range.end();
+                status = HttpServletResponse.SC_PARTIAL_CONTENT;
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        countRequest(status);
+        response.setStatus(status);
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count == 0) {
+            return;
+        }
+
+        Optional<Path> local = objectStorage.localPath(filename);
+        if (local.isEmpty()) {
+            try (InputStream body = objectStorage.read(filename, start, end)) {
+                meterRegistry.counter("images.served.bytes", "transfer", "stream")
+                        .increment(body.transferTo(response.getOutputStream()));
+            }
+            return;
+        }
+        Path file = local.get();
+        if (count >= sendfileThreshold && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat writes the body after the servlet returns; the end offset is exclusive
+            request.setAttribute(SENDFILE_FILENAME, file.toRealPath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            meterRegistry.counter("images.served.bytes", "transfer", "sendfile").increment(count);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel body = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, body);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+            meterRegistry.counter("images.served.bytes", "transfer", "channel").increment(count - remaining);
+        }
+    }
+
+    /**
+     * Weak comparison, as If-None-Match requires.
+     */
+    static boolean matchesAny(String header, String etag) {
+        String opaque = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String candidate : header.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || (value.startsWith("W/") ? value.substring(2) : value).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A range is only served if the client's copy is still current; a stale
+     * If-Range gets the whole file.
+     */
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            // Strong comparison; a weak ETag never matches
+            return ifRange.equals(etag);
+        }
+        if (ifRange.startsWith("W/")) {
+            return false;
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Parse a single byte range.
+     *
+     * @return the range, UNSATISFIABLE if it starts past the end, or null to
+     *         ignore the header and send the whole file
+     */
+    static ByteRange parseRange(String header, long length) {
+        Matcher matcher = BYTE_RANGE.matcher(header.trim());
+        if (!matcher.matches() || (matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+            return null;
+        }
+        try {
+            if (matcher.group(1).isEmpty()) {
+                long suffix = Long.parseLong(matcher.group(2));
+                return suffix == 0 ? ByteRange.UNSATISFIABLE : new ByteRange(Math.max(0, length - suffix), length - 1);
+            }
+            long start = Long.parseLong(matcher.group(1));
+            if (start >= length) {
+                return ByteRange.UNSATISFIABLE;
+            }
+            long end = matcher.group(2).isEmpty() ? length - 1 : Math.min(Long.parseLong(matcher.group(2)), length - 1);
+            return end < start ? null : new ByteRange(start, end);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void countRequest(int status) {
+        meterRegistry.counter("images.requests", "status", String.valueOf(status)).increment();
+    }
+}
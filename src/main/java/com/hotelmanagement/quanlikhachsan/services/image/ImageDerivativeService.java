@@ -0,0 +1,306 @@
+package com.hotelmanagement.quanlikhachsan.services.image;
+
+import com.hotelmanagement.quanlikhachsan.model.room.RoomImage;
+import com.hotelmanagement.quanlikhachsan.repository.RoomImageRepository;
+import com.hotelmanagement.quanlikhachsan.services.FileStorageService;
+import com.hotelmanagement.quanlikhachsan.services.catalog.CatalogAggregate;
+import com.hotelmanagement.quanlikhachsan.services.catalog.CatalogChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Produces the resized variants of uploaded room images.
+ *
+ * Images are handed over once their upload commits and processed on a small
+ * pool of platform threads, since decoding and scaling are CPU-bound. The
+ * queue is bounded so a burst of uploads cannot pile decoded images up in
+ * memory; an image that found the queue full, or whose variants could not be
+ * written, still has no thumbnail URL and is picked up by the periodic sweep.
+ * Variants are JPEG, as the JDK's ImageIO has no WebP encoder.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImageDerivativeService {
+
+    private static final String FORMAT = "jpeg";
+    private static final String EXTENSION = ".jpg";
+
+    private final RoomImageRepository roomImageRepository;
+    private final FileStorageService fileStorageService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${file.derivatives.enabled:true}")
+    private boolean enabled;
+
+    @Value("${file.derivatives.threads:2}")
+    private int threads;
+
+    @Value("${file.derivatives.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${file.derivatives.quality:0.8}")
+    private float quality;
+
+    // A 5MB upload can still decode to gigabytes of pixels
+    @Value("${file.derivatives.max-pixels:40000000}")
+    private long maxPixels;
+
+    @Value("${file.derivatives.sweep-batch-size:50}")
+    private int sweepBatchSize;
+
+    private ThreadPoolExecutor executor;
+    // Queued or running, so the sweep does not submit an image twice
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    void init() {
+        // Decode in memory rather than through temporary files
+        ImageIO.setUseCache(false);
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("image-derivatives-", 1).daemon().factory());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImagesStored(RoomImagesStoredEvent event) {
+        if (enabled) {
+            event.imageIds().forEach(this::submit);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${file.derivatives.sweep-interval-ms:300000}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            roomImageRepository.findIdsWithoutVariants(Limit.of(sweepBatchSize)).forEach(this::submit);
+        } catch (Exception e) {
+            log.warn("Failed to look up room images without variants: {}", e.getMessage());
+        }
+    }
+
+    void submit(String imageId) {
+        if (!inFlight.add(imageId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    process(imageId);
+                } finally {
+                    inFlight.remove(imageId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(imageId);
+            meterRegistry.counter("image.derivatives", "outcome", "rejected").increment();
+            log.debug("Derivative queue full, room image {} left for the sweep", imageId);
+        }
+    }
+
+    /**
+     * Write every variant of the image and record their URLs. Variants are
+     * named after the stored original, so images sharing an upload share
+     * them too, and ones already written are reused. An image that cannot be
+     * decoded gets its original URL for every variant, so it is not tried
+     * again.
+     */
+    void process(String imageId) {
+        Optional<RoomImage> found = roomImageRepository.findById(imageId);
+        if (found.isEmpty()) {
+            return;
+        }
+        RoomImage image = found.get();
+        String filename = fileStorageService.extractFilename(image.getImageUrl());
+        String baseName = fileStorageService.baseName(filename);
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failed";
+        try {
+            Map<ImageVariant, String> urls = new EnumMap<>(ImageVariant.class);
+            if (Arrays.stream(ImageVariant.values())
+                    .allMatch(variant -> fileStorageService.exists(variantName(baseName, variant)))) {
+                for (ImageVariant variant : ImageVariant.values()) {
+                    urls.put(variant, fileStorageService.urlOf(variantName(baseName, variant)));
+                }
+                outcome = "reused";
+            } else {
+                BufferedImage original = read(imageId, filename);
+                if (original == null) {
+                    for (ImageVariant variant : ImageVariant.values()) {
+                        urls.put(variant, image.getImageUrl());
+                    }
+                    outcome = "unsupported";
+                } else {
+                    BufferedImage source = original;
+                    for (ImageVariant variant : ImageVariant.values()) {
+                        source = scale(source, variant.maxEdge());
+                        urls.put(variant, fileStorageService.storeDerivative(variantName(baseName, variant),
+                                encode(source)));
+                    }
+                    outcome = "created";
+                }
+            }
+
+            // Zero when the image was deleted meanwhile; its variants go with the stored original
+            if (roomImageRepository.updateVariants(imageId, urls.get(ImageVariant.THUMBNAIL),
+                    urls.get(ImageVariant.CARD), urls.get(ImageVariant.FULL)) > 0) {
+                // Room responses carry the variant URLs
+                eventPublisher.publishEvent(new CatalogChangedEvent(CatalogAggregate.ROOMS));
+            }
+        } catch (Exception e) {
+            outcome = "failed";
+            log.warn("Failed to create variants of room image {}: {}", imageId, e.getMessage());
+        } finally {
+            sample.stop(meterRegistry.timer("image.derivatives.duration"));
+            meterRegistry.counter("image.derivatives", "outcome", outcome).increment();
+        }
+    }
+
+    private static String variantName(String baseName, ImageVariant variant) {
+        return baseName + "-" + variant.suffix() + EXTENSION;
+    }
+
+    /**
+     * Decode the original, or return null if it is missing, not an image,
+     * corrupt or too large. Large originals are subsampled while decoding, down to twice
+     * the largest variant, which keeps enough detail for the scaling passes.
+     */
+    private BufferedImage read(String imageId, String filename) throws IOException {
+        try (InputStream content = fileStorageService.open(filename);
+             ImageInputStream input = ImageIO.createImageInputStream(content)) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                log.warn("Original of room image {} is not a supported image", imageId);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                int subsampling = Math.max(1, Math.max(width, height) / (2 * ImageVariant.FULL.maxEdge()));
+                if ((long) width * height / ((long) subsampling * subsampling) > maxPixels) {
+                    log.warn("Original of room image {} is too large to decode: {}x{}", imageId, width, height);
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } catch (IIOException e) {
+                // Corrupt or truncated data fails the same way on every attempt
+                log.warn("Original of room image {} could not be decoded: {}", imageId, e.getMessage());
+                return null;
+            } finally {
+                reader.dispose();
+            }
+        } catch (NoSuchFileException e) {
+            log.warn("Original of room image {} not found: {}", imageId, filename);
+            return null;
+        }
+    }
+
+    /**
+     * Fit the image within {@code maxEdge} pixels, never enlarging it. The
+     * size is halved per pass until within 2x of the target, since a single
+     * bilinear pass over a larger ratio skips source pixels and aliases.
+     */
+    static BufferedImage scale(BufferedImage source, int maxEdge) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double ratio = Math.min(1.0, maxEdge / (double) Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+        if (targetWidth == width && targetHeight == height && source.getType() == BufferedImage.TYPE_INT_RGB) {
+            return source;
+        }
+
+        BufferedImage current = source;
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            current = draw(current, width, height);
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            // JPEG has no alpha channel; transparent areas become white
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private byte[] encode(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(FORMAT).next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            // Progressive scans are smaller for all but the tiniest images
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    @PreDestroy
+    void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+}
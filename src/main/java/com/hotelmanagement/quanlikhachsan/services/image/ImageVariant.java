@@ -0,0 +1,27 @@
+package com.hotelmanagement.quanlikhachsan.services.image;
+
+/**
+ * Resized copies produced for every room image, by the longest edge in pixels.
+ * Ordered largest first, so each variant can be scaled from the previous one.
+ */
+public enum ImageVariant {
+    FULL("full", 1600),
+    CARD("card", 640),
+    THUMBNAIL("thumb", 240);
+
+    private final String suffix;
+    private final int maxEdge;
+
+    ImageVariant(String suffix, int maxEdge) {
+        this.suffix = suffix;
+        this.maxEdge = maxEdge;
+    }
+
+    public String suffix() {
+        return suffix;
+    }
+
+    public int maxEdge() {
+        return maxEdge;
+    }
+}
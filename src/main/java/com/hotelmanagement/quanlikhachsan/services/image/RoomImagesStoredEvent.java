@@ -0,0 +1,10 @@
+package com.hotelmanagement.quanlikhachsan.services.image;
+
+import java.util.List;
+
+/**
+ * Published when room images are uploaded.
+ * Their variants are produced only after the surrounding transaction commits.
+ */
+public record RoomImagesStoredEvent(List<String> imageIds) {
+}
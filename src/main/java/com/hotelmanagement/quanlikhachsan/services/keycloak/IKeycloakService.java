@@ -10,5 +10,20 @@ public interface IKeycloakService {
 
     Optional<Keycloak> findKeycloakByEmail(String email);
 
+    /**
+     * @return id of the created Keycloak user
+     * @throws com.hotelmanagement.quanlikhachsan.exception.AppError EMAIL_ALREADY_REGISTERED if
+     *         Keycloak already has a user with this email or username
+     */
     String createUser(String email, String password, String firstName, String lastName);
+
+    /**
+     * @return id of the Keycloak user with exactly this email, if any
+     */
+    Optional<String> findUserIdByEmail(String email);
+
+    /**
+     * Delete a Keycloak user. Deleting a user that no longer exists is not an error.
+     */
+    void deleteUser(String userId);
 }
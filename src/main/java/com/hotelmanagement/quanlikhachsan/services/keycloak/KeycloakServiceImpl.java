@@ -1,5 +1,6 @@
 package com.hotelmanagement.quanlikhachsan.services.keycloak;
 
+import com.hotelmanagement.quanlikhachsan.exception.ErrorDefinition;
 import com.hotelmanagement.quanlikhachsan.model.keycloak.Keycloak;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -57,9 +58,29 @@ public class KeycloakServiceImpl implements IKeycloakService {
             String userId = org.keycloak.admin.client.CreatedResponseUtil.getCreatedId(response);
             log.info("User created in Keycloak with ID: {}", userId);
             return userId;
+        } else if (response.getStatus() == 409) {
+            throw ErrorDefinition.EMAIL_ALREADY_REGISTERED.toAppError();
         } else {
             log.error("Failed to create user in Keycloak. Status: {}", response.getStatus());
             throw new RuntimeException("Failed to create user in Keycloak");
         }
     }
+
+    @Override
+    public Optional<String> findUserIdByEmail(String email) {
+        return keycloak.realm(realm).users().searchByEmail(email, true).stream()
+                .map(org.keycloak.representations.idm.UserRepresentation::getId)
+                .findFirst();
+    }
+
+    @Override
+    public void deleteUser(String userId) {
+        try (jakarta.ws.rs.core.Response response = keycloak.realm(realm).users().delete(userId)) {
+            int status = response.getStatus();
+            if (status != 204 && status != 404) {
+                throw new RuntimeException("Failed to delete user in Keycloak. Status: " + status);
+            }
+            log.info("User {} deleted from Keycloak", userId);
+        }
+    }
 }
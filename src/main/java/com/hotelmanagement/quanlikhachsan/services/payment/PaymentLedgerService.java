@@ -0,0 +1,124 @@
+package com.hotelmanagement.quanlikhachsan.services.payment;
+
+import com.hotelmanagement.quanlikhachsan.dto.response.payment.DailySettlementResponse;
+import com.hotelmanagement.quanlikhachsan.exception.ErrorDefinition;
+import com.hotelmanagement.quanlikhachsan.model.payment.Payment;
+import com.hotelmanagement.quanlikhachsan.model.payment.PaymentLedgerEntry;
+import com.hotelmanagement.quanlikhachsan.repository.DailySettlement;
+import com.hotelmanagement.quanlikhachsan.repository.PaymentLedgerRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Appends payment status transitions to payment_ledger and adds them to the
+ * daily settlement rollup.
+ *
+ * Callers record inside the transaction that changes the payment, so the
+ * payment, its ledger entry and the rollup commit or roll back together.
+ * Finance reports read the rollup only, never payments or reservations.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentLedgerService {
+
+    private final PaymentLedgerRepository paymentLedgerRepository;
+
+    /**
+     * Record a payment's move from {@code fromStatus} to its current status.
+     * Nothing is recorded if the status did not change.
+     *
+     * @param fromStatus the status before the change, null for a new payment
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Payment payment, String fromStatus) {
+        String toStatus = payment.getStatus().getName();
+        if (toStatus.equals(fromStatus)) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        paymentLedgerRepository.save(entry(payment, fromStatus, toStatus, now));
+        paymentLedgerRepository.addToSettlement(now.toLocalDate(), toStatus, 1, payment.getAmount());
+    }
+
+    /**
+     * Record the same transition for payments moved by a bulk update, whose
+     * entities still carry the old status.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(Collection<Payment> payments, String fromStatus, String toStatus) {
+        if (payments.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<PaymentLedgerEntry> entries = payments.stream()
+                .map(payment -> entry(payment, fromStatus, toStatus, now))
+                .toList();
+        paymentLedgerRepository.saveAll(entries);
+
+        BigDecimal total = payments.stream()
+                .map(Payment::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        paymentLedgerRepository.addToSettlement(now.toLocalDate(), toStatus, payments.size(), total);
+    }
+
+    /**
+     * Revenue, refunds and failures per day from the rollup, oldest day first.
+     * Days without transitions are left out.
+     */
+    @Transactional(readOnly = true)
+    public List<DailySettlementResponse> settlements(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw ErrorDefinition.INVALID_DATE_RANGE.toAppError();
+        }
+        Map<LocalDate, Map<String, DailySettlement>> byDay = new TreeMap<>();
+        for (DailySettlement row : paymentLedgerRepository.findSettlements(from, to)) {
+            byDay.computeIfAbsent(row.getSettlementDate(), day -> new HashMap<>()).put(row.getStatus(), row);
+        }
+
+        List<DailySettlementResponse> days = new ArrayList<>(byDay.size());
+        byDay.forEach((day, rows) -> {
+            DailySettlement completed = rows.get("COMPLETED");
+            DailySettlement refunded = rows.get("REFUNDED");
+            long completedCount = completed != null ? completed.getPaymentCount() : 0;
+            long failedCount = rows.containsKey("FAILED") ? rows.get("FAILED").getPaymentCount() : 0;
+            long attempts = completedCount + failedCount;
+            days.add(new DailySettlementResponse(day,
+                    completed != null ? completed.getAmount() : BigDecimal.ZERO,
+                    completedCount,
+                    refunded != null ? refunded.getAmount() : BigDecimal.ZERO,
+                    refunded != null ? refunded.getPaymentCount() : 0,
+                    failedCount,
+                    attempts > 0 ? (double) failedCount / attempts : null));
+        });
+        return days;
+    }
+
+    private static PaymentLedgerEntry entry(Payment payment, String fromStatus, String toStatus,
+            LocalDateTime recordedAt) {
+        return PaymentLedgerEntry.builder()
+                .paymentId(payment.getId())
+                .reservationId(payment.getReservation().getId())
+                .fromStatus(fromStatus)
+                .toStatus(toStatus)
+                .amount(payment.getAmount())
+                .method(payment.getMethod())
+                .stripeSessionId(payment.getStripeSessionId())
+                .stripePaymentIntentId(payment.getTransactionCode())
+                .recordedAt(recordedAt)
+                .build();
+    }
+}
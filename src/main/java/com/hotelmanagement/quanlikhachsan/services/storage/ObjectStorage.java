@@ -0,0 +1,104 @@
+package com.hotelmanagement.quanlikhachsan.services.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Where stored files live, addressed by key.
+ *
+ * FileStorageService decides what is stored under which key and when;
+ * implementations only move bytes. The backend is chosen with
+ * {@code file.storage.backend}: {@code local} keeps files in the upload
+ * directory of this node, {@code s3} in a bucket of any S3-compatible store,
+ * which lets several app nodes share one set of images.
+ */
+public interface ObjectStorage {
+
+    /**
+     * Size and modification time of a stored object.
+     */
+    record ObjectInfo(long size, Instant lastModified) {
+    }
+
+    /**
+     * Store a local file under the key, replacing any object already there.
+     * The file may be moved rather than copied.
+     *
+     * @param key         the object key
+     * @param file        the file to store
+     * @param contentType the media type, or null if unknown
+     */
+    void put(String key, Path file, String contentType) throws IOException;
+
+    /**
+     * Store the content of a stream of unknown length under the key,
+     * replacing any object already there. The stream is not closed.
+     *
+     * @param key         the object key
+     * @param content     the content
+     * @param contentType the media type, or null if unknown
+     */
+    void put(String key, InputStream content, String contentType) throws IOException;
+
+    /**
+     * @param key the object key
+     * @return the size and modification time, or empty if nothing is stored under the key
+     */
+    Optional<ObjectInfo> stat(String key) throws IOException;
+
+    /**
+     * @param key the object key
+     * @return true if an object is stored under the key
+     */
+    default boolean exists(String key) throws IOException {
+        return stat(key).isPresent();
+    }
+
+    /**
+     * Open an object for reading.
+     *
+     * @param key the object key
+     * @return the content; the caller closes it
+     * @throws java.nio.file.NoSuchFileException if nothing is stored under the key
+     */
+    InputStream read(String key) throws IOException;
+
+    /**
+     * Open a byte range of an object for reading.
+     *
+     * @param key   the object key
+     * @param start the first byte
+     * @param end   the last byte, inclusive
+     * @return the content of the range; the caller closes it
+     * @throws java.nio.file.NoSuchFileException if nothing is stored under the key
+     */
+    InputStream read(String key, long start, long end) throws IOException;
+
+    /**
+     * Delete an object; deleting a missing one is not an error.
+     *
+     * @param key the object key
+     */
+    void delete(String key) throws IOException;
+
+    /**
+     * Delete every object whose key starts with the prefix.
+     *
+     * @param prefix the key prefix
+     */
+    void deleteByPrefix(String prefix) throws IOException;
+
+    /**
+     * The file holding an object, for backends that keep objects on this
+     * node's disk, so it can be sent without being read into the JVM.
+     *
+     * @param key the object key
+     * @return the path, or empty if the backend is remote
+     */
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,211 @@
+package com.hotelmanagement.quanlikhachsan.services.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.checksums.RequestChecksumCalculation;
+import software.amazon.awssdk.core.checksums.ResponseChecksumValidation;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Objects kept in a bucket of an S3-compatible store (AWS S3, MinIO, Ceph).
+ *
+ * Content is streamed in parts of {@code partSize} bytes, so at most one part
+ * is held in memory whatever the size of the upload: content that fits in
+ * one part is sent with a single PUT, anything larger as a multipart upload,
+ * which is aborted if a part fails so the store does not keep the parts.
+ * SDK failures are rethrown as IOException, like the local backend's.
+ */
+@Slf4j
+public class S3ObjectStorage implements ObjectStorage, AutoCloseable {
+
+    // S3 rejects smaller parts, except the last
+    public static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private final S3Client s3;
+    private final String bucket;
+    private final String keyPrefix;
+    private final int partSize;
+
+    public S3ObjectStorage(S3Client s3, String bucket, String keyPrefix, int partSize) {
+        if (partSize < MIN_PART_SIZE) {
+            throw new IllegalArgumentException("Part size must be at least " + MIN_PART_SIZE + " bytes");
+        }
+        this.s3 = s3;
+        this.bucket = bucket;
+        this.keyPrefix = keyPrefix;
+        this.partSize = partSize;
+    }
+
+    /**
+     * Build a client for an S3-compatible store.
+     *
+     * @param endpoint        the store's URL, or blank for AWS itself
+     * @param region          the region
+     * @param accessKey       the access key, or blank for the default AWS credential chain
+     * @param secretKey       the secret key
+     * @param pathStyleAccess true to address the bucket in the path, as MinIO expects
+     * @return the client; closing the storage closes it
+     */
+    public static S3Client client(String endpoint, String region, String accessKey, String secretKey,
+            boolean pathStyleAccess) {
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(region))
+                .forcePathStyle(pathStyleAccess)
+                // Stores other than S3 do not all accept the SDK's default trailing checksums
+                .requestChecksumCalculation(RequestChecksumCalculation.WHEN_REQUIRED)
+                .responseChecksumValidation(ResponseChecksumValidation.WHEN_REQUIRED)
+                .credentialsProvider(accessKey.isBlank()
+                        ? DefaultCredentialsProvider.builder().build()
+                        : StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)));
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        return builder.build();
+    }
+
+    @Override
+    public void put(String key, Path file, String contentType) throws IOException {
+        try (InputStream content = Files.newInputStream(file)) {
+            put(key, content, contentType);
+        }
+    }
+
+    @Override
+    public void put(String key, InputStream content, String contentType) throws IOException {
+        byte[] first = content.readNBytes(partSize);
+        if (first.length < partSize) {
+            try {
+                s3.putObject(request -> request.bucket(bucket).key(keyPrefix + key).contentType(contentType),
+                        RequestBody.fromBytes(first));
+                return;
+            } catch (SdkException e) {
+                throw failure("store", key, e);
+            }
+        }
+
+        String uploadId;
+        try {
+            uploadId = s3.createMultipartUpload(request -> request.bucket(bucket).key(keyPrefix + key)
+                    .contentType(contentType)).uploadId();
+        } catch (SdkException e) {
+            throw failure("store", key, e);
+        }
+        try {
+            List<CompletedPart> parts = new ArrayList<>();
+            for (byte[] part = first; part.length > 0; part = content.readNBytes(partSize)) {
+                int partNumber = parts.size() + 1;
+                long length = part.length;
+                String eTag = s3.uploadPart(request -> request.bucket(bucket).key(keyPrefix + key)
+                                .uploadId(uploadId).partNumber(partNumber).contentLength(length),
+                        RequestBody.fromBytes(part)).eTag();
+                parts.add(CompletedPart.builder().partNumber(partNumber).eTag(eTag).build());
+            }
+            s3.completeMultipartUpload(request -> request.bucket(bucket).key(keyPrefix + key)
+                    .uploadId(uploadId).multipartUpload(upload -> upload.parts(parts)));
+        } catch (SdkException e) {
+            abort(key, uploadId);
+            throw failure("store", key, e);
+        } catch (IOException | RuntimeException e) {
+            abort(key, uploadId);
+            throw e;
+        }
+    }
+
+    private void abort(String key, String uploadId) {
+        try {
+            s3.abortMultipartUpload(request -> request.bucket(bucket).key(keyPrefix + key).uploadId(uploadId));
+        } catch (SdkException e) {
+            // The bucket's lifecycle rule for incomplete uploads cleans up after this
+            log.warn("Failed to abort multipart upload of {}: {}", key, e.getMessage());
+        }
+    }
+
+    @Override
+    public Optional<ObjectInfo> stat(String key) throws IOException {
+        try {
+            HeadObjectResponse head = s3.headObject(request -> request.bucket(bucket).key(keyPrefix + key));
+            return Optional.of(new ObjectInfo(head.contentLength(), head.lastModified()));
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return Optional.empty();
+            }
+            throw failure("read", key, e);
+        } catch (SdkException e) {
+            throw failure("read", key, e);
+        }
+    }
+
+    @Override
+    public InputStream read(String key) throws IOException {
+        return get(key, null);
+    }
+
+    @Override
+    public InputStream read(String key, long start, long end) throws IOException {
+        return get(key, "bytes=" + start + "-" + end);
+    }
+
+    private InputStream get(String key, String range) throws IOException {
+        try {
+            return s3.getObject(request -> request.bucket(bucket).key(keyPrefix + key).range(range));
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                throw new NoSuchFileException(key);
+            }
+            throw failure("read", key, e);
+        } catch (SdkException e) {
+            throw failure("read", key, e);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            s3.deleteObject(request -> request.bucket(bucket).key(keyPrefix + key));
+        } catch (SdkException e) {
+            throw failure("delete", key, e);
+        }
+    }
+
+    @Override
+    public void deleteByPrefix(String prefix) throws IOException {
+        try {
+            // A stored file has a handful of derivatives, so one DELETE each is cheap enough
+            for (S3Object object : s3.listObjectsV2Paginator(request -> request.bucket(bucket)
+                    .prefix(keyPrefix + prefix)).contents()) {
+                s3.deleteObject(request -> request.bucket(bucket).key(object.key()));
+            }
+        } catch (SdkException e) {
+            throw failure("delete", prefix + "*", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        s3.close();
+    }
+
+    private IOException failure(String action, String key, SdkException e) {
+        return new IOException("Failed to " + action + " " + key + " in bucket " + bucket + ": " + e.getMessage(), e);
+    }
+}
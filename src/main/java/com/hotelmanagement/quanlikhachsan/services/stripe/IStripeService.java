@@ -14,4 +14,6 @@ public interface IStripeService {
     void updatePaymentStatusFromWebhook(String paymentIntentId, String statusName);
 
     void handleCheckoutSessionCompleted(String sessionId);
+
+    void handleCheckoutSessionExpired(String sessionId);
 }
@@ -0,0 +1,300 @@
+package com.hotelmanagement.quanlikhachsan.services.stripe;
+
+import com.hotelmanagement.quanlikhachsan.model.payment.Payment;
+import com.hotelmanagement.quanlikhachsan.model.payment.PaymentStatus;
+import com.hotelmanagement.quanlikhachsan.model.reservation.ReservationStatus;
+import com.hotelmanagement.quanlikhachsan.repository.PaymentRepository;
+import com.hotelmanagement.quanlikhachsan.repository.PaymentStatusRepository;
+import com.hotelmanagement.quanlikhachsan.repository.PendingPaymentRef;
+import com.hotelmanagement.quanlikhachsan.repository.ReservationRepository;
+import com.hotelmanagement.quanlikhachsan.services.payment.PaymentLedgerService;
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+import com.stripe.model.checkout.Session;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Settles payments left PENDING because their webhook never arrived or was
+ * dead-lettered.
+ *
+ * Stale pending payments are read in keyset pages ordered by payment date and
+ * id, so each page is an index range scan no matter how far the run has got.
+ * The checkout session or PaymentIntent of every payment in a page is fetched
+ * from Stripe in parallel, at most {@code parallelism} at a time on top of
+ * the bulkhead in {@link StripeResilience}, and the transitions of the whole
+ * page are applied with one bulk update per target status and recorded in
+ * the payment ledger.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentReconciliationJob {
+
+    private static final String PENDING = "PENDING";
+    private static final LocalDateTime KEYSET_START = LocalDateTime.of(2000, 1, 1, 0, 0);
+    private static final UUID KEYSET_START_ID = new UUID(0, 0);
+
+    private final PaymentRepository paymentRepository;
+    private final PaymentStatusRepository paymentStatusRepository;
+    private final ReservationRepository reservationRepository;
+    private final StripeServiceImpl stripeService;
+    private final PaymentLedgerService paymentLedgerService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${stripe.reconciliation.enabled:true}")
+    private boolean enabled;
+
+    // Leaves the webhook time to arrive first
+    @Value("${stripe.reconciliation.stale-after-minutes:60}")
+    private long staleAfterMinutes;
+
+    @Value("${stripe.reconciliation.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${stripe.reconciliation.parallelism:8}")
+    private int parallelism;
+
+    @Value("${stripe.reconciliation.max-payments-per-run:5000}")
+    private int maxPaymentsPerRun;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private Semaphore permits;
+
+    /**
+     * What Stripe says should happen to a pending payment.
+     */
+    enum Outcome {
+        COMPLETED, FAILED, UNCHANGED, MISSING, ERROR
+    }
+
+    record ReconciliationResult(int checked, int completed, int failed, int unresolved) {
+    }
+
+    @PostConstruct
+    void init() {
+        permits = new Semaphore(parallelism);
+    }
+
+    @Scheduled(cron = "${stripe.reconciliation.cron:0 */30 * * * *}")
+    public void reconcileScheduled() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            ReconciliationResult result = reconcile();
+            if (result.completed() + result.failed() > 0) {
+                log.info("Reconciled {} pending payments with Stripe: {} completed, {} failed, {} unresolved",
+                        result.checked(), result.completed(), result.failed(), result.unresolved());
+            }
+        } catch (Exception e) {
+            log.warn("Payment reconciliation failed: {}", e.getMessage());
+        }
+    }
+
+    ReconciliationResult reconcile() {
+        LocalDateTime staleBefore = LocalDateTime.now().minusMinutes(staleAfterMinutes);
+        LocalDateTime afterDate = KEYSET_START;
+        UUID afterId = KEYSET_START_ID;
+        int checked = 0;
+        int completed = 0;
+        int failed = 0;
+        int unresolved = 0;
+
+        while (checked < maxPaymentsPerRun) {
+            List<PendingPaymentRef> page = paymentRepository.findByStatusAfter(PENDING, staleBefore, afterDate,
+                    afterId, Limit.of(Math.min(chunkSize, maxPaymentsPerRun - checked)));
+            if (page.isEmpty()) {
+                break;
+            }
+
+            Map<Outcome, List<PendingPaymentRef>> outcomes = lookUp(page);
+            applyTransitions(outcomes);
+
+            List<PendingPaymentRef> errors = outcomes.get(Outcome.ERROR);
+            checked += page.size();
+            completed += outcomes.get(Outcome.COMPLETED).size();
+            failed += outcomes.get(Outcome.FAILED).size();
+            unresolved += errors.size() + outcomes.get(Outcome.MISSING).size();
+            meterRegistry.counter("stripe.reconciliation.checked").increment(page.size());
+
+            if (errors.size() == page.size()) {
+                // Stripe is unreachable or the breaker is open; try again next run
+                log.warn("Stopping payment reconciliation, no payment in the last page could be checked");
+                break;
+            }
+            PendingPaymentRef last = page.get(page.size() - 1);
+            afterDate = last.getPaymentDate();
+            afterId = last.getId();
+            if (page.size() < chunkSize) {
+                break;
+            }
+        }
+        return new ReconciliationResult(checked, completed, failed, unresolved);
+    }
+
+    private Map<Outcome, List<PendingPaymentRef>> lookUp(List<PendingPaymentRef> page) {
+        List<Future<Outcome>> futures = new ArrayList<>(page.size());
+        for (PendingPaymentRef payment : page) {
+            futures.add(executor.submit(() -> {
+                permits.acquire();
+                try {
+                    return outcome(payment);
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
+
+        Map<Outcome, List<PendingPaymentRef>> outcomes = new EnumMap<>(Outcome.class);
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome, new ArrayList<>());
+        }
+        for (int i = 0; i < page.size(); i++) {
+            Outcome outcome;
+            try {
+                outcome = futures.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                outcome = Outcome.ERROR;
+            } catch (Exception e) {
+                outcome = Outcome.ERROR;
+            }
+            outcomes.get(outcome).add(page.get(i));
+        }
+        return outcomes;
+    }
+
+    Outcome outcome(PendingPaymentRef payment) {
+        try {
+            if (payment.getStripeSessionId() != null) {
+                Session session = stripeService.retrieveCheckoutSession(payment.getStripeSessionId());
+                if ("complete".equals(session.getStatus()) && "paid".equals(session.getPaymentStatus())) {
+                    return Outcome.COMPLETED;
+                }
+                return "expired".equals(session.getStatus()) ? Outcome.FAILED : Outcome.UNCHANGED;
+            }
+            if (payment.getTransactionCode() != null) {
+                PaymentIntent paymentIntent = stripeService.retrievePaymentIntent(payment.getTransactionCode());
+                return switch (paymentIntent.getStatus()) {
+                    case "succeeded" -> Outcome.COMPLETED;
+                    case "canceled", "requires_payment_method" -> Outcome.FAILED;
+                    default -> Outcome.UNCHANGED;
+                };
+            }
+            return Outcome.MISSING;
+        } catch (StripeException e) {
+            if (Integer.valueOf(404).equals(e.getStatusCode())) {
+                log.warn("Stripe has no object for pending payment {}", payment.getId());
+                return Outcome.MISSING;
+            }
+            log.warn("Failed to check pending payment {} with Stripe: {}", payment.getId(), e.getMessage());
+            return Outcome.ERROR;
+        } catch (RuntimeException e) {
+            // Includes the AppError thrown while the circuit is open
+            log.warn("Failed to check pending payment {} with Stripe: {}", payment.getId(), e.getMessage());
+            return Outcome.ERROR;
+        }
+    }
+
+    private void applyTransitions(Map<Outcome, List<PendingPaymentRef>> outcomes) {
+        List<UUID> completed = ids(outcomes.get(Outcome.COMPLETED));
+        List<UUID> failed = ids(outcomes.get(Outcome.FAILED));
+        if (completed.isEmpty() && failed.isEmpty()) {
+            recordUnresolved(outcomes);
+            return;
+        }
+
+        List<UUID> confirmedPayments = transactionTemplate.execute(status -> {
+            PaymentStatus pending = paymentStatus(PENDING);
+            List<Payment> completedPayments = moveStatus(completed, pending, "COMPLETED");
+            moveStatus(failed, pending, "FAILED");
+
+            if (completedPayments.isEmpty()) {
+                return List.of();
+            }
+            List<UUID> reservationIds = completedPayments.stream()
+                    .map(payment -> payment.getReservation().getId())
+                    .toList();
+            List<UUID> toConfirm = reservationRepository.findIdsByIdInAndStatus(reservationIds,
+                    ReservationStatus.PENDING);
+            if (!toConfirm.isEmpty()) {
+                reservationRepository.updateStatus(toConfirm, ReservationStatus.PENDING,
+                        ReservationStatus.CONFIRMED);
+            }
+            return completedPayments.stream()
+                    .filter(payment -> toConfirm.contains(payment.getReservation().getId()))
+                    .map(Payment::getId)
+                    .toList();
+        });
+
+        // After commit, so a failed send cannot roll the transitions back
+        for (UUID paymentId : confirmedPayments) {
+            try {
+                stripeService.sendBookingConfirmation(paymentId);
+            } catch (Exception e) {
+                log.warn("Failed to send booking confirmation for payment {}: {}", paymentId, e.getMessage());
+            }
+        }
+        recordUnresolved(outcomes);
+    }
+
+    /**
+     * Bulk-move the payments still in {@code from}; ones a webhook settled
+     * meanwhile are skipped. Each move is recorded in the ledger.
+     */
+    private List<Payment> moveStatus(List<UUID> ids, PaymentStatus from, String to) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<Payment> locked = paymentRepository.findForUpdateByIdInAndStatus(ids, from);
+        if (locked.isEmpty()) {
+            return locked;
+        }
+        paymentRepository.updateStatus(locked.stream().map(Payment::getId).toList(), from, paymentStatus(to));
+        paymentLedgerService.recordAll(locked, from.getName(), to);
+        meterRegistry.counter("stripe.reconciliation.drift", "to", to).increment(locked.size());
+        return locked;
+    }
+
+    private void recordUnresolved(Map<Outcome, List<PendingPaymentRef>> outcomes) {
+        meterRegistry.counter("stripe.reconciliation.unresolved", "reason", "missing")
+                .increment(outcomes.get(Outcome.MISSING).size());
+        meterRegistry.counter("stripe.reconciliation.unresolved", "reason", "error")
+                .increment(outcomes.get(Outcome.ERROR).size());
+    }
+
+    private PaymentStatus paymentStatus(String name) {
+        return paymentStatusRepository.findByName(name)
+                .orElseThrow(() -> new IllegalStateException("Payment status not found: " + name));
+    }
+
+    private static List<UUID> ids(List<PendingPaymentRef> payments) {
+        return payments.stream().map(PendingPaymentRef::getId).toList();
+    }
+
+    @PreDestroy
+    void shutdownExecutor() {
+        executor.close();
+    }
+}
@@ -0,0 +1,90 @@
+package com.hotelmanagement.quanlikhachsan.services.stripe;
+
+import com.hotelmanagement.quanlikhachsan.model.payment.Payment;
+import com.hotelmanagement.quanlikhachsan.repository.PaymentRepository;
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Settles payments left PROCESSING because the process stopped between
+ * calling Stripe and recording the result.
+ *
+ * A checkout session id that was never saved was never shown to the guest
+ * either, so that session expires unpaid and the payment fails once it has.
+ * A PaymentIntent may have charged the card, so it is looked up by the
+ * paymentId metadata and its outcome recorded; if Stripe has none after
+ * {@code give-up-minutes}, the call never reached it.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StripePaymentRecoveryJob {
+
+    private final PaymentRepository paymentRepository;
+    private final StripeServiceImpl stripeService;
+
+    // Longer than a Stripe call can take, so in-flight requests are left alone
+    @Value("${stripe.recovery.grace-seconds:300}")
+    private long graceSeconds;
+
+    @Value("${stripe.recovery.batch-size:50}")
+    private int batchSize;
+
+    // Stripe's search index can lag by about a minute
+    @Value("${stripe.recovery.give-up-minutes:60}")
+    private long giveUpMinutes;
+
+    @Value("${stripe.checkout.expiry-minutes:60}")
+    private long checkoutExpiryMinutes;
+
+    @Scheduled(fixedDelayString = "${stripe.recovery.interval-ms:60000}")
+    public void recoverStuckPayments() {
+        List<Payment> stuck;
+        try {
+            stuck = paymentRepository.findByStatus_NameAndPaymentDateBeforeOrderByPaymentDateAsc(
+                    "PROCESSING", LocalDateTime.now().minusSeconds(graceSeconds), Limit.of(batchSize));
+        } catch (Exception e) {
+            log.warn("Failed to load stuck Stripe payments: {}", e.getMessage());
+            return;
+        }
+
+        for (Payment payment : stuck) {
+            try {
+                recover(payment);
+            } catch (Exception e) {
+                // Left PROCESSING; the next run tries again
+                log.warn("Failed to recover payment {}: {}", payment.getId(), e.getMessage());
+            }
+        }
+    }
+
+    void recover(Payment payment) throws StripeException {
+        LocalDateTime now = LocalDateTime.now();
+        if (StripeServiceImpl.METHOD_CHECKOUT.equals(payment.getMethod())) {
+            if (payment.getPaymentDate().isBefore(now.minusMinutes(checkoutExpiryMinutes))) {
+                stripeService.markProcessingFailed(payment.getId(), "Checkout session was never handed to the guest");
+            }
+            return;
+        }
+
+        Optional<PaymentIntent> found = stripeService.findPaymentIntent(payment.getId());
+        if (found.isPresent()) {
+            PaymentIntent paymentIntent = found.get();
+            stripeService.applyPaymentIntentResult(payment.getId(), paymentIntent);
+            log.info("Recovered payment {} from PaymentIntent {} ({})", payment.getId(), paymentIntent.getId(),
+                    paymentIntent.getStatus());
+        } else if (payment.getPaymentDate().isBefore(now.minusMinutes(giveUpMinutes))) {
+            stripeService.markProcessingFailed(payment.getId(), "No PaymentIntent found on Stripe");
+        }
+    }
+}
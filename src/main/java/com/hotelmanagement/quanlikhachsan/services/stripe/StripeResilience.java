@@ -0,0 +1,217 @@
+package com.hotelmanagement.quanlikhachsan.services.stripe;
+
+import com.hotelmanagement.quanlikhachsan.exception.ErrorDefinition;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.RateLimitException;
+import com.stripe.exception.StripeException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs Stripe API calls with retry, a circuit breaker per operation and a
+ * shared bulkhead.
+ *
+ * Connection errors, 409 (idempotency key in use), 429 and 5xx are retried
+ * with jittered exponential backoff; callers pass idempotency keys, so a
+ * retried create cannot charge twice. Connection errors and 5xx count against
+ * the operation's breaker, which refuses calls while Stripe is degraded
+ * instead of letting each request wait out its timeouts. The bulkhead caps
+ * concurrent Stripe calls so payment traffic cannot take every request
+ * thread; it is not held while waiting to retry.
+ *
+ * Metrics, tagged by operation: {@code stripe.requests} (timer, by outcome),
+ * {@code stripe.requests.refused} (by reason), {@code stripe.retries},
+ * {@code stripe.circuit.state} (0 closed, 1 half open, 2 open) and
+ * {@code stripe.bulkhead.available}.
+ */
+@Component
+@Slf4j
+public class StripeResilience {
+
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long initialDelayMillis;
+    private final long maxDelayMillis;
+    private final double multiplier;
+    private final Semaphore bulkhead;
+    private final long bulkheadWaitMillis;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public StripeResilience(
+            MeterRegistry meterRegistry,
+            @Value("${stripe.retry.max-attempts:3}") int maxAttempts,
+            @Value("${stripe.retry.initial-delay-ms:200}") long initialDelayMillis,
+            @Value("${stripe.retry.max-delay-ms:2000}") long maxDelayMillis,
+            @Value("${stripe.retry.multiplier:2.0}") double multiplier,
+            @Value("${stripe.bulkhead.max-concurrent:20}") int maxConcurrent,
+            @Value("${stripe.bulkhead.max-wait-ms:500}") long bulkheadWaitMillis,
+            @Value("${stripe.circuit-breaker.window-size:20}") int windowSize,
+            @Value("${stripe.circuit-breaker.minimum-calls:10}") int minimumCalls,
+            @Value("${stripe.circuit-breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+            @Value("${stripe.circuit-breaker.open-ms:30000}") long openMillis,
+            @Value("${stripe.circuit-breaker.half-open-calls:3}") int halfOpenCalls) {
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.initialDelayMillis = initialDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.multiplier = multiplier;
+        this.bulkhead = new Semaphore(maxConcurrent);
+        this.bulkheadWaitMillis = bulkheadWaitMillis;
+        this.windowSize = windowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = Duration.ofMillis(openMillis).toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+        Gauge.builder("stripe.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run a Stripe call.
+     *
+     * @param operation metric and breaker name, e.g. {@code payment_intent.create}
+     * @throws com.hotelmanagement.quanlikhachsan.exception.AppError
+     *         PAYMENT_PROVIDER_UNAVAILABLE when the breaker is open or the bulkhead stays full
+     */
+    public <T> T execute(String operation, StripeOperation<T> call) throws StripeException {
+        CircuitBreaker breaker = breakers.computeIfAbsent(operation, this::newBreaker);
+        StripeException failure = null;
+        for (int attempt = 1; ; attempt++) {
+            String refusal = null;
+            if (!breaker.tryAcquire()) {
+                refusal = "circuit_open";
+            } else if (!acquireBulkhead()) {
+                breaker.release();
+                refusal = "bulkhead_full";
+            }
+            if (refusal != null) {
+                RuntimeException refused = refused(operation, refusal);
+                // Mid-retry, the Stripe error says more than the refusal
+                if (failure != null) {
+                    throw failure;
+                }
+                throw refused;
+            }
+
+            long start = System.nanoTime();
+            try {
+                T result = call.execute();
+                breaker.onSuccess();
+                record(operation, "success", start);
+                return result;
+            } catch (StripeException e) {
+                if (isStripeDegraded(e)) {
+                    breaker.onFailure();
+                    record(operation, "error", start);
+                } else {
+                    // Stripe answered; a rejected request says nothing about its health
+                    breaker.onSuccess();
+                    record(operation, "rejected", start);
+                }
+                failure = e;
+            } catch (RuntimeException e) {
+                breaker.onFailure();
+                record(operation, "error", start);
+                throw e;
+            } finally {
+                bulkhead.release();
+            }
+
+            if (!isRetryable(failure) || attempt >= maxAttempts) {
+                throw failure;
+            }
+            long delay = backoff(attempt);
+            log.warn("Stripe {} failed ({}), attempt {}/{}, retrying in {}ms",
+                    operation, failure.getMessage(), attempt, maxAttempts, delay);
+            meterRegistry.counter("stripe.retries", "operation", operation).increment();
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw failure;
+            }
+        }
+    }
+
+    CircuitBreaker.State circuitState(String operation) {
+        CircuitBreaker breaker = breakers.get(operation);
+        return breaker == null ? CircuitBreaker.State.CLOSED : breaker.state();
+    }
+
+    private CircuitBreaker newBreaker(String operation) {
+        CircuitBreaker breaker = new CircuitBreaker(windowSize, minimumCalls, failureRateThreshold, openNanos,
+                halfOpenCalls, System::nanoTime);
+        Gauge.builder("stripe.circuit.state", breaker, b -> b.state().ordinal())
+                .tag("operation", operation)
+                .register(meterRegistry);
+        return breaker;
+    }
+
+    private boolean acquireBulkhead() {
+        try {
+            return bulkhead.tryAcquire(bulkheadWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private RuntimeException refused(String operation, String reason) {
+        Counter.builder("stripe.requests.refused")
+                .tag("operation", operation)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+        log.warn("Stripe {} refused: {}", operation, reason);
+        return ErrorDefinition.PAYMENT_PROVIDER_UNAVAILABLE.toAppError()
+                .withDetail("reason", reason);
+    }
+
+    private void record(String operation, String outcome, long startNanos) {
+        Timer.builder("stripe.requests")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static boolean isStripeDegraded(StripeException e) {
+        return e instanceof ApiConnectionException
+                || (e.getStatusCode() != null && e.getStatusCode() >= 500);
+    }
+
+    private static boolean isRetryable(StripeException e) {
+        Integer status = e.getStatusCode();
+        return isStripeDegraded(e)
+                || e instanceof RateLimitException
+                || (status != null && (status == 409 || status == 429));
+    }
+
+    private long backoff(int attempt) {
+        long delay = (long) Math.min(maxDelayMillis, initialDelayMillis * Math.pow(multiplier, attempt - 1));
+        // Anywhere in the upper half, so callers that failed together do not retry together
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    @FunctionalInterface
+    public interface StripeOperation<T> {
+        T execute() throws StripeException;
+    }
+}
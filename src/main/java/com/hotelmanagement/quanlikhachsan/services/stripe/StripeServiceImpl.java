@@ -4,6 +4,7 @@ import com.hotelmanagement.quanlikhachsan.dto.request.payment.CheckoutSessionReq
 
 import com.hotelmanagement.quanlikhachsan.dto.request.payment.PaymentRequestDTO;
 import com.hotelmanagement.quanlikhachsan.dto.response.payment.CheckoutSessionResponseDTO;
+import com.hotelmanagement.quanlikhachsan.exception.AppError;
 import com.hotelmanagement.quanlikhachsan.exception.ErrorDefinition;
 import com.hotelmanagement.quanlikhachsan.model.payment.Payment;
 import com.hotelmanagement.quanlikhachsan.model.payment.PaymentStatus;
@@ -14,11 +15,15 @@ import com.hotelmanagement.quanlikhachsan.repository.PaymentRepository;
 import com.hotelmanagement.quanlikhachsan.repository.PaymentStatusRepository;
 import com.hotelmanagement.quanlikhachsan.repository.ReservationRepository;
 import com.hotelmanagement.quanlikhachsan.services.email.EmailService;
+import com.hotelmanagement.quanlikhachsan.services.payment.PaymentLedgerService;
 import com.stripe.Stripe;
 import com.stripe.exception.StripeException;
 import com.stripe.model.PaymentIntent;
+import com.stripe.model.PaymentIntentSearchResult;
 import com.stripe.model.checkout.Session;
+import com.stripe.net.RequestOptions;
 import com.stripe.param.PaymentIntentCreateParams;
+import com.stripe.param.PaymentIntentSearchParams;
 import com.stripe.param.checkout.SessionCreateParams;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
@@ -26,10 +31,14 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
@@ -48,12 +57,34 @@ public class StripeServiceImpl implements IStripeService {
         private final PaymentStatusRepository paymentStatusRepository;
         private final ReservationRepository reservationRepository;
         private final EmailService emailService;
+        private final TransactionTemplate transactionTemplate;
+        private final StripeResilience stripeResilience;
+        private final PaymentLedgerService paymentLedgerService;
+
+        static final String METHOD_CHECKOUT = "STRIPE_CHECKOUT";
+        static final String METHOD_INTENT = "STRIPE";
+
+        @Value("${stripe.checkout.expiry-minutes:60}")
+        private long checkoutExpiryMinutes;
+
+        private record CheckoutDraft(UUID paymentId, long amountInCents, long nights, String description) {
+        }
 
         private PaymentStatus getPaymentStatus(String statusName) {
                 return paymentStatusRepository.findByName(statusName)
                                 .orElseThrow(() -> new RuntimeException("Payment status not found: " + statusName));
         }
 
+        /**
+         * Move a payment to another status and record the transition in the ledger.
+         */
+        private void transition(Payment payment, String statusName) {
+                String previous = payment.getStatus().getName();
+                payment.setStatus(getPaymentStatus(statusName));
+                paymentRepository.save(payment);
+                paymentLedgerService.record(payment, previous);
+        }
+
         private void validateAmount(BigDecimal amount) {
                 if (amount.compareTo(BigDecimal.ZERO) <= 0) {
                         throw new IllegalArgumentException("Payment amount must be positive");
@@ -69,33 +100,57 @@ public class StripeServiceImpl implements IStripeService {
                 Stripe.apiKey = stripeSecretKey;
         }
 
+        /**
+         * Creates the Checkout Session in three steps so no database connection
+         * is held while Stripe is called:
+         * 1. short transaction: read the reservation and record a PROCESSING payment
+         * 2. no transaction: create the session, keyed by the payment id so a
+         *    retried call cannot create a second one
+         * 3. short transaction: attach the session id and move the payment to PENDING
+         *
+         * A crash between 2 and 3 leaves the payment PROCESSING; the session was
+         * never shown to the guest and expires, and
+         * {@link StripePaymentRecoveryJob} fails the payment after that.
+         */
         @Override
-        @Transactional
         public CheckoutSessionResponseDTO createCheckoutSession(CheckoutSessionRequestDTO request)
                         throws StripeException {
-                // 1. Fetch reservation from database
-                Reservation reservation = reservationRepository.findById(request.reservationId())
-                                .orElseThrow(() -> ErrorDefinition.RESERVATION_NOT_FOUND
-                                                .toAppError()
-                                                .withDetail("Reservation not found", request.reservationId()));
-
-                // 2. Calculate total amount
-                long nights = ChronoUnit.DAYS.between(reservation.getCheckIn(), reservation.getCheckOut());
-                if (nights <= 0)
-                        nights = 1;
-
-                BigDecimal totalAmount = reservation.getTotalAmount();
-                validateAmount(totalAmount);
-                long amountInCents = totalAmount.multiply(BigDecimal.valueOf(100)).longValue();
-
-                // 3. Build room description for line item
-                String roomDescription = buildRoomDescription(reservation);
-
-                // 4. Create Stripe Checkout Session
+                // 1. Fetch reservation and record the attempt
+                CheckoutDraft draft = transactionTemplate.execute(status -> {
+                        Reservation reservation = reservationRepository.findById(request.reservationId())
+                                        .orElseThrow(() -> ErrorDefinition.RESERVATION_NOT_FOUND
+                                                        .toAppError()
+                                                        .withDetail("Reservation not found", request.reservationId()));
+
+                        // Calculate total amount
+                        long nights = ChronoUnit.DAYS.between(reservation.getCheckIn(), reservation.getCheckOut());
+                        if (nights <= 0)
+                                nights = 1;
+
+                        BigDecimal totalAmount = reservation.getTotalAmount();
+                        validateAmount(totalAmount);
+
+                        Payment payment = paymentRepository.save(Payment.builder()
+                                        .reservation(reservation)
+                                        .amount(totalAmount)
+                                        .method(METHOD_CHECKOUT)
+                                        .status(getPaymentStatus("PROCESSING"))
+                                        .build());
+                        paymentLedgerService.record(payment, null);
+
+                        return new CheckoutDraft(payment.getId(),
+                                        totalAmount.multiply(BigDecimal.valueOf(100)).longValue(),
+                                        nights,
+                                        buildRoomDescription(reservation));
+                });
+
+                // 2. Create Stripe Checkout Session
                 SessionCreateParams.Builder paramsBuilder = SessionCreateParams.builder()
                                 .setMode(SessionCreateParams.Mode.PAYMENT)
                                 .setSuccessUrl(request.successUrl() + "?session_id={CHECKOUT_SESSION_ID}")
                                 .setCancelUrl(request.cancelUrl())
+                                .setExpiresAt(Instant.now().plus(checkoutExpiryMinutes, ChronoUnit.MINUTES)
+                                                .getEpochSecond())
                                 .addLineItem(
                                                 SessionCreateParams.LineItem.builder()
                                                                 .setQuantity(1L)
@@ -103,34 +158,41 @@ public class StripeServiceImpl implements IStripeService {
                                                                                 SessionCreateParams.LineItem.PriceData
                                                                                                 .builder()
                                                                                                 .setCurrency(currency)
-                                                                                                .setUnitAmount(amountInCents)
+                                                                                                .setUnitAmount(draft.amountInCents())
                                                                                                 .setProductData(
                                                                                                                 SessionCreateParams.LineItem.PriceData.ProductData
                                                                                                                                 .builder()
                                                                                                                                 .setName("Đặt phòng khách sạn - "
-                                                                                                                                                + nights
+                                                                                                                                                + draft.nights()
                                                                                                                                                 + " đêm")
-                                                                                                                                .setDescription(roomDescription)
+                                                                                                                                .setDescription(draft.description())
                                                                                                                                 .build())
                                                                                                 .build())
                                                                 .build())
-                                .putMetadata("reservationId", request.reservationId().toString());
-
-                Session session = Session.create(paramsBuilder.build());
+                                .putMetadata("reservationId", request.reservationId().toString())
+                                .putMetadata("paymentId", draft.paymentId().toString());
 
-                // 5. Create pending payment record
-                PaymentStatus pendingStatus = paymentStatusRepository.findByName("PENDING")
-                                .orElseThrow(() -> new RuntimeException("Payment status PENDING not found"));
-
-                Payment payment = Payment.builder()
-                                .reservation(reservation)
-                                .amount(totalAmount)
-                                .method("STRIPE_CHECKOUT")
-                                .stripeSessionId(session.getId())
-                                .status(pendingStatus)
-                                .build();
+                Session session;
+                try {
+                        session = stripeResilience.execute("checkout_session.create",
+                                        () -> Session.create(paramsBuilder.build(),
+                                                        idempotent("checkout-", draft.paymentId())));
+                } catch (StripeException e) {
+                        failIfRejected(draft.paymentId(), e);
+                        throw e;
+                } catch (AppError e) {
+                        // Refused before reaching Stripe, so no session exists
+                        markProcessingFailed(draft.paymentId(), e.getMessage());
+                        throw e;
+                }
 
-                paymentRepository.save(payment);
+                // 3. Record the session on the pending payment
+                transactionTemplate.executeWithoutResult(status -> {
+                        Payment payment = paymentRepository.findById(draft.paymentId())
+                                        .orElseThrow(() -> ErrorDefinition.PAYMENT_NOT_FOUND.toAppError());
+                        payment.setStripeSessionId(session.getId());
+                        transition(payment, "PENDING");
+                });
                 log.info("Created Stripe Checkout Session {} for reservation {}", session.getId(),
                                 request.reservationId());
 
@@ -154,15 +216,32 @@ public class StripeServiceImpl implements IStripeService {
                 return sb.toString().trim();
         }
 
-        @Transactional
+        /**
+         * Charges a payment method in the same three steps as
+         * {@link #createCheckoutSession}. If the process dies after Stripe
+         * confirmed the intent, {@link StripePaymentRecoveryJob} finds it by the
+         * paymentId metadata and records the outcome.
+         */
         @Override
         public Payment processPayment(PaymentRequestDTO request) throws StripeException {
-                Reservation reservation = reservationRepository.findById(request.reservationId())
-                                .orElseThrow(() -> ErrorDefinition.RESERVATION_NOT_FOUND
-                                                .toAppError()
-                                                .withDetail("Reservation not found", request.reservationId()));
-
-                // Create PaymentIntent on Stripe
+                // 1. Record the attempt
+                UUID paymentId = transactionTemplate.execute(status -> {
+                        Reservation reservation = reservationRepository.findById(request.reservationId())
+                                        .orElseThrow(() -> ErrorDefinition.RESERVATION_NOT_FOUND
+                                                        .toAppError()
+                                                        .withDetail("Reservation not found", request.reservationId()));
+
+                        Payment payment = paymentRepository.save(Payment.builder()
+                                        .reservation(reservation)
+                                        .amount(BigDecimal.valueOf(request.amount() / 100.0))
+                                        .method(METHOD_INTENT)
+                                        .status(getPaymentStatus("PROCESSING"))
+                                        .build());
+                        paymentLedgerService.record(payment, null);
+                        return payment.getId();
+                });
+
+                // 2. Create PaymentIntent on Stripe
                 PaymentIntentCreateParams params = PaymentIntentCreateParams.builder()
                                 .setAmount(request.amount())
                                 .setCurrency(currency)
@@ -175,38 +254,115 @@ public class StripeServiceImpl implements IStripeService {
                                                                 .setAllowRedirects(
                                                                                 PaymentIntentCreateParams.AutomaticPaymentMethods.AllowRedirects.NEVER)
                                                                 .build())
+                                .putMetadata("reservationId", request.reservationId().toString())
+                                .putMetadata("paymentId", paymentId.toString())
                                 .build();
 
-                PaymentIntent paymentIntent = PaymentIntent.create(params);
-
-                // Determine status based on Stripe result
-                String statusName;
-                if ("succeeded".equals(paymentIntent.getStatus())) {
-                        statusName = "COMPLETED";
-                        reservation.setStatus(ReservationStatus.CONFIRMED);
-                        reservationRepository.save(reservation);
-                        log.info("Payment successful for reservation {}, Stripe status: {}", reservation.getId(), paymentIntent.getStatus(),
-                                        reservation.getId());
-                } else if ("requires_payment_method".equals(paymentIntent.getStatus())) {
-                        log.warn("Payment failed for reservation {}, Stripe status: {}", reservation.getId(), paymentIntent.getStatus());
-                        statusName = "FAILED";
-                } else {
-                    statusName = "PENDING";
+                PaymentIntent paymentIntent;
+                try {
+                        paymentIntent = stripeResilience.execute("payment_intent.create",
+                                        () -> PaymentIntent.create(params, idempotent("payment-", paymentId)));
+                } catch (StripeException e) {
+                        failIfRejected(paymentId, e);
+                        throw e;
+                } catch (AppError e) {
+                        // Refused before reaching Stripe, so nothing was charged
+                        markProcessingFailed(paymentId, e.getMessage());
+                        throw e;
                 }
 
-            PaymentStatus status = paymentStatusRepository.findByName(statusName)
-                                .orElseThrow(() -> new RuntimeException("Status not found in DB: " + statusName));
+                // 3. Record the result
+                return applyPaymentIntentResult(paymentId, paymentIntent);
+        }
+
+        /**
+         * Record the outcome of a PaymentIntent on a payment that is still
+         * PROCESSING, and confirm the reservation if it succeeded. Used by
+         * {@link #processPayment} and by recovery.
+         */
+        public Payment applyPaymentIntentResult(UUID paymentId, PaymentIntent paymentIntent) {
+                return transactionTemplate.execute(status -> {
+                        Payment payment = paymentRepository.findById(paymentId)
+                                        .orElseThrow(() -> ErrorDefinition.PAYMENT_NOT_FOUND.toAppError());
+                        if (!"PROCESSING".equals(payment.getStatus().getName())) {
+                                // Already recorded by the request or by recovery
+                                return payment;
+                        }
+
+                        // Determine status based on Stripe result
+                        String statusName;
+                        if ("succeeded".equals(paymentIntent.getStatus())) {
+                                statusName = "COMPLETED";
+                                Reservation reservation = payment.getReservation();
+                                reservation.setStatus(ReservationStatus.CONFIRMED);
+                                reservationRepository.save(reservation);
+                                log.info("Payment successful for reservation {}, Stripe status: {}", reservation.getId(),
+                                                paymentIntent.getStatus());
+                        } else if ("requires_payment_method".equals(paymentIntent.getStatus())) {
+                                log.warn("Payment failed for reservation {}, Stripe status: {}",
+                                                payment.getReservation().getId(), paymentIntent.getStatus());
+                                statusName = "FAILED";
+                        } else {
+                                statusName = "PENDING";
+                        }
 
-                // Save payment record
-                Payment payment = Payment.builder()
-                                .reservation(reservation)
-                                .amount(BigDecimal.valueOf(request.amount() / 100.0))
-                                .method("STRIPE")
-                                .transactionCode(paymentIntent.getId())
-                                .status(status)
+                        payment.setTransactionCode(paymentIntent.getId());
+                        transition(payment, statusName);
+                        return payment;
+                });
+        }
+
+        /**
+         * Look up the PaymentIntent created for a payment, by its paymentId metadata.
+         * Stripe's search index lags writes by up to a minute.
+         */
+        public Optional<PaymentIntent> findPaymentIntent(UUID paymentId) throws StripeException {
+                PaymentIntentSearchParams params = PaymentIntentSearchParams.builder()
+                                .setQuery("metadata['paymentId']:'" + paymentId + "'")
                                 .build();
+                PaymentIntentSearchResult result = stripeResilience.execute("payment_intent.search",
+                                () -> PaymentIntent.search(params));
+                return result.getData().stream().findFirst();
+        }
 
-                return paymentRepository.save(payment);
+        public Session retrieveCheckoutSession(String sessionId) throws StripeException {
+                return stripeResilience.execute("checkout_session.retrieve", () -> Session.retrieve(sessionId));
+        }
+
+        public PaymentIntent retrievePaymentIntent(String paymentIntentId) throws StripeException {
+                return stripeResilience.execute("payment_intent.retrieve", () -> PaymentIntent.retrieve(paymentIntentId));
+        }
+
+        /**
+         * Fail a payment that is still PROCESSING; one that already moved on is left alone.
+         */
+        public void markProcessingFailed(UUID paymentId, String reason) {
+                transactionTemplate.executeWithoutResult(status -> paymentRepository.findById(paymentId)
+                                .filter(payment -> "PROCESSING".equals(payment.getStatus().getName()))
+                                .ifPresent(payment -> {
+                                        transition(payment, "FAILED");
+                                        log.warn("Payment {} marked FAILED: {}", paymentId, reason);
+                                }));
+        }
+
+        /**
+         * Stripe answered with a definite rejection, so nothing was created and the
+         * payment can fail now. Timeouts and 5xx leave it PROCESSING for recovery.
+         */
+        private void failIfRejected(UUID paymentId, StripeException e) {
+                Integer statusCode = e.getStatusCode();
+                boolean rejected = statusCode != null && statusCode >= 400 && statusCode < 500
+                                && statusCode != 409 && statusCode != 429;
+                if (rejected) {
+                        markProcessingFailed(paymentId, e.getMessage());
+                } else {
+                        log.warn("Stripe outcome unknown for payment {}, left for recovery: {}", paymentId,
+                                        e.getMessage());
+                }
+        }
+
+        private static RequestOptions idempotent(String prefix, UUID paymentId) {
+                return RequestOptions.builder().setIdempotencyKey(prefix + paymentId).build();
         }
 
         @Override
@@ -216,11 +372,7 @@ public class StripeServiceImpl implements IStripeService {
                                 .orElse(null);
 
                 if (payment != null) {
-                        PaymentStatus newStatus = paymentStatusRepository.findByName(statusName)
-                                        .orElseThrow(() -> new RuntimeException("Status not found"));
-
-                        payment.setStatus(newStatus);
-                        paymentRepository.save(payment);
+                        transition(payment, statusName);
                         log.info("Payment status updated for PaymentIntent {}", paymentIntentId);
                 }
         }
@@ -233,10 +385,7 @@ public class StripeServiceImpl implements IStripeService {
 
                 if (payment != null) {
                         // Update payment status to COMPLETED
-                        PaymentStatus completedStatus = paymentStatusRepository.findByName("COMPLETED")
-                                        .orElseThrow(() -> new RuntimeException("Status COMPLETED not found"));
-                        payment.setStatus(completedStatus);
-                        paymentRepository.save(payment);
+                        transition(payment, "COMPLETED");
 
                         // Update reservation status to CONFIRMED
                         Reservation reservation = payment.getReservation();
@@ -256,6 +405,27 @@ public class StripeServiceImpl implements IStripeService {
                 }
         }
 
+        @Override
+        @Transactional
+        public void handleCheckoutSessionExpired(String sessionId) {
+                paymentRepository.findByStripeSessionId(sessionId)
+                                .filter(payment -> "PENDING".equals(payment.getStatus().getName()))
+                                .ifPresent(payment -> {
+                                        transition(payment, "FAILED");
+                                        log.info("Payment {} marked as FAILED due to session expiry", payment.getId());
+                                });
+        }
+
+        /**
+         * Send the booking confirmation for a payment settled outside the
+         * webhook, e.g. by reconciliation.
+         */
+        @Transactional
+        public void sendBookingConfirmation(UUID paymentId) {
+                paymentRepository.findById(paymentId)
+                                .ifPresent(payment -> sendConfirmationEmail(payment.getReservation(), payment));
+        }
+
         /**
          * Send booking confirmation email to guest
          */
@@ -0,0 +1,7 @@
+package com.hotelmanagement.quanlikhachsan.services.stripe;
+
+/**
+ * Published when a Stripe webhook event is stored for processing.
+ */
+public record StripeWebhookReceivedEvent(String eventId) {
+}
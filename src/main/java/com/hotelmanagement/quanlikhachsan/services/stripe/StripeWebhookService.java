@@ -0,0 +1,106 @@
+package com.hotelmanagement.quanlikhachsan.services.stripe;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotelmanagement.quanlikhachsan.repository.StripeWebhookEventRepository;
+import com.stripe.model.Event;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Accepts verified Stripe webhook events for {@link StripeWebhookWorker}.
+ *
+ * The event id is claimed with SET NX, so of two concurrent deliveries only
+ * one gets past Redis; the table's primary key is the durable guard behind
+ * it. A claim alone does not prove the event was stored, since the claiming
+ * request may have died before the insert, so a delivery that finds the
+ * claim taken is only acknowledged as a duplicate once the row exists.
+ * Nothing here touches payments, so Stripe gets its 200 quickly.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StripeWebhookService {
+
+    private static final String CLAIM_PREFIX = "stripe:webhook:";
+
+    private final StripeWebhookEventRepository webhookEventRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${stripe.webhook.idempotency-ttl:86400}")
+    private long idempotencyTtl;
+
+    /**
+     * Store a verified event for processing.
+     *
+     * @param payload the raw body Stripe signed
+     * @return false if the event was already received
+     */
+    public boolean receive(Event event, String payload) {
+        String claimKey = CLAIM_PREFIX + event.getId();
+        Boolean claimed;
+        try {
+            claimed = redisTemplate.opsForValue().setIfAbsent(claimKey, "1", Duration.ofSeconds(idempotencyTtl));
+        } catch (Exception e) {
+            // The insert below still rejects duplicates
+            log.warn("Could not claim webhook event {} in Redis: {}", event.getId(), e.getMessage());
+            claimed = null;
+        }
+        if (Boolean.FALSE.equals(claimed) && webhookEventRepository.existsById(event.getId())) {
+            return false;
+        }
+        // Otherwise the claim was left by a request that never stored the event; the insert decides
+
+        int stored;
+        try {
+            stored = webhookEventRepository.insertIfAbsent(event.getId(), event.getType(), orderingKey(event, payload),
+                    payload, LocalDateTime.now());
+        } catch (RuntimeException e) {
+            // Release the claim so Stripe's redelivery is not taken for a duplicate
+            if (Boolean.TRUE.equals(claimed)) {
+                try {
+                    redisTemplate.delete(claimKey);
+                } catch (Exception ignored) {
+                    // The claim expires on its own
+                }
+            }
+            throw e;
+        }
+        if (stored == 0) {
+            return false;
+        }
+        eventPublisher.publishEvent(new StripeWebhookReceivedEvent(event.getId()));
+        return true;
+    }
+
+    /**
+     * The reservation id from the object's metadata, which this application
+     * sets on every session and PaymentIntent; otherwise the object id.
+     */
+    String orderingKey(Event event, String payload) {
+        try {
+            JsonNode object = objectMapper.readTree(payload).path("data").path("object");
+            String reservationId = object.path("metadata").path("reservationId").asText("");
+            if (!reservationId.isEmpty()) {
+                return "reservation:" + reservationId;
+            }
+            String objectId = object.path("id").asText("");
+            if (!objectId.isEmpty()) {
+                return "object:" + objectId;
+            }
+        } catch (JsonProcessingException e) {
+            log.warn("Unreadable webhook payload for event {}: {}", event.getId(), e.getMessage());
+        }
+        return "event:" + event.getId();
+    }
+}
@@ -0,0 +1,247 @@
+package com.hotelmanagement.quanlikhachsan.services.stripe;
+
+import com.hotelmanagement.quanlikhachsan.model.payment.StripeWebhookDeadLetter;
+import com.hotelmanagement.quanlikhachsan.model.payment.StripeWebhookEvent;
+import com.hotelmanagement.quanlikhachsan.model.payment.StripeWebhookEventStatus;
+import com.hotelmanagement.quanlikhachsan.repository.StripeWebhookDeadLetterRepository;
+import com.hotelmanagement.quanlikhachsan.repository.StripeWebhookEventRepository;
+import com.stripe.model.Event;
+import com.stripe.model.PaymentIntent;
+import com.stripe.model.StripeObject;
+import com.stripe.model.checkout.Session;
+import com.stripe.net.ApiResource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Processes stored Stripe webhook events.
+ *
+ * Events are claimed with FOR UPDATE SKIP LOCKED and leased by pushing
+ * next_attempt_at forward, like the email outbox. Only the oldest pending
+ * event of each ordering key (the reservation) is claimable, so events for
+ * one reservation run one at a time and in order, on any node. A failed
+ * event is retried with backoff and, once retries run out, moved to the
+ * dead-letter table, which lets the events queued behind it proceed.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StripeWebhookWorker {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final StripeWebhookEventRepository webhookEventRepository;
+    private final StripeWebhookDeadLetterRepository deadLetterRepository;
+    private final IStripeService stripeService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${stripe.webhook.worker.concurrency:4}")
+    private int concurrency;
+
+    @Value("${stripe.webhook.worker.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${stripe.webhook.worker.lease-ms:60000}")
+    private long leaseMillis;
+
+    @Value("${stripe.webhook.worker.backoff-ms:5000}")
+    private long backoffMillis;
+
+    @Value("${stripe.webhook.worker.max-backoff-ms:1800000}")
+    private long maxBackoffMillis;
+
+    @Value("${stripe.webhook.worker.retention-days:7}")
+    private int retentionDays;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private Semaphore permits;
+
+    @PostConstruct
+    void init() {
+        permits = new Semaphore(concurrency);
+    }
+
+    /**
+     * Process a newly received event now instead of waiting for the next poll.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWebhookReceived(StripeWebhookReceivedEvent event) {
+        executor.execute(this::poll);
+    }
+
+    @Scheduled(fixedDelayString = "${stripe.webhook.worker.poll-interval-ms:5000}")
+    public void poll() {
+        // Only claim what can be processed now; the rest stays unleased for other nodes
+        int available = permits.drainPermits();
+        if (available == 0) {
+            return;
+        }
+        try {
+            List<StripeWebhookEvent> claimed = claimDue(available);
+            permits.release(available - claimed.size());
+            for (StripeWebhookEvent event : claimed) {
+                executor.execute(() -> {
+                    try {
+                        process(event);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        } catch (Exception e) {
+            permits.release(available);
+            log.warn("Failed to poll Stripe webhook events: {}", e.getMessage());
+        }
+    }
+
+    List<StripeWebhookEvent> claimDue(int limit) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<StripeWebhookEvent> due = webhookEventRepository.lockDue(now, limit);
+            LocalDateTime leaseUntil = now.plus(Duration.ofMillis(leaseMillis));
+            due.forEach(event -> event.setNextAttemptAt(leaseUntil));
+            return due;
+        });
+    }
+
+    /**
+     * Apply a claimed event and record the outcome. The payment changes and
+     * the PROCESSED mark commit together.
+     */
+    void process(StripeWebhookEvent stored) {
+        try {
+            Event event = ApiResource.GSON.fromJson(stored.getPayload(), Event.class);
+            transactionTemplate.executeWithoutResult(status -> {
+                dispatch(event);
+                stored.setStatus(StripeWebhookEventStatus.PROCESSED);
+                stored.setProcessedAt(LocalDateTime.now());
+                stored.setLastError(null);
+                webhookEventRepository.save(stored);
+            });
+        } catch (Exception e) {
+            recordFailure(stored, e);
+        }
+    }
+
+    private void dispatch(Event event) {
+        switch (event.getType()) {
+            case "checkout.session.completed" -> {
+                Session session = dataObject(event, Session.class);
+                log.info("Checkout Session completed: {}", session.getId());
+                stripeService.handleCheckoutSessionCompleted(session.getId());
+            }
+            case "checkout.session.expired" -> {
+                Session session = dataObject(event, Session.class);
+                log.warn("Checkout Session expired: {}", session.getId());
+                stripeService.handleCheckoutSessionExpired(session.getId());
+            }
+            case "payment_intent.succeeded" -> {
+                PaymentIntent paymentIntent = dataObject(event, PaymentIntent.class);
+                log.info("PaymentIntent succeeded: {}", paymentIntent.getId());
+                stripeService.updatePaymentStatusFromWebhook(paymentIntent.getId(), "COMPLETED");
+            }
+            case "payment_intent.payment_failed" -> {
+                PaymentIntent paymentIntent = dataObject(event, PaymentIntent.class);
+                log.warn("PaymentIntent failed: {}", paymentIntent.getId());
+                stripeService.updatePaymentStatusFromWebhook(paymentIntent.getId(), "FAILED");
+            }
+            default -> log.info("Unhandled event type: {}", event.getType());
+        }
+    }
+
+    private static <T extends StripeObject> T dataObject(Event event, Class<T> type) {
+        // Empty when the event's API version differs from the SDK's
+        StripeObject object = event.getDataObjectDeserializer().getObject()
+                .orElseThrow(() -> new IllegalStateException("Cannot deserialize " + event.getType()
+                        + " for API version " + event.getApiVersion()));
+        return type.cast(object);
+    }
+
+    private void recordFailure(StripeWebhookEvent stored, Exception e) {
+        int attempts = stored.getAttempts() + 1;
+        stored.setAttempts(attempts);
+        stored.setStatus(StripeWebhookEventStatus.PENDING);
+        stored.setProcessedAt(null);
+        stored.setLastError(truncate(e.getMessage()));
+
+        try {
+            if (attempts >= maxAttempts) {
+                log.error("Stripe webhook event {} ({}) failed after {} attempts, dead-lettered: {}",
+                        stored.getId(), stored.getType(), attempts, e.getMessage());
+                transactionTemplate.executeWithoutResult(status -> {
+                    deadLetterRepository.save(StripeWebhookDeadLetter.builder()
+                            .eventId(stored.getId())
+                            .type(stored.getType())
+                            .orderingKey(stored.getOrderingKey())
+                            .payload(stored.getPayload())
+                            .attempts(attempts)
+                            .lastError(stored.getLastError())
+                            .receivedAt(stored.getReceivedAt())
+                            .failedAt(LocalDateTime.now())
+                            .build());
+                    webhookEventRepository.delete(stored);
+                });
+                return;
+            }
+
+            log.warn("Stripe webhook event {} ({}) failed (attempt {}): {}",
+                    stored.getId(), stored.getType(), attempts, e.getMessage());
+            stored.setNextAttemptAt(LocalDateTime.now().plus(backoff(attempts)));
+            webhookEventRepository.save(stored);
+        } catch (Exception saveFailure) {
+            // The lease runs out and the event is claimed again
+            log.warn("Failed to record failure of Stripe webhook event {}: {}", stored.getId(),
+                    saveFailure.getMessage());
+        }
+    }
+
+    /**
+     * Drop processed events once they are no longer useful for troubleshooting.
+     */
+    @Scheduled(fixedDelayString = "${stripe.webhook.worker.purge-interval-ms:3600000}")
+    public void purge() {
+        try {
+            Long deleted = transactionTemplate.execute(status -> webhookEventRepository
+                    .deleteByStatusAndProcessedAtBefore(StripeWebhookEventStatus.PROCESSED,
+                            LocalDateTime.now().minusDays(retentionDays)));
+            if (deleted != null && deleted > 0) {
+                log.info("Purged {} processed Stripe webhook events", deleted);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to purge Stripe webhook events: {}", e.getMessage());
+        }
+    }
+
+    private Duration backoff(int attempts) {
+        long delay = Math.min(maxBackoffMillis, backoffMillis << Math.min(attempts - 1, 20));
+        // Up to 20% jitter so events that failed together do not retry together
+        return Duration.ofMillis(delay + ThreadLocalRandom.current().nextLong(delay / 5 + 1));
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    @PreDestroy
+    void shutdownExecutor() {
+        executor.close();
+    }
+}
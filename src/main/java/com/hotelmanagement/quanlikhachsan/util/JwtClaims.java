@@ -0,0 +1,19 @@
+package com.hotelmanagement.quanlikhachsan.util;
+
+import java.time.Instant;
+
+/**
+ * Verified claims of an application-issued JWT.
+ */
+public record JwtClaims(
+        String userId,
+        String email,
+        String fullName,
+        String role,
+        String tokenId,
+        Instant expiresAt) {
+
+    public boolean isExpired() {
+        return !expiresAt.isAfter(Instant.now());
+    }
+}
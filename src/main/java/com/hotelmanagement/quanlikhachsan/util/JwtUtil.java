@@ -1,5 +1,8 @@
 package com.hotelmanagement.quanlikhachsan.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
@@ -8,9 +11,16 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
 
 @Component
 @Slf4j
@@ -22,9 +32,54 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private Long expiration;
 
+    private static final int MAX_CACHED_TOKENS = 10_000;
+
+    // Built on first use so the secret can be injected (or set in tests) after construction
+    private volatile SecretKey signingKey;
+    private volatile JwtParser parser;
+
+    /**
+     * Tokens that already passed signature verification, keyed by SHA-256 of
+     * the token. Each entry expires together with its token.
+     */
+    private final Cache<String, JwtClaims> verifiedTokens = Caffeine.newBuilder()
+            .maximumSize(MAX_CACHED_TOKENS)
+            .expireAfter(new Expiry<String, JwtClaims>() {
+                @Override
+                public long expireAfterCreate(String key, JwtClaims claims, long currentTime) {
+                    return Math.max(0, Duration.between(Instant.now(), claims.expiresAt()).toNanos());
+                }
+
+                @Override
+                public long expireAfterUpdate(String key, JwtClaims claims, long currentTime,
+                        long currentDuration) {
+                    return expireAfterCreate(key, claims, currentTime);
+                }
+
+                @Override
+                public long expireAfterRead(String key, JwtClaims claims, long currentTime,
+                        long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .build();
+
     private SecretKey getSigningKey() {
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+        SecretKey key = signingKey;
+        if (key == null) {
+            key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+            signingKey = key;
+        }
+        return key;
+    }
+
+    private JwtParser getParser() {
+        JwtParser jwtParser = parser;
+        if (jwtParser == null) {
+            jwtParser = Jwts.parser().verifyWith(getSigningKey()).build();
+            parser = jwtParser;
+        }
+        return jwtParser;
     }
 
     public String generateToken(String userId, String email, String fullName, String role) {
@@ -37,6 +92,7 @@ public class JwtUtil {
         return Jwts.builder()
                 .claims(claims)
                 .subject(email)
+                .id(UUID.randomUUID().toString()) // jti, used for revocation
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + expiration))
                 .signWith(getSigningKey())
@@ -44,13 +100,61 @@ public class JwtUtil {
     }
 
     public Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
+        return getParser()
                 .parseSignedClaims(token)
                 .getPayload();
     }
 
+    /**
+     * Verify the token once and return its claims.
+     * Repeat calls with the same token are served from cache until it expires.
+     *
+     * @return claims, or empty if the token is missing, malformed, tampered or expired
+     */
+    public Optional<JwtClaims> verify(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+
+        String digest = digest(token);
+        JwtClaims cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null) {
+            if (!cached.isExpired()) {
+                return Optional.of(cached);
+            }
+            verifiedTokens.invalidate(digest);
+        }
+
+        try {
+            Claims claims = extractAllClaims(token);
+            if (claims.getExpiration() == null) {
+                log.debug("Rejected JWT token without expiration");
+                return Optional.empty();
+            }
+            JwtClaims jwtClaims = new JwtClaims(
+                    claims.get("userId", String.class),
+                    claims.getSubject(),
+                    claims.get("fullName", String.class),
+                    claims.get("role", String.class),
+                    claims.getId(),
+                    claims.getExpiration().toInstant());
+            verifiedTokens.put(digest, jwtClaims);
+            return Optional.of(jwtClaims);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Rejected JWT token: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
     public String extractUserId(String token) {
         return extractAllClaims(token).get("userId", String.class);
     }
@@ -69,10 +173,7 @@ public class JwtUtil {
 
     public boolean isTokenValid(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
+            getParser().parseSignedClaims(token);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             log.error("Invalid JWT token: {}", e.getMessage());
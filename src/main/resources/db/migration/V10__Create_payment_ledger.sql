@@ -0,0 +1,53 @@
+-- Every payment status transition, appended and never changed
+CREATE TABLE IF NOT EXISTS payment_ledger (
+    id BIGSERIAL PRIMARY KEY,
+    payment_id VARCHAR(36) NOT NULL,
+    reservation_id VARCHAR(36) NOT NULL,
+    -- NULL for the entry that created the payment
+    from_status VARCHAR(50),
+    to_status VARCHAR(50) NOT NULL,
+    amount DECIMAL(10,2) NOT NULL,
+    method VARCHAR(50) NOT NULL,
+    stripe_session_id VARCHAR(255),
+    stripe_payment_intent_id VARCHAR(100),
+    recorded_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_payment_ledger_payment
+ON payment_ledger(payment_id, id);
+
+CREATE INDEX IF NOT EXISTS idx_payment_ledger_recorded_at
+ON payment_ledger(recorded_at);
+
+CREATE OR REPLACE FUNCTION payment_ledger_append_only() RETURNS trigger AS $$
+BEGIN
+    RAISE EXCEPTION 'payment_ledger is append-only';
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER payment_ledger_no_update
+BEFORE UPDATE OR DELETE ON payment_ledger
+FOR EACH ROW EXECUTE FUNCTION payment_ledger_append_only();
+
+-- Transitions per day and target status, updated in the same transaction as the ledger
+CREATE TABLE IF NOT EXISTS payment_settlements_daily (
+    settlement_date DATE NOT NULL,
+    status VARCHAR(50) NOT NULL,
+    payment_count BIGINT NOT NULL DEFAULT 0,
+    amount DECIMAL(14,2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (settlement_date, status)
+);
+
+-- Ledger of payments made before this migration, one entry for their current status
+INSERT INTO payment_ledger (payment_id, reservation_id, from_status, to_status, amount, method,
+                            stripe_session_id, stripe_payment_intent_id, recorded_at)
+SELECT p.id, p.reservation_id, NULL, s.name, p.amount, p.method, p.stripe_session_id, p.transaction_code,
+       COALESCE(p.payment_date, CURRENT_TIMESTAMP)
+FROM payments p
+JOIN payment_statuses s ON s.id = p.status_id
+ORDER BY p.payment_date, p.id;
+
+INSERT INTO payment_settlements_daily (settlement_date, status, payment_count, amount)
+SELECT CAST(recorded_at AS DATE), to_status, COUNT(*), SUM(amount)
+FROM payment_ledger
+GROUP BY CAST(recorded_at AS DATE), to_status;
@@ -0,0 +1,10 @@
+-- Resized, recompressed copies of each upload, written by the derivative pipeline.
+-- NULL until the pipeline has run; the API falls back to image_url meanwhile.
+ALTER TABLE room_images
+    ADD COLUMN IF NOT EXISTS thumbnail_url VARCHAR(500),
+    ADD COLUMN IF NOT EXISTS card_url VARCHAR(500),
+    ADD COLUMN IF NOT EXISTS full_url VARCHAR(500);
+
+-- The sweep looks for images still waiting for variants, oldest first
+CREATE INDEX IF NOT EXISTS idx_room_images_pending_variants
+ON room_images(created_at) WHERE thumbnail_url IS NULL;
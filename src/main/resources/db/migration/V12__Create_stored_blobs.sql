@@ -0,0 +1,17 @@
+-- Uploaded files stored once under their SHA-256 digest, with the number of
+-- room images referencing each. Rows at zero are removed with their files.
+CREATE TABLE IF NOT EXISTS stored_blobs (
+    digest VARCHAR(64) PRIMARY KEY,
+    -- Digest plus the extension of the first upload; the name on disk
+    filename VARCHAR(100) NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    content_type VARCHAR(100),
+    ref_count INT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT non_negative_stored_blob_ref_count CHECK (ref_count >= 0)
+);
+
+-- Sweep of blobs nothing references any more
+CREATE INDEX IF NOT EXISTS idx_stored_blobs_unreferenced
+ON stored_blobs(digest)
+WHERE ref_count = 0;
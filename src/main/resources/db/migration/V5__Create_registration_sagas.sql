@@ -0,0 +1,29 @@
+-- Registration sagas: Keycloak user + local guest, provisioned asynchronously
+CREATE TABLE IF NOT EXISTS registration_sagas (
+    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    email VARCHAR(100) NOT NULL,
+    full_name VARCHAR(100) NOT NULL,
+    phone VARCHAR(20),
+    address TEXT,
+    password_ciphertext TEXT,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    keycloak_requested_at TIMESTAMP,
+    keycloak_user_id UUID,
+    guest_id UUID,
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT valid_registration_status CHECK (status IN ('PENDING', 'KEYCLOAK_CREATED', 'COMPENSATING', 'COMPLETED', 'FAILED'))
+);
+
+-- Worker polls due sagas that still have work to do
+CREATE INDEX IF NOT EXISTS idx_registration_sagas_due
+ON registration_sagas(next_attempt_at)
+WHERE status IN ('PENDING', 'KEYCLOAK_CREATED', 'COMPENSATING');
+
+-- At most one in-flight registration per email
+CREATE UNIQUE INDEX IF NOT EXISTS uq_registration_sagas_active_email
+ON registration_sagas(email)
+WHERE status IN ('PENDING', 'KEYCLOAK_CREATED', 'COMPENSATING');
@@ -0,0 +1,28 @@
+-- Outgoing email, written by request paths and delivered by a background worker
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    category VARCHAR(30) NOT NULL,
+    recipient VARCHAR(255) NOT NULL,
+    recipient_domain VARCHAR(255) NOT NULL,
+    subject VARCHAR(255) NOT NULL,
+    html_body TEXT,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP,
+    last_error TEXT,
+    sent_at TIMESTAMP,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT valid_email_outbox_status CHECK (status IN ('PENDING', 'SENT', 'FAILED'))
+);
+
+-- Worker polls pending messages that are due
+CREATE INDEX IF NOT EXISTS idx_email_outbox_due
+ON email_outbox(next_attempt_at)
+WHERE status = 'PENDING';
+
+-- Purge of finished messages
+CREATE INDEX IF NOT EXISTS idx_email_outbox_finished
+ON email_outbox(updated_at)
+WHERE status IN ('SENT', 'FAILED');
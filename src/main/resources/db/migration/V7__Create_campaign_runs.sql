@@ -0,0 +1,27 @@
+-- Progress of bulk email campaigns: one row per campaign and target date,
+-- with a keyset cursor so an interrupted run resumes where it stopped
+CREATE TABLE IF NOT EXISTS campaign_runs (
+    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    campaign VARCHAR(50) NOT NULL,
+    target_date DATE NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'RUNNING',
+    last_reservation_id UUID,
+    enqueued INT NOT NULL DEFAULT 0,
+    started_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    completed_at TIMESTAMP,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uq_campaign_runs_campaign_date UNIQUE (campaign, target_date),
+    CONSTRAINT valid_campaign_run_status CHECK (status IN ('RUNNING', 'COMPLETED'))
+);
+
+-- Campaign emails carry a key so the same reminder is never queued twice
+ALTER TABLE email_outbox ADD COLUMN IF NOT EXISTS dedupe_key VARCHAR(100);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_email_outbox_dedupe_key
+ON email_outbox(dedupe_key)
+WHERE dedupe_key IS NOT NULL;
+
+-- Keyset scan of arrivals by status and check-in date
+CREATE INDEX IF NOT EXISTS idx_reservations_status_check_in_id
+ON reservations(status, check_in, id);
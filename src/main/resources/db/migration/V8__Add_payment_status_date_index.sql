@@ -0,0 +1,3 @@
+-- Recovery scans payments left PROCESSING, oldest first
+CREATE INDEX IF NOT EXISTS idx_payments_status_payment_date
+ON payments(status_id, payment_date, id);
@@ -0,0 +1,42 @@
+-- Stripe webhook events, stored on receipt and processed by a background worker
+CREATE TABLE IF NOT EXISTS stripe_webhook_events (
+    id VARCHAR(255) PRIMARY KEY,
+    type VARCHAR(100) NOT NULL,
+    -- Reservation id when the event carries one; events sharing it are processed in order
+    ordering_key VARCHAR(255) NOT NULL,
+    payload TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error TEXT,
+    received_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    processed_at TIMESTAMP,
+    CONSTRAINT valid_stripe_webhook_event_status CHECK (status IN ('PENDING', 'PROCESSED'))
+);
+
+-- Worker polls pending events that are due
+CREATE INDEX IF NOT EXISTS idx_stripe_webhook_events_due
+ON stripe_webhook_events(next_attempt_at)
+WHERE status = 'PENDING';
+
+-- Head-of-queue check per ordering key
+CREATE INDEX IF NOT EXISTS idx_stripe_webhook_events_ordering
+ON stripe_webhook_events(ordering_key, received_at, id)
+WHERE status = 'PENDING';
+
+-- Purge of processed events
+CREATE INDEX IF NOT EXISTS idx_stripe_webhook_events_processed
+ON stripe_webhook_events(processed_at)
+WHERE status = 'PROCESSED';
+
+-- Events that ran out of retries, kept for inspection and replay
+CREATE TABLE IF NOT EXISTS stripe_webhook_dead_letters (
+    event_id VARCHAR(255) PRIMARY KEY,
+    type VARCHAR(100) NOT NULL,
+    ordering_key VARCHAR(255) NOT NULL,
+    payload TEXT NOT NULL,
+    attempts INT NOT NULL,
+    last_error TEXT,
+    received_at TIMESTAMP NOT NULL,
+    failed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
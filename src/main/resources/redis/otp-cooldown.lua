@@ -0,0 +1,9 @@
+-- Time left before another OTP may be sent.
+-- KEYS[1] OTP hash
+-- ARGV[1] now (epoch ms), ARGV[2] resend cooldown (ms)
+-- Returns the milliseconds left in the cooldown, 0 if a new OTP may be sent.
+local sentAt = tonumber(redis.call('HGET', KEYS[1], 'sentAt'))
+if not sentAt then
+  return 0
+end
+return math.max(0, sentAt + tonumber(ARGV[2]) - tonumber(ARGV[1]))
@@ -0,0 +1,19 @@
+-- Issue a new OTP unless the previous one was sent within the resend cooldown.
+-- KEYS[1] OTP hash
+-- ARGV[1] code, ARGV[2] now (epoch ms), ARGV[3] expiration (ms), ARGV[4] resend cooldown (ms)
+-- Returns 0 when issued, otherwise the milliseconds left in the cooldown.
+local now = tonumber(ARGV[2])
+local sentAt = tonumber(redis.call('HGET', KEYS[1], 'sentAt'))
+if sentAt then
+  local left = sentAt + tonumber(ARGV[4]) - now
+  if left > 0 then
+    return left
+  end
+end
+
+redis.call('DEL', KEYS[1])
+redis.call('HSET', KEYS[1], 'code', ARGV[1], 'attempts', 0, 'sentAt', now,
+  'expiresAt', now + tonumber(ARGV[3]))
+-- The hash also carries the cooldown, so it lives as long as the longer of the two
+redis.call('PEXPIRE', KEYS[1], math.max(tonumber(ARGV[3]), tonumber(ARGV[4])))
+return 0
@@ -0,0 +1,38 @@
+-- Check a submitted OTP and count the attempt in the same step.
+-- KEYS[1] OTP hash, KEYS[2] verified marker
+-- ARGV[1] submitted code, ARGV[2] max attempts, ARGV[3] now (epoch ms),
+-- ARGV[4] resend cooldown (ms), ARGV[5] verified marker TTL (ms)
+-- Returns {status, remaining attempts}; status is VERIFIED, INVALID, EXHAUSTED or MISSING.
+local now = tonumber(ARGV[3])
+local maxAttempts = tonumber(ARGV[2])
+
+-- Drop the code but keep sentAt until the resend cooldown is over
+local function consume()
+  redis.call('HDEL', KEYS[1], 'code', 'attempts', 'expiresAt')
+  local sentAt = tonumber(redis.call('HGET', KEYS[1], 'sentAt'))
+  local left = sentAt and (sentAt + tonumber(ARGV[4]) - now) or 0
+  if left > 0 then
+    redis.call('PEXPIRE', KEYS[1], left)
+  else
+    redis.call('DEL', KEYS[1])
+  end
+end
+
+local state = redis.call('HMGET', KEYS[1], 'code', 'expiresAt')
+local code = state[1]
+if not code or tonumber(state[2]) <= now then
+  return {'MISSING', 0}
+end
+
+local attempts = redis.call('HINCRBY', KEYS[1], 'attempts', 1)
+if attempts > maxAttempts then
+  consume()
+  return {'EXHAUSTED', 0}
+end
+
+if code == ARGV[1] then
+  consume()
+  redis.call('SET', KEYS[2], ARGV[3], 'PX', ARGV[5])
+  return {'VERIFIED', maxAttempts - attempts}
+end
+return {'INVALID', maxAttempts - attempts}
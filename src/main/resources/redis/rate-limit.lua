@@ -0,0 +1,24 @@
+-- Token bucket: take up to the wanted number of tokens, whole tokens only.
+-- KEYS[1] bucket hash
+-- ARGV[1] capacity, ARGV[2] refill rate (tokens per ms), ARGV[3] now (epoch ms), ARGV[4] tokens wanted
+-- Returns {tokens granted, ms until the next token}; the wait is 0 unless nothing was granted.
+local capacity = tonumber(ARGV[1])
+local rate = tonumber(ARGV[2])
+local now = tonumber(ARGV[3])
+local wanted = tonumber(ARGV[4])
+
+local state = redis.call('HMGET', KEYS[1], 'tokens', 'refilledAt')
+local tokens = tonumber(state[1]) or capacity
+local refilledAt = tonumber(state[2]) or now
+tokens = math.min(capacity, tokens + math.max(0, now - refilledAt) * rate)
+
+local granted = math.min(wanted, math.floor(tokens))
+local wait = 0
+if granted == 0 then
+  wait = math.ceil((1 - tokens) / rate)
+end
+
+redis.call('HSET', KEYS[1], 'tokens', tostring(tokens - granted), 'refilledAt', now)
+-- An untouched bucket is full again by then, which is the same as no bucket
+redis.call('PEXPIRE', KEYS[1], math.ceil(capacity / rate))
+return {granted, wait}
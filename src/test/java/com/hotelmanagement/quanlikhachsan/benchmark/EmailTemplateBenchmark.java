@@ -0,0 +1,74 @@
+package com.hotelmanagement.quanlikhachsan.benchmark;
+
+import com.hotelmanagement.quanlikhachsan.services.email.EmailTemplateEngine;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark for rendering the booking confirmation email, the template
+ * used by bulk notification runs.
+ *
+ * Compares the precompiled template against {@code String.formatted} over
+ * the same document, which is how bodies were built before. Add
+ * {@code -prof gc} to compare allocation per render.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.hotelmanagement.quanlikhachsan.benchmark.EmailTemplateBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmailTemplateBenchmark {
+
+    private EmailTemplateEngine engine;
+    private Map<String, Object> model;
+    private String formatSource;
+
+    @Setup
+    public void setUp() {
+        engine = new EmailTemplateEngine("vi");
+        ReflectionTestUtils.invokeMethod(engine, "loadTemplates");
+        model = Map.of(
+                "fullName", "Nguyen Van A",
+                "reservationCode", "3F2A9C1B",
+                "roomInfo", "101 (Deluxe), 102 (Deluxe)",
+                "checkIn", "01/12/2026",
+                "checkOut", "04/12/2026",
+                "totalAmount", "$450.00");
+
+        // The same document as a format string, as the old builder methods used it
+        String html = engine.render("booking-confirmation", null, Map.of(
+                "fullName", "\u0000", "reservationCode", "\u0000", "roomInfo", "\u0000",
+                "checkIn", "\u0000", "checkOut", "\u0000", "totalAmount", "\u0000")).html();
+        formatSource = html.replace("%", "%%").replace("\u0000", "%s");
+    }
+
+    @Benchmark
+    public void precompiledTemplate(Blackhole blackhole) {
+        blackhole.consume(engine.render("booking-confirmation", null, model));
+    }
+
+    @Benchmark
+    public void stringFormatted(Blackhole blackhole) {
+        blackhole.consume(formatSource.formatted(model.get("fullName"), model.get("reservationCode"),
+                model.get("roomInfo"), model.get("checkIn"), model.get("checkOut"), model.get("totalAmount")));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(EmailTemplateBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,189 @@
+package com.hotelmanagement.quanlikhachsan.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotelmanagement.quanlikhachsan.dto.request.payment.CheckoutSessionRequestDTO;
+import com.hotelmanagement.quanlikhachsan.fake.FakeServers;
+import com.hotelmanagement.quanlikhachsan.model.email.EmailCategory;
+import com.hotelmanagement.quanlikhachsan.model.email.EmailOutboxMessage;
+import com.hotelmanagement.quanlikhachsan.model.payment.Payment;
+import com.hotelmanagement.quanlikhachsan.model.payment.PaymentStatus;
+import com.hotelmanagement.quanlikhachsan.model.reservation.Reservation;
+import com.hotelmanagement.quanlikhachsan.repository.PaymentRepository;
+import com.hotelmanagement.quanlikhachsan.repository.PaymentStatusRepository;
+import com.hotelmanagement.quanlikhachsan.repository.ReservationRepository;
+import com.hotelmanagement.quanlikhachsan.services.auth.KeycloakAuthenticationService;
+import com.hotelmanagement.quanlikhachsan.services.email.EmailService;
+import com.hotelmanagement.quanlikhachsan.services.email.SmtpSessionPool;
+import com.hotelmanagement.quanlikhachsan.services.payment.PaymentLedgerService;
+import com.hotelmanagement.quanlikhachsan.services.stripe.StripeResilience;
+import com.hotelmanagement.quanlikhachsan.services.stripe.StripeServiceImpl;
+import com.stripe.Stripe;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.KeycloakBuilder;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * JMH benchmark for the Keycloak, Stripe and SMTP call paths, run against the
+ * in-process fakes with a configurable simulated network latency.
+ *
+ * Repositories are mocked; only the external round trips are real. SMTP is
+ * measured at the outbox delivery step.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.hotelmanagement.quanlikhachsan.benchmark.ExternalServicesBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class ExternalServicesBenchmark {
+
+    private static final String EMAIL = "bench@example.com";
+    private static final String PASSWORD = "password123";
+
+    @Param({ "0", "20" })
+    private int latencyMillis;
+
+    private FakeServers servers;
+    private Keycloak adminKeycloak;
+    private KeycloakAuthenticationService authenticationService;
+    private StripeServiceImpl stripeService;
+    private EmailService emailService;
+    private CheckoutSessionRequestDTO checkoutRequest;
+    private EmailOutboxMessage welcomeMessage;
+
+    @Setup
+    public void setUp() {
+        servers = FakeServers.start();
+        servers.keycloak().addUser(EMAIL, PASSWORD, "Bench", "User", "GUEST");
+        Duration latency = Duration.ofMillis(latencyMillis);
+        Duration jitter = Duration.ofMillis(latencyMillis / 4);
+        servers.keycloak().faults().latency(latency, jitter);
+        servers.stripe().faults().latency(latency, jitter);
+        servers.smtp().faults().latency(latency, jitter);
+
+        adminKeycloak = KeycloakBuilder.builder()
+                .serverUrl(servers.keycloak().baseUrl())
+                .realm("master")
+                .clientId("admin-cli")
+                .username("admin")
+                .password("admin")
+                .build();
+        authenticationService = new KeycloakAuthenticationService(adminKeycloak, HttpClient.newHttpClient(),
+                new ObjectMapper());
+        ReflectionTestUtils.setField(authenticationService, "authServerUrl", servers.keycloak().baseUrl());
+        ReflectionTestUtils.setField(authenticationService, "realm", FakeServers.REALM);
+        ReflectionTestUtils.setField(authenticationService, "clientId", FakeServers.CLIENT_ID);
+
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost(servers.smtp().host());
+        mailSender.setPort(servers.smtp().port());
+        emailService = new EmailService(mailSender, null, null, null,
+                new SmtpSessionPool(mailSender, 2, 300_000, 100, 5_000));
+        ReflectionTestUtils.setField(emailService, "fromAddress", "noreply@hotel.test");
+        ReflectionTestUtils.setField(emailService, "fromName", "Hotel");
+        welcomeMessage = EmailOutboxMessage.builder()
+                .id(UUID.randomUUID())
+                .category(EmailCategory.WELCOME)
+                .recipient("guest@example.com")
+                .subject("Welcome")
+                .htmlBody("<p>Welcome, Bench Guest</p>")
+                .build();
+
+        UUID reservationId = UUID.randomUUID();
+        Reservation reservation = Reservation.builder()
+                .id(reservationId)
+                .checkIn(LocalDate.now().plusDays(7))
+                .checkOut(LocalDate.now().plusDays(9))
+                .totalAmount(new BigDecimal("250.00"))
+                .build();
+        ReservationRepository reservationRepository = Mockito.mock(ReservationRepository.class);
+        PaymentStatusRepository paymentStatusRepository = Mockito.mock(PaymentStatusRepository.class);
+        PaymentRepository paymentRepository = Mockito.mock(PaymentRepository.class);
+        when(reservationRepository.findById(reservationId)).thenReturn(Optional.of(reservation));
+        for (String status : List.of("PROCESSING", "PENDING")) {
+            when(paymentStatusRepository.findByName(status))
+                    .thenReturn(Optional.of(new PaymentStatus(UUID.randomUUID(), status)));
+        }
+        Map<UUID, Payment> payments = new ConcurrentHashMap<>();
+        when(paymentRepository.save(any())).thenAnswer(invocation -> {
+            Payment payment = invocation.getArgument(0);
+            if (payment.getId() == null) {
+                payment.setId(UUID.randomUUID());
+            }
+            payments.put(payment.getId(), payment);
+            return payment;
+        });
+        // The result step is the last read of a payment, so drop it to keep the map small
+        when(paymentRepository.findById(any())).thenAnswer(invocation ->
+                Optional.ofNullable(payments.remove((UUID) invocation.getArgument(0))));
+
+        stripeService = new StripeServiceImpl(paymentRepository, paymentStatusRepository, reservationRepository,
+                emailService, new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class)),
+                new StripeResilience(new SimpleMeterRegistry(), 3, 200, 2_000, 2.0, 20, 500, 20, 10, 0.5, 30_000, 3),
+                Mockito.mock(PaymentLedgerService.class));
+        ReflectionTestUtils.setField(stripeService, "currency", "usd");
+        ReflectionTestUtils.setField(stripeService, "maxAmountInCents", 10_000_000L);
+        Stripe.apiKey = FakeServers.STRIPE_SECRET_KEY;
+        Stripe.overrideApiBase(servers.stripe().baseUrl());
+        checkoutRequest = new CheckoutSessionRequestDTO(reservationId, "http://localhost:3000/success",
+                "http://localhost:3000/cancel");
+    }
+
+    @TearDown
+    public void tearDown() {
+        adminKeycloak.close();
+        servers.close();
+        Stripe.overrideApiBase(Stripe.LIVE_API_BASE);
+    }
+
+    @Benchmark
+    public void keycloakLogin(Blackhole blackhole) {
+        blackhole.consume(authenticationService.authenticateUser(EMAIL, PASSWORD));
+    }
+
+    @Benchmark
+    public void stripeCheckoutSession(Blackhole blackhole) throws Exception {
+        blackhole.consume(stripeService.createCheckoutSession(checkoutRequest));
+    }
+
+    @Benchmark
+    public void smtpDelivery() {
+        emailService.deliver(welcomeMessage);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ExternalServicesBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
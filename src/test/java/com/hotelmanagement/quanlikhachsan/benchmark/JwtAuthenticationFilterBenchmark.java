@@ -0,0 +1,86 @@
+package com.hotelmanagement.quanlikhachsan.benchmark;
+
+import com.hotelmanagement.quanlikhachsan.security.JwtAuthenticationFilter;
+import com.hotelmanagement.quanlikhachsan.security.KeycloakTokenVerifier;
+import com.hotelmanagement.quanlikhachsan.services.auth.TokenRevocationService;
+import com.hotelmanagement.quanlikhachsan.util.BloomFilter;
+import com.hotelmanagement.quanlikhachsan.util.JwtUtil;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.Cookie;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.http.HttpClient;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark for JWT authentication on the request path.
+ *
+ * Compares a full signature verification against a JwtAuthenticationFilter
+ * pass for a token that is already in JwtUtil's claims cache.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.hotelmanagement.quanlikhachsan.benchmark.JwtAuthenticationFilterBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-that-is-at-least-256-bits-long-for-hmac-sha";
+
+    private JwtUtil jwtUtil;
+    private JwtAuthenticationFilter filter;
+    private String token;
+    private FilterChain noopChain;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 3_600_000L);
+        // Empty revocation filter: every check is a Bloom miss and never reaches Redis
+        TokenRevocationService revocationService = new TokenRevocationService(null, null);
+        ReflectionTestUtils.setField(revocationService, "bloomFilter", new BloomFilter(100_000, 0.001));
+
+        // Cookie path only; the Keycloak verifier is never reached
+        filter = new JwtAuthenticationFilter(jwtUtil, new KeycloakTokenVerifier(HttpClient.newHttpClient()),
+                revocationService);
+        token = jwtUtil.generateToken("user-123", "guest@example.com", "Benchmark Guest", "GUEST");
+        noopChain = (request, response) -> {
+        };
+        jwtUtil.verify(token);
+    }
+
+    @Benchmark
+    public void fullSignatureVerification(Blackhole blackhole) {
+        blackhole.consume(jwtUtil.extractAllClaims(token));
+    }
+
+    @Benchmark
+    public void filterWithCachedClaims(Blackhole blackhole) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/rooms");
+        request.setCookies(new Cookie("jwt", token));
+        filter.doFilter(request, new MockHttpServletResponse(), noopChain);
+        blackhole.consume(SecurityContextHolder.getContext().getAuthentication());
+        SecurityContextHolder.clearContext();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtAuthenticationFilterBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
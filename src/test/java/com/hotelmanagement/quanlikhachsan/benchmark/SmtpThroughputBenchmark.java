@@ -0,0 +1,99 @@
+package com.hotelmanagement.quanlikhachsan.benchmark;
+
+import com.hotelmanagement.quanlikhachsan.fake.FakeSmtpServer;
+import com.hotelmanagement.quanlikhachsan.services.email.SmtpSessionPool;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark for sending a batch of notification emails to the local SMTP
+ * sink, one connection per message (plain JavaMailSender) versus pooled
+ * sessions.
+ *
+ * The latency parameter is applied per message by the sink, standing in for
+ * the relay's processing time; connection setup costs come on top of it.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.hotelmanagement.quanlikhachsan.benchmark.SmtpThroughputBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class SmtpThroughputBenchmark {
+
+    private static final int BATCH_SIZE = 20;
+
+    @Param({"0", "2"})
+    private int latencyMillis;
+
+    private FakeSmtpServer smtp;
+    private JavaMailSenderImpl mailSender;
+    private SmtpSessionPool pool;
+
+    @Setup
+    public void setUp() {
+        smtp = new FakeSmtpServer();
+        smtp.start();
+        smtp.faults().latency(Duration.ofMillis(latencyMillis), Duration.ZERO);
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost(smtp.host());
+        mailSender.setPort(smtp.port());
+        pool = new SmtpSessionPool(mailSender, 4, 300_000, 100, 30_000);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.close();
+        smtp.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void connectionPerMessage() throws MessagingException {
+        for (MimeMessage message : messages()) {
+            mailSender.send(message);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<MessagingException> pooledBatch() throws MessagingException, InterruptedException {
+        return pool.sendBatch(messages());
+    }
+
+    private List<MimeMessage> messages() throws MessagingException {
+        List<MimeMessage> messages = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            MimeMessage message = mailSender.createMimeMessage();
+            message.setFrom("noreply@hotel.test");
+            message.setRecipients(Message.RecipientType.TO, "guest" + i + "@example.com");
+            message.setSubject("Your stay starts soon");
+            message.setText("<p>We look forward to welcoming you.</p>", "UTF-8", "html");
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SmtpThroughputBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -1,11 +1,16 @@
 package com.hotelmanagement.quanlikhachsan.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotelmanagement.quanlikhachsan.config.SecurityConfig;
 import com.hotelmanagement.quanlikhachsan.dto.request.auth.LoginRequest;
 import com.hotelmanagement.quanlikhachsan.dto.request.auth.RegisterRequest;
 import com.hotelmanagement.quanlikhachsan.dto.response.auth.AuthResponse;
+import com.hotelmanagement.quanlikhachsan.dto.response.auth.RegistrationStatusResponse;
 import com.hotelmanagement.quanlikhachsan.dto.response.auth.UserInfo;
+import com.hotelmanagement.quanlikhachsan.security.KeycloakTokenVerifier;
+import com.hotelmanagement.quanlikhachsan.security.ratelimit.RateLimiter;
 import com.hotelmanagement.quanlikhachsan.services.auth.AuthService;
+import com.hotelmanagement.quanlikhachsan.services.auth.TokenRevocationService;
 import com.hotelmanagement.quanlikhachsan.util.JwtUtil;
 import jakarta.servlet.http.Cookie;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,10 +19,13 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.UUID;
+
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -30,6 +38,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * Tests REST API endpoints with Spring MVC Test framework
  */
 @WebMvcTest(AuthController.class)
+@Import(SecurityConfig.class)
 @DisplayName("AuthController Integration Tests")
 class AuthControllerTest {
 
@@ -45,6 +54,16 @@ class AuthControllerTest {
     @MockBean
     private JwtUtil jwtUtil;
 
+    @MockBean
+    private KeycloakTokenVerifier keycloakTokenVerifier;
+
+    @MockBean
+    private TokenRevocationService tokenRevocationService;
+
+    // Every MVC slice loads the @RateLimited interceptor
+    @MockBean
+    private RateLimiter rateLimiter;
+
     private LoginRequest loginRequest;
     private RegisterRequest registerRequest;
     private AuthResponse authResponse;
@@ -127,25 +146,41 @@ class AuthControllerTest {
     }
 
     @Test
-    @DisplayName("POST /api/v1/auth/register - Success")
-    void register_WithValidData_ReturnsJwtInCookie() throws Exception {
+    @DisplayName("POST /api/v1/auth/register - Accepted with pending registration")
+    void register_WithValidData_ReturnsAcceptedWithLocation() throws Exception {
         // Given
-        when(authService.register(any(RegisterRequest.class))).thenReturn(authResponse);
+        UUID registrationId = UUID.fromString("8d5c2f64-0a4e-4c43-9a59-3f1f2b0c7e11");
+        when(authService.register(any(RegisterRequest.class))).thenReturn(
+                new RegistrationStatusResponse(registrationId, "PENDING", "Registration is being processed"));
 
         // When & Then
         mockMvc.perform(post("/api/v1/auth/register")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(registerRequest)))
-                .andExpect(status().isOk())
-                .andExpect(cookie().exists("jwt"))
-                .andExpect(cookie().httpOnly("jwt", true))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/v1/auth/registrations/" + registrationId))
+                .andExpect(cookie().doesNotExist("jwt"))
                 .andExpect(jsonPath("$.success").value(true))
-                .andExpect(jsonPath("$.data.user.fullName").value("John Doe"))
-                .andExpect(jsonPath("$.data.accessToken").value(nullValue()));
+                .andExpect(jsonPath("$.data.id").value(registrationId.toString()))
+                .andExpect(jsonPath("$.data.status").value("PENDING"));
 
         verify(authService).register(any(RegisterRequest.class));
     }
 
+    @Test
+    @DisplayName("GET /api/v1/auth/registrations/{id} - Returns registration status")
+    void getRegistration_ReturnsStatus() throws Exception {
+        // Given
+        UUID registrationId = UUID.fromString("8d5c2f64-0a4e-4c43-9a59-3f1f2b0c7e11");
+        when(authService.getRegistrationStatus(registrationId)).thenReturn(
+                new RegistrationStatusResponse(registrationId, "COMPLETED", "Registration completed. You can now log in."));
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/auth/registrations/" + registrationId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.status").value("COMPLETED"));
+    }
+
     @Test
     @DisplayName("POST /api/v1/auth/register - Validation error for invalid email")
     void register_WithInvalidEmail_Returns400() throws Exception {
@@ -198,6 +233,81 @@ class AuthControllerTest {
                 .andExpect(jsonPath("$.data").value("Đăng xuất thành công"));
     }
 
+    @Test
+    @DisplayName("POST /api/v1/auth/logout - Revokes the token in the cookie")
+    void logout_WithJwtCookie_RevokesToken() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/api/v1/auth/logout")
+                .cookie(new Cookie("jwt", "valid-jwt-token")))
+                .andExpect(status().isOk())
+                .andExpect(cookie().maxAge("jwt", 0));
+
+        verify(authService).logout("valid-jwt-token", null);
+    }
+
+    @Test
+    @DisplayName("POST /api/v1/auth/refresh - Rotates refresh cookie and sets new JWT")
+    void refresh_WithRefreshCookie_SetsBothCookies() throws Exception {
+        // Given
+        when(authService.refresh("refresh-1"))
+                .thenReturn(AuthResponse.of("new-jwt-token", 900L, "refresh-2", userInfo));
+
+        // When & Then
+        mockMvc.perform(post("/api/v1/auth/refresh")
+                .cookie(new Cookie("refresh_token", "refresh-1")))
+                .andExpect(status().isOk())
+                .andExpect(cookie().value("jwt", "new-jwt-token"))
+                .andExpect(cookie().maxAge("jwt", 900))
+                .andExpect(cookie().value("refresh_token", "refresh-2"))
+                .andExpect(cookie().httpOnly("refresh_token", true))
+                .andExpect(cookie().path("refresh_token", "/api/v1/auth"))
+                .andExpect(jsonPath("$.data.accessToken").value(nullValue()))
+                .andExpect(jsonPath("$.data.refreshToken").value(nullValue()))
+                .andExpect(jsonPath("$.data.user.email").value("test@example.com"));
+    }
+
+    @Test
+    @DisplayName("POST /api/v1/auth/refresh - Rejected refresh token returns 401")
+    void refresh_WithRejectedToken_Returns401() throws Exception {
+        // Given
+        when(authService.refresh("reused"))
+                .thenThrow(new BadCredentialsException("Refresh token is invalid or expired"));
+
+        // When & Then
+        mockMvc.perform(post("/api/v1/auth/refresh")
+                .cookie(new Cookie("refresh_token", "reused")))
+                .andExpect(status().isUnauthorized())
+                .andExpect(cookie().doesNotExist("jwt"));
+    }
+
+    @Test
+    @DisplayName("POST /api/v1/auth/logout - Ends the refresh session and clears its cookie")
+    void logout_WithRefreshCookie_RevokesSession() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/api/v1/auth/logout")
+                .cookie(new Cookie("refresh_token", "refresh-1")))
+                .andExpect(status().isOk())
+                .andExpect(cookie().maxAge("refresh_token", 0));
+
+        verify(authService).logout(null, "refresh-1");
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/auth/me - Revoked token returns 401")
+    void getCurrentUser_WithRevokedToken_Returns401() throws Exception {
+        // Given
+        String revokedToken = "revoked-jwt-token";
+        when(jwtUtil.isTokenValid(revokedToken)).thenReturn(true);
+        when(authService.isRevoked(revokedToken)).thenReturn(true);
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/auth/me")
+                .cookie(new Cookie("jwt", revokedToken)))
+                .andExpect(status().isUnauthorized());
+
+        verify(authService, never()).getCurrentUser(anyString());
+    }
+
     @Test
     @DisplayName("GET /api/v1/auth/me - Success with valid token")
     void getCurrentUser_WithValidToken_ReturnsUserInfo() throws Exception {
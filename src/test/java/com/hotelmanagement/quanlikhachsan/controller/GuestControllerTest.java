@@ -1,14 +1,20 @@
 package com.hotelmanagement.quanlikhachsan.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotelmanagement.quanlikhachsan.config.SecurityConfig;
 import com.hotelmanagement.quanlikhachsan.dto.request.guest.GuestRequest;
 import com.hotelmanagement.quanlikhachsan.dto.response.guest.GuestResponse;
+import com.hotelmanagement.quanlikhachsan.security.KeycloakTokenVerifier;
+import com.hotelmanagement.quanlikhachsan.security.ratelimit.RateLimiter;
+import com.hotelmanagement.quanlikhachsan.services.auth.TokenRevocationService;
 import com.hotelmanagement.quanlikhachsan.services.guest.IGuestService;
+import com.hotelmanagement.quanlikhachsan.util.JwtUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -24,6 +30,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(GuestController.class)
+@Import(SecurityConfig.class)
 class GuestControllerTest {
 
     @Autowired
@@ -32,6 +39,20 @@ class GuestControllerTest {
     @MockBean
     private IGuestService guestService;
 
+    // Every MVC slice loads the @RateLimited interceptor
+    @MockBean
+    private RateLimiter rateLimiter;
+
+    // Used by the JWT filter in the imported security chain
+    @MockBean
+    private JwtUtil jwtUtil;
+
+    @MockBean
+    private KeycloakTokenVerifier keycloakTokenVerifier;
+
+    @MockBean
+    private TokenRevocationService tokenRevocationService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
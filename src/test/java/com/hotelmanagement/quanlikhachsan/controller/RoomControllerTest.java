@@ -5,15 +5,22 @@ import com.hotelmanagement.quanlikhachsan.dto.request.room.RoomRequest;
 import com.hotelmanagement.quanlikhachsan.dto.response.RoomResponse;
 import com.hotelmanagement.quanlikhachsan.dto.response.RoomStatusResponse;
 import com.hotelmanagement.quanlikhachsan.dto.response.RoomTypeResponse;
+import com.hotelmanagement.quanlikhachsan.security.ratelimit.RateLimiter;
 import com.hotelmanagement.quanlikhachsan.services.IRoomService;
+import com.hotelmanagement.quanlikhachsan.services.catalog.CatalogAggregate;
+import com.hotelmanagement.quanlikhachsan.services.catalog.CatalogSnapshotService;
+import com.hotelmanagement.quanlikhachsan.services.catalog.CatalogVersion;
+import com.hotelmanagement.quanlikhachsan.services.catalog.CatalogVersionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,6 +33,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(RoomController.class)
+@Import(CatalogSnapshotService.class)
 class RoomControllerTest {
 
     @Autowired
@@ -34,6 +42,13 @@ class RoomControllerTest {
     @MockBean
     private IRoomService roomService;
 
+    @MockBean
+    private CatalogVersionService catalogVersionService;
+
+    // Every MVC slice loads the @RateLimited interceptor
+    @MockBean
+    private RateLimiter rateLimiter;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -65,6 +80,8 @@ class RoomControllerTest {
 
     @Test
     void getAllRooms_Success() throws Exception {
+        when(catalogVersionService.current(any(CatalogAggregate[].class)))
+                .thenReturn(new CatalogVersion("\"v1\"", Instant.now()));
         when(roomService.getAllRooms()).thenReturn(List.of(roomResponse));
 
         mockMvc.perform(get("/api/v1/rooms"))
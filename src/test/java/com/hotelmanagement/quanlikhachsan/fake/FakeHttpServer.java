@@ -0,0 +1,117 @@
+package com.hotelmanagement.quanlikhachsan.fake;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loopback HTTP server on an ephemeral port, one virtual thread per request.
+ * Applies the {@link FaultProfile} before handing the request to the subclass.
+ */
+abstract class FakeHttpServer implements AutoCloseable {
+
+    protected final ObjectMapper objectMapper = new ObjectMapper();
+    private final FaultProfile faults = new FaultProfile();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public void start() {
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", this::dispatch);
+        server.start();
+    }
+
+    public String baseUrl() {
+        return "http://" + server.getAddress().getAddress().getHostAddress() + ":" + server.getAddress().getPort();
+    }
+
+    public FaultProfile faults() {
+        return faults;
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.close();
+        }
+    }
+
+    private void dispatch(HttpExchange exchange) {
+        try {
+            faults.delay();
+            if (faults.shouldFail()) {
+                sendInjectedError(exchange, faults.errorStatus());
+            } else {
+                handle(exchange);
+            }
+        } catch (Exception e) {
+            try {
+                sendJson(exchange, 500, Map.of("error", String.valueOf(e.getMessage())));
+            } catch (IOException ignored) {
+                // Client went away
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    protected abstract void handle(HttpExchange exchange) throws IOException;
+
+    protected void sendInjectedError(HttpExchange exchange, int status) throws IOException {
+        sendJson(exchange, status, Map.of("error", "injected_failure"));
+    }
+
+    protected void sendJson(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = body instanceof String raw
+                ? raw.getBytes(StandardCharsets.UTF_8)
+                : objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            exchange.getResponseBody().write(bytes);
+        }
+    }
+
+    protected void sendEmpty(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+    }
+
+    protected static String readBody(HttpExchange exchange) throws IOException {
+        return new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decode an application/x-www-form-urlencoded body or query string, keeping key order.
+     */
+    protected static Map<String, String> decodeForm(String encoded) {
+        Map<String, String> values = new LinkedHashMap<>();
+        if (encoded == null || encoded.isEmpty()) {
+            return values;
+        }
+        for (String pair : encoded.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            values.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return values;
+    }
+}
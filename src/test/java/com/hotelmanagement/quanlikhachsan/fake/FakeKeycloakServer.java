@@ -0,0 +1,255 @@
+package com.hotelmanagement.quanlikhachsan.fake;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.net.httpserver.HttpExchange;
+import io.jsonwebtoken.Jwts;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Keycloak stand-in covering what the application calls:
+ * - {@code POST /realms/{realm}/protocol/openid-connect/token} (password grant)
+ * - {@code GET /realms/{realm}/protocol/openid-connect/certs}
+ * - {@code /admin/realms/{realm}/users}: create, search, get, delete, realm role mappings
+ *
+ * Access tokens are RS256 JWTs shaped like Keycloak's, so KeycloakTokenVerifier
+ * accepts them. The master realm issues an admin token for any credentials.
+ */
+public class FakeKeycloakServer extends FakeHttpServer {
+
+    private static final String KEY_ID = "fake-keycloak-key";
+    private static final Duration TOKEN_LIFETIME = Duration.ofMinutes(5);
+
+    private final String clientId;
+    private final KeyPair keyPair = Jwts.SIG.RS256.keyPair().build();
+    private final Map<String, FakeUser> usersById = new ConcurrentHashMap<>();
+
+    public record FakeUser(String id, String username, String email, String firstName, String lastName,
+            String password, List<String> realmRoles) {
+    }
+
+    public FakeKeycloakServer(String clientId) {
+        this.clientId = clientId;
+    }
+
+    /**
+     * Seed a user directly, bypassing the admin API.
+     *
+     * @return the user id
+     */
+    public String addUser(String email, String password, String firstName, String lastName, String... realmRoles) {
+        String id = UUID.randomUUID().toString();
+        usersById.put(id, new FakeUser(id, email.toLowerCase(Locale.ROOT), email, firstName, lastName, password,
+                List.of(realmRoles)));
+        return id;
+    }
+
+    public int userCount() {
+        return usersById.size();
+    }
+
+    @Override
+    protected void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        List<String> path = Arrays.stream(exchange.getRequestURI().getPath().split("/"))
+                .filter(segment -> !segment.isEmpty())
+                .toList();
+
+        // realms/{realm}/protocol/openid-connect/{token|certs}
+        if (path.size() == 5 && path.get(0).equals("realms") && path.get(3).equals("openid-connect")) {
+            String realm = path.get(1);
+            if (path.get(4).equals("token") && method.equals("POST")) {
+                token(exchange, realm, decodeForm(readBody(exchange)));
+                return;
+            }
+            if (path.get(4).equals("certs") && method.equals("GET")) {
+                sendJson(exchange, 200, jwks());
+                return;
+            }
+        }
+
+        // admin/realms/{realm}/users[/{id}[/role-mappings/realm[/composite]]]
+        if (path.size() >= 4 && path.get(0).equals("admin") && path.get(3).equals("users")) {
+            String realm = path.get(2);
+            if (path.size() == 4 && method.equals("POST")) {
+                createUser(exchange, realm);
+                return;
+            }
+            if (path.size() == 4 && method.equals("GET")) {
+                sendJson(exchange, 200, searchUsers(decodeForm(exchange.getRequestURI().getRawQuery())));
+                return;
+            }
+            FakeUser user = path.size() >= 5 ? usersById.get(path.get(4)) : null;
+            if (user == null) {
+                sendJson(exchange, 404, Map.of("error", "User not found"));
+                return;
+            }
+            if (path.size() == 5 && method.equals("GET")) {
+                sendJson(exchange, 200, representation(user));
+                return;
+            }
+            if (path.size() == 5 && method.equals("DELETE")) {
+                usersById.remove(user.id());
+                sendEmpty(exchange, 204);
+                return;
+            }
+            if (path.size() >= 7 && path.get(5).equals("role-mappings") && path.get(6).equals("realm")) {
+                sendJson(exchange, 200, user.realmRoles().stream()
+                        .map(role -> Map.of("id", UUID.nameUUIDFromBytes(role.getBytes()).toString(), "name", role))
+                        .toList());
+                return;
+            }
+        }
+
+        sendJson(exchange, 404, Map.of("error", "Not found"));
+    }
+
+    private void token(HttpExchange exchange, String realm, Map<String, String> form) throws IOException {
+        if (!"password".equals(form.get("grant_type"))) {
+            sendJson(exchange, 400, Map.of("error", "unsupported_grant_type"));
+            return;
+        }
+
+        FakeUser user;
+        if (realm.equals("master")) {
+            user = new FakeUser(UUID.randomUUID().toString(), form.get("username"), null, null, null, null,
+                    List.of("admin"));
+        } else {
+            String username = String.valueOf(form.get("username")).toLowerCase(Locale.ROOT);
+            user = usersById.values().stream()
+                    .filter(candidate -> candidate.username().equals(username))
+                    .findFirst()
+                    .filter(candidate -> Objects.equals(candidate.password(), form.get("password")))
+                    .orElse(null);
+            if (user == null) {
+                sendJson(exchange, 401, Map.of("error", "invalid_grant",
+                        "error_description", "Invalid user credentials"));
+                return;
+            }
+        }
+
+        Instant now = Instant.now();
+        String accessToken = Jwts.builder()
+                .header().keyId(KEY_ID).and()
+                .issuer(baseUrl() + "/realms/" + realm)
+                .subject(user.id())
+                .issuedAt(Date.from(now))
+                .expiration(Date.from(now.plus(TOKEN_LIFETIME)))
+                .claim("typ", "Bearer")
+                .claim("azp", form.getOrDefault("client_id", clientId))
+                .claim("email", user.email())
+                .claim("given_name", user.firstName())
+                .claim("family_name", user.lastName())
+                .claim("realm_access", Map.of("roles", user.realmRoles()))
+                .signWith(keyPair.getPrivate())
+                .compact();
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("access_token", accessToken);
+        body.put("expires_in", TOKEN_LIFETIME.toSeconds());
+        body.put("refresh_expires_in", 1800);
+        body.put("refresh_token", UUID.randomUUID().toString());
+        body.put("token_type", "Bearer");
+        body.put("scope", "openid profile email");
+        sendJson(exchange, 200, body);
+    }
+
+    private void createUser(HttpExchange exchange, String realm) throws IOException {
+        JsonNode json = objectMapper.readTree(exchange.getRequestBody());
+        String username = json.path("username").asText().toLowerCase(Locale.ROOT);
+        String email = json.path("email").asText(null);
+        boolean exists = usersById.values().stream().anyMatch(user -> user.username().equals(username)
+                || (email != null && email.equalsIgnoreCase(user.email())));
+        if (exists) {
+            sendJson(exchange, 409, Map.of("errorMessage", "User exists with same username or email"));
+            return;
+        }
+
+        String password = null;
+        for (JsonNode credential : json.path("credentials")) {
+            if ("password".equals(credential.path("type").asText())) {
+                password = credential.path("value").asText();
+            }
+        }
+        String id = UUID.randomUUID().toString();
+        usersById.put(id, new FakeUser(id, username, email, json.path("firstName").asText(null),
+                json.path("lastName").asText(null), password, List.of("default-roles-" + realm)));
+
+        exchange.getResponseHeaders().set("Location", baseUrl() + "/admin/realms/" + realm + "/users/" + id);
+        sendEmpty(exchange, 201);
+    }
+
+    private List<Map<String, Object>> searchUsers(Map<String, String> query) {
+        boolean exact = Boolean.parseBoolean(query.get("exact"));
+        int first = Integer.parseInt(query.getOrDefault("first", "0"));
+        int max = Integer.parseInt(query.getOrDefault("max", "100"));
+        Stream<FakeUser> users = usersById.values().stream();
+        for (String field : List.of("username", "email", "search")) {
+            String wanted = query.get(field);
+            if (wanted != null && !wanted.isEmpty()) {
+                users = users.filter(user -> matches(field.equals("username") ? user.username()
+                        : field.equals("email") ? user.email()
+                        : user.username() + " " + user.email(), wanted, exact && !field.equals("search")));
+            }
+        }
+        return users.skip(first).limit(max).map(FakeKeycloakServer::representation).toList();
+    }
+
+    private static boolean matches(String value, String wanted, boolean exact) {
+        if (value == null) {
+            return false;
+        }
+        String candidate = value.toLowerCase(Locale.ROOT);
+        String term = wanted.toLowerCase(Locale.ROOT);
+        return exact ? candidate.equals(term) : candidate.contains(term);
+    }
+
+    private static Map<String, Object> representation(FakeUser user) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("id", user.id());
+        body.put("username", user.username());
+        body.put("email", user.email());
+        body.put("firstName", user.firstName());
+        body.put("lastName", user.lastName());
+        body.put("enabled", true);
+        body.put("emailVerified", true);
+        return body;
+    }
+
+    private Map<String, Object> jwks() {
+        RSAPublicKey key = (RSAPublicKey) keyPair.getPublic();
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        jwk.put("kid", KEY_ID);
+        jwk.put("kty", "RSA");
+        jwk.put("alg", "RS256");
+        jwk.put("use", "sig");
+        jwk.put("n", base64Url(key.getModulus()));
+        jwk.put("e", base64Url(key.getPublicExponent()));
+        return Map.of("keys", List.of(jwk));
+    }
+
+    private static String base64Url(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        // Drop the sign byte BigInteger adds for positive values with the high bit set
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
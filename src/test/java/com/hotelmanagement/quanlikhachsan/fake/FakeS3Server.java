@@ -0,0 +1,356 @@
+package com.hotelmanagement.quanlikhachsan.fake;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * S3 stand-in, as served by MinIO, for the calls S3ObjectStorage makes
+ * through the AWS SDK with path-style addressing:
+ * - {@code PUT/GET/HEAD/DELETE /{bucket}/{key}}, GET with a single byte range
+ * - {@code POST ?uploads}, {@code PUT ?partNumber&uploadId}, {@code POST/DELETE ?uploadId} for multipart uploads
+ * - {@code GET /{bucket}?list-type=2&prefix=}
+ *
+ * Signatures are not checked, but aws-chunked bodies are decoded. Like S3,
+ * completing an upload whose parts other than the last are under 5 MiB fails
+ * with EntityTooSmall. Point the SDK at it with {@code file.storage.s3.endpoint}.
+ */
+public class FakeS3Server extends FakeHttpServer {
+
+    public static final String ACCESS_KEY = "minioadmin";
+    public static final String SECRET_KEY = "minioadmin";
+
+    private static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+    private static final Pattern COMPLETED_PART = Pattern.compile(
+            "<Part>.*?<PartNumber>(\\d+)</PartNumber>.*?</Part>", Pattern.DOTALL);
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+
+    private record StoredObject(byte[] content, String contentType, String eTag, Instant lastModified) {
+    }
+
+    private record MultipartUpload(String key, String contentType, NavigableMap<Integer, byte[]> parts) {
+    }
+
+    private final String bucket;
+    private final Map<String, StoredObject> objects = new ConcurrentSkipListMap<>();
+    private final Map<String, MultipartUpload> uploads = new ConcurrentHashMap<>();
+    private final AtomicInteger completedUploads = new AtomicInteger();
+
+    public FakeS3Server(String bucket) {
+        this.bucket = bucket;
+    }
+
+    public String bucket() {
+        return bucket;
+    }
+
+    /**
+     * @return the content stored under the key, or null
+     */
+    public byte[] object(String key) {
+        StoredObject object = objects.get(key);
+        return object != null ? object.content() : null;
+    }
+
+    public String contentType(String key) {
+        StoredObject object = objects.get(key);
+        return object != null ? object.contentType() : null;
+    }
+
+    public void putObject(String key, byte[] content) {
+        objects.put(key, new StoredObject(content, "application/octet-stream", '"' + md5(content) + '"',
+                Instant.now().truncatedTo(ChronoUnit.SECONDS)));
+    }
+
+    public List<String> keys() {
+        return List.copyOf(objects.keySet());
+    }
+
+    /**
+     * @return multipart uploads started but neither completed nor aborted
+     */
+    public int pendingUploads() {
+        return uploads.size();
+    }
+
+    public int completedUploads() {
+        return completedUploads.get();
+    }
+
+    @Override
+    protected void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        Map<String, String> query = decodeForm(exchange.getRequestURI().getRawQuery());
+
+        String[] segments = path.substring(1).split("/", 2);
+        if (!segments[0].equals(bucket)) {
+            sendError(exchange, 404, "NoSuchBucket", "The specified bucket does not exist");
+            return;
+        }
+        if (segments.length == 1 || segments[1].isEmpty()) {
+            if (method.equals("GET") && "2".equals(query.get("list-type"))) {
+                listObjects(exchange, query.getOrDefault("prefix", ""));
+            } else {
+                sendError(exchange, 501, "NotImplemented", "Bucket operation not supported: " + method);
+            }
+            return;
+        }
+        String key = segments[1];
+
+        switch (method) {
+            case "PUT" -> {
+                byte[] content = readContent(exchange);
+                if (query.containsKey("uploadId")) {
+                    uploadPart(exchange, key, query.get("uploadId"), Integer.parseInt(query.get("partNumber")),
+                            content);
+                } else {
+                    StoredObject object = new StoredObject(content, contentType(exchange), '"' + md5(content) + '"',
+                            Instant.now().truncatedTo(ChronoUnit.SECONDS));
+                    objects.put(key, object);
+                    exchange.getResponseHeaders().set("ETag", object.eTag());
+                    sendEmpty(exchange, 200);
+                }
+            }
+            case "POST" -> {
+                if (query.containsKey("uploads")) {
+                    String uploadId = UUID.randomUUID().toString();
+                    uploads.put(uploadId, new MultipartUpload(key, contentType(exchange),
+                            new ConcurrentSkipListMap<>()));
+                    sendXml(exchange, 200, "<InitiateMultipartUploadResult><Bucket>" + bucket + "</Bucket><Key>"
+                            + escape(key) + "</Key><UploadId>" + uploadId
+                            + "</UploadId></InitiateMultipartUploadResult>");
+                } else if (query.containsKey("uploadId")) {
+                    completeUpload(exchange, key, query.get("uploadId"), readBody(exchange));
+                } else {
+                    sendError(exchange, 501, "NotImplemented", "Object operation not supported: POST");
+                }
+            }
+            case "HEAD", "GET" -> getObject(exchange, key, method.equals("HEAD"));
+            case "DELETE" -> {
+                if (query.containsKey("uploadId")) {
+                    uploads.remove(query.get("uploadId"));
+                } else {
+                    objects.remove(key);
+                }
+                sendEmpty(exchange, 204);
+            }
+            default -> sendError(exchange, 405, "MethodNotAllowed", "Method not allowed: " + method);
+        }
+    }
+
+    @Override
+    protected void sendInjectedError(HttpExchange exchange, int status) throws IOException {
+        sendError(exchange, status, status == 503 ? "SlowDown" : "InternalError", "Injected failure");
+    }
+
+    private void uploadPart(HttpExchange exchange, String key, String uploadId, int partNumber, byte[] content)
+            throws IOException {
+        MultipartUpload upload = uploads.get(uploadId);
+        if (upload == null || !upload.key().equals(key)) {
+            sendError(exchange, 404, "NoSuchUpload", "The specified multipart upload does not exist");
+            return;
+        }
+        upload.parts().put(partNumber, content);
+        exchange.getResponseHeaders().set("ETag", '"' + md5(content) + '"');
+        sendEmpty(exchange, 200);
+    }
+
+    private void completeUpload(HttpExchange exchange, String key, String uploadId, String body) throws IOException {
+        MultipartUpload upload = uploads.get(uploadId);
+        if (upload == null || !upload.key().equals(key)) {
+            sendError(exchange, 404, "NoSuchUpload", "The specified multipart upload does not exist");
+            return;
+        }
+        if (upload.parts().isEmpty()) {
+            sendError(exchange, 400, "MalformedXML", "The upload has no parts");
+            return;
+        }
+        Matcher matcher = COMPLETED_PART.matcher(body);
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        ByteArrayOutputStream partDigests = new ByteArrayOutputStream();
+        int count = 0;
+        while (matcher.find()) {
+            byte[] part = upload.parts().get(Integer.parseInt(matcher.group(1)));
+            if (part == null) {
+                sendError(exchange, 400, "InvalidPart", "Part " + matcher.group(1) + " was not uploaded");
+                return;
+            }
+            content.write(part);
+            partDigests.write(HexFormat.of().parseHex(md5(part)));
+            count++;
+        }
+        for (byte[] part : upload.parts().headMap(upload.parts().lastKey()).values()) {
+            if (part.length < MIN_PART_SIZE) {
+                sendError(exchange, 400, "EntityTooSmall", "Your proposed upload is smaller than the minimum");
+                return;
+            }
+        }
+
+        uploads.remove(uploadId);
+        String eTag = '"' + md5(partDigests.toByteArray()) + "-" + count + '"';
+        objects.put(key, new StoredObject(content.toByteArray(), upload.contentType(), eTag,
+                Instant.now().truncatedTo(ChronoUnit.SECONDS)));
+        completedUploads.incrementAndGet();
+        sendXml(exchange, 200, "<CompleteMultipartUploadResult><Location>" + baseUrl() + "/" + bucket + "/"
+                + escape(key) + "</Location><Bucket>" + bucket + "</Bucket><Key>" + escape(key) + "</Key><ETag>"
+                + escape(eTag) + "</ETag></CompleteMultipartUploadResult>");
+    }
+
+    private void getObject(HttpExchange exchange, String key, boolean head) throws IOException {
+        StoredObject object = objects.get(key);
+        if (object == null) {
+            if (head) {
+                sendEmpty(exchange, 404);
+            } else {
+                sendError(exchange, 404, "NoSuchKey", "The specified key does not exist.");
+            }
+            return;
+        }
+
+        byte[] content = object.content();
+        int start = 0;
+        int end = content.length - 1;
+        int status = 200;
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        if (range != null && range.startsWith("bytes=")) {
+            String[] bounds = range.substring("bytes=".length()).split("-", 2);
+            start = Integer.parseInt(bounds[0]);
+            if (start >= content.length) {
+                sendError(exchange, 416, "InvalidRange", "The requested range is not satisfiable");
+                return;
+            }
+            if (!bounds[1].isEmpty()) {
+                end = (int) Math.min(Long.parseLong(bounds[1]), content.length - 1);
+            }
+            status = 206;
+            exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + content.length);
+        }
+
+        exchange.getResponseHeaders().set("ETag", object.eTag());
+        exchange.getResponseHeaders().set("Last-Modified", HTTP_DATE.format(object.lastModified()));
+        exchange.getResponseHeaders().set("Content-Type", object.contentType() != null
+                ? object.contentType() : "application/octet-stream");
+        exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+        if (head) {
+            // The JDK server sends no Content-Length for a HEAD response it is not given a body for
+            exchange.getResponseHeaders().set("Content-Length", String.valueOf(content.length));
+            sendEmpty(exchange, status);
+            return;
+        }
+        int length = end - start + 1;
+        exchange.sendResponseHeaders(status, length);
+        exchange.getResponseBody().write(content, start, length);
+    }
+
+    private void listObjects(HttpExchange exchange, String prefix) throws IOException {
+        StringBuilder contents = new StringBuilder();
+        int count = 0;
+        for (Map.Entry<String, StoredObject> entry : objects.entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                continue;
+            }
+            StoredObject object = entry.getValue();
+            contents.append("<Contents><Key>").append(escape(entry.getKey())).append("</Key>")
+                    .append("<LastModified>").append(object.lastModified()).append("</LastModified>")
+                    .append("<ETag>").append(escape(object.eTag())).append("</ETag>")
+                    .append("<Size>").append(object.content().length).append("</Size>")
+                    .append("<StorageClass>STANDARD</StorageClass></Contents>");
+            count++;
+        }
+        sendXml(exchange, 200, "<ListBucketResult><Name>" + bucket + "</Name><Prefix>" + escape(prefix)
+                + "</Prefix><KeyCount>" + count + "</KeyCount><MaxKeys>1000</MaxKeys>"
+                + "<IsTruncated>false</IsTruncated>" + contents + "</ListBucketResult>");
+    }
+
+    private void sendError(HttpExchange exchange, int status, String code, String message) throws IOException {
+        sendXml(exchange, status, "<Error><Code>" + code + "</Code><Message>" + escape(message) + "</Message>"
+                + "<RequestId>" + UUID.randomUUID() + "</RequestId></Error>");
+    }
+
+    private void sendXml(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" + body.replaceFirst(">",
+                " xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">")).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static String contentType(HttpExchange exchange) {
+        return exchange.getRequestHeaders().getFirst("Content-Type");
+    }
+
+    /**
+     * The request body, with aws-chunked framing (used for signed streaming
+     * uploads over plain HTTP) removed.
+     */
+    private static byte[] readContent(HttpExchange exchange) throws IOException {
+        String contentSha256 = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+        String contentEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+        boolean chunked = (contentSha256 != null && contentSha256.startsWith("STREAMING-"))
+                || (contentEncoding != null && contentEncoding.contains("aws-chunked"));
+        InputStream input = exchange.getRequestBody();
+        if (!chunked) {
+            return input.readAllBytes();
+        }
+
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        while (true) {
+            String header = readLine(input);
+            int semicolon = header.indexOf(';');
+            int size = Integer.parseInt((semicolon < 0 ? header : header.substring(0, semicolon)).trim(), 16);
+            if (size == 0) {
+                // Trailing checksum headers, if any, are not verified
+                input.readAllBytes();
+                return content.toByteArray();
+            }
+            content.write(input.readNBytes(size));
+            readLine(input);
+        }
+    }
+
+    private static String readLine(InputStream input) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int previous = -1;
+        for (int value = input.read(); value >= 0; value = input.read()) {
+            if (previous == '\r' && value == '\n') {
+                line.setLength(line.length() - 1);
+                return line.toString();
+            }
+            line.append((char) value);
+            previous = value;
+        }
+        throw new IOException("Truncated aws-chunked body");
+    }
+
+    private static String md5(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String escape(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
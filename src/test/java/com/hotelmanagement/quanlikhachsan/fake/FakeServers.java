@@ -0,0 +1,105 @@
+package com.hotelmanagement.quanlikhachsan.fake;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keycloak, Stripe, SMTP and S3 fakes started together, plus the Spring
+ * properties that point the application at them.
+ *
+ * Standalone, for load testing a locally running application:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.hotelmanagement.quanlikhachsan.fake.FakeServers
+ * then start the app with the printed properties.
+ */
+public class FakeServers implements AutoCloseable {
+
+    public static final String REALM = "hotel-realm";
+    public static final String CLIENT_ID = "hotel-app";
+    public static final String STRIPE_SECRET_KEY = "sk_test_fake";
+    public static final String STRIPE_WEBHOOK_SECRET = "whsec_fake";
+    public static final String S3_BUCKET = "hotel-room-images";
+
+    private final FakeKeycloakServer keycloak = new FakeKeycloakServer(CLIENT_ID);
+    private final FakeStripeServer stripe = new FakeStripeServer(STRIPE_WEBHOOK_SECRET);
+    private final FakeSmtpServer smtp = new FakeSmtpServer();
+    private final FakeS3Server s3 = new FakeS3Server(S3_BUCKET);
+
+    public static FakeServers start() {
+        FakeServers servers = new FakeServers();
+        servers.keycloak.start();
+        servers.stripe.start();
+        servers.smtp.start();
+        servers.s3.start();
+        return servers;
+    }
+
+    public FakeKeycloakServer keycloak() {
+        return keycloak;
+    }
+
+    public FakeStripeServer stripe() {
+        return stripe;
+    }
+
+    public FakeSmtpServer smtp() {
+        return smtp;
+    }
+
+    public FakeS3Server s3() {
+        return s3;
+    }
+
+    /**
+     * Clear injected latency and errors on all fakes.
+     */
+    public void resetFaults() {
+        keycloak.faults().reset();
+        stripe.faults().reset();
+        smtp.faults().reset();
+        s3.faults().reset();
+    }
+
+    /**
+     * @return application properties that route Keycloak, Stripe, mail and image storage to the fakes
+     */
+    public Map<String, String> springProperties() {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("keycloak.auth-server-url", keycloak.baseUrl());
+        properties.put("keycloak.realm", REALM);
+        properties.put("keycloak.resource", CLIENT_ID);
+        properties.put("stripe.api-base", stripe.baseUrl());
+        properties.put("stripe.secret.key", STRIPE_SECRET_KEY);
+        properties.put("stripe.webhook.secret", STRIPE_WEBHOOK_SECRET);
+        properties.put("spring.mail.host", smtp.host());
+        properties.put("spring.mail.port", String.valueOf(smtp.port()));
+        properties.put("spring.mail.properties.mail.smtp.auth", "false");
+        properties.put("spring.mail.properties.mail.smtp.starttls.enable", "false");
+        properties.put("spring.mail.properties.mail.smtp.starttls.required", "false");
+        properties.put("file.storage.backend", "s3");
+        properties.put("file.storage.s3.endpoint", s3.baseUrl());
+        properties.put("file.storage.s3.bucket", S3_BUCKET);
+        properties.put("file.storage.s3.access-key", FakeS3Server.ACCESS_KEY);
+        properties.put("file.storage.s3.secret-key", FakeS3Server.SECRET_KEY);
+        properties.put("file.storage.s3.path-style-access", "true");
+        return properties;
+    }
+
+    @Override
+    public void close() {
+        keycloak.close();
+        stripe.close();
+        smtp.close();
+        s3.close();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        FakeServers servers = start();
+        servers.keycloak.addUser("guest@example.com", "password123", "Load", "Guest", "GUEST");
+        Runtime.getRuntime().addShutdownHook(new Thread(servers::close));
+
+        System.out.println("Fake servers running. Seeded login: guest@example.com / password123");
+        servers.springProperties().forEach((key, value) -> System.out.println("--" + key + "=" + value));
+        Thread.currentThread().join();
+    }
+}
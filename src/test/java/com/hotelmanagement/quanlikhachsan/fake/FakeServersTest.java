@@ -0,0 +1,219 @@
+package com.hotelmanagement.quanlikhachsan.fake;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotelmanagement.quanlikhachsan.model.email.EmailCategory;
+import com.hotelmanagement.quanlikhachsan.model.email.EmailOutboxMessage;
+import com.hotelmanagement.quanlikhachsan.security.KeycloakTokenClaims;
+import com.hotelmanagement.quanlikhachsan.security.KeycloakTokenVerifier;
+import com.hotelmanagement.quanlikhachsan.services.auth.KeycloakAuthenticationService;
+import com.hotelmanagement.quanlikhachsan.services.email.EmailService;
+import com.hotelmanagement.quanlikhachsan.services.email.SmtpSessionPool;
+import com.hotelmanagement.quanlikhachsan.services.keycloak.KeycloakServiceImpl;
+import com.stripe.Stripe;
+import com.stripe.model.Event;
+import com.stripe.model.checkout.Session;
+import com.stripe.net.Webhook;
+import com.stripe.param.checkout.SessionCreateParams;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.KeycloakBuilder;
+import org.keycloak.representations.AccessTokenResponse;
+import org.springframework.mail.MailException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Smoke tests for the load-testing fakes.
+ * Drives the real service classes against them, so a drift between what the
+ * services send and what the fakes understand shows up here first.
+ */
+@DisplayName("Fake external servers Tests")
+class FakeServersTest {
+
+    private static FakeServers servers;
+    private static Keycloak adminKeycloak;
+    private static KeycloakAuthenticationService authenticationService;
+    private static KeycloakTokenVerifier tokenVerifier;
+
+    @BeforeAll
+    static void startServers() {
+        servers = FakeServers.start();
+        HttpClient httpClient = HttpClient.newHttpClient();
+
+        adminKeycloak = KeycloakBuilder.builder()
+                .serverUrl(servers.keycloak().baseUrl())
+                .realm("master")
+                .clientId("admin-cli")
+                .username("admin")
+                .password("admin")
+                .build();
+
+        authenticationService = new KeycloakAuthenticationService(adminKeycloak, httpClient, new ObjectMapper());
+        tokenVerifier = new KeycloakTokenVerifier(httpClient);
+        for (Object target : new Object[] { authenticationService, tokenVerifier }) {
+            ReflectionTestUtils.setField(target, "authServerUrl", servers.keycloak().baseUrl());
+            ReflectionTestUtils.setField(target, "realm", FakeServers.REALM);
+            ReflectionTestUtils.setField(target, "clientId", FakeServers.CLIENT_ID);
+        }
+        ReflectionTestUtils.setField(tokenVerifier, "issuer", "");
+    }
+
+    @AfterAll
+    static void stopServers() {
+        adminKeycloak.close();
+        servers.close();
+        Stripe.overrideApiBase(Stripe.LIVE_API_BASE);
+    }
+
+    @AfterEach
+    void resetFaults() {
+        servers.resetFaults();
+    }
+
+    @Test
+    @DisplayName("Keycloak - Password grant issues a token the verifier accepts")
+    void keycloak_Login_IssuesVerifiableToken() {
+        // Given
+        String userId = servers.keycloak().addUser("alice@example.com", "secret-1", "Alice", "Nguyen", "ADMIN");
+
+        // When
+        AccessTokenResponse response = authenticationService.authenticateUser("alice@example.com", "secret-1");
+        Optional<KeycloakTokenClaims> claims = tokenVerifier.verify(response.getToken());
+
+        // Then
+        assertTrue(claims.isPresent());
+        assertEquals(userId, claims.get().userId());
+        assertEquals("alice@example.com", claims.get().email());
+        assertEquals("ADMIN", claims.get().role());
+    }
+
+    @Test
+    @DisplayName("Keycloak - Wrong password and injected errors fail the login")
+    void keycloak_BadCredentialsOrInjectedError_Throws() {
+        // Given
+        servers.keycloak().addUser("bob@example.com", "secret-2", "Bob", "Tran");
+
+        // When & Then
+        assertThrows(BadCredentialsException.class,
+                () -> authenticationService.authenticateUser("bob@example.com", "wrong"));
+
+        servers.keycloak().faults().errors(1.0, 503);
+        assertThrows(BadCredentialsException.class,
+                () -> authenticationService.authenticateUser("bob@example.com", "secret-2"));
+    }
+
+    @Test
+    @DisplayName("Keycloak - Admin API creates and finds users")
+    void keycloak_AdminApi_CreatesAndFindsUser() {
+        // Given
+        KeycloakServiceImpl keycloakService = new KeycloakServiceImpl(adminKeycloak);
+        ReflectionTestUtils.setField(keycloakService, "realm", FakeServers.REALM);
+
+        // When
+        String userId = keycloakService.createUser("carol@example.com", "secret-3", "Carol", "Le");
+
+        // Then
+        assertEquals(Optional.of(userId), keycloakService.findUserIdByEmail("carol@example.com"));
+        assertNotNull(authenticationService.authenticateUser("carol@example.com", "secret-3").getToken());
+    }
+
+    @Test
+    @DisplayName("Stripe - Checkout session round trip and signed webhook")
+    void stripe_CheckoutSession_CompletesWithSignedWebhook() throws Exception {
+        // Given
+        Stripe.apiKey = FakeServers.STRIPE_SECRET_KEY;
+        Stripe.overrideApiBase(servers.stripe().baseUrl());
+        SessionCreateParams params = SessionCreateParams.builder()
+                .setMode(SessionCreateParams.Mode.PAYMENT)
+                .setSuccessUrl("http://localhost:3000/success")
+                .setCancelUrl("http://localhost:3000/cancel")
+                .addLineItem(SessionCreateParams.LineItem.builder()
+                        .setQuantity(1L)
+                        .setPriceData(SessionCreateParams.LineItem.PriceData.builder()
+                                .setCurrency("usd")
+                                .setUnitAmount(12_500L)
+                                .setProductData(SessionCreateParams.LineItem.PriceData.ProductData.builder()
+                                        .setName("Room")
+                                        .build())
+                                .build())
+                        .build())
+                .putMetadata("reservationId", "r-1")
+                .build();
+
+        // When
+        Session session = Session.create(params);
+        String payload = servers.stripe().completeCheckoutSession(session.getId());
+        Event event = Webhook.constructEvent(payload, servers.stripe().signatureHeader(payload),
+                FakeServers.STRIPE_WEBHOOK_SECRET);
+
+        // Then
+        assertEquals(12_500L, session.getAmountTotal());
+        assertEquals("r-1", session.getMetadata().get("reservationId"));
+        assertEquals("checkout.session.completed", event.getType());
+        Session completed = (Session) event.getDataObjectDeserializer().getObject().orElseThrow();
+        assertEquals("paid", completed.getPaymentStatus());
+        assertEquals("paid", Session.retrieve(session.getId()).getPaymentStatus());
+    }
+
+    @Test
+    @DisplayName("SMTP - EmailService delivers into the sink")
+    void smtp_OutboxMessage_IsReceived() throws Exception {
+        // Given
+        EmailService emailService = emailService();
+        long before = servers.smtp().receivedCount();
+
+        // When
+        emailService.deliver(outboxMessage("dave@example.com"));
+
+        // Then
+        assertTrue(servers.smtp().awaitMessages(before + 1, Duration.ofSeconds(5)));
+        FakeSmtpServer.ReceivedMessage message = servers.smtp().messages().getLast();
+        assertEquals("noreply@hotel.test", message.from());
+        assertEquals(List.of("dave@example.com"), message.recipients());
+    }
+
+    @Test
+    @DisplayName("SMTP - Injected reply code surfaces as a send failure")
+    void smtp_InjectedError_FailsSend() {
+        // Given
+        EmailService emailService = emailService();
+        servers.smtp().faults().errors(1.0, 451);
+
+        // When & Then
+        assertThrows(MailException.class, () -> emailService.deliver(outboxMessage("erin@example.com")));
+    }
+
+    private static EmailService emailService() {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost(servers.smtp().host());
+        mailSender.setPort(servers.smtp().port());
+        EmailService emailService = new EmailService(mailSender, null, null, null,
+                new SmtpSessionPool(mailSender, 2, 300_000, 100, 5_000));
+        ReflectionTestUtils.setField(emailService, "fromAddress", "noreply@hotel.test");
+        ReflectionTestUtils.setField(emailService, "fromName", "Hotel");
+        return emailService;
+    }
+
+    private static EmailOutboxMessage outboxMessage(String recipient) {
+        return EmailOutboxMessage.builder()
+                .id(UUID.randomUUID())
+                .category(EmailCategory.WELCOME)
+                .recipient(recipient)
+                .subject("Welcome")
+                .htmlBody("<p>Welcome</p>")
+                .build();
+    }
+}
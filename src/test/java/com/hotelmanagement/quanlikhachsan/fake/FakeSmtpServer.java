@@ -0,0 +1,219 @@
+package com.hotelmanagement.quanlikhachsan.fake;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal SMTP sink: accepts plain (no AUTH, no STARTTLS) sessions on a loopback
+ * port and keeps the most recent messages in memory.
+ *
+ * Injected errors are answered on MAIL FROM with the configured reply code;
+ * latency is applied once per message, after the terminating dot of DATA,
+ * where a real relay spends its time.
+ */
+public class FakeSmtpServer implements AutoCloseable {
+
+    private static final int MAX_RETAINED = 1000;
+
+    private final FaultProfile faults = new FaultProfile();
+    private final Deque<ReceivedMessage> messages = new ConcurrentLinkedDeque<>();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong connections = new AtomicLong();
+    private ServerSocket serverSocket;
+    private ExecutorService executor;
+
+    public record ReceivedMessage(String from, List<String> recipients, String data) {
+    }
+
+    public void start() {
+        try {
+            serverSocket = new ServerSocket(0, 200, InetAddress.getLoopbackAddress());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        executor.execute(this::acceptLoop);
+    }
+
+    public String host() {
+        return serverSocket.getInetAddress().getHostAddress();
+    }
+
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    public FaultProfile faults() {
+        return faults;
+    }
+
+    /**
+     * @return total messages accepted since start, including ones no longer retained
+     */
+    public long receivedCount() {
+        return received.get();
+    }
+
+    /**
+     * @return total client connections accepted since start
+     */
+    public long connectionCount() {
+        return connections.get();
+    }
+
+    /**
+     * @return the most recent messages, oldest first
+     */
+    public List<ReceivedMessage> messages() {
+        return new ArrayList<>(messages);
+    }
+
+    /**
+     * Wait until at least {@code count} messages have been accepted.
+     *
+     * @return whether the count was reached before the timeout
+     */
+    public boolean awaitMessages(long count, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (received.get() < count) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        if (serverSocket == null) {
+            return;
+        }
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+            // Already closed
+        }
+        executor.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.incrementAndGet();
+                executor.execute(() -> session(socket));
+            } catch (IOException e) {
+                // Socket closed by close()
+                return;
+            }
+        }
+    }
+
+    private void session(Socket socket) {
+        try (socket;
+                BufferedReader in = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                OutputStream out = socket.getOutputStream()) {
+            reply(out, "220 fake-smtp ESMTP ready");
+            String from = null;
+            List<String> recipients = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase(Locale.ROOT) : line;
+                switch (command) {
+                    case "EHLO" -> reply(out, "250-fake-smtp\r\n250-8BITMIME\r\n250 SIZE 10485760");
+                    case "HELO" -> reply(out, "250 fake-smtp");
+                    case "MAIL" -> {
+                        if (faults.shouldFail()) {
+                            reply(out, faults.errorStatus() + " Injected failure, try again later");
+                        } else {
+                            from = argument(line);
+                            recipients.clear();
+                            reply(out, "250 OK");
+                        }
+                    }
+                    case "RCPT" -> {
+                        if (from == null) {
+                            reply(out, "503 Need MAIL before RCPT");
+                        } else {
+                            recipients.add(argument(line));
+                            reply(out, "250 OK");
+                        }
+                    }
+                    case "DATA" -> {
+                        if (recipients.isEmpty()) {
+                            reply(out, "503 Need RCPT before DATA");
+                            break;
+                        }
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        String data = readData(in);
+                        faults.delay();
+                        accept(new ReceivedMessage(from, List.copyOf(recipients), data));
+                        from = null;
+                        recipients.clear();
+                        reply(out, "250 OK queued");
+                    }
+                    case "RSET" -> {
+                        from = null;
+                        recipients.clear();
+                        reply(out, "250 OK");
+                    }
+                    case "NOOP" -> reply(out, "250 OK");
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException ignored) {
+            // Client dropped the connection
+        }
+    }
+
+    private void accept(ReceivedMessage message) {
+        messages.addLast(message);
+        while (messages.size() > MAX_RETAINED) {
+            messages.pollFirst();
+        }
+        received.incrementAndGet();
+    }
+
+    private static String readData(BufferedReader in) throws IOException {
+        StringBuilder data = new StringBuilder();
+        String line;
+        while ((line = in.readLine()) != null && !line.equals(".")) {
+            // Undo dot-stuffing (RFC 5321 4.5.2)
+            data.append(line.startsWith(".") ? line.substring(1) : line).append("\r\n");
+        }
+        return data.toString();
+    }
+
+    private static String argument(String line) {
+        int start = line.indexOf('<');
+        int end = line.indexOf('>', start + 1);
+        return start >= 0 && end > start ? line.substring(start + 1, end) : line.substring(line.indexOf(':') + 1).trim();
+    }
+
+    private static void reply(OutputStream out, String response) throws IOException {
+        out.write((response + "\r\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+}
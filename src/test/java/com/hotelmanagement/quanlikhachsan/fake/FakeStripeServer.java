@@ -0,0 +1,291 @@
+package com.hotelmanagement.quanlikhachsan.fake;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.stripe.Stripe;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Stripe API stand-in for the calls the application makes through stripe-java:
+ * - {@code POST/GET /v1/checkout/sessions[/{id}]}
+ * - {@code POST/GET /v1/payment_intents[/{id}]}
+ * - {@code GET /v1/payment_intents/search}, for {@code metadata['key']:'value'} queries only
+ *
+ * Honors {@code Idempotency-Key} by replaying the first response. Webhook
+ * events are signed with the configured secret exactly like Stripe does, so
+ * {@code Webhook.constructEvent} accepts them. Point stripe-java at it with
+ * {@code stripe.api-base}. A payment method of {@code pm_card_chargeDeclined}
+ * produces a declined PaymentIntent.
+ */
+public class FakeStripeServer extends FakeHttpServer {
+
+    public static final String DECLINED_PAYMENT_METHOD = "pm_card_chargeDeclined";
+
+    private static final Pattern METADATA_QUERY = Pattern.compile("metadata\\['([^']+)'\\]:'([^']*)'");
+
+    private final String webhookSecret;
+    private final HttpClient webhookClient = HttpClient.newHttpClient();
+    private final Map<String, Map<String, Object>> sessions = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Object>> paymentIntents = new ConcurrentHashMap<>();
+    private final Map<String, String> idempotentResponses = new ConcurrentHashMap<>();
+
+    public FakeStripeServer(String webhookSecret) {
+        this.webhookSecret = webhookSecret;
+    }
+
+    public Map<String, Object> session(String id) {
+        return sessions.get(id);
+    }
+
+    public Map<String, Object> paymentIntent(String id) {
+        return paymentIntents.get(id);
+    }
+
+    @Override
+    protected void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+
+        if (method.equals("POST")) {
+            String idempotencyKey = exchange.getRequestHeaders().getFirst("Idempotency-Key");
+            String replay = idempotencyKey != null ? idempotentResponses.get(idempotencyKey) : null;
+            if (replay != null) {
+                exchange.getResponseHeaders().set("Idempotent-Replayed", "true");
+                sendJson(exchange, 200, replay);
+                return;
+            }
+
+            Map<String, String> form = decodeForm(readBody(exchange));
+            Map<String, Object> created = switch (path) {
+                case "/v1/checkout/sessions" -> createSession(form);
+                case "/v1/payment_intents" -> createPaymentIntent(form);
+                default -> null;
+            };
+            if (created == null) {
+                sendError(exchange, 404, "invalid_request_error", "resource_missing", "Unrecognized request URL");
+                return;
+            }
+            String body = objectMapper.writeValueAsString(created);
+            if (idempotencyKey != null) {
+                idempotentResponses.putIfAbsent(idempotencyKey, body);
+            }
+            sendJson(exchange, 200, body);
+            return;
+        }
+
+        if (method.equals("GET")) {
+            Map<String, Object> found = null;
+            if (path.equals("/v1/payment_intents/search")) {
+                found = searchPaymentIntents(decodeForm(exchange.getRequestURI().getRawQuery()).get("query"));
+            } else if (path.startsWith("/v1/checkout/sessions/")) {
+                found = sessions.get(path.substring("/v1/checkout/sessions/".length()));
+            } else if (path.startsWith("/v1/payment_intents/")) {
+                found = paymentIntents.get(path.substring("/v1/payment_intents/".length()));
+            }
+            if (found != null) {
+                sendJson(exchange, 200, found);
+                return;
+            }
+        }
+
+        sendError(exchange, 404, "invalid_request_error", "resource_missing", "No such object: " + path);
+    }
+
+    @Override
+    protected void sendInjectedError(HttpExchange exchange, int status) throws IOException {
+        if (status == 429) {
+            sendError(exchange, status, "invalid_request_error", "rate_limit", "Too many requests (injected)");
+        } else {
+            sendError(exchange, status, "api_error", null, "Injected failure");
+        }
+    }
+
+    private void sendError(HttpExchange exchange, int status, String type, String code, String message)
+            throws IOException {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("type", type);
+        error.put("code", code);
+        error.put("message", message);
+        sendJson(exchange, status, Map.of("error", error));
+    }
+
+    private Map<String, Object> createSession(Map<String, String> form) {
+        long unitAmount = Long.parseLong(form.getOrDefault("line_items[0][price_data][unit_amount]", "0"));
+        long quantity = Long.parseLong(form.getOrDefault("line_items[0][quantity]", "1"));
+        String id = "cs_test_" + randomId();
+
+        Map<String, Object> session = new LinkedHashMap<>();
+        session.put("id", id);
+        session.put("object", "checkout.session");
+        session.put("amount_total", unitAmount * quantity);
+        session.put("currency", form.getOrDefault("line_items[0][price_data][currency]", "usd"));
+        session.put("mode", form.getOrDefault("mode", "payment"));
+        session.put("status", "open");
+        session.put("payment_status", "unpaid");
+        session.put("payment_intent", null);
+        session.put("success_url", form.get("success_url"));
+        session.put("cancel_url", form.get("cancel_url"));
+        session.put("url", baseUrl() + "/checkout/" + id);
+        session.put("metadata", metadata(form));
+        session.put("created", Instant.now().getEpochSecond());
+        session.put("livemode", false);
+        sessions.put(id, session);
+        return session;
+    }
+
+    private Map<String, Object> createPaymentIntent(Map<String, String> form) {
+        String paymentMethod = form.get("payment_method");
+        boolean confirm = Boolean.parseBoolean(form.get("confirm"));
+        String status = !confirm ? "requires_confirmation"
+                : DECLINED_PAYMENT_METHOD.equals(paymentMethod) ? "requires_payment_method"
+                : "succeeded";
+        return putPaymentIntent(Long.parseLong(form.getOrDefault("amount", "0")),
+                form.getOrDefault("currency", "usd"), paymentMethod, status, metadata(form));
+    }
+
+    private Map<String, Object> putPaymentIntent(long amount, String currency, String paymentMethod, String status,
+            Map<String, String> metadata) {
+        String id = "pi_" + randomId();
+        Map<String, Object> intent = new LinkedHashMap<>();
+        intent.put("id", id);
+        intent.put("object", "payment_intent");
+        intent.put("amount", amount);
+        intent.put("amount_received", "succeeded".equals(status) ? amount : 0);
+        intent.put("currency", currency);
+        intent.put("payment_method", paymentMethod);
+        intent.put("status", status);
+        intent.put("metadata", metadata);
+        intent.put("created", Instant.now().getEpochSecond());
+        intent.put("livemode", false);
+        paymentIntents.put(id, intent);
+        return intent;
+    }
+
+    private Map<String, Object> searchPaymentIntents(String query) {
+        Matcher matcher = query == null ? null : METADATA_QUERY.matcher(query);
+        if (matcher == null || !matcher.matches()) {
+            return null;
+        }
+        List<Map<String, Object>> data = paymentIntents.values().stream()
+                .filter(intent -> matcher.group(2).equals(((Map<?, ?>) intent.get("metadata")).get(matcher.group(1))))
+                .toList();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("object", "search_result");
+        result.put("url", "/v1/payment_intents/search");
+        result.put("has_more", false);
+        result.put("next_page", null);
+        result.put("data", data);
+        return result;
+    }
+
+    private static Map<String, String> metadata(Map<String, String> form) {
+        Map<String, String> metadata = new LinkedHashMap<>();
+        form.forEach((key, value) -> {
+            if (key.startsWith("metadata[") && key.endsWith("]")) {
+                metadata.put(key.substring("metadata[".length(), key.length() - 1), value);
+            }
+        });
+        return metadata;
+    }
+
+    /**
+     * Mark a Checkout Session as paid, as if the customer finished the hosted page.
+     *
+     * @return the signed-ready {@code checkout.session.completed} event payload
+     */
+    public String completeCheckoutSession(String sessionId) throws IOException {
+        Map<String, Object> session = sessions.get(sessionId);
+        if (session == null) {
+            throw new IllegalArgumentException("Unknown session " + sessionId);
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Object> intent = putPaymentIntent((Long) session.get("amount_total"), (String) session.get("currency"),
+                "pm_card_visa", "succeeded", (Map<String, String>) session.get("metadata"));
+        session.put("status", "complete");
+        session.put("payment_status", "paid");
+        session.put("payment_intent", intent.get("id"));
+        return event("checkout.session.completed", session);
+    }
+
+    /**
+     * Expire an open Checkout Session, as if the customer never paid.
+     *
+     * @return the signed-ready {@code checkout.session.expired} event payload
+     */
+    public String expireCheckoutSession(String sessionId) throws IOException {
+        Map<String, Object> session = sessions.get(sessionId);
+        if (session == null) {
+            throw new IllegalArgumentException("Unknown session " + sessionId);
+        }
+        session.put("status", "expired");
+        return event("checkout.session.expired", session);
+    }
+
+    /**
+     * Build an event payload the way Stripe sends it to webhook endpoints.
+     */
+    public String event(String type, Map<String, Object> object) throws IOException {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("id", "evt_" + randomId());
+        event.put("object", "event");
+        // Must match the SDK, or the typed data object will not deserialize
+        event.put("api_version", Stripe.API_VERSION);
+        event.put("created", Instant.now().getEpochSecond());
+        event.put("type", type);
+        event.put("livemode", false);
+        event.put("pending_webhooks", 1);
+        event.put("data", Map.of("object", object));
+        return objectMapper.writeValueAsString(event);
+    }
+
+    /**
+     * @return a {@code Stripe-Signature} header value for the payload, signed now
+     */
+    public String signatureHeader(String payload) {
+        long timestamp = Instant.now().getEpochSecond();
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(webhookSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] signature = mac.doFinal((timestamp + "." + payload).getBytes(StandardCharsets.UTF_8));
+            return "t=" + timestamp + ",v1=" + HexFormat.of().formatHex(signature);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * POST a signed event to a webhook endpoint.
+     *
+     * @return HTTP status returned by the endpoint
+     */
+    public int deliver(URI endpoint, String payload) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(endpoint)
+                .header("Content-Type", "application/json")
+                .header("Stripe-Signature", signatureHeader(payload))
+                .POST(HttpRequest.BodyPublishers.ofString(payload))
+                .build();
+        return webhookClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static String randomId() {
+        return UUID.randomUUID().toString().replace("-", "").substring(0, 24);
+    }
+}
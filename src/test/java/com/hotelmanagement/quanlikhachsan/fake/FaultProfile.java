@@ -0,0 +1,68 @@
+package com.hotelmanagement.quanlikhachsan.fake;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Latency and error injection shared by the fake servers.
+ * Settings are volatile so a running load test can change them on the fly.
+ */
+public final class FaultProfile {
+
+    private volatile long latencyMillis;
+    private volatile long jitterMillis;
+    private volatile double errorRate;
+    private volatile int errorStatus = 503;
+
+    /**
+     * Delay every request by {@code base} plus a uniform random share of {@code jitter}.
+     */
+    public FaultProfile latency(Duration base, Duration jitter) {
+        this.latencyMillis = base.toMillis();
+        this.jitterMillis = jitter.toMillis();
+        return this;
+    }
+
+    /**
+     * Fail the given fraction of requests with {@code status}: an HTTP status for
+     * the HTTP fakes, an SMTP reply code (e.g. 451) for the SMTP sink.
+     */
+    public FaultProfile errors(double rate, int status) {
+        if (rate < 0 || rate > 1) {
+            throw new IllegalArgumentException("Error rate must be between 0 and 1");
+        }
+        this.errorRate = rate;
+        this.errorStatus = status;
+        return this;
+    }
+
+    public FaultProfile reset() {
+        latencyMillis = 0;
+        jitterMillis = 0;
+        errorRate = 0;
+        errorStatus = 503;
+        return this;
+    }
+
+    void delay() {
+        long jitter = jitterMillis;
+        long millis = latencyMillis + (jitter > 0 ? ThreadLocalRandom.current().nextLong(jitter + 1) : 0);
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    boolean shouldFail() {
+        double rate = errorRate;
+        return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    int errorStatus() {
+        return errorStatus;
+    }
+}
@@ -1,5 +1,7 @@
 package com.hotelmanagement.quanlikhachsan.security;
 
+import com.hotelmanagement.quanlikhachsan.services.auth.TokenRevocationService;
+import com.hotelmanagement.quanlikhachsan.util.JwtClaims;
 import com.hotelmanagement.quanlikhachsan.util.JwtUtil;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -16,6 +18,9 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -31,6 +36,12 @@ class JwtAuthenticationFilterTest {
     @Mock
     private JwtUtil jwtUtil;
 
+    @Mock
+    private KeycloakTokenVerifier keycloakTokenVerifier;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
     @Mock
     private HttpServletRequest request;
 
@@ -59,10 +70,8 @@ class JwtAuthenticationFilterTest {
 
         Cookie jwtCookie = new Cookie("jwt", validToken);
         when(request.getCookies()).thenReturn(new Cookie[] { jwtCookie });
-        when(jwtUtil.isTokenValid(validToken)).thenReturn(true);
-        when(jwtUtil.extractUserId(validToken)).thenReturn(userId);
-        when(jwtUtil.extractEmail(validToken)).thenReturn(email);
-        when(jwtUtil.extractRole(validToken)).thenReturn(role);
+        when(jwtUtil.verify(validToken)).thenReturn(Optional.of(
+                new JwtClaims(userId, email, "Test User", role, "jti-1", Instant.now().plusSeconds(3600))));
 
         // When
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
@@ -72,7 +81,8 @@ class JwtAuthenticationFilterTest {
         assertEquals(email, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
 
         verify(filterChain).doFilter(request, response);
-        verify(jwtUtil).isTokenValid(validToken);
+        verify(jwtUtil).verify(validToken);
+        verify(jwtUtil, never()).extractAllClaims(anyString());
     }
 
     @Test
@@ -87,7 +97,7 @@ class JwtAuthenticationFilterTest {
         // Then
         assertNull(SecurityContextHolder.getContext().getAuthentication());
         verify(filterChain).doFilter(request, response);
-        verify(jwtUtil, never()).isTokenValid(anyString());
+        verify(jwtUtil, never()).verify(anyString());
     }
 
     @Test
@@ -98,7 +108,7 @@ class JwtAuthenticationFilterTest {
         Cookie jwtCookie = new Cookie("jwt", invalidToken);
 
         when(request.getCookies()).thenReturn(new Cookie[] { jwtCookie });
-        when(jwtUtil.isTokenValid(invalidToken)).thenReturn(false);
+        when(jwtUtil.verify(invalidToken)).thenReturn(Optional.empty());
 
         // When
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
@@ -106,8 +116,7 @@ class JwtAuthenticationFilterTest {
         // Then
         assertNull(SecurityContextHolder.getContext().getAuthentication());
         verify(filterChain).doFilter(request, response);
-        verify(jwtUtil).isTokenValid(invalidToken);
-        verify(jwtUtil, never()).extractUserId(anyString());
+        verify(jwtUtil).verify(invalidToken);
     }
 
     @Test
@@ -123,7 +132,7 @@ class JwtAuthenticationFilterTest {
         // Then
         assertNull(SecurityContextHolder.getContext().getAuthentication());
         verify(filterChain).doFilter(request, response);
-        verify(jwtUtil, never()).isTokenValid(anyString());
+        verify(jwtUtil, never()).verify(anyString());
     }
 
     @Test
@@ -136,17 +145,15 @@ class JwtAuthenticationFilterTest {
         Cookie cookie3 = new Cookie("preference", "dark-mode");
 
         when(request.getCookies()).thenReturn(new Cookie[] { cookie1, jwtCookie, cookie3 });
-        when(jwtUtil.isTokenValid(validToken)).thenReturn(true);
-        when(jwtUtil.extractUserId(validToken)).thenReturn("user-123");
-        when(jwtUtil.extractEmail(validToken)).thenReturn("test@example.com");
-        when(jwtUtil.extractRole(validToken)).thenReturn("USER");
+        when(jwtUtil.verify(validToken)).thenReturn(Optional.of(
+                new JwtClaims("user-123", "test@example.com", "Test User", "USER", "jti-2", Instant.now().plusSeconds(3600))));
 
         // When
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
         // Then
         assertNotNull(SecurityContextHolder.getContext().getAuthentication());
-        verify(jwtUtil).isTokenValid(validToken);
+        verify(jwtUtil).verify(validToken);
     }
 
     @Test
@@ -157,7 +164,7 @@ class JwtAuthenticationFilterTest {
         Cookie jwtCookie = new Cookie("jwt", token);
 
         when(request.getCookies()).thenReturn(new Cookie[] { jwtCookie });
-        when(jwtUtil.isTokenValid(token)).thenThrow(new RuntimeException("Token parsing error"));
+        when(jwtUtil.verify(token)).thenThrow(new RuntimeException("Token parsing error"));
 
         // When & Then - Should not throw exception
         assertDoesNotThrow(() -> {
@@ -166,4 +173,79 @@ class JwtAuthenticationFilterTest {
 
         verify(filterChain).doFilter(request, response);
     }
+
+    @Test
+    @DisplayName("doFilterInternal - Revoked JWT does not set authentication")
+    void doFilterInternal_WithRevokedJwt_DoesNotSetAuthentication() throws ServletException, IOException {
+        // Given
+        String revokedToken = "revoked-jwt-token";
+        when(request.getCookies()).thenReturn(new Cookie[] { new Cookie("jwt", revokedToken) });
+        when(jwtUtil.verify(revokedToken)).thenReturn(Optional.of(
+                new JwtClaims("user-123", "test@example.com", "Test User", "USER", "jti-revoked",
+                        Instant.now().plusSeconds(3600))));
+        when(tokenRevocationService.isRevoked("jti-revoked")).thenReturn(true);
+
+        // When
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Then
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    @DisplayName("doFilterInternal - Keycloak bearer token sets authentication")
+    void doFilterInternal_WithKeycloakBearerToken_SetsAuthentication() throws ServletException, IOException {
+        // Given
+        String bearerToken = "keycloak-access-token";
+        when(request.getCookies()).thenReturn(null);
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + bearerToken);
+        when(keycloakTokenVerifier.verify(bearerToken)).thenReturn(Optional.of(new KeycloakTokenClaims(
+                "kc-user-1", "staff@example.com", "Jane", "Doe", List.of("STAFF"), Instant.now().plusSeconds(300))));
+
+        // When
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Then
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals("staff@example.com", SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+        assertTrue(SecurityContextHolder.getContext().getAuthentication().getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_STAFF".equals(authority.getAuthority())));
+        verify(jwtUtil, never()).verify(anyString());
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    @DisplayName("doFilterInternal - Keycloak bearer token without email does not set authentication")
+    void doFilterInternal_WithBearerTokenWithoutEmail_DoesNotSetAuthentication() throws ServletException, IOException {
+        // Given
+        String bearerToken = "keycloak-service-token";
+        when(request.getCookies()).thenReturn(null);
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + bearerToken);
+        when(keycloakTokenVerifier.verify(bearerToken)).thenReturn(Optional.of(new KeycloakTokenClaims(
+                "kc-service-1", null, null, null, List.of("ADMIN"), Instant.now().plusSeconds(300))));
+
+        // When
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Then
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    @DisplayName("doFilterInternal - Rejected bearer token does not set authentication")
+    void doFilterInternal_WithInvalidBearerToken_DoesNotSetAuthentication() throws ServletException, IOException {
+        // Given
+        when(request.getCookies()).thenReturn(null);
+        when(request.getHeader("Authorization")).thenReturn("Bearer forged");
+        when(keycloakTokenVerifier.verify("forged")).thenReturn(Optional.empty());
+
+        // When
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Then
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(filterChain).doFilter(request, response);
+    }
 }
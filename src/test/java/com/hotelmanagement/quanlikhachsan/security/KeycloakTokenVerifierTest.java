@@ -0,0 +1,172 @@
+package com.hotelmanagement.quanlikhachsan.security;
+
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigInteger;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.security.KeyPair;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for KeycloakTokenVerifier
+ * Signs tokens with a local RSA key and serves its JWKS through a mocked HttpClient
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("KeycloakTokenVerifier Tests")
+class KeycloakTokenVerifierTest {
+
+    private static final String KEY_ID = "kid-1";
+    private static final String CLIENT_ID = "hotel-app";
+
+    @Mock
+    private HttpClient httpClient;
+
+    @Mock
+    private HttpResponse<String> jwksResponse;
+
+    private KeycloakTokenVerifier verifier;
+    private KeyPair keyPair;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        verifier = new KeycloakTokenVerifier(httpClient);
+        ReflectionTestUtils.setField(verifier, "authServerUrl", "http://localhost:8180");
+        ReflectionTestUtils.setField(verifier, "realm", "hotel-realm");
+        ReflectionTestUtils.setField(verifier, "clientId", CLIENT_ID);
+        ReflectionTestUtils.setField(verifier, "issuer", "");
+
+        keyPair = Jwts.SIG.RS256.keyPair().build();
+        lenient().when(jwksResponse.statusCode()).thenReturn(200);
+        lenient().when(jwksResponse.body()).thenReturn(jwks((RSAPublicKey) keyPair.getPublic()));
+        lenient().doReturn(jwksResponse).when(httpClient).send(any(), any());
+    }
+
+    @Test
+    @DisplayName("Verify - Valid access token yields claims and role")
+    void verify_WithValidToken_ReturnsClaims() {
+        // Given
+        String token = token(KEY_ID, CLIENT_ID);
+
+        // When
+        Optional<KeycloakTokenClaims> claims = verifier.verify(token);
+
+        // Then
+        assertTrue(claims.isPresent());
+        assertEquals("kc-user-1", claims.get().userId());
+        assertEquals("guest@example.com", claims.get().email());
+        assertEquals("STAFF", claims.get().role());
+        assertEquals("Jane Doe", claims.get().fullName());
+    }
+
+    @Test
+    @DisplayName("Verify - JWKS is fetched once and reused")
+    void verify_MultipleTokens_FetchesJwksOnce() throws Exception {
+        // When
+        verifier.verify(token(KEY_ID, CLIENT_ID));
+        verifier.verify(token(KEY_ID, CLIENT_ID));
+
+        // Then
+        verify(httpClient, times(1)).send(any(), any());
+    }
+
+    @Test
+    @DisplayName("Verify - Unknown key ids cannot force repeated JWKS fetches")
+    void verify_UnknownKeyId_RefreshIsRateLimited() throws Exception {
+        // When
+        Optional<KeycloakTokenClaims> first = verifier.verify(token("unknown-1", CLIENT_ID));
+        Optional<KeycloakTokenClaims> second = verifier.verify(token("unknown-2", CLIENT_ID));
+
+        // Then
+        assertTrue(first.isEmpty());
+        assertTrue(second.isEmpty());
+        verify(httpClient, times(1)).send(any(), any());
+    }
+
+    @Test
+    @DisplayName("Verify - Token issued to another client is rejected")
+    void verify_WithForeignClient_ReturnsEmpty() {
+        // When & Then
+        assertTrue(verifier.verify(token(KEY_ID, "other-client")).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Verify - Token without azp or audience for this client is rejected")
+    void verify_WithoutClient_ReturnsEmpty() {
+        // When & Then
+        assertTrue(verifier.verify(token(KEY_ID, null)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Verify - Token from another realm is rejected when no issuer is configured")
+    void verify_WithForeignIssuer_ReturnsEmpty() {
+        // Given
+        String token = token(KEY_ID, CLIENT_ID, "http://localhost:8180/realms/other-realm");
+
+        // When & Then
+        assertTrue(verifier.verify(token).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Verify - Configured issuer overrides the derived one")
+    void verify_WithConfiguredIssuer_MatchesIt() {
+        // Given
+        ReflectionTestUtils.setField(verifier, "issuer", "https://auth.example.com/realms/hotel-realm");
+
+        // When & Then
+        assertTrue(verifier.verify(token(KEY_ID, CLIENT_ID, "https://auth.example.com/realms/hotel-realm")).isPresent());
+        assertTrue(verifier.verify(token(KEY_ID, CLIENT_ID)).isEmpty());
+    }
+
+    private String token(String keyId, String azp) {
+        return token(keyId, azp, "http://localhost:8180/realms/hotel-realm");
+    }
+
+    private String token(String keyId, String azp, String issuer) {
+        return Jwts.builder()
+                .header().keyId(keyId).and()
+                .issuer(issuer)
+                .subject("kc-user-1")
+                .claim("typ", "Bearer")
+                .claim("azp", azp)
+                .claim("email", "guest@example.com")
+                .claim("given_name", "Jane")
+                .claim("family_name", "Doe")
+                .claim("realm_access", Map.of("roles", List.of("offline_access", "staff")))
+                .expiration(new Date(System.currentTimeMillis() + 300_000))
+                .signWith(keyPair.getPrivate())
+                .compact();
+    }
+
+    private static String jwks(RSAPublicKey key) {
+        return """
+                {"keys":[{"kid":"%s","kty":"RSA","alg":"RS256","use":"sig","n":"%s","e":"%s"}]}
+                """.formatted(KEY_ID, base64Url(key.getModulus()), base64Url(key.getPublicExponent()));
+    }
+
+    private static String base64Url(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        // Drop the sign byte BigInteger adds for positive values with the high bit set
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,156 @@
+package com.hotelmanagement.quanlikhachsan.security.ratelimit;
+
+import com.hotelmanagement.quanlikhachsan.exception.AppError;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for RateLimiter
+ * Redis is mocked; the token bucket script's result is stubbed per case
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RateLimiter Tests")
+class RateLimiterTest {
+
+    private static final String EMAIL = "john@example.com";
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    private final MockEnvironment environment = new MockEnvironment();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        rateLimiter = new RateLimiter(stringRedisTemplate, environment, meterRegistry);
+        ReflectionTestUtils.setField(rateLimiter, "enabled", true);
+        ReflectionTestUtils.setField(rateLimiter, "localTtlMillis", 60_000L);
+        rateLimiter.init();
+        environment.setProperty("rate-limit.policies.otp-send.capacity", "3");
+        environment.setProperty("rate-limit.policies.otp-send.refill-per-minute", "1");
+    }
+
+    @Test
+    @DisplayName("Acquire - Token granted by the script lets the request through")
+    @SuppressWarnings("unchecked")
+    void acquire_TokenGranted_Passes() throws Exception {
+        // Given
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(List.of(1L, 0L));
+
+        // When
+        rateLimiter.acquire(limit("sendOTP"), EMAIL);
+
+        // Then
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(stringRedisTemplate).execute(any(RedisScript.class), eq(List.of("ratelimit:otp-send:" + EMAIL)),
+                args.capture());
+        assertEquals("3", args.getValue()[0]);
+        assertEquals("1", args.getValue()[3]);
+    }
+
+    @Test
+    @DisplayName("Acquire - Empty bucket is rejected with 429 and the seconds until the next token")
+    @SuppressWarnings("unchecked")
+    void acquire_BucketEmpty_ThrowsWithRetryAfter() throws Exception {
+        // Given
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(List.of(0L, 41_500L));
+
+        // When
+        AppError error = assertThrows(AppError.class, () -> rateLimiter.acquire(limit("sendOTP"), EMAIL));
+
+        // Then
+        assertEquals("RATE_001", error.getErrorCode());
+        assertEquals(42L, error.getDetails().get("retryAfterSeconds"));
+        assertEquals(1.0, meterRegistry.get("ratelimit.rejected").tag("policy", "otp-send").counter().count());
+    }
+
+    @Test
+    @DisplayName("Acquire - Batched tokens are served locally")
+    @SuppressWarnings("unchecked")
+    void acquire_LocalBatch_ServesFromMemory() throws Exception {
+        // Given
+        environment.setProperty("rate-limit.policies.otp-send.capacity", "100");
+        environment.setProperty("rate-limit.policies.otp-send.local-batch", "3");
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(List.of(3L, 0L));
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.acquire(limit("sendOTP"), EMAIL);
+        }
+
+        // Then
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(stringRedisTemplate, times(1)).execute(any(RedisScript.class), anyList(), args.capture());
+        assertEquals("100", args.getValue()[0]);
+        assertEquals("3", args.getValue()[3]);
+    }
+
+    @Test
+    @DisplayName("Acquire - Redis outage lets requests through")
+    @SuppressWarnings("unchecked")
+    void acquire_RedisDown_Passes() throws Exception {
+        // Given
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RedisConnectionFailureException("Connection refused"));
+
+        // When & Then
+        assertDoesNotThrow(() -> rateLimiter.acquire(limit("sendOTP"), EMAIL));
+    }
+
+    @Test
+    @DisplayName("Acquire - Policy missing from configuration fails instead of guessing a limit")
+    void acquire_UnconfiguredPolicy_Throws() throws Exception {
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> rateLimiter.acquire(limit("unconfigured"), EMAIL));
+        verifyNoInteractions(stringRedisTemplate);
+    }
+
+    @Test
+    @DisplayName("Email - Record body email is trimmed and lower-cased")
+    void email_RecordBody_Normalized() {
+        // When & Then
+        assertEquals(EMAIL, RateLimitedBodyAdvice.email(new OtpRequest(" John@Example.com ")));
+        assertNull(RateLimitedBodyAdvice.email(new OtpRequest("")));
+        assertNull(RateLimitedBodyAdvice.email("not a record"));
+    }
+
+    private static RateLimited limit(String method) throws NoSuchMethodException {
+        return Endpoints.class.getDeclaredMethod(method).getAnnotation(RateLimited.class);
+    }
+
+    private record OtpRequest(String email) {
+    }
+
+    private static class Endpoints {
+        @RateLimited(policy = "otp-send", key = RateLimitKey.EMAIL)
+        void sendOTP() {
+        }
+
+        @RateLimited(policy = "unconfigured")
+        void unconfigured() {
+        }
+    }
+}
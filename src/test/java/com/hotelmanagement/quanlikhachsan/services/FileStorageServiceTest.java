@@ -0,0 +1,199 @@
+package com.hotelmanagement.quanlikhachsan.services;
+
+import com.hotelmanagement.quanlikhachsan.model.storage.StoredBlob;
+import com.hotelmanagement.quanlikhachsan.repository.StoredBlobRepository;
+import com.hotelmanagement.quanlikhachsan.services.storage.LocalObjectStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for FileStorageService
+ * Files are written to a temporary upload directory; the blob table is mocked
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("FileStorageService Tests")
+class FileStorageServiceTest {
+
+    private static final byte[] CONTENT = "room photo".getBytes(StandardCharsets.UTF_8);
+
+    @Mock
+    private StoredBlobRepository storedBlobRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path uploadDir;
+
+    private FileStorageService fileStorageService;
+    private String digest;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        fileStorageService = new FileStorageService(storedBlobRepository, new LocalObjectStorage(uploadDir),
+                new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(fileStorageService, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(fileStorageService, "baseUrl", "http://localhost:8080");
+        ReflectionTestUtils.setField(fileStorageService, "uploadParallelism", 4);
+        fileStorageService.initPermits();
+        digest = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(CONTENT));
+    }
+
+    @Test
+    @DisplayName("Store - Same content uploaded twice is stored once under its digest")
+    void storeFile_SameContent_StoredOnce() throws Exception {
+        // Given
+        when(storedBlobRepository.findFilename(digest)).thenReturn(Optional.of(digest + ".jpg"));
+
+        // When
+        String first = fileStorageService.storeFile(new MockMultipartFile("images", "a.JPG", "image/jpeg", CONTENT));
+        String second = fileStorageService.storeFile(new MockMultipartFile("images", "b.jpeg", "image/jpeg", CONTENT));
+
+        // Then
+        assertEquals("http://localhost:8080/uploads/room-images/" + digest + ".jpg", first);
+        assertEquals(first, second);
+        verify(storedBlobRepository).acquire(eq(digest), eq(digest + ".jpg"), eq((long) CONTENT.length),
+                eq("image/jpeg"), any());
+        verify(storedBlobRepository).acquire(eq(digest), eq(digest + ".jpeg"), anyLong(), anyString(), any());
+        try (var files = Files.list(uploadDir)) {
+            assertEquals(1, files.count());
+        }
+        assertArrayEquals(CONTENT, Files.readAllBytes(uploadDir.resolve(digest + ".jpg")));
+    }
+
+    @Test
+    @DisplayName("Store - Files staged in parallel move into place only when the transaction commits")
+    void store_InTransaction_MovedOnCommit() throws Exception {
+        // Given
+        List<MultipartFile> uploads = List.of(
+                new MockMultipartFile("images", "a.jpg", "image/jpeg", CONTENT),
+                new MockMultipartFile("images", "b.png", "image/png", "second photo".getBytes(StandardCharsets.UTF_8)));
+        when(storedBlobRepository.findFilename(anyString()))
+                .thenAnswer(invocation -> Optional.of(invocation.getArgument(0) + ".jpg"));
+        List<FileStorageService.StagedFile> staged = fileStorageService.stage(uploads);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When
+            List<String> urls = fileStorageService.store(staged);
+
+            // Then
+            assertEquals("http://localhost:8080/uploads/room-images/" + digest + ".jpg", urls.get(0));
+            assertFalse(Files.exists(uploadDir.resolve(digest + ".jpg")));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+                    synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            assertArrayEquals(CONTENT, Files.readAllBytes(uploadDir.resolve(digest + ".jpg")));
+            try (var files = Files.list(uploadDir)) {
+                assertEquals(2, files.count());
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Store - Rolled back transaction leaves no files behind")
+    void store_RolledBack_DeletesStagedFiles() throws Exception {
+        // Given
+        when(storedBlobRepository.findFilename(digest)).thenReturn(Optional.of(digest + ".jpg"));
+        List<FileStorageService.StagedFile> staged = fileStorageService.stage(
+                List.of(new MockMultipartFile("images", "a.jpg", "image/jpeg", CONTENT)));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When
+            fileStorageService.store(staged);
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+                    synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+            // Then
+            try (var files = Files.list(uploadDir)) {
+                assertEquals(0, files.count());
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Release - Last reference deletes the file and its derivatives")
+    void release_LastReference_DeletesBlob() throws Exception {
+        // Given
+        Files.write(uploadDir.resolve(digest + ".jpg"), CONTENT);
+        Files.writeString(uploadDir.resolve(digest + "-thumb.jpg"), "thumbnail");
+        StoredBlob blob = StoredBlob.builder().digest(digest).filename(digest + ".jpg").build();
+        when(storedBlobRepository.release(digest)).thenReturn(1);
+        when(storedBlobRepository.findRefCount(digest)).thenReturn(Optional.of(0));
+        when(storedBlobRepository.lockUnreferenced(digest)).thenReturn(Optional.of(blob));
+
+        // When
+        fileStorageService.release("http://localhost:8080/uploads/room-images/" + digest + ".jpg");
+
+        // Then
+        assertFalse(Files.exists(uploadDir.resolve(digest + ".jpg")));
+        assertFalse(Files.exists(uploadDir.resolve(digest + "-thumb.jpg")));
+        verify(storedBlobRepository).delete(blob);
+    }
+
+    @Test
+    @DisplayName("Release - File still referenced by another image is kept")
+    void release_StillReferenced_KeepsFile() throws Exception {
+        // Given
+        Files.write(uploadDir.resolve(digest + ".jpg"), CONTENT);
+        when(storedBlobRepository.release(digest)).thenReturn(1);
+        when(storedBlobRepository.findRefCount(digest)).thenReturn(Optional.of(2));
+
+        // When
+        fileStorageService.release("http://localhost:8080/uploads/room-images/" + digest + ".jpg");
+
+        // Then
+        assertTrue(Files.exists(uploadDir.resolve(digest + ".jpg")));
+        verify(storedBlobRepository, never()).lockUnreferenced(anyString());
+    }
+
+    @Test
+    @DisplayName("Release - File stored before content addressing is deleted directly")
+    void release_LegacyFile_Deleted() throws Exception {
+        // Given
+        String legacy = "3f2c1a9e-5b7d-4e8f-9a0b-1c2d3e4f5a6b";
+        Files.write(uploadDir.resolve(legacy + ".png"), CONTENT);
+        Files.writeString(uploadDir.resolve(legacy + "-card.jpg"), "card");
+
+        // When
+        fileStorageService.release("/uploads/http://localhost:8080/uploads/room-images/" + legacy + ".png");
+
+        // Then
+        assertFalse(Files.exists(uploadDir.resolve(legacy + ".png")));
+        assertFalse(Files.exists(uploadDir.resolve(legacy + "-card.jpg")));
+        verifyNoInteractions(storedBlobRepository);
+    }
+}
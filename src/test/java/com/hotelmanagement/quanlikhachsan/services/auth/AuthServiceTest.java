@@ -3,23 +3,28 @@ package com.hotelmanagement.quanlikhachsan.services.auth;
 import com.hotelmanagement.quanlikhachsan.dto.request.auth.LoginRequest;
 import com.hotelmanagement.quanlikhachsan.dto.request.auth.RegisterRequest;
 import com.hotelmanagement.quanlikhachsan.dto.response.auth.AuthResponse;
+import com.hotelmanagement.quanlikhachsan.dto.response.auth.RegistrationStatusResponse;
 import com.hotelmanagement.quanlikhachsan.dto.response.auth.UserInfo;
 import com.hotelmanagement.quanlikhachsan.dto.response.guest.GuestResponse;
+import com.hotelmanagement.quanlikhachsan.security.KeycloakTokenClaims;
+import com.hotelmanagement.quanlikhachsan.security.KeycloakTokenVerifier;
 import com.hotelmanagement.quanlikhachsan.services.guest.IGuestService;
-import com.hotelmanagement.quanlikhachsan.services.keycloak.IKeycloakService;
+import com.hotelmanagement.quanlikhachsan.util.JwtClaims;
 import com.hotelmanagement.quanlikhachsan.util.JwtUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.keycloak.representations.AccessTokenResponse;
-import org.keycloak.representations.idm.UserRepresentation;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.authentication.BadCredentialsException;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -42,10 +47,19 @@ class AuthServiceTest {
     private JwtUtil jwtUtil;
 
     @Mock
-    private IKeycloakService keycloakService;
+    private IGuestService guestService;
 
     @Mock
-    private IGuestService guestService;
+    private KeycloakTokenVerifier keycloakTokenVerifier;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
+    @Mock
+    private RegistrationSagaService registrationSagaService;
 
     @InjectMocks
     private AuthService authService;
@@ -53,8 +67,8 @@ class AuthServiceTest {
     private LoginRequest loginRequest;
     private RegisterRequest registerRequest;
     private GuestResponse guestResponse;
-    private UserRepresentation keycloakUser;
     private AccessTokenResponse tokenResponse;
+    private KeycloakTokenClaims keycloakClaims;
 
     @BeforeEach
     void setUp() {
@@ -76,14 +90,16 @@ class AuthServiceTest {
                 LocalDateTime.now(),
                 LocalDateTime.now());
 
-        keycloakUser = new UserRepresentation();
-        keycloakUser.setId("550e8400-e29b-41d4-a716-446655440000");
-        keycloakUser.setEmail("test@example.com");
-        keycloakUser.setFirstName("John");
-        keycloakUser.setLastName("Doe");
-
         tokenResponse = new AccessTokenResponse();
         tokenResponse.setToken("mock-keycloak-token");
+
+        keycloakClaims = new KeycloakTokenClaims(
+                "550e8400-e29b-41d4-a716-446655440000",
+                "test@example.com",
+                "John",
+                "Doe",
+                List.of("USER"),
+                Instant.now().plusSeconds(300));
     }
 
     @Test
@@ -92,9 +108,9 @@ class AuthServiceTest {
         // Given
         when(keycloakAuthService.authenticateUser(anyString(), anyString()))
                 .thenReturn(tokenResponse);
-        when(keycloakAuthService.getUserByEmail(anyString()))
-                .thenReturn(keycloakUser);
-        when(guestService.getGuestByKeycloakUserId(any(UUID.class)))
+        when(keycloakTokenVerifier.verify("mock-keycloak-token"))
+                .thenReturn(Optional.of(keycloakClaims));
+        when(guestService.getGuestByEmail("test@example.com"))
                 .thenReturn(guestResponse);
         when(jwtUtil.generateToken(anyString(), anyString(), anyString(), anyString()))
                 .thenReturn("mock-jwt-token");
@@ -115,8 +131,7 @@ class AuthServiceTest {
 
         // Verify interactions
         verify(keycloakAuthService).authenticateUser("test@example.com", "password123");
-        verify(keycloakAuthService).getUserByEmail("test@example.com");
-        verify(guestService).getGuestByKeycloakUserId(any(UUID.class));
+        verify(guestService, never()).getGuestByKeycloakUserId(any(UUID.class));
         verify(jwtUtil).generateToken(anyString(), anyString(), anyString(), eq("USER"));
     }
 
@@ -143,8 +158,8 @@ class AuthServiceTest {
         // Given
         when(keycloakAuthService.authenticateUser(anyString(), anyString()))
                 .thenReturn(tokenResponse);
-        when(keycloakAuthService.getUserByEmail(anyString()))
-                .thenReturn(keycloakUser);
+        when(keycloakTokenVerifier.verify("mock-keycloak-token"))
+                .thenReturn(Optional.of(keycloakClaims));
         when(guestService.getGuestByKeycloakUserId(any(UUID.class)))
                 .thenThrow(new RuntimeException("Guest not found"));
 
@@ -155,85 +170,155 @@ class AuthServiceTest {
     }
 
     @Test
-    @DisplayName("Register - Success with valid data")
-    void register_WithValidData_ReturnsAuthResponse() {
+    @DisplayName("Login - Role comes from verified Keycloak token claims")
+    void login_UsesRoleFromTokenClaims() {
         // Given
-        when(keycloakService.createUser(anyString(), anyString(), anyString(), anyString()))
-                .thenReturn("550e8400-e29b-41d4-a716-446655440000");
-        when(guestService.createGuest(any()))
+        KeycloakTokenClaims staffClaims = new KeycloakTokenClaims(
+                keycloakClaims.userId(), "test@example.com", "John", "Doe",
+                List.of("OFFLINE_ACCESS", "STAFF"), Instant.now().plusSeconds(300));
+        when(keycloakAuthService.authenticateUser(anyString(), anyString()))
+                .thenReturn(tokenResponse);
+        when(keycloakTokenVerifier.verify("mock-keycloak-token"))
+                .thenReturn(Optional.of(staffClaims));
+        when(guestService.getGuestByEmail("test@example.com"))
                 .thenReturn(guestResponse);
         when(jwtUtil.generateToken(anyString(), anyString(), anyString(), anyString()))
                 .thenReturn("mock-jwt-token");
-        when(jwtUtil.getExpirationTime())
-                .thenReturn(86400L);
 
         // When
-        AuthResponse response = authService.register(registerRequest);
+        AuthResponse response = authService.login(loginRequest);
 
         // Then
-        assertNotNull(response);
-        assertEquals("mock-jwt-token", response.accessToken());
-        assertEquals("Bearer", response.tokenType());
-        assertNotNull(response.user());
-        assertEquals("John Doe", response.user().fullName());
-        assertEquals("john@example.com", response.user().email());
-
-        // Verify interactions
-        verify(keycloakService).createUser(
-                eq("john@example.com"),
-                eq("password123"),
-                eq("John"),
-                eq("Doe"));
-        verify(guestService).createGuest(any());
-        verify(jwtUtil).generateToken(anyString(), anyString(), eq("John Doe"), eq("USER"));
+        assertEquals("STAFF", response.user().role());
+        verify(jwtUtil).generateToken(anyString(), anyString(), anyString(), eq("STAFF"));
     }
 
     @Test
-    @DisplayName("Register - Failure when Keycloak user creation fails")
-    void register_WhenKeycloakCreationFails_ThrowsRuntimeException() {
+    @DisplayName("Login - Unverifiable Keycloak token is rejected")
+    void login_WhenTokenVerificationFails_ThrowsBadCredentialsException() {
         // Given
-        when(keycloakService.createUser(anyString(), anyString(), anyString(), anyString()))
-                .thenThrow(new RuntimeException("Keycloak error"));
+        when(keycloakAuthService.authenticateUser(anyString(), anyString()))
+                .thenReturn(tokenResponse);
+        when(keycloakTokenVerifier.verify("mock-keycloak-token"))
+                .thenReturn(Optional.empty());
 
         // When & Then
-        assertThrows(RuntimeException.class, () -> {
-            authService.register(registerRequest);
-        });
-
-        verify(guestService, never()).createGuest(any());
+        assertThrows(BadCredentialsException.class, () -> authService.login(loginRequest));
         verify(jwtUtil, never()).generateToken(anyString(), anyString(), anyString(), anyString());
     }
 
     @Test
-    @DisplayName("Register - Parse full name correctly")
-    void register_ParsesFullNameIntoFirstAndLastName() {
+    @DisplayName("Logout - Revokes token id until token expiry")
+    void logout_WithValidToken_RevokesJti() {
         // Given
-        RegisterRequest requestWithFullName = new RegisterRequest(
-                "John Michael Doe",
-                "john@example.com",
-                "password123",
-                null,
-                null);
+        Instant expiresAt = Instant.now().plusSeconds(600);
+        when(jwtUtil.verify("mock-jwt-token")).thenReturn(Optional.of(
+                new JwtClaims("guest-uuid-123", "test@example.com", "John Doe", "USER", "jti-123", expiresAt)));
+
+        // When
+        authService.logout("mock-jwt-token", "refresh-1");
+
+        // Then
+        verify(tokenRevocationService).revoke("jti-123", expiresAt);
+        verify(refreshTokenService).revoke("refresh-1");
+    }
 
-        when(keycloakService.createUser(anyString(), anyString(), anyString(), anyString()))
-                .thenReturn("550e8400-e29b-41d4-a716-446655440000");
-        when(guestService.createGuest(any()))
+    @Test
+    @DisplayName("Logout - Invalid token is ignored")
+    void logout_WithInvalidToken_DoesNothing() {
+        // Given
+        when(jwtUtil.verify("garbage")).thenReturn(Optional.empty());
+
+        // When
+        authService.logout("garbage", null);
+
+        // Then
+        verifyNoInteractions(tokenRevocationService);
+    }
+
+    @Test
+    @DisplayName("Login - Starts a refresh session for the user")
+    void login_WithValidCredentials_IssuesRefreshToken() {
+        // Given
+        when(keycloakAuthService.authenticateUser(anyString(), anyString()))
+                .thenReturn(tokenResponse);
+        when(keycloakTokenVerifier.verify("mock-keycloak-token"))
+                .thenReturn(Optional.of(keycloakClaims));
+        when(guestService.getGuestByEmail("test@example.com"))
                 .thenReturn(guestResponse);
         when(jwtUtil.generateToken(anyString(), anyString(), anyString(), anyString()))
                 .thenReturn("mock-jwt-token");
-        when(jwtUtil.getExpirationTime())
-                .thenReturn(86400L);
+        when(refreshTokenService.issue(any(UserInfo.class))).thenReturn("refresh-1");
+
+        // When
+        AuthResponse response = authService.login(loginRequest);
+
+        // Then
+        assertEquals("refresh-1", response.refreshToken());
+        verify(refreshTokenService).issue(new UserInfo("guest-uuid-123", "John Doe", "test@example.com", "USER"));
+    }
+
+    @Test
+    @DisplayName("Refresh - Mints access token from the session without Keycloak")
+    void refresh_WithValidToken_MintsTokenLocally() {
+        // Given
+        RefreshTokenService.RefreshSession session = new RefreshTokenService.RefreshSession(
+                "guest-uuid-123", "test@example.com", "John Doe", "USER", "family-1");
+        when(refreshTokenService.rotate("refresh-1"))
+                .thenReturn(new RefreshTokenService.Rotation(session, "refresh-2"));
+        when(jwtUtil.generateToken("guest-uuid-123", "test@example.com", "John Doe", "USER"))
+                .thenReturn("new-jwt-token");
+        when(jwtUtil.getExpirationTime()).thenReturn(900L);
+
+        // When
+        AuthResponse response = authService.refresh("refresh-1");
+
+        // Then
+        assertEquals("new-jwt-token", response.accessToken());
+        assertEquals("refresh-2", response.refreshToken());
+        assertEquals(900L, response.expiresIn());
+        assertEquals("guest-uuid-123", response.user().id());
+        verifyNoInteractions(keycloakAuthService, keycloakTokenVerifier);
+    }
+
+    @Test
+    @DisplayName("Refresh - Rejected refresh token propagates")
+    void refresh_WithReusedToken_ThrowsBadCredentialsException() {
+        // Given
+        when(refreshTokenService.rotate("reused")).thenThrow(new BadCredentialsException("reused"));
+
+        // When & Then
+        assertThrows(BadCredentialsException.class, () -> authService.refresh("reused"));
+        verify(jwtUtil, never()).generateToken(anyString(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Register - Starts a registration saga and returns immediately")
+    void register_StartsSaga_ReturnsPendingRegistration() {
+        // Given
+        RegistrationStatusResponse pending = new RegistrationStatusResponse(
+                UUID.randomUUID(), "PENDING", "Registration is being processed");
+        when(registrationSagaService.start(registerRequest)).thenReturn(pending);
 
         // When
-        authService.register(requestWithFullName);
+        RegistrationStatusResponse response = authService.register(registerRequest);
 
         // Then
-        verify(keycloakService).createUser(
-                anyString(),
-                anyString(),
-                eq("John"),
-                eq("Michael Doe") // lastName should be everything after first name
-        );
+        assertEquals(pending, response);
+        verifyNoInteractions(keycloakAuthService, guestService, jwtUtil);
+    }
+
+    @Test
+    @DisplayName("Register - Status lookup delegates to the saga")
+    void getRegistrationStatus_DelegatesToSaga() {
+        // Given
+        UUID registrationId = UUID.randomUUID();
+        RegistrationStatusResponse completed = new RegistrationStatusResponse(
+                registrationId, "COMPLETED", "Registration completed. You can now log in.");
+        when(registrationSagaService.getStatus(registrationId)).thenReturn(completed);
+
+        // When & Then
+        assertEquals(completed, authService.getRegistrationStatus(registrationId));
     }
 
     @Test
@@ -261,36 +346,4 @@ class AuthServiceTest {
         verify(jwtUtil).extractFullName(token);
         verify(jwtUtil).extractRole(token);
     }
-
-    @Test
-    @DisplayName("Register - Handle single name (no last name)")
-    void register_WithSingleName_UsesEmptyLastName() {
-        // Given
-        RegisterRequest singleNameRequest = new RegisterRequest(
-                "Madonna",
-                "madonna@example.com",
-                "password123",
-                null,
-                null);
-
-        when(keycloakService.createUser(anyString(), anyString(), anyString(), anyString()))
-                .thenReturn("550e8400-e29b-41d4-a716-446655440000");
-        when(guestService.createGuest(any()))
-                .thenReturn(guestResponse);
-        when(jwtUtil.generateToken(anyString(), anyString(), anyString(), anyString()))
-                .thenReturn("mock-jwt-token");
-        when(jwtUtil.getExpirationTime())
-                .thenReturn(86400L);
-
-        // When
-        authService.register(singleNameRequest);
-
-        // Then
-        verify(keycloakService).createUser(
-                anyString(),
-                anyString(),
-                eq("Madonna"),
-                eq("") // Empty last name
-        );
-    }
 }
@@ -0,0 +1,127 @@
+package com.hotelmanagement.quanlikhachsan.services.auth;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotelmanagement.quanlikhachsan.dto.response.auth.UserInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for RefreshTokenService
+ * Redis is mocked; tests cover issuing, rotation and reuse detection
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RefreshTokenService Tests")
+class RefreshTokenServiceTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private RefreshTokenService refreshTokenService;
+    private String sessionJson;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        refreshTokenService = new RefreshTokenService(stringRedisTemplate, objectMapper);
+        ReflectionTestUtils.setField(refreshTokenService, "refreshExpiration", 604_800_000L);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        sessionJson = objectMapper.writeValueAsString(new RefreshTokenService.RefreshSession(
+                "guest-uuid-123", "test@example.com", "John Doe", "USER", "family-1"));
+    }
+
+    @Test
+    @DisplayName("Issue - Stores only the hash of the token with the session lifetime")
+    void issue_StoresHashedToken() {
+        // When
+        String token = refreshTokenService.issue(new UserInfo("guest-uuid-123", "John Doe", "test@example.com", "USER"));
+
+        // Then
+        ArgumentCaptor<String> key = ArgumentCaptor.forClass(String.class);
+        verify(valueOperations).set(startsWith("auth:refresh:family:"), eq("guest-uuid-123"),
+                eq(Duration.ofDays(7)));
+        verify(valueOperations).set(key.capture(), contains("\"familyId\""), eq(Duration.ofDays(7)));
+        assertFalse(key.getValue().contains(token));
+        assertEquals("auth:refresh:".length() + 64, key.getValue().length());
+    }
+
+    @Test
+    @DisplayName("Rotate - Consumes the token and issues a successor in the same family")
+    void rotate_WithValidToken_ReturnsNewToken() {
+        // Given
+        when(valueOperations.getAndDelete(startsWith("auth:refresh:"))).thenReturn(sessionJson);
+        when(stringRedisTemplate.getExpire("auth:refresh:family:family-1", TimeUnit.MILLISECONDS))
+                .thenReturn(60_000L);
+
+        // When
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate("refresh-1");
+
+        // Then
+        assertNotEquals("refresh-1", rotation.refreshToken());
+        assertEquals("family-1", rotation.session().familyId());
+        assertEquals("guest-uuid-123", rotation.session().userId());
+        verify(valueOperations).set(startsWith("auth:refresh:used:"), eq("family-1"), eq(Duration.ofMillis(60_000)));
+        verify(valueOperations).set(argThat(key -> !key.startsWith("auth:refresh:used:")), anyString(),
+                eq(Duration.ofMillis(60_000)));
+    }
+
+    @Test
+    @DisplayName("Rotate - Reusing a consumed token revokes the whole family")
+    void rotate_WithReusedToken_RevokesFamily() {
+        // Given
+        when(valueOperations.getAndDelete(anyString())).thenReturn(null);
+        when(valueOperations.get(startsWith("auth:refresh:used:"))).thenReturn("family-1");
+
+        // When & Then
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate("refresh-1"));
+        verify(stringRedisTemplate).delete("auth:refresh:family:family-1");
+        verify(valueOperations, never()).set(anyString(), anyString(), any(Duration.class));
+    }
+
+    @Test
+    @DisplayName("Rotate - Token from a revoked family is rejected")
+    void rotate_WithRevokedFamily_ThrowsBadCredentialsException() {
+        // Given
+        when(valueOperations.getAndDelete(anyString())).thenReturn(sessionJson);
+        when(stringRedisTemplate.getExpire("auth:refresh:family:family-1", TimeUnit.MILLISECONDS))
+                .thenReturn(-2L);
+
+        // When & Then
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate("refresh-1"));
+        verify(valueOperations, never()).set(anyString(), anyString(), any(Duration.class));
+    }
+
+    @Test
+    @DisplayName("Revoke - Deletes the session family")
+    void revoke_WithKnownToken_DeletesFamily() {
+        // Given
+        when(valueOperations.getAndDelete(anyString())).thenReturn(sessionJson);
+
+        // When
+        refreshTokenService.revoke("refresh-1");
+
+        // Then
+        verify(stringRedisTemplate).delete("auth:refresh:family:family-1");
+    }
+}
@@ -0,0 +1,216 @@
+package com.hotelmanagement.quanlikhachsan.services.auth;
+
+import com.hotelmanagement.quanlikhachsan.dto.request.guest.GuestRequest;
+import com.hotelmanagement.quanlikhachsan.dto.response.guest.GuestResponse;
+import com.hotelmanagement.quanlikhachsan.exception.ErrorDefinition;
+import com.hotelmanagement.quanlikhachsan.model.auth.RegistrationSaga;
+import com.hotelmanagement.quanlikhachsan.model.auth.RegistrationSagaStatus;
+import com.hotelmanagement.quanlikhachsan.repository.RegistrationSagaRepository;
+import com.hotelmanagement.quanlikhachsan.services.guest.IGuestService;
+import com.hotelmanagement.quanlikhachsan.services.keycloak.IKeycloakService;
+import com.hotelmanagement.quanlikhachsan.util.SecretCipher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for RegistrationSagaWorker
+ * Keycloak, guest service and repository are mocked; transactions run against a mocked manager
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RegistrationSagaWorker Tests")
+class RegistrationSagaWorkerTest {
+
+    private static final String KEYCLOAK_USER_ID = "550e8400-e29b-41d4-a716-446655440000";
+    private static final String GUEST_ID = "6f1c3a52-8f0e-4b4e-9d7a-2b9a1d3c4e5f";
+
+    @Mock
+    private RegistrationSagaRepository sagaRepository;
+
+    @Mock
+    private IKeycloakService keycloakService;
+
+    @Mock
+    private IGuestService guestService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SecretCipher secretCipher = new SecretCipher("test-secret");
+    private RegistrationSagaWorker worker;
+    private RegistrationSaga saga;
+
+    @BeforeEach
+    void setUp() {
+        worker = new RegistrationSagaWorker(sagaRepository, keycloakService, guestService, secretCipher,
+                new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(worker, "maxAttempts", 3);
+        ReflectionTestUtils.setField(worker, "backoffMillis", 1000L);
+        ReflectionTestUtils.setField(worker, "maxBackoffMillis", 60_000L);
+
+        saga = RegistrationSaga.builder()
+                .id(UUID.randomUUID())
+                .email("john@example.com")
+                .fullName("John Michael Doe")
+                .phone("0123456789")
+                .passwordCiphertext(secretCipher.encrypt("password123"))
+                .status(RegistrationSagaStatus.PENDING)
+                .nextAttemptAt(LocalDateTime.now())
+                .build();
+    }
+
+    @Test
+    @DisplayName("Advance - Creates Keycloak user and guest, then completes")
+    void advance_HappyPath_Completes() {
+        // Given
+        when(keycloakService.findUserIdByEmail("john@example.com")).thenReturn(Optional.empty());
+        when(keycloakService.createUser("john@example.com", "password123", "John", "Michael Doe"))
+                .thenReturn(KEYCLOAK_USER_ID);
+        when(guestService.createGuest(any(GuestRequest.class))).thenReturn(guestResponse());
+
+        // When
+        worker.advance(saga);
+
+        // Then
+        assertEquals(RegistrationSagaStatus.COMPLETED, saga.getStatus());
+        assertEquals(UUID.fromString(GUEST_ID), saga.getGuestId());
+        assertNull(saga.getPasswordCiphertext());
+
+        ArgumentCaptor<GuestRequest> guestRequest = ArgumentCaptor.forClass(GuestRequest.class);
+        verify(guestService).createGuest(guestRequest.capture());
+        assertEquals(UUID.fromString(KEYCLOAK_USER_ID), guestRequest.getValue().keycloakUserId());
+        verify(keycloakService, never()).deleteUser(anyString());
+    }
+
+    @Test
+    @DisplayName("Advance - Guest insert failure deletes the Keycloak user")
+    void advance_GuestInsertFails_CompensatesKeycloakUser() {
+        // Given
+        when(keycloakService.findUserIdByEmail("john@example.com")).thenReturn(Optional.empty());
+        when(keycloakService.createUser(anyString(), anyString(), anyString(), anyString()))
+                .thenReturn(KEYCLOAK_USER_ID);
+        when(guestService.createGuest(any(GuestRequest.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key value violates unique constraint"));
+
+        // When
+        worker.advance(saga);
+
+        // Then
+        assertEquals(RegistrationSagaStatus.COMPENSATING, saga.getStatus());
+        assertNull(saga.getGuestId());
+
+        // When - next poll runs the compensation
+        worker.advance(saga);
+
+        // Then
+        verify(keycloakService).deleteUser(KEYCLOAK_USER_ID);
+        assertEquals(RegistrationSagaStatus.FAILED, saga.getStatus());
+    }
+
+    @Test
+    @DisplayName("Advance - Keycloak outage schedules a retry with backoff")
+    void advance_KeycloakUnavailable_SchedulesRetry() {
+        // Given
+        when(keycloakService.findUserIdByEmail("john@example.com"))
+                .thenThrow(new RuntimeException("Connection refused"));
+
+        // When
+        worker.advance(saga);
+
+        // Then
+        assertEquals(RegistrationSagaStatus.PENDING, saga.getStatus());
+        assertEquals(1, saga.getAttempts());
+        assertTrue(saga.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        assertNotNull(saga.getPasswordCiphertext());
+        verify(keycloakService, never()).createUser(anyString(), anyString(), anyString(), anyString());
+        verify(sagaRepository).save(saga);
+    }
+
+    @Test
+    @DisplayName("Advance - Existing Keycloak account is never adopted or deleted")
+    void advance_EmailAlreadyInKeycloak_FailsWithoutCompensation() {
+        // Given
+        when(keycloakService.findUserIdByEmail("john@example.com")).thenReturn(Optional.of(KEYCLOAK_USER_ID));
+
+        // When
+        worker.advance(saga);
+
+        // Then
+        assertEquals(RegistrationSagaStatus.FAILED, saga.getStatus());
+        assertNull(saga.getPasswordCiphertext());
+        verify(keycloakService, never()).createUser(anyString(), anyString(), anyString(), anyString());
+        verify(keycloakService, never()).deleteUser(anyString());
+    }
+
+    @Test
+    @DisplayName("Advance - Retry adopts the user an earlier attempt created")
+    void advance_RetryAfterLostResponse_AdoptsKeycloakUser() {
+        // Given
+        saga.setKeycloakRequestedAt(LocalDateTime.now().minusMinutes(1));
+        saga.setAttempts(1);
+        when(keycloakService.findUserIdByEmail("john@example.com")).thenReturn(Optional.of(KEYCLOAK_USER_ID));
+        when(guestService.createGuest(any(GuestRequest.class))).thenReturn(guestResponse());
+
+        // When
+        worker.advance(saga);
+
+        // Then
+        assertEquals(RegistrationSagaStatus.COMPLETED, saga.getStatus());
+        assertEquals(UUID.fromString(KEYCLOAK_USER_ID), saga.getKeycloakUserId());
+        verify(keycloakService, never()).createUser(anyString(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Advance - Conflict on create fails without adopting or deleting the user")
+    void advance_CreateConflicts_FailsWithoutCompensation() {
+        // Given
+        when(keycloakService.findUserIdByEmail("john@example.com")).thenReturn(Optional.empty());
+        when(keycloakService.createUser(anyString(), anyString(), anyString(), anyString()))
+                .thenThrow(ErrorDefinition.EMAIL_ALREADY_REGISTERED.toAppError());
+
+        // When
+        worker.advance(saga);
+
+        // Then
+        assertEquals(RegistrationSagaStatus.FAILED, saga.getStatus());
+        assertNull(saga.getKeycloakRequestedAt());
+        assertNull(saga.getPasswordCiphertext());
+        verify(keycloakService, never()).deleteUser(anyString());
+    }
+
+    @Test
+    @DisplayName("SplitName - Single name has an empty last name")
+    void splitName_WithSingleName_ReturnsEmptyLastName() {
+        // When
+        String[] nameParts = RegistrationSagaWorker.splitName("  John ");
+
+        // Then
+        assertArrayEquals(new String[] { "John", "" }, nameParts);
+    }
+
+    private static GuestResponse guestResponse() {
+        return new GuestResponse(
+                GUEST_ID,
+                "John Michael Doe",
+                UUID.fromString(KEYCLOAK_USER_ID),
+                LocalDateTime.now(),
+                LocalDateTime.now());
+    }
+}
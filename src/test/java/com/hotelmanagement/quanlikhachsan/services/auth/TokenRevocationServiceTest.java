@@ -0,0 +1,143 @@
+package com.hotelmanagement.quanlikhachsan.services.auth;
+
+import com.hotelmanagement.quanlikhachsan.util.BloomFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TokenRevocationService
+ * Redis is mocked; the Bloom filter is real
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TokenRevocationService Tests")
+class TokenRevocationServiceTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @InjectMocks
+    private TokenRevocationService revocationService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(revocationService, "expectedInsertions", 1_000L);
+        ReflectionTestUtils.setField(revocationService, "falsePositiveRate", 0.001);
+        ReflectionTestUtils.setField(revocationService, "bloomFilter", new BloomFilter(1_000, 0.001));
+        ReflectionTestUtils.setField(revocationService, "loaded", true);
+    }
+
+    @Test
+    @DisplayName("Is Revoked - Unknown token id never reaches Redis")
+    void isRevoked_WithUnrevokedToken_SkipsRedis() {
+        // When
+        boolean revoked = revocationService.isRevoked("never-revoked");
+
+        // Then
+        assertFalse(revoked);
+        verifyNoInteractions(stringRedisTemplate);
+    }
+
+    @Test
+    @DisplayName("Revoke - Stores jti with remaining TTL and broadcasts it")
+    void revoke_StoresKeyWithRemainingLifetime() {
+        // Given
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(stringRedisTemplate.hasKey("auth:revoked:jti-1")).thenReturn(true);
+
+        // When
+        revocationService.revoke("jti-1", Instant.now().plusSeconds(600));
+
+        // Then
+        verify(valueOperations).set(eq("auth:revoked:jti-1"), eq("1"), any(Duration.class));
+        verify(stringRedisTemplate).convertAndSend("auth:revoked", "jti-1");
+        assertTrue(revocationService.isRevoked("jti-1"));
+    }
+
+    @Test
+    @DisplayName("Revoke - Already expired token is ignored")
+    void revoke_WithExpiredToken_DoesNothing() {
+        // When
+        revocationService.revoke("jti-old", Instant.now().minusSeconds(1));
+
+        // Then
+        verifyNoInteractions(stringRedisTemplate);
+    }
+
+    @Test
+    @DisplayName("Is Revoked - Redis failure on a Bloom hit rejects the token")
+    void isRevoked_WhenRedisFailsOnBloomHit_ReturnsTrue() {
+        // Given
+        ReflectionTestUtils.invokeMethod(revocationService, "remember", "jti-2");
+        when(stringRedisTemplate.hasKey(anyString())).thenThrow(new RuntimeException("Redis down"));
+
+        // When & Then
+        assertTrue(revocationService.isRevoked("jti-2"));
+    }
+
+    @Test
+    @DisplayName("Is Revoked - Until the filter has loaded every token is checked in Redis")
+    void isRevoked_BeforeFilterLoaded_ChecksRedis() {
+        // Given
+        ReflectionTestUtils.setField(revocationService, "loaded", false);
+        when(stringRedisTemplate.hasKey("auth:revoked:jti-3")).thenReturn(true);
+
+        // When & Then
+        assertTrue(revocationService.isRevoked("jti-3"));
+    }
+
+    @Test
+    @DisplayName("On Channel Subscribed - Checks go to Redis until the filter is rebuilt")
+    void onChannelSubscribed_FallsBackToRedisUntilRebuilt() {
+        // Given
+        when(stringRedisTemplate.hasKey("auth:revoked:jti-4")).thenReturn(true);
+
+        // When
+        revocationService.onChannelSubscribed("auth:revoked".getBytes(), 1);
+
+        // Then
+        assertTrue(revocationService.isRevoked("jti-4"));
+        assertEquals(false, ReflectionTestUtils.getField(revocationService, "loaded"));
+    }
+
+    @Test
+    @DisplayName("Rebuild - Failed startup load is retried after its backoff")
+    void rebuild_WhenScanFailsBeforeLoad_RetriesAfterBackoff() {
+        // Given
+        ReflectionTestUtils.setField(revocationService, "loaded", false);
+        ReflectionTestUtils.setField(revocationService, "retryBackoffMillis", 60_000L);
+        ReflectionTestUtils.setField(revocationService, "maxRetryBackoffMillis", 60_000L);
+        when(stringRedisTemplate.scan(any())).thenThrow(new RuntimeException("Redis down"));
+        revocationService.rebuild();
+
+        // When
+        revocationService.retryLoad();
+
+        // Then
+        verify(stringRedisTemplate, times(1)).scan(any());
+        assertEquals(false, ReflectionTestUtils.getField(revocationService, "loaded"));
+    }
+}
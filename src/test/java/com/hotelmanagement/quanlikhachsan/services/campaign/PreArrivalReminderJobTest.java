@@ -0,0 +1,208 @@
+package com.hotelmanagement.quanlikhachsan.services.campaign;
+
+import com.hotelmanagement.quanlikhachsan.model.campaign.CampaignRun;
+import com.hotelmanagement.quanlikhachsan.model.campaign.CampaignRunStatus;
+import com.hotelmanagement.quanlikhachsan.model.email.EmailOutboxMessage;
+import com.hotelmanagement.quanlikhachsan.model.reservation.ReservationStatus;
+import com.hotelmanagement.quanlikhachsan.repository.CampaignRunRepository;
+import com.hotelmanagement.quanlikhachsan.repository.EmailOutboxRepository;
+import com.hotelmanagement.quanlikhachsan.repository.ReservationRepository;
+import com.hotelmanagement.quanlikhachsan.repository.ReservationRoomRepository;
+import com.hotelmanagement.quanlikhachsan.repository.UpcomingArrival;
+import com.hotelmanagement.quanlikhachsan.services.email.EmailService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for PreArrivalReminderJob
+ * Repositories and EmailService are mocked; one chunk is processed per test
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PreArrivalReminderJob Tests")
+class PreArrivalReminderJobTest {
+
+    @Mock
+    private CampaignRunRepository campaignRunRepository;
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @Mock
+    private ReservationRoomRepository reservationRoomRepository;
+
+    @Mock
+    private EmailOutboxRepository outboxRepository;
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PreArrivalReminderJob job;
+    private LocalDate arrivalDate;
+    private CampaignRun run;
+
+    @BeforeEach
+    void setUp() {
+        job = new PreArrivalReminderJob(campaignRunRepository, reservationRepository, reservationRoomRepository,
+                outboxRepository, emailService, new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(job, "enabled", true);
+        ReflectionTestUtils.setField(job, "daysBefore", 3);
+        ReflectionTestUtils.setField(job, "chunkSize", 2);
+        ReflectionTestUtils.setField(job, "sendRatePerMinute", 60);
+
+        arrivalDate = LocalDate.now().plusDays(3);
+        run = CampaignRun.builder()
+                .id(UUID.randomUUID())
+                .campaign(PreArrivalReminderJob.CAMPAIGN)
+                .targetDate(arrivalDate)
+                .status(CampaignRunStatus.RUNNING)
+                .startedAt(LocalDateTime.now())
+                .build();
+        when(campaignRunRepository.findByCampaignAndTargetDate(PreArrivalReminderJob.CAMPAIGN, arrivalDate))
+                .thenReturn(Optional.of(run));
+    }
+
+    @Test
+    @DisplayName("ProcessChunk - Queues one email per arrival and moves the cursor")
+    @SuppressWarnings("unchecked")
+    void processChunk_Arrivals_QueuesAndCheckpoints() {
+        // Given
+        UUID firstId = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        UUID secondId = UUID.fromString("00000000-0000-0000-0000-000000000002");
+        when(reservationRepository.findArrivalsAfter(ReservationStatus.CONFIRMED, arrivalDate, new UUID(0, 0),
+                Limit.of(2))).thenReturn(List.of(arrival(firstId, "ann@example.com"), arrival(secondId, "bob@example.com")));
+        when(emailService.buildPreArrivalReminder(anyString(), anyString(), anyString(), anyString(), anyString(),
+                anyString(), anyLong(), any(), anyString())).thenAnswer(invocation -> EmailOutboxMessage.builder()
+                        .recipient(invocation.getArgument(0))
+                        .nextAttemptAt(invocation.getArgument(7))
+                        .dedupeKey(invocation.getArgument(8))
+                        .build());
+
+        // When
+        boolean more = job.processChunk(arrivalDate);
+
+        // Then
+        assertTrue(more);
+        ArgumentCaptor<List<EmailOutboxMessage>> queued = ArgumentCaptor.forClass(List.class);
+        verify(emailService).enqueueAll(queued.capture());
+        assertEquals(2, queued.getValue().size());
+        // 60 per minute: one second apart
+        assertEquals(queued.getValue().get(0).getNextAttemptAt().plusSeconds(1),
+                queued.getValue().get(1).getNextAttemptAt());
+        assertEquals(secondId, run.getLastReservationId());
+        assertEquals(2, run.getEnqueued());
+        verify(campaignRunRepository).save(run);
+    }
+
+    @Test
+    @DisplayName("ProcessChunk - Resumes after the checkpoint and skips already queued emails")
+    void processChunk_Resumed_SkipsQueued() {
+        // Given
+        UUID lastDone = UUID.randomUUID();
+        UUID next = UUID.randomUUID();
+        run.setLastReservationId(lastDone);
+        run.setEnqueued(500);
+        when(reservationRepository.findArrivalsAfter(ReservationStatus.CONFIRMED, arrivalDate, lastDone, Limit.of(2)))
+                .thenReturn(List.of(arrival(next, "cat@example.com")));
+        when(outboxRepository.findExistingDedupeKeys(any()))
+                .thenReturn(List.of(PreArrivalReminderJob.CAMPAIGN + ":" + arrivalDate + ":" + next));
+
+        // When
+        job.processChunk(arrivalDate);
+
+        // Then
+        verify(emailService, never()).buildPreArrivalReminder(anyString(), anyString(), anyString(), anyString(),
+                anyString(), anyString(), anyLong(), any(), anyString());
+        verify(emailService, never()).enqueueAll(any());
+        assertEquals(next, run.getLastReservationId());
+        assertEquals(500, run.getEnqueued());
+    }
+
+    @Test
+    @DisplayName("ProcessChunk - No arrivals left completes the run")
+    void processChunk_NoneLeft_CompletesRun() {
+        // Given
+        when(reservationRepository.findArrivalsAfter(eq(ReservationStatus.CONFIRMED), eq(arrivalDate), any(), any()))
+                .thenReturn(List.of());
+
+        // When
+        boolean more = job.processChunk(arrivalDate);
+
+        // Then
+        assertFalse(more);
+        assertEquals(CampaignRunStatus.COMPLETED, run.getStatus());
+        assertNotNull(run.getCompletedAt());
+        verify(emailService, never()).enqueueAll(any());
+    }
+
+    @Test
+    @DisplayName("ProcessChunk - Completed run does no work")
+    void processChunk_AlreadyCompleted_ReturnsFalse() {
+        // Given
+        run.setStatus(CampaignRunStatus.COMPLETED);
+
+        // When
+        boolean more = job.processChunk(arrivalDate);
+
+        // Then
+        assertFalse(more);
+        verifyNoInteractions(reservationRepository, emailService);
+    }
+
+    private static UpcomingArrival arrival(UUID reservationId, String email) {
+        return new Arrival(reservationId, LocalDate.now().plusDays(3), LocalDate.now().plusDays(5), email, "Guest");
+    }
+
+    private record Arrival(UUID reservationId, LocalDate checkIn, LocalDate checkOut, String email, String fullName)
+            implements UpcomingArrival {
+
+        @Override
+        public UUID getReservationId() {
+            return reservationId;
+        }
+
+        @Override
+        public LocalDate getCheckIn() {
+            return checkIn;
+        }
+
+        @Override
+        public LocalDate getCheckOut() {
+            return checkOut;
+        }
+
+        @Override
+        public String getEmail() {
+            return email;
+        }
+
+        @Override
+        public String getFullName() {
+            return fullName;
+        }
+    }
+}
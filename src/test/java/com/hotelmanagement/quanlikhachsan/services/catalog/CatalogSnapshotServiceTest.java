@@ -0,0 +1,152 @@
+package com.hotelmanagement.quanlikhachsan.services.catalog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.ByteArrayInputStream;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogSnapshotServiceTest {
+
+    @Mock
+    private CatalogVersionService catalogVersionService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private CatalogSnapshotService snapshotService;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        snapshotService = new CatalogSnapshotService(catalogVersionService, objectMapper);
+        loads = new AtomicInteger();
+    }
+
+    private List<String> load() {
+        loads.incrementAndGet();
+        return List.of("101", "102");
+    }
+
+    @Test
+    @DisplayName("Snapshot is reused until the catalog version changes")
+    void snapshot_RebuildsOnlyOnVersionChange() {
+        // Given
+        when(catalogVersionService.current(any(CatalogAggregate[].class)))
+                .thenReturn(new CatalogVersion("\"a-1\"", Instant.EPOCH))
+                .thenReturn(new CatalogVersion("\"a-1\"", Instant.EPOCH))
+                .thenReturn(new CatalogVersion("\"a-2\"", Instant.EPOCH));
+
+        // When
+        var first = snapshotService.snapshot("rooms:all", this::load, CatalogAggregate.ROOMS);
+        var second = snapshotService.snapshot("rooms:all", this::load, CatalogAggregate.ROOMS);
+        var third = snapshotService.snapshot("rooms:all", this::load, CatalogAggregate.ROOMS);
+
+        // Then
+        assertSame(first, second);
+        assertNotSame(second, third);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Gzip body is served only when the client accepts it")
+    void respond_NegotiatesGzip() throws Exception {
+        // Given
+        when(catalogVersionService.current(any(CatalogAggregate[].class)))
+                .thenReturn(new CatalogVersion("\"a-1\"", Instant.EPOCH));
+        MockHttpServletRequest plain = new MockHttpServletRequest();
+        MockHttpServletRequest gzip = new MockHttpServletRequest();
+        gzip.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+
+        // When
+        ResponseEntity<byte[]> plainResponse = snapshotService.respond("rooms:all",
+                new ServletWebRequest(plain), this::load, CatalogAggregate.ROOMS);
+        ResponseEntity<byte[]> gzipResponse = snapshotService.respond("rooms:all",
+                new ServletWebRequest(gzip), this::load, CatalogAggregate.ROOMS);
+
+        // Then
+        assertNull(plainResponse.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("gzip", gzipResponse.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, gzipResponse.getHeaders().getFirst(HttpHeaders.VARY));
+
+        byte[] inflated;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipResponse.getBody()))) {
+            inflated = in.readAllBytes();
+        }
+        assertArrayEquals(plainResponse.getBody(), inflated);
+
+        JsonNode json = objectMapper.readTree(plainResponse.getBody());
+        assertTrue(json.get("success").asBoolean());
+        assertEquals("102", json.get("data").get(1).asText());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @DisplayName("Gzip refused with q=0 gets the identity body")
+    void respond_GzipQualityZero_ServesIdentity() {
+        // Given
+        when(catalogVersionService.current(any(CatalogAggregate[].class)))
+                .thenReturn(new CatalogVersion("\"a-1\"", Instant.EPOCH));
+        MockHttpServletRequest refused = new MockHttpServletRequest();
+        refused.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, identity");
+        MockHttpServletRequest wildcard = new MockHttpServletRequest();
+        wildcard.addHeader(HttpHeaders.ACCEPT_ENCODING, "br, *;q=0.5");
+
+        // When
+        ResponseEntity<byte[]> refusedResponse = snapshotService.respond("rooms:all",
+                new ServletWebRequest(refused), this::load, CatalogAggregate.ROOMS);
+        ResponseEntity<byte[]> wildcardResponse = snapshotService.respond("rooms:all",
+                new ServletWebRequest(wildcard), this::load, CatalogAggregate.ROOMS);
+
+        // Then
+        assertNull(refusedResponse.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("gzip", wildcardResponse.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    @DisplayName("Gzip and identity bodies carry different ETags")
+    void checkNotModified_EtagPerEncoding() {
+        // Given
+        when(catalogVersionService.current(any(CatalogAggregate[].class)))
+                .thenReturn(new CatalogVersion("\"a-1\"", Instant.EPOCH));
+        MockHttpServletRequest gzip = new MockHttpServletRequest("GET", "/api/v1/rooms");
+        gzip.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        gzip.addHeader(HttpHeaders.IF_NONE_MATCH, "\"a-1\"");
+        MockHttpServletResponse gzipResponse = new MockHttpServletResponse();
+        MockHttpServletRequest revalidate = new MockHttpServletRequest("GET", "/api/v1/rooms");
+        revalidate.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        revalidate.addHeader(HttpHeaders.IF_NONE_MATCH, "\"a-1-gz\"");
+        MockHttpServletResponse revalidateResponse = new MockHttpServletResponse();
+
+        // When
+        boolean gzipNotModified = snapshotService.checkNotModified(
+                new ServletWebRequest(gzip, gzipResponse), CatalogAggregate.ROOMS);
+        boolean revalidateNotModified = snapshotService.checkNotModified(
+                new ServletWebRequest(revalidate, revalidateResponse), CatalogAggregate.ROOMS);
+
+        // Then
+        assertFalse(gzipNotModified);
+        assertEquals("\"a-1-gz\"", gzipResponse.getHeader(HttpHeaders.ETAG));
+        assertTrue(revalidateNotModified);
+        assertEquals(304, revalidateResponse.getStatus());
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, revalidateResponse.getHeader(HttpHeaders.VARY));
+    }
+}
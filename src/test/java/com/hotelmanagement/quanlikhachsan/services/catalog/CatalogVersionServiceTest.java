@@ -0,0 +1,105 @@
+package com.hotelmanagement.quanlikhachsan.services.catalog;
+
+import com.hotelmanagement.quanlikhachsan.repository.RoomRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CatalogVersionService Tests")
+class CatalogVersionServiceTest {
+
+    @Mock
+    private RoomRepository roomRepository;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private CatalogVersionService versionService;
+
+    @BeforeEach
+    void setUp() {
+        versionService = new CatalogVersionService(roomRepository, stringRedisTemplate);
+        lenient().when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @Test
+    @DisplayName("Init - Rooms Last-Modified is seeded from the database only if absent")
+    void init_SeedsRoomsFromDatabase() {
+        // Given
+        LocalDateTime updatedAt = LocalDateTime.of(2026, 1, 2, 3, 4, 5);
+        when(roomRepository.findLatestUpdatedAt()).thenReturn(Optional.of(updatedAt));
+
+        // When
+        versionService.init();
+
+        // Then
+        verify(valueOperations).setIfAbsent(CatalogVersionService.MODIFIED_PREFIX + "ROOMS",
+                Long.toString(updatedAt.atZone(ZoneId.systemDefault()).toEpochSecond()));
+        verify(valueOperations).setIfAbsent(eq(CatalogVersionService.MODIFIED_PREFIX + "ROOM_TYPES"), anyString());
+    }
+
+    @Test
+    @DisplayName("Current - Stamp is built from the Redis versions")
+    void current_CombinesRedisValues() {
+        // Given
+        when(valueOperations.multiGet(List.of(
+                "catalog:version:ROOMS", "catalog:modified:ROOMS",
+                "catalog:version:ROOM_TYPES", "catalog:modified:ROOM_TYPES")))
+                .thenReturn(Arrays.asList("3", "1000", null, "2000"));
+
+        // When
+        CatalogVersion version = versionService.current(CatalogAggregate.ROOMS, CatalogAggregate.ROOM_TYPES);
+
+        // Then
+        assertEquals("\"3.rs-0.1jk\"", version.etag());
+        assertEquals(Instant.ofEpochSecond(2000), version.lastModified());
+    }
+
+    @Test
+    @DisplayName("Current - Unreadable Redis never yields a reusable stamp")
+    void current_RedisDown_ReturnsFreshStamp() {
+        // Given
+        when(valueOperations.multiGet(anyList())).thenThrow(new RedisConnectionFailureException("down"));
+
+        // When
+        CatalogVersion first = versionService.current(CatalogAggregate.ROOMS);
+        CatalogVersion second = versionService.current(CatalogAggregate.ROOMS);
+
+        // Then
+        assertNotEquals(first.etag(), second.etag());
+    }
+
+    @Test
+    @DisplayName("OnCatalogChanged - Bumps the shared version")
+    void onCatalogChanged_IncrementsRedisVersion() {
+        // When
+        versionService.onCatalogChanged(new CatalogChangedEvent(CatalogAggregate.ROOM_STATUSES));
+
+        // Then
+        verify(valueOperations).set(eq("catalog:modified:ROOM_STATUSES"), anyString());
+        verify(valueOperations).increment("catalog:version:ROOM_STATUSES");
+    }
+}
@@ -0,0 +1,211 @@
+package com.hotelmanagement.quanlikhachsan.services.email;
+
+import com.hotelmanagement.quanlikhachsan.model.email.EmailCategory;
+import com.hotelmanagement.quanlikhachsan.model.email.EmailOutboxMessage;
+import com.hotelmanagement.quanlikhachsan.model.email.EmailOutboxStatus;
+import com.hotelmanagement.quanlikhachsan.repository.EmailOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailSendException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for EmailOutboxWorker
+ * SMTP delivery and the repository are mocked
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("EmailOutboxWorker Tests")
+class EmailOutboxWorkerTest {
+
+    @Mock
+    private EmailOutboxRepository outboxRepository;
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private EmailOutboxWorker worker;
+    private EmailOutboxMessage message;
+
+    @BeforeEach
+    void setUp() {
+        worker = new EmailOutboxWorker(outboxRepository, emailService, new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(worker, "concurrency", 4);
+        ReflectionTestUtils.setField(worker, "batchSize", 20);
+        ReflectionTestUtils.setField(worker, "maxAttempts", 3);
+        ReflectionTestUtils.setField(worker, "backoffMillis", 1000L);
+        ReflectionTestUtils.setField(worker, "maxBackoffMillis", 60_000L);
+        ReflectionTestUtils.setField(worker, "domainRatePerSecond", 1.0);
+        ReflectionTestUtils.setField(worker, "domainBurst", 1);
+        worker.init();
+
+        message = outboxMessage("john@example.com");
+    }
+
+    @Test
+    @DisplayName("Process - Successful send marks the message SENT and drops the body")
+    void process_SendSucceeds_MarksSent() {
+        // Given
+        when(emailService.deliverBatch(List.of(message))).thenReturn(Collections.singletonList(null));
+
+        // When
+        worker.processBatch(List.of(message));
+
+        // Then
+        assertEquals(EmailOutboxStatus.SENT, message.getStatus());
+        assertNotNull(message.getSentAt());
+        assertNull(message.getHtmlBody());
+        verify(outboxRepository).save(message);
+    }
+
+    @Test
+    @DisplayName("Process - Transient SMTP failure schedules a retry with backoff")
+    void process_TransientFailure_SchedulesRetry() {
+        // Given
+        when(emailService.deliverBatch(List.of(message)))
+                .thenReturn(List.of(new MailSendException("451 try again later")));
+
+        // When
+        worker.processBatch(List.of(message));
+
+        // Then
+        assertEquals(EmailOutboxStatus.PENDING, message.getStatus());
+        assertEquals(1, message.getAttempts());
+        assertTrue(message.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        assertNotNull(message.getHtmlBody());
+        assertEquals("451 try again later", message.getLastError());
+    }
+
+    @Test
+    @DisplayName("Process - Permanent failure is not retried")
+    void process_PermanentFailure_MarksFailed() {
+        // Given
+        when(emailService.deliverBatch(List.of(message)))
+                .thenReturn(List.of(new MailParseException("Illegal address")));
+
+        // When
+        worker.processBatch(List.of(message));
+
+        // Then
+        assertEquals(EmailOutboxStatus.FAILED, message.getStatus());
+        assertEquals(1, message.getAttempts());
+        assertNull(message.getHtmlBody());
+    }
+
+    @Test
+    @DisplayName("Process - Expired verification email is dropped without sending")
+    void process_Expired_MarksFailedWithoutSending() {
+        // Given
+        message.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+
+        // When
+        worker.processBatch(List.of(message));
+
+        // Then
+        verify(emailService, never()).deliverBatch(any());
+        assertEquals(EmailOutboxStatus.FAILED, message.getStatus());
+    }
+
+    @Test
+    @DisplayName("Process - Domain over its rate is deferred without using an attempt")
+    void process_DomainThrottled_DefersWithoutAttempt() {
+        // Given
+        EmailOutboxMessage second = outboxMessage("jane@example.com");
+        when(emailService.deliverBatch(List.of(message))).thenReturn(Collections.singletonList(null));
+
+        // When
+        worker.processBatch(List.of(message, second));
+
+        // Then
+        verify(emailService).deliverBatch(List.of(message));
+        assertEquals(EmailOutboxStatus.SENT, message.getStatus());
+        assertEquals(EmailOutboxStatus.PENDING, second.getStatus());
+        assertEquals(0, second.getAttempts());
+        assertTrue(second.getNextAttemptAt().isAfter(LocalDateTime.now()));
+    }
+
+    @Test
+    @DisplayName("Poll - Claims a full batch for every free slot")
+    void poll_ClaimsBatchPerSlot() {
+        // Given
+        when(outboxRepository.lockDue(any(), anyInt())).thenReturn(List.of());
+
+        // When
+        worker.poll();
+
+        // Then
+        verify(outboxRepository).lockDue(any(), eq(80));
+    }
+
+    @Test
+    @DisplayName("Split - Short backlog is spread over every slot")
+    void split_ShortBacklog_UsesEverySlot() {
+        // Given
+        List<EmailOutboxMessage> claimed = IntStream.range(0, 8)
+                .mapToObj(i -> outboxMessage("guest" + i + "@example.com"))
+                .toList();
+
+        // When
+        List<List<EmailOutboxMessage>> batches = worker.split(claimed, 4);
+
+        // Then
+        assertEquals(4, batches.size());
+        batches.forEach(batch -> assertEquals(2, batch.size()));
+    }
+
+    @Test
+    @DisplayName("Split - Full backlog fills batches up to the batch size")
+    void split_FullBacklog_FillsBatches() {
+        // Given
+        List<EmailOutboxMessage> claimed = IntStream.range(0, 45)
+                .mapToObj(i -> outboxMessage("guest" + i + "@example.com"))
+                .toList();
+
+        // When
+        List<List<EmailOutboxMessage>> batches = worker.split(claimed, 4);
+
+        // Then
+        assertEquals(List.of(12, 12, 12, 9), batches.stream().map(List::size).toList());
+    }
+
+    @Test
+    @DisplayName("DomainOf - Lower-cases the domain part")
+    void domainOf_MixedCase_ReturnsLowerCaseDomain() {
+        // When & Then
+        assertEquals("gmail.com", EmailService.domainOf("John.Doe@GMail.com"));
+    }
+
+    private static EmailOutboxMessage outboxMessage(String recipient) {
+        return EmailOutboxMessage.builder()
+                .id(UUID.randomUUID())
+                .category(EmailCategory.WELCOME)
+                .recipient(recipient)
+                .recipientDomain(EmailService.domainOf(recipient))
+                .subject("Welcome")
+                .htmlBody("<p>Welcome</p>")
+                .status(EmailOutboxStatus.PENDING)
+                .nextAttemptAt(LocalDateTime.now())
+                .build();
+    }
+}
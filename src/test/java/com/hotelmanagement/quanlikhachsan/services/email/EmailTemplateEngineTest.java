@@ -0,0 +1,94 @@
+package com.hotelmanagement.quanlikhachsan.services.email;
+
+import com.hotelmanagement.quanlikhachsan.services.email.EmailTemplateEngine.RenderedEmail;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for EmailTemplateEngine
+ * Uses the real templates from src/main/resources/templates/email
+ */
+@DisplayName("EmailTemplateEngine Tests")
+class EmailTemplateEngineTest {
+
+    private EmailTemplateEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new EmailTemplateEngine("vi");
+        engine.loadTemplates();
+    }
+
+    @Test
+    @DisplayName("Render - Fills placeholders in subject and body")
+    void render_Verification_FillsPlaceholders() {
+        // When
+        RenderedEmail email = engine.render("verification", Locale.ENGLISH,
+                Map.of("fullName", "John Doe", "otp", "482913", "expirationMinutes", 5));
+
+        // Then
+        assertEquals("🔐 Email Verification - Your OTP Code", email.subject());
+        assertTrue(email.html().contains("Hello <strong>John Doe</strong>"));
+        assertTrue(email.html().contains("482913"));
+        assertTrue(email.html().contains("<strong>5 minutes</strong>"));
+        assertFalse(email.html().contains("{{"));
+    }
+
+    @Test
+    @DisplayName("Render - Unsupported language falls back to the default locale")
+    void render_UnsupportedLocale_UsesDefault() {
+        // When
+        RenderedEmail email = engine.render("welcome", Locale.JAPANESE, Map.of("fullName", "Lan"));
+
+        // Then
+        assertTrue(email.html().contains("Chào mừng, Lan!"));
+        assertTrue(email.html().contains("lang=\"vi\""));
+    }
+
+    @Test
+    @DisplayName("Render - Values are HTML-escaped in the body but not in the subject")
+    void render_MarkupInValues_EscapedInBodyOnly() {
+        // When
+        RenderedEmail email = engine.render("booking-confirmation", Locale.ENGLISH, Map.of(
+                "fullName", "<script>alert(1)</script>",
+                "reservationCode", "AB&CD",
+                "roomInfo", "101",
+                "checkIn", "01/01/2026",
+                "checkOut", "03/01/2026",
+                "totalAmount", "$250.00"));
+
+        // Then
+        assertEquals("Booking confirmed - AB&CD", email.subject());
+        assertTrue(email.html().contains("&lt;script&gt;alert(1)&lt;/script&gt;"));
+        assertTrue(email.html().contains("AB&amp;CD"));
+        assertFalse(email.html().contains("<script>"));
+    }
+
+    @Test
+    @DisplayName("Render - Missing placeholder value is rejected")
+    void render_MissingValue_Throws() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.render("verification", Locale.ENGLISH, Map.of("fullName", "John Doe")));
+    }
+
+    @Test
+    @DisplayName("Render - Consecutive renders reuse the buffer without leaking content")
+    void render_Repeated_DoesNotLeakPreviousContent() {
+        // Given
+        engine.render("welcome", Locale.ENGLISH, Map.of("fullName", "First Guest"));
+
+        // When
+        RenderedEmail email = engine.render("welcome", Locale.ENGLISH, Map.of("fullName", "Second"));
+
+        // Then
+        assertTrue(email.html().startsWith("<!DOCTYPE html>"));
+        assertFalse(email.html().contains("First Guest"));
+    }
+}
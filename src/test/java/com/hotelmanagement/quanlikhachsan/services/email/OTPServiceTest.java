@@ -0,0 +1,131 @@
+package com.hotelmanagement.quanlikhachsan.services.email;
+
+import com.hotelmanagement.quanlikhachsan.exception.email.OTPAttemptsExceededException;
+import com.hotelmanagement.quanlikhachsan.exception.email.OTPExpiredException;
+import com.hotelmanagement.quanlikhachsan.exception.email.ResendCooldownException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for OTPService
+ * Redis is mocked; the Lua scripts' results are stubbed per case
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OTPService Tests")
+class OTPServiceTest {
+
+    private static final String EMAIL = "john@example.com";
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    private OTPService otpService;
+
+    @BeforeEach
+    void setUp() {
+        otpService = new OTPService(stringRedisTemplate);
+        ReflectionTestUtils.setField(otpService, "otpLength", 6);
+        ReflectionTestUtils.setField(otpService, "expirationMinutes", 5L);
+        ReflectionTestUtils.setField(otpService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(otpService, "resendCooldownSeconds", 60L);
+    }
+
+    @Test
+    @DisplayName("GenerateOTP - Stores the code, expiry and cooldown in one script call")
+    @SuppressWarnings("unchecked")
+    void generateOTP_NoCooldown_IssuesCode() {
+        // Given
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(0L);
+
+        // When
+        String otp = otpService.generateOTP(EMAIL);
+
+        // Then
+        assertTrue(otp.matches("\\d{6}"));
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(stringRedisTemplate).execute(any(RedisScript.class), eq(List.of("otp:state:" + EMAIL)), args.capture());
+        assertEquals(otp, args.getValue()[0]);
+        assertEquals("300000", args.getValue()[2]);
+        assertEquals("60000", args.getValue()[3]);
+    }
+
+    @Test
+    @DisplayName("GenerateOTP - Previous OTP within the cooldown is rejected")
+    @SuppressWarnings("unchecked")
+    void generateOTP_InCooldown_Throws() {
+        // Given
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(42_000L);
+
+        // When & Then
+        assertThrows(ResendCooldownException.class, () -> otpService.generateOTP(EMAIL));
+    }
+
+    @Test
+    @DisplayName("ValidateOTP - Matching code returns true")
+    @SuppressWarnings("unchecked")
+    void validateOTP_Verified_ReturnsTrue() {
+        // Given
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(List.of("VERIFIED", 2L));
+
+        // When
+        boolean valid = otpService.validateOTP(EMAIL, "123456");
+
+        // Then
+        assertTrue(valid);
+        verify(stringRedisTemplate).execute(any(RedisScript.class),
+                eq(List.of("otp:state:" + EMAIL, "verified:" + EMAIL)), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("ValidateOTP - Wrong code returns false")
+    @SuppressWarnings("unchecked")
+    void validateOTP_Invalid_ReturnsFalse() {
+        // Given
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(List.of("INVALID", 1L));
+
+        // When & Then
+        assertFalse(otpService.validateOTP(EMAIL, "000000"));
+    }
+
+    @Test
+    @DisplayName("ValidateOTP - Exhausted attempts throw OTPAttemptsExceededException")
+    @SuppressWarnings("unchecked")
+    void validateOTP_Exhausted_Throws() {
+        // Given
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(List.of("EXHAUSTED", 0L));
+
+        // When & Then
+        assertThrows(OTPAttemptsExceededException.class, () -> otpService.validateOTP(EMAIL, "000000"));
+    }
+
+    @Test
+    @DisplayName("ValidateOTP - Missing or expired OTP throws OTPExpiredException")
+    @SuppressWarnings("unchecked")
+    void validateOTP_Missing_Throws() {
+        // Given
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(List.of("MISSING", 0L));
+
+        // When & Then
+        assertThrows(OTPExpiredException.class, () -> otpService.validateOTP(EMAIL, "123456"));
+    }
+}
@@ -0,0 +1,139 @@
+package com.hotelmanagement.quanlikhachsan.services.email;
+
+import com.hotelmanagement.quanlikhachsan.fake.FakeSmtpServer;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for SmtpSessionPool
+ * Sends to the in-process SMTP sink, so connections are real
+ */
+@DisplayName("SmtpSessionPool Tests")
+class SmtpSessionPoolTest {
+
+    private FakeSmtpServer smtp;
+    private JavaMailSenderImpl mailSender;
+    private SmtpSessionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        smtp = new FakeSmtpServer();
+        smtp.start();
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost(smtp.host());
+        mailSender.setPort(smtp.port());
+        pool = new SmtpSessionPool(mailSender, 2, 300_000, 100, 5_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+        smtp.close();
+    }
+
+    @Test
+    @DisplayName("SendBatch - Whole batch goes over one connection")
+    void sendBatch_MultipleMessages_ReusesOneConnection() throws Exception {
+        // When
+        List<MessagingException> results = pool.sendBatch(messages(5));
+
+        // Then
+        assertTrue(results.stream().allMatch(result -> result == null));
+        assertEquals(5, smtp.receivedCount());
+        assertEquals(1, smtp.connectionCount());
+    }
+
+    @Test
+    @DisplayName("SendBatch - Idle session is reused by the next batch")
+    void sendBatch_SecondBatch_ReusesPooledSession() throws Exception {
+        // Given
+        pool.sendBatch(messages(2));
+
+        // When
+        List<MessagingException> results = pool.sendBatch(messages(2));
+
+        // Then
+        assertTrue(results.stream().allMatch(result -> result == null));
+        assertEquals(4, smtp.receivedCount());
+        assertEquals(1, smtp.connectionCount());
+    }
+
+    @Test
+    @DisplayName("SendBatch - Rejected message fails alone and keeps the session")
+    void sendBatch_ServerRejects_KeepsSession() throws Exception {
+        // Given
+        smtp.faults().errors(1.0, 451);
+        List<MessagingException> rejected = pool.sendBatch(messages(2));
+        smtp.faults().reset();
+
+        // When
+        List<MessagingException> results = pool.sendBatch(messages(2));
+
+        // Then
+        assertInstanceOf(SendFailedException.class, rejected.get(0));
+        assertInstanceOf(SendFailedException.class, rejected.get(1));
+        assertTrue(results.stream().allMatch(result -> result == null));
+        assertEquals(2, smtp.receivedCount());
+        assertEquals(1, smtp.connectionCount());
+    }
+
+    @Test
+    @DisplayName("SendBatch - Session is recycled after its message limit")
+    void sendBatch_MessageLimitReached_OpensNewSession() throws Exception {
+        // Given
+        pool = new SmtpSessionPool(mailSender, 2, 300_000, 2, 5_000);
+
+        // When
+        List<MessagingException> results = pool.sendBatch(messages(5));
+
+        // Then
+        assertTrue(results.stream().allMatch(result -> result == null));
+        assertEquals(5, smtp.receivedCount());
+        assertEquals(3, smtp.connectionCount());
+    }
+
+    @Test
+    @DisplayName("SendBatch - Unreachable server fails every message")
+    void sendBatch_ServerDown_FailsAll() throws Exception {
+        // Given
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            closedPort = socket.getLocalPort();
+        }
+        mailSender.setPort(closedPort);
+
+        // When
+        List<MessagingException> results = pool.sendBatch(messages(3));
+
+        // Then
+        assertEquals(3, results.size());
+        assertTrue(results.stream().allMatch(result -> result != null));
+    }
+
+    private List<MimeMessage> messages(int count) throws MessagingException {
+        List<MimeMessage> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            MimeMessage message = mailSender.createMimeMessage();
+            message.setFrom("noreply@hotel.test");
+            message.setRecipients(Message.RecipientType.TO, "guest" + i + "@example.com");
+            message.setSubject("Reminder " + i);
+            message.setText("<p>See you soon</p>", "UTF-8", "html");
+            messages.add(message);
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,200 @@
+package com.hotelmanagement.quanlikhachsan.services.image;
+
+import com.hotelmanagement.quanlikhachsan.repository.StoredBlobRepository;
+import com.hotelmanagement.quanlikhachsan.services.FileStorageService;
+import com.hotelmanagement.quanlikhachsan.services.storage.LocalObjectStorage;
+import com.hotelmanagement.quanlikhachsan.services.storage.ObjectStorage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ImageDeliveryService
+ * Files are served from a temporary upload directory through mock servlet objects
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ImageDeliveryService Tests")
+class ImageDeliveryServiceTest {
+
+    private static final String DIGEST = "a".repeat(64);
+    private static final String FILENAME = DIGEST + ".jpg";
+    private static final String CONTENT = "0123456789";
+
+    @Mock
+    private StoredBlobRepository storedBlobRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path uploadDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ImageDeliveryService deliveryService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ObjectStorage objectStorage = new LocalObjectStorage(uploadDir);
+        FileStorageService fileStorageService = new FileStorageService(storedBlobRepository, objectStorage,
+                new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(fileStorageService, "uploadDir", uploadDir.toString());
+
+        deliveryService = new ImageDeliveryService(fileStorageService, objectStorage, meterRegistry);
+        ReflectionTestUtils.setField(deliveryService, "sendfileThreshold", 49152L);
+        Files.writeString(uploadDir.resolve(FILENAME), CONTENT);
+    }
+
+    @Test
+    @DisplayName("Serve - Content-addressed file is sent whole with an immutable cache policy")
+    void serve_ContentAddressed_SentImmutable() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/room-images/" + FILENAME);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        deliveryService.serve(FILENAME, request, response);
+
+        // Then
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT, response.getContentAsString());
+        assertEquals("\"" + DIGEST + "\"", response.getHeader(HttpHeaders.ETAG));
+        assertTrue(response.getHeader(HttpHeaders.CACHE_CONTROL).contains("immutable"));
+        assertEquals("image/jpeg", response.getContentType());
+        assertEquals(10.0, meterRegistry.counter("images.served.bytes", "transfer", "channel").count());
+    }
+
+    @Test
+    @DisplayName("Serve - Matching If-None-Match is answered with 304 and no body")
+    void serve_EtagMatches_NotModified() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/room-images/" + FILENAME);
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "W/\"other\", \"" + DIGEST + "\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        deliveryService.serve(FILENAME, request, response);
+
+        // Then
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(1.0, meterRegistry.counter("images.revalidations", "result", "not_modified").count());
+    }
+
+    @Test
+    @DisplayName("Serve - Byte range is sent as 206 with its Content-Range")
+    void serve_Range_PartialContent() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/room-images/" + FILENAME);
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        deliveryService.serve(FILENAME, request, response);
+
+        // Then
+        assertEquals(206, response.getStatus());
+        assertEquals("2345", response.getContentAsString());
+        assertEquals("bytes 2-5/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(4, response.getContentLengthLong());
+    }
+
+    @Test
+    @DisplayName("Serve - Range starting past the end is rejected with 416")
+    void serve_RangePastEnd_NotSatisfiable() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/room-images/" + FILENAME);
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        deliveryService.serve(FILENAME, request, response);
+
+        // Then
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    @DisplayName("Serve - Large file is handed to the container's sendfile instead of being copied")
+    void serve_SendfileSupported_HandsOff() throws Exception {
+        // Given
+        String large = DIGEST + "-full.jpg";
+        Files.write(uploadDir.resolve(large), "x".repeat(100_000).getBytes(StandardCharsets.US_ASCII));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/room-images/" + large);
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        deliveryService.serve(large, request, response);
+
+        // Then
+        assertEquals(200, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(uploadDir.resolve(large).toRealPath().toString(),
+                request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(0L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals(100_000L, request.getAttribute("org.apache.tomcat.sendfile.end"));
+    }
+
+    @Test
+    @DisplayName("Serve - Object in a remote store is streamed, fetching only the requested range")
+    void serve_RemoteStorage_StreamsRange() throws Exception {
+        // Given
+        ObjectStorage remote = mock(ObjectStorage.class);
+        when(remote.stat(FILENAME)).thenReturn(Optional.of(
+                new ObjectStorage.ObjectInfo(10, Instant.parse("2025-01-01T00:00:00Z"))));
+        when(remote.read(FILENAME, 2, 5))
+                .thenReturn(new ByteArrayInputStream("2345".getBytes(StandardCharsets.US_ASCII)));
+        ImageDeliveryService remoteDelivery = new ImageDeliveryService(
+                new FileStorageService(storedBlobRepository, remote, new TransactionTemplate(transactionManager)),
+                remote, meterRegistry);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/room-images/" + FILENAME);
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        remoteDelivery.serve(FILENAME, request, response);
+
+        // Then
+        assertEquals(206, response.getStatus());
+        assertEquals("2345", response.getContentAsString());
+        assertNull(request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(4.0, meterRegistry.counter("images.served.bytes", "transfer", "stream").count());
+    }
+
+    @Test
+    @DisplayName("Serve - Name reaching outside the upload directory is not found")
+    void serve_PathTraversal_NotFound() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/room-images/..%2Fsecret");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        deliveryService.serve("../secret", request, response);
+
+        // Then
+        assertEquals(404, response.getStatus());
+    }
+}
@@ -0,0 +1,211 @@
+package com.hotelmanagement.quanlikhachsan.services.image;
+
+import com.hotelmanagement.quanlikhachsan.model.room.RoomImage;
+import com.hotelmanagement.quanlikhachsan.repository.RoomImageRepository;
+import com.hotelmanagement.quanlikhachsan.repository.StoredBlobRepository;
+import com.hotelmanagement.quanlikhachsan.services.FileStorageService;
+import com.hotelmanagement.quanlikhachsan.services.catalog.CatalogAggregate;
+import com.hotelmanagement.quanlikhachsan.services.catalog.CatalogChangedEvent;
+import com.hotelmanagement.quanlikhachsan.services.storage.LocalObjectStorage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ImageDerivativeService
+ * Images are written to a temporary upload directory; the repository is mocked
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ImageDerivativeService Tests")
+class ImageDerivativeServiceTest {
+
+    private static final String BASE_URL = "http://localhost:8080/uploads/room-images/";
+
+    @Mock
+    private RoomImageRepository roomImageRepository;
+
+    @Mock
+    private StoredBlobRepository storedBlobRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @TempDir
+    Path uploadDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ImageDerivativeService derivativeService;
+
+    @BeforeEach
+    void setUp() {
+        FileStorageService fileStorageService = new FileStorageService(storedBlobRepository,
+                new LocalObjectStorage(uploadDir), new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(fileStorageService, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(fileStorageService, "baseUrl", "http://localhost:8080");
+
+        derivativeService = new ImageDerivativeService(roomImageRepository, fileStorageService, eventPublisher,
+                meterRegistry);
+        ReflectionTestUtils.setField(derivativeService, "quality", 0.8f);
+        ReflectionTestUtils.setField(derivativeService, "maxPixels", 40_000_000L);
+    }
+
+    @Test
+    @DisplayName("Process - Large original is written as three JPEG variants within their bounds")
+    void process_LargeOriginal_WritesVariants() throws Exception {
+        // Given
+        writeImage("photo.png", 3200, 2400);
+        when(roomImageRepository.findById("img-1")).thenReturn(Optional.of(image("img-1", "photo.png")));
+        when(roomImageRepository.updateVariants(anyString(), anyString(), anyString(), anyString())).thenReturn(1);
+
+        // When
+        derivativeService.process("img-1");
+
+        // Then
+        verify(roomImageRepository).updateVariants("img-1", BASE_URL + "photo-thumb.jpg",
+                BASE_URL + "photo-card.jpg", BASE_URL + "photo-full.jpg");
+        assertSize("photo-full.jpg", 1600, 1200);
+        assertSize("photo-card.jpg", 640, 480);
+        assertSize("photo-thumb.jpg", 240, 180);
+        assertTrue(Files.size(uploadDir.resolve("photo-thumb.jpg")) < Files.size(uploadDir.resolve("photo.png")));
+        verify(eventPublisher).publishEvent(new CatalogChangedEvent(CatalogAggregate.ROOMS));
+        assertEquals(1.0, meterRegistry.counter("image.derivatives", "outcome", "created").count());
+    }
+
+    @Test
+    @DisplayName("Process - Small original is recompressed but never enlarged")
+    void process_SmallOriginal_NotEnlarged() throws Exception {
+        // Given
+        writeImage("small.png", 200, 100);
+        when(roomImageRepository.findById("img-2")).thenReturn(Optional.of(image("img-2", "small.png")));
+        when(roomImageRepository.updateVariants(anyString(), anyString(), anyString(), anyString())).thenReturn(1);
+
+        // When
+        derivativeService.process("img-2");
+
+        // Then
+        assertSize("small-full.jpg", 200, 100);
+        assertSize("small-thumb.jpg", 200, 100);
+    }
+
+    @Test
+    @DisplayName("Process - Variants already written for the same stored file are reused")
+    void process_VariantsExist_Reused() throws Exception {
+        // Given
+        for (String suffix : new String[]{"full", "card", "thumb"}) {
+            Files.writeString(uploadDir.resolve("shared-" + suffix + ".jpg"), "variant");
+        }
+        when(roomImageRepository.findById("img-5")).thenReturn(Optional.of(image("img-5", "shared.png")));
+        when(roomImageRepository.updateVariants(anyString(), anyString(), anyString(), anyString())).thenReturn(1);
+
+        // When
+        derivativeService.process("img-5");
+
+        // Then
+        verify(roomImageRepository).updateVariants("img-5", BASE_URL + "shared-thumb.jpg",
+                BASE_URL + "shared-card.jpg", BASE_URL + "shared-full.jpg");
+        assertEquals("variant", Files.readString(uploadDir.resolve("shared-thumb.jpg")));
+        assertEquals(1.0, meterRegistry.counter("image.derivatives", "outcome", "reused").count());
+    }
+
+    @Test
+    @DisplayName("Process - Undecodable original falls back to its own URL and is not retried")
+    void process_NotAnImage_FallsBackToOriginal() throws Exception {
+        // Given
+        Files.writeString(uploadDir.resolve("notes.jpg"), "not an image");
+        when(roomImageRepository.findById("img-3")).thenReturn(Optional.of(image("img-3", "notes.jpg")));
+        when(roomImageRepository.updateVariants(anyString(), anyString(), anyString(), anyString())).thenReturn(1);
+
+        // When
+        derivativeService.process("img-3");
+
+        // Then
+        String original = BASE_URL + "notes.jpg";
+        verify(roomImageRepository).updateVariants("img-3", original, original, original);
+        assertFalse(Files.exists(uploadDir.resolve("notes-thumb.jpg")));
+        assertEquals(1.0, meterRegistry.counter("image.derivatives", "outcome", "unsupported").count());
+    }
+
+    @Test
+    @DisplayName("Process - Truncated original falls back to its own URL and is not retried")
+    void process_TruncatedImage_FallsBackToOriginal() throws Exception {
+        // Given
+        writeImage("cut.png", 800, 600);
+        Path file = uploadDir.resolve("cut.png");
+        byte[] content = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(content, content.length / 2));
+        when(roomImageRepository.findById("img-5")).thenReturn(Optional.of(image("img-5", "cut.png")));
+        when(roomImageRepository.updateVariants(anyString(), anyString(), anyString(), anyString())).thenReturn(1);
+
+        // When
+        derivativeService.process("img-5");
+
+        // Then
+        String original = BASE_URL + "cut.png";
+        verify(roomImageRepository).updateVariants("img-5", original, original, original);
+        assertEquals(1.0, meterRegistry.counter("image.derivatives", "outcome", "unsupported").count());
+    }
+
+    @Test
+    @DisplayName("Process - Image deleted meanwhile leaves the catalog untouched")
+    void process_ImageDeletedMeanwhile_NoCatalogChange() throws Exception {
+        // Given
+        writeImage("gone.png", 800, 600);
+        when(roomImageRepository.findById("img-4")).thenReturn(Optional.of(image("img-4", "gone.png")));
+        when(roomImageRepository.updateVariants(anyString(), anyString(), anyString(), anyString())).thenReturn(0);
+
+        // When
+        derivativeService.process("img-4");
+
+        // Then
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    private void writeImage(String filename, int width, int height) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, 0xFF000000 | (x * 255 / width) << 16 | (y * 255 / height) << 8);
+            }
+        }
+        ImageIO.write(image, "png", uploadDir.resolve(filename).toFile());
+    }
+
+    private void assertSize(String filename, int width, int height) throws Exception {
+        BufferedImage image = ImageIO.read(uploadDir.resolve(filename).toFile());
+        assertNotNull(image, filename);
+        assertEquals(width, image.getWidth(), filename);
+        assertEquals(height, image.getHeight(), filename);
+    }
+
+    private static RoomImage image(String id, String filename) {
+        return RoomImage.builder()
+                .id(id)
+                .imageUrl(BASE_URL + filename)
+                .isPrimary(true)
+                .build();
+    }
+}
@@ -0,0 +1,159 @@
+package com.hotelmanagement.quanlikhachsan.services.payment;
+
+import com.hotelmanagement.quanlikhachsan.dto.response.payment.DailySettlementResponse;
+import com.hotelmanagement.quanlikhachsan.exception.AppError;
+import com.hotelmanagement.quanlikhachsan.model.payment.Payment;
+import com.hotelmanagement.quanlikhachsan.model.payment.PaymentLedgerEntry;
+import com.hotelmanagement.quanlikhachsan.model.payment.PaymentStatus;
+import com.hotelmanagement.quanlikhachsan.model.reservation.Reservation;
+import com.hotelmanagement.quanlikhachsan.repository.DailySettlement;
+import com.hotelmanagement.quanlikhachsan.repository.PaymentLedgerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for PaymentLedgerService
+ * The ledger repository is mocked
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PaymentLedgerService Tests")
+class PaymentLedgerServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 14);
+
+    @Mock
+    private PaymentLedgerRepository paymentLedgerRepository;
+
+    private PaymentLedgerService paymentLedgerService;
+
+    @BeforeEach
+    void setUp() {
+        paymentLedgerService = new PaymentLedgerService(paymentLedgerRepository);
+    }
+
+    @Test
+    @DisplayName("Record - Transition is appended and added to today's rollup")
+    void record_StatusChanged_AppendsEntry() {
+        // Given
+        Payment payment = payment("COMPLETED", "250.00");
+
+        // When
+        paymentLedgerService.record(payment, "PENDING");
+
+        // Then
+        ArgumentCaptor<PaymentLedgerEntry> entry = ArgumentCaptor.forClass(PaymentLedgerEntry.class);
+        verify(paymentLedgerRepository).save(entry.capture());
+        assertEquals(payment.getId(), entry.getValue().getPaymentId());
+        assertEquals("PENDING", entry.getValue().getFromStatus());
+        assertEquals("COMPLETED", entry.getValue().getToStatus());
+        assertEquals("pi_123", entry.getValue().getStripePaymentIntentId());
+        verify(paymentLedgerRepository).addToSettlement(LocalDate.now(), "COMPLETED", 1, new BigDecimal("250.00"));
+    }
+
+    @Test
+    @DisplayName("Record - Unchanged status is not recorded")
+    void record_SameStatus_Skipped() {
+        // When
+        paymentLedgerService.record(payment("COMPLETED", "250.00"), "COMPLETED");
+
+        // Then
+        verifyNoInteractions(paymentLedgerRepository);
+    }
+
+    @Test
+    @DisplayName("RecordAll - Bulk transition adds one rollup update with the total")
+    void recordAll_BulkTransition_SingleRollupUpdate() {
+        // Given
+        List<Payment> payments = List.of(payment("PENDING", "100.00"), payment("PENDING", "150.50"));
+
+        // When
+        paymentLedgerService.recordAll(payments, "PENDING", "FAILED");
+
+        // Then
+        verify(paymentLedgerRepository).saveAll(argThat(entries -> ((List<?>) entries).size() == 2));
+        verify(paymentLedgerRepository, times(1)).addToSettlement(any(), anyString(), anyLong(), any());
+        verify(paymentLedgerRepository).addToSettlement(LocalDate.now(), "FAILED", 2, new BigDecimal("250.50"));
+    }
+
+    @Test
+    @DisplayName("Settlements - Rollup rows become revenue, refunds and failure rate per day")
+    void settlements_RollupRows_Aggregated() {
+        // Given
+        when(paymentLedgerRepository.findSettlements(DAY, DAY.plusDays(1))).thenReturn(List.of(
+                settlement(DAY, "COMPLETED", 3, "900.00"),
+                settlement(DAY, "FAILED", 1, "300.00"),
+                settlement(DAY, "REFUNDED", 1, "150.00"),
+                settlement(DAY.plusDays(1), "PENDING", 2, "400.00")));
+
+        // When
+        List<DailySettlementResponse> days = paymentLedgerService.settlements(DAY, DAY.plusDays(1));
+
+        // Then
+        assertEquals(2, days.size());
+        assertEquals(new DailySettlementResponse(DAY, new BigDecimal("900.00"), 3, new BigDecimal("150.00"), 1, 1,
+                0.25), days.get(0));
+        assertEquals(BigDecimal.ZERO, days.get(1).revenue());
+        assertNull(days.get(1).failureRate());
+    }
+
+    @Test
+    @DisplayName("Settlements - End before start is rejected")
+    void settlements_InvalidRange_Throws() {
+        // When & Then
+        AppError error = assertThrows(AppError.class, () -> paymentLedgerService.settlements(DAY, DAY.minusDays(1)));
+        assertEquals("RESERVATION_003", error.getErrorCode());
+        verify(paymentLedgerRepository, never()).findSettlements(eq(DAY), any());
+    }
+
+    private static Payment payment(String status, String amount) {
+        return Payment.builder()
+                .id(UUID.randomUUID())
+                .reservation(Reservation.builder().id(UUID.randomUUID()).build())
+                .status(new PaymentStatus(UUID.randomUUID(), status))
+                .amount(new BigDecimal(amount))
+                .method("STRIPE")
+                .transactionCode("pi_123")
+                .build();
+    }
+
+    private static DailySettlement settlement(LocalDate day, String status, long count, String amount) {
+        return new DailySettlement() {
+            @Override
+            public LocalDate getSettlementDate() {
+                return day;
+            }
+
+            @Override
+            public String getStatus() {
+                return status;
+            }
+
+            @Override
+            public long getPaymentCount() {
+                return count;
+            }
+
+            @Override
+            public BigDecimal getAmount() {
+                return new BigDecimal(amount);
+            }
+        };
+    }
+}
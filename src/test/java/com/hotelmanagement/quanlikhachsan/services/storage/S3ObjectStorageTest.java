@@ -0,0 +1,138 @@
+package com.hotelmanagement.quanlikhachsan.services.storage;
+
+import com.hotelmanagement.quanlikhachsan.fake.FakeS3Server;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for S3ObjectStorage
+ * The AWS SDK talks to an in-process S3 stand-in
+ */
+@DisplayName("S3ObjectStorage Tests")
+class S3ObjectStorageTest {
+
+    private static final String PREFIX = "room-images/";
+    private static final int PART_SIZE = S3ObjectStorage.MIN_PART_SIZE;
+
+    private FakeS3Server s3;
+    private S3ObjectStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        s3 = new FakeS3Server("hotel-room-images");
+        s3.start();
+        storage = new S3ObjectStorage(S3ObjectStorage.client(s3.baseUrl(), "us-east-1", FakeS3Server.ACCESS_KEY,
+                FakeS3Server.SECRET_KEY, true), s3.bucket(), PREFIX, PART_SIZE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        storage.close();
+        s3.close();
+    }
+
+    @Test
+    @DisplayName("Put - Content smaller than a part is stored with a single PUT")
+    void put_SmallContent_SinglePut() throws Exception {
+        // Given
+        byte[] content = "room photo".getBytes(StandardCharsets.UTF_8);
+
+        // When
+        storage.put("photo.jpg", new ByteArrayInputStream(content), "image/jpeg");
+
+        // Then
+        assertArrayEquals(content, s3.object(PREFIX + "photo.jpg"));
+        assertEquals("image/jpeg", s3.contentType(PREFIX + "photo.jpg"));
+        assertEquals(0, s3.completedUploads());
+        assertEquals(content.length, storage.stat("photo.jpg").orElseThrow().size());
+    }
+
+    @Test
+    @DisplayName("Put - Content larger than a part is streamed as a multipart upload")
+    void put_LargeContent_Multipart() throws Exception {
+        // Given
+        byte[] content = new byte[2 * PART_SIZE + 1234];
+        new Random(42).nextBytes(content);
+
+        // When
+        storage.put("large.jpg", new ByteArrayInputStream(content), "image/jpeg");
+
+        // Then
+        assertArrayEquals(content, s3.object(PREFIX + "large.jpg"));
+        assertEquals(1, s3.completedUploads());
+        assertEquals(0, s3.pendingUploads());
+    }
+
+    @Test
+    @DisplayName("Put - Upload failing midway is aborted and leaves nothing behind")
+    void put_StreamFails_Aborted() {
+        // Given
+        InputStream failing = new SequenceInputStream(new ByteArrayInputStream(new byte[PART_SIZE]),
+                new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("Client went away");
+                    }
+                });
+
+        // When
+        assertThrows(IOException.class, () -> storage.put("broken.jpg", failing, "image/jpeg"));
+
+        // Then
+        assertEquals(0, s3.pendingUploads());
+        assertNull(s3.object(PREFIX + "broken.jpg"));
+    }
+
+    @Test
+    @DisplayName("Read - Byte range is fetched without the rest of the object")
+    void read_Range_ReturnsRange() throws Exception {
+        // Given
+        s3.putObject(PREFIX + "digits.jpg", "0123456789".getBytes(StandardCharsets.US_ASCII));
+
+        // When
+        byte[] range;
+        try (InputStream input = storage.read("digits.jpg", 2, 5)) {
+            range = input.readAllBytes();
+        }
+
+        // Then
+        assertEquals("2345", new String(range, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    @DisplayName("Stat - Missing object is empty and cannot be read")
+    void stat_Missing_Empty() throws Exception {
+        // When / Then
+        assertTrue(storage.stat("missing.jpg").isEmpty());
+        assertFalse(storage.exists("missing.jpg"));
+        assertThrows(NoSuchFileException.class, () -> storage.read("missing.jpg"));
+    }
+
+    @Test
+    @DisplayName("Delete by prefix - Derivatives are deleted and the original kept")
+    void deleteByPrefix_Derivatives_Deleted() throws Exception {
+        // Given
+        for (String key : List.of("abc.jpg", "abc-thumb.jpg", "abc-card.jpg", "abd-thumb.jpg")) {
+            s3.putObject(PREFIX + key, new byte[]{1});
+        }
+
+        // When
+        storage.deleteByPrefix("abc-");
+
+        // Then
+        assertEquals(List.of(PREFIX + "abc.jpg", PREFIX + "abd-thumb.jpg"), s3.keys());
+    }
+}
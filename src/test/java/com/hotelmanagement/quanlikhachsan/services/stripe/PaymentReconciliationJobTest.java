@@ -0,0 +1,269 @@
+package com.hotelmanagement.quanlikhachsan.services.stripe;
+
+import com.hotelmanagement.quanlikhachsan.fake.FakeStripeServer;
+import com.hotelmanagement.quanlikhachsan.model.payment.Payment;
+import com.hotelmanagement.quanlikhachsan.model.payment.PaymentStatus;
+import com.hotelmanagement.quanlikhachsan.model.reservation.Reservation;
+import com.hotelmanagement.quanlikhachsan.model.reservation.ReservationStatus;
+import com.hotelmanagement.quanlikhachsan.repository.PaymentRepository;
+import com.hotelmanagement.quanlikhachsan.repository.PaymentStatusRepository;
+import com.hotelmanagement.quanlikhachsan.repository.PendingPaymentRef;
+import com.hotelmanagement.quanlikhachsan.repository.ReservationRepository;
+import com.hotelmanagement.quanlikhachsan.services.email.EmailService;
+import com.hotelmanagement.quanlikhachsan.services.payment.PaymentLedgerService;
+import com.stripe.Stripe;
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+import com.stripe.model.checkout.Session;
+import com.stripe.param.PaymentIntentCreateParams;
+import com.stripe.param.checkout.SessionCreateParams;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for PaymentReconciliationJob
+ * Repositories are mocked; Stripe calls go to the in-process fake
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PaymentReconciliationJob Tests")
+class PaymentReconciliationJobTest {
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @Mock
+    private PaymentStatusRepository paymentStatusRepository;
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private PaymentLedgerService paymentLedgerService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final Map<String, PaymentStatus> statuses = Map.of(
+            "PENDING", new PaymentStatus(UUID.randomUUID(), "PENDING"),
+            "COMPLETED", new PaymentStatus(UUID.randomUUID(), "COMPLETED"),
+            "FAILED", new PaymentStatus(UUID.randomUUID(), "FAILED"));
+
+    private final Map<UUID, Payment> payments = new HashMap<>();
+    private FakeStripeServer stripe;
+    private SimpleMeterRegistry meterRegistry;
+    private PaymentReconciliationJob job;
+
+    @BeforeEach
+    void setUp() {
+        stripe = new FakeStripeServer("whsec_test");
+        stripe.start();
+        Stripe.apiKey = "sk_test_fake";
+        Stripe.overrideApiBase(stripe.baseUrl());
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        StripeServiceImpl stripeService = new StripeServiceImpl(paymentRepository, paymentStatusRepository,
+                reservationRepository, emailService, transactionTemplate,
+                new StripeResilience(new SimpleMeterRegistry(), 3, 1, 1, 2.0, 10, 100, 20, 10, 0.5, 30_000, 3),
+                paymentLedgerService);
+        meterRegistry = new SimpleMeterRegistry();
+        job = new PaymentReconciliationJob(paymentRepository, paymentStatusRepository, reservationRepository,
+                stripeService, paymentLedgerService, transactionTemplate, meterRegistry);
+        ReflectionTestUtils.setField(job, "staleAfterMinutes", 60L);
+        ReflectionTestUtils.setField(job, "chunkSize", 2);
+        ReflectionTestUtils.setField(job, "parallelism", 4);
+        ReflectionTestUtils.setField(job, "maxPaymentsPerRun", 100);
+        job.init();
+
+        lenient().when(paymentStatusRepository.findByName(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(statuses.get((String) invocation.getArgument(0))));
+        lenient().when(paymentRepository.findForUpdateByIdInAndStatus(any(), eq(statuses.get("PENDING"))))
+                .thenAnswer(invocation -> ((Collection<?>) invocation.getArgument(0)).stream()
+                        .map(id -> payments.get((UUID) id))
+                        .toList());
+        lenient().when(paymentRepository.updateStatus(any(), any(), any()))
+                .thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+    }
+
+    @AfterEach
+    void tearDown() {
+        job.shutdownExecutor();
+        stripe.close();
+        Stripe.overrideApiBase(Stripe.LIVE_API_BASE);
+    }
+
+    @Test
+    @DisplayName("Reconcile - Paid and expired sessions are settled in bulk, open ones left pending")
+    void reconcile_CheckoutSessions_AppliesDrift() throws Exception {
+        // Given
+        PendingPaymentRef paid = checkoutPayment(1);
+        PendingPaymentRef expired = checkoutPayment(2);
+        PendingPaymentRef open = checkoutPayment(3);
+        stripe.completeCheckoutSession(paid.getStripeSessionId());
+        stripe.expireCheckoutSession(expired.getStripeSessionId());
+        pages(List.of(paid, expired), List.of(open));
+        when(reservationRepository.findIdsByIdInAndStatus(List.of(paid.getReservationId()), ReservationStatus.PENDING))
+                .thenReturn(List.of(paid.getReservationId()));
+
+        // When
+        PaymentReconciliationJob.ReconciliationResult result = job.reconcile();
+
+        // Then
+        assertEquals(new PaymentReconciliationJob.ReconciliationResult(3, 1, 1, 0), result);
+        verify(paymentRepository).updateStatus(List.of(paid.getId()), statuses.get("PENDING"),
+                statuses.get("COMPLETED"));
+        verify(paymentRepository).updateStatus(List.of(expired.getId()), statuses.get("PENDING"),
+                statuses.get("FAILED"));
+        verify(reservationRepository).updateStatus(List.of(paid.getReservationId()), ReservationStatus.PENDING,
+                ReservationStatus.CONFIRMED);
+        verify(paymentLedgerService).recordAll(List.of(payments.get(paid.getId())), "PENDING", "COMPLETED");
+        verify(paymentLedgerService).recordAll(List.of(payments.get(expired.getId())), "PENDING", "FAILED");
+        assertEquals(1.0, meterRegistry.get("stripe.reconciliation.drift").tag("to", "COMPLETED").counter().count());
+        assertEquals(3.0, meterRegistry.get("stripe.reconciliation.checked").counter().count());
+    }
+
+    @Test
+    @DisplayName("Reconcile - Next page starts after the last payment of the previous one")
+    void reconcile_Paging_UsesKeyset() throws Exception {
+        // Given
+        PendingPaymentRef first = checkoutPayment(1);
+        PendingPaymentRef second = checkoutPayment(2);
+        PendingPaymentRef third = checkoutPayment(3);
+        pages(List.of(first, second), List.of(third));
+
+        // When
+        job.reconcile();
+
+        // Then
+        verify(paymentRepository).findByStatusAfter(eq("PENDING"), any(), eq(second.getPaymentDate()),
+                eq(second.getId()), eq(Limit.of(2)));
+        verify(paymentRepository, never()).updateStatus(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Reconcile - Succeeded PaymentIntent completes, unknown one is counted as unresolved")
+    void reconcile_PaymentIntents_CompletesAndReportsMissing() throws Exception {
+        // Given
+        PendingPaymentRef succeeded = intentPayment(1, createPaymentIntent());
+        PendingPaymentRef missing = intentPayment(2, "pi_unknown");
+        pages(List.of(succeeded, missing));
+        when(reservationRepository.findIdsByIdInAndStatus(any(), eq(ReservationStatus.PENDING)))
+                .thenReturn(List.of());
+
+        // When
+        PaymentReconciliationJob.ReconciliationResult result = job.reconcile();
+
+        // Then
+        assertEquals(new PaymentReconciliationJob.ReconciliationResult(2, 1, 0, 1), result);
+        verify(paymentRepository).updateStatus(List.of(succeeded.getId()), statuses.get("PENDING"),
+                statuses.get("COMPLETED"));
+        verify(reservationRepository, never()).updateStatus(any(), any(), any());
+        assertEquals(1.0, meterRegistry.get("stripe.reconciliation.unresolved").tag("reason", "missing")
+                .counter().count());
+    }
+
+    @Test
+    @DisplayName("Reconcile - Run stops when Stripe cannot be reached for a whole page")
+    void reconcile_StripeDown_StopsRun() throws Exception {
+        // Given
+        PendingPaymentRef first = checkoutPayment(1);
+        PendingPaymentRef second = checkoutPayment(2);
+        pages(List.of(first, second));
+        stripe.faults().errors(1.0, 503);
+
+        // When
+        PaymentReconciliationJob.ReconciliationResult result = job.reconcile();
+
+        // Then
+        assertEquals(new PaymentReconciliationJob.ReconciliationResult(2, 0, 0, 2), result);
+        verify(paymentRepository, times(1)).findByStatusAfter(anyString(), any(), any(), any(), any());
+        verify(paymentRepository, never()).updateStatus(any(), any(), any());
+    }
+
+    @SafeVarargs
+    private void pages(List<PendingPaymentRef>... pages) {
+        var stubbing = when(paymentRepository.findByStatusAfter(eq("PENDING"), any(), any(), any(), any()));
+        for (List<PendingPaymentRef> page : pages) {
+            stubbing = stubbing.thenReturn(page);
+        }
+        stubbing.thenReturn(List.of());
+    }
+
+    private PendingPaymentRef checkoutPayment(int minutesOld) throws StripeException {
+        Session session = Session.create(SessionCreateParams.builder()
+                .setMode(SessionCreateParams.Mode.PAYMENT)
+                .setSuccessUrl("http://localhost/success")
+                .addLineItem(SessionCreateParams.LineItem.builder()
+                        .setQuantity(1L)
+                        .setPriceData(SessionCreateParams.LineItem.PriceData.builder()
+                                .setCurrency("usd")
+                                .setUnitAmount(25_000L)
+                                .setProductData(SessionCreateParams.LineItem.PriceData.ProductData.builder()
+                                        .setName("Deluxe room")
+                                        .build())
+                                .build())
+                        .build())
+                .build());
+        return stored(new Ref(UUID.randomUUID(), UUID.randomUUID(), StripeServiceImpl.METHOD_CHECKOUT,
+                session.getId(), null, LocalDateTime.now().minusHours(2).plusMinutes(minutesOld)));
+    }
+
+    private PendingPaymentRef intentPayment(int minutesOld, String paymentIntentId) {
+        return stored(new Ref(UUID.randomUUID(), UUID.randomUUID(), StripeServiceImpl.METHOD_INTENT, null,
+                paymentIntentId, LocalDateTime.now().minusHours(2).plusMinutes(minutesOld)));
+    }
+
+    private PendingPaymentRef stored(Ref ref) {
+        payments.put(ref.getId(), Payment.builder()
+                .id(ref.getId())
+                .reservation(Reservation.builder().id(ref.getReservationId()).build())
+                .status(statuses.get("PENDING"))
+                .amount(new BigDecimal("250.00"))
+                .method(ref.getMethod())
+                .stripeSessionId(ref.getStripeSessionId())
+                .transactionCode(ref.getTransactionCode())
+                .paymentDate(ref.getPaymentDate())
+                .build());
+        return ref;
+    }
+
+    private String createPaymentIntent() throws StripeException {
+        return PaymentIntent.create(PaymentIntentCreateParams.builder()
+                .setAmount(25_000L)
+                .setCurrency("usd")
+                .setPaymentMethod("pm_card_visa")
+                .setConfirm(true)
+                .build()).getId();
+    }
+
+    private record Ref(UUID getId, UUID getReservationId, String getMethod, String getStripeSessionId,
+            String getTransactionCode, LocalDateTime getPaymentDate) implements PendingPaymentRef {
+    }
+}
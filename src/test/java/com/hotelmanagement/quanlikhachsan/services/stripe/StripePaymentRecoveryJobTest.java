@@ -0,0 +1,113 @@
+package com.hotelmanagement.quanlikhachsan.services.stripe;
+
+import com.hotelmanagement.quanlikhachsan.model.payment.Payment;
+import com.hotelmanagement.quanlikhachsan.repository.PaymentRepository;
+import com.stripe.model.PaymentIntent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for StripePaymentRecoveryJob
+ * StripeServiceImpl is mocked
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("StripePaymentRecoveryJob Tests")
+class StripePaymentRecoveryJobTest {
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @Mock
+    private StripeServiceImpl stripeService;
+
+    private StripePaymentRecoveryJob job;
+
+    @BeforeEach
+    void setUp() {
+        job = new StripePaymentRecoveryJob(paymentRepository, stripeService);
+        ReflectionTestUtils.setField(job, "giveUpMinutes", 60L);
+        ReflectionTestUtils.setField(job, "checkoutExpiryMinutes", 60L);
+    }
+
+    @Test
+    @DisplayName("Recover - PaymentIntent found by metadata is applied to the payment")
+    void recover_IntentFound_AppliesResult() throws Exception {
+        // Given
+        Payment payment = payment(StripeServiceImpl.METHOD_INTENT, 10);
+        PaymentIntent intent = new PaymentIntent();
+        intent.setId("pi_123");
+        intent.setStatus("succeeded");
+        when(stripeService.findPaymentIntent(payment.getId())).thenReturn(Optional.of(intent));
+
+        // When
+        job.recover(payment);
+
+        // Then
+        verify(stripeService).applyPaymentIntentResult(payment.getId(), intent);
+    }
+
+    @Test
+    @DisplayName("Recover - Recent payment with no PaymentIntent is left for the next run")
+    void recover_NoIntentYet_LeavesProcessing() throws Exception {
+        // Given
+        Payment payment = payment(StripeServiceImpl.METHOD_INTENT, 10);
+        when(stripeService.findPaymentIntent(payment.getId())).thenReturn(Optional.empty());
+
+        // When
+        job.recover(payment);
+
+        // Then
+        verify(stripeService, never()).applyPaymentIntentResult(any(), any());
+        verify(stripeService, never()).markProcessingFailed(any(), anyString());
+    }
+
+    @Test
+    @DisplayName("Recover - Old payment with no PaymentIntent is failed")
+    void recover_NoIntentAfterCutoff_MarksFailed() throws Exception {
+        // Given
+        Payment payment = payment(StripeServiceImpl.METHOD_INTENT, 90);
+        when(stripeService.findPaymentIntent(payment.getId())).thenReturn(Optional.empty());
+
+        // When
+        job.recover(payment);
+
+        // Then
+        verify(stripeService).markProcessingFailed(eq(payment.getId()), anyString());
+    }
+
+    @Test
+    @DisplayName("Recover - Checkout payment is failed once its session has expired, without calling Stripe")
+    void recover_CheckoutPastExpiry_MarksFailed() throws Exception {
+        // Given
+        Payment payment = payment(StripeServiceImpl.METHOD_CHECKOUT, 90);
+
+        // When
+        job.recover(payment);
+
+        // Then
+        verify(stripeService).markProcessingFailed(eq(payment.getId()), anyString());
+        verify(stripeService, never()).findPaymentIntent(any());
+    }
+
+    private static Payment payment(String method, int minutesAgo) {
+        return Payment.builder()
+                .id(UUID.randomUUID())
+                .method(method)
+                .paymentDate(LocalDateTime.now().minusMinutes(minutesAgo))
+                .build();
+    }
+}
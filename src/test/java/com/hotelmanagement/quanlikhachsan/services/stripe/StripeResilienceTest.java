@@ -0,0 +1,147 @@
+package com.hotelmanagement.quanlikhachsan.services.stripe;
+
+import com.hotelmanagement.quanlikhachsan.exception.AppError;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.ApiException;
+import com.stripe.exception.InvalidRequestException;
+import com.stripe.exception.StripeException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for StripeResilience
+ * Stripe calls are lambdas that fail on demand
+ */
+@DisplayName("StripeResilience Tests")
+class StripeResilienceTest {
+
+    private static final String OPERATION = "payment_intent.create";
+
+    private SimpleMeterRegistry meterRegistry;
+    private StripeResilience resilience;
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // 3 attempts, 1ms backoff, 2 concurrent calls, breaker opens at 50% of the last 4 calls for 50ms
+        resilience = new StripeResilience(meterRegistry, 3, 1, 1, 2.0, 2, 10, 4, 4, 0.5, 50, 1);
+    }
+
+    @Test
+    @DisplayName("Execute - Transient failure is retried until it succeeds")
+    void execute_TransientFailure_Retries() throws Exception {
+        // When
+        String result = resilience.execute(OPERATION, () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new ApiConnectionException("Connection reset");
+            }
+            return "pi_123";
+        });
+
+        // Then
+        assertEquals("pi_123", result);
+        assertEquals(3, calls.get());
+        assertEquals(2.0, meterRegistry.get("stripe.retries").tag("operation", OPERATION).counter().count());
+        assertEquals(1, meterRegistry.get("stripe.requests").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    @DisplayName("Execute - Rejected request is not retried")
+    void execute_InvalidRequest_NotRetried() {
+        // When & Then
+        assertThrows(InvalidRequestException.class, () -> resilience.execute(OPERATION, () -> {
+            calls.incrementAndGet();
+            throw new InvalidRequestException("No such payment method", "payment_method", null, null, 400, null);
+        }));
+        assertEquals(1, calls.get());
+        assertEquals(CircuitBreaker.State.CLOSED, resilience.circuitState(OPERATION));
+    }
+
+    @Test
+    @DisplayName("Execute - Repeated server errors open the circuit and later calls fail fast")
+    void execute_ServerErrors_OpensCircuit() {
+        // Given
+        for (int i = 0; i < 2; i++) {
+            assertThrows(ApiException.class, () -> resilience.execute(OPERATION, this::serverError));
+        }
+        int callsBefore = calls.get();
+
+        // When
+        AppError error = assertThrows(AppError.class, () -> resilience.execute(OPERATION, () -> "pi_123"));
+
+        // Then
+        assertEquals("PAYMENT_008", error.getErrorCode());
+        assertEquals(CircuitBreaker.State.OPEN, resilience.circuitState(OPERATION));
+        assertEquals(callsBefore, calls.get());
+    }
+
+    @Test
+    @DisplayName("Execute - Successful trial call after the open period closes the circuit")
+    void execute_TrialSucceeds_ClosesCircuit() throws Exception {
+        // Given
+        for (int i = 0; i < 2; i++) {
+            assertThrows(ApiException.class, () -> resilience.execute(OPERATION, this::serverError));
+        }
+        Thread.sleep(60);
+
+        // When
+        String result = resilience.execute(OPERATION, () -> "pi_123");
+
+        // Then
+        assertEquals("pi_123", result);
+        assertEquals(CircuitBreaker.State.CLOSED, resilience.circuitState(OPERATION));
+    }
+
+    @Test
+    @DisplayName("Execute - Call is refused when the bulkhead stays full")
+    void execute_BulkheadFull_Refused() throws Exception {
+        // Given
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 2; i++) {
+                executor.submit(() -> resilience.execute("checkout_session.create", () -> {
+                    started.countDown();
+                    awaitQuietly(release);
+                    return "cs_123";
+                }));
+            }
+            started.await();
+
+            // When
+            AppError error = assertThrows(AppError.class, () -> resilience.execute(OPERATION, () -> "pi_123"));
+
+            // Then
+            assertEquals("PAYMENT_008", error.getErrorCode());
+            assertEquals(1.0, meterRegistry.get("stripe.requests.refused").tag("reason", "bulkhead_full")
+                    .counter().count());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String serverError() throws StripeException {
+        calls.incrementAndGet();
+        throw new ApiException("Internal error", null, null, 500, null);
+    }
+}
@@ -0,0 +1,210 @@
+package com.hotelmanagement.quanlikhachsan.services.stripe;
+
+import com.hotelmanagement.quanlikhachsan.dto.request.payment.CheckoutSessionRequestDTO;
+import com.hotelmanagement.quanlikhachsan.dto.request.payment.PaymentRequestDTO;
+import com.hotelmanagement.quanlikhachsan.dto.response.payment.CheckoutSessionResponseDTO;
+import com.hotelmanagement.quanlikhachsan.exception.AppError;
+import com.hotelmanagement.quanlikhachsan.exception.ErrorDefinition;
+import com.hotelmanagement.quanlikhachsan.fake.FakeStripeServer;
+import com.hotelmanagement.quanlikhachsan.model.payment.Payment;
+import com.hotelmanagement.quanlikhachsan.model.payment.PaymentStatus;
+import com.hotelmanagement.quanlikhachsan.model.reservation.Reservation;
+import com.hotelmanagement.quanlikhachsan.model.reservation.ReservationStatus;
+import com.hotelmanagement.quanlikhachsan.repository.PaymentRepository;
+import com.hotelmanagement.quanlikhachsan.repository.PaymentStatusRepository;
+import com.hotelmanagement.quanlikhachsan.repository.ReservationRepository;
+import com.hotelmanagement.quanlikhachsan.services.email.EmailService;
+import com.hotelmanagement.quanlikhachsan.services.payment.PaymentLedgerService;
+import com.stripe.Stripe;
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for StripeServiceImpl
+ * Repositories are mocked; Stripe calls go to the in-process fake
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("StripeServiceImpl Tests")
+class StripeServiceImplTest {
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @Mock
+    private PaymentStatusRepository paymentStatusRepository;
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private PaymentLedgerService paymentLedgerService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private FakeStripeServer stripe;
+    private StripeServiceImpl stripeService;
+    private Reservation reservation;
+    private final Map<UUID, Payment> payments = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        stripe = new FakeStripeServer("whsec_test");
+        stripe.start();
+        Stripe.apiKey = "sk_test_fake";
+        Stripe.overrideApiBase(stripe.baseUrl());
+
+        stripeService = new StripeServiceImpl(paymentRepository, paymentStatusRepository, reservationRepository,
+                emailService, new TransactionTemplate(transactionManager),
+                new StripeResilience(new SimpleMeterRegistry(), 3, 1, 1, 2.0, 10, 100, 20, 10, 0.5, 30_000, 3),
+                paymentLedgerService);
+        ReflectionTestUtils.setField(stripeService, "currency", "usd");
+        ReflectionTestUtils.setField(stripeService, "maxAmountInCents", 10_000_000L);
+        ReflectionTestUtils.setField(stripeService, "checkoutExpiryMinutes", 60L);
+
+        reservation = Reservation.builder()
+                .id(UUID.randomUUID())
+                .checkIn(LocalDate.now().plusDays(7))
+                .checkOut(LocalDate.now().plusDays(9))
+                .totalAmount(new BigDecimal("250.00"))
+                .status(ReservationStatus.PENDING)
+                .build();
+        lenient().when(reservationRepository.findById(reservation.getId())).thenReturn(Optional.of(reservation));
+        lenient().when(paymentStatusRepository.findByName(anyString())).thenAnswer(invocation ->
+                Optional.of(new PaymentStatus(UUID.randomUUID(), invocation.getArgument(0))));
+        lenient().when(paymentRepository.save(any())).thenAnswer(invocation -> {
+            Payment payment = invocation.getArgument(0);
+            if (payment.getId() == null) {
+                payment.setId(UUID.randomUUID());
+            }
+            payments.put(payment.getId(), payment);
+            return payment;
+        });
+        lenient().when(paymentRepository.findById(any())).thenAnswer(invocation ->
+                Optional.ofNullable(payments.get((UUID) invocation.getArgument(0))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        stripe.close();
+        Stripe.overrideApiBase(Stripe.LIVE_API_BASE);
+    }
+
+    @Test
+    @DisplayName("ProcessPayment - Succeeded intent completes the payment and confirms the reservation")
+    void processPayment_Succeeded_CompletesPayment() throws Exception {
+        // When
+        Payment payment = stripeService.processPayment(
+                new PaymentRequestDTO(reservation.getId(), "pm_card_visa", 25_000));
+
+        // Then
+        assertEquals("COMPLETED", payment.getStatus().getName());
+        assertEquals(ReservationStatus.CONFIRMED, reservation.getStatus());
+        verify(paymentLedgerService).record(payment, null);
+        verify(paymentLedgerService).record(payment, "PROCESSING");
+        Map<?, ?> metadata = (Map<?, ?>) stripe.paymentIntent(payment.getTransactionCode()).get("metadata");
+        assertEquals(payment.getId().toString(), metadata.get("paymentId"));
+    }
+
+    @Test
+    @DisplayName("ProcessPayment - Server error leaves the payment PROCESSING for recovery")
+    void processPayment_ServerError_LeavesProcessing() {
+        // Given
+        stripe.faults().errors(1.0, 500);
+
+        // When & Then
+        assertThrows(StripeException.class, () -> stripeService.processPayment(
+                new PaymentRequestDTO(reservation.getId(), "pm_card_visa", 25_000)));
+        Payment payment = payments.values().iterator().next();
+        assertEquals("PROCESSING", payment.getStatus().getName());
+        assertEquals(ReservationStatus.PENDING, reservation.getStatus());
+    }
+
+    @Test
+    @DisplayName("ProcessPayment - Rejected request fails the payment")
+    void processPayment_Rejected_MarksFailed() {
+        // Given
+        stripe.faults().errors(1.0, 400);
+
+        // When & Then
+        assertThrows(StripeException.class, () -> stripeService.processPayment(
+                new PaymentRequestDTO(reservation.getId(), "pm_card_visa", 25_000)));
+        Payment payment = payments.values().iterator().next();
+        assertEquals("FAILED", payment.getStatus().getName());
+    }
+
+    @Test
+    @DisplayName("ProcessPayment - Refusal by the open circuit fails the payment")
+    void processPayment_CircuitOpen_MarksFailed() throws Exception {
+        // Given
+        StripeResilience refusing = mock(StripeResilience.class);
+        when(refusing.execute(anyString(), any())).thenThrow(ErrorDefinition.PAYMENT_PROVIDER_UNAVAILABLE
+                .toAppError().withDetail("reason", "circuit_open"));
+        stripeService = new StripeServiceImpl(paymentRepository, paymentStatusRepository, reservationRepository,
+                emailService, new TransactionTemplate(transactionManager), refusing, paymentLedgerService);
+        ReflectionTestUtils.setField(stripeService, "currency", "usd");
+
+        // When & Then
+        assertThrows(AppError.class, () -> stripeService.processPayment(
+                new PaymentRequestDTO(reservation.getId(), "pm_card_visa", 25_000)));
+        Payment payment = payments.values().iterator().next();
+        assertEquals("FAILED", payment.getStatus().getName());
+    }
+
+    @Test
+    @DisplayName("FindPaymentIntent - Finds the intent by its paymentId metadata")
+    void findPaymentIntent_Created_FoundByMetadata() throws Exception {
+        // Given
+        Payment payment = stripeService.processPayment(
+                new PaymentRequestDTO(reservation.getId(), "pm_card_visa", 25_000));
+
+        // When
+        Optional<PaymentIntent> found = stripeService.findPaymentIntent(payment.getId());
+        Optional<PaymentIntent> missing = stripeService.findPaymentIntent(UUID.randomUUID());
+
+        // Then
+        assertEquals(payment.getTransactionCode(), found.orElseThrow().getId());
+        assertTrue(missing.isEmpty());
+    }
+
+    @Test
+    @DisplayName("CreateCheckoutSession - Session id is recorded on a PENDING payment")
+    void createCheckoutSession_Created_RecordsPendingPayment() throws Exception {
+        // When
+        CheckoutSessionResponseDTO response = stripeService.createCheckoutSession(new CheckoutSessionRequestDTO(
+                reservation.getId(), "http://localhost:3000/success", "http://localhost:3000/cancel"));
+
+        // Then
+        Payment payment = payments.values().iterator().next();
+        assertEquals(response.sessionId(), payment.getStripeSessionId());
+        assertEquals("PENDING", payment.getStatus().getName());
+        Map<?, ?> metadata = (Map<?, ?>) stripe.session(response.sessionId()).get("metadata");
+        assertEquals(payment.getId().toString(), metadata.get("paymentId"));
+    }
+}
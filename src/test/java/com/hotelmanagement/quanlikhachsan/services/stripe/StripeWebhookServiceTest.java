@@ -0,0 +1,132 @@
+package com.hotelmanagement.quanlikhachsan.services.stripe;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotelmanagement.quanlikhachsan.fake.FakeStripeServer;
+import com.hotelmanagement.quanlikhachsan.repository.StripeWebhookEventRepository;
+import com.stripe.model.Event;
+import com.stripe.net.ApiResource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for StripeWebhookService
+ * Redis and the event table are mocked
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("StripeWebhookService Tests")
+class StripeWebhookServiceTest {
+
+    @Mock
+    private StripeWebhookEventRepository webhookEventRepository;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final FakeStripeServer stripe = new FakeStripeServer("whsec_test");
+    private StripeWebhookService webhookService;
+    private String payload;
+    private Event event;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        webhookService = new StripeWebhookService(webhookEventRepository, redisTemplate, new ObjectMapper(),
+                eventPublisher);
+        ReflectionTestUtils.setField(webhookService, "idempotencyTtl", 86400L);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        payload = stripe.event("checkout.session.completed", Map.of(
+                "id", "cs_test_123",
+                "object", "checkout.session",
+                "metadata", Map.of("reservationId", "res-1")));
+        event = ApiResource.GSON.fromJson(payload, Event.class);
+    }
+
+    @Test
+    @DisplayName("Receive - New event is claimed, stored under its reservation and announced")
+    void receive_NewEvent_StoresAndPublishes() {
+        // Given
+        when(valueOperations.setIfAbsent(eq("stripe:webhook:" + event.getId()), eq("1"), any(Duration.class)))
+                .thenReturn(true);
+        when(webhookEventRepository.insertIfAbsent(eq(event.getId()), eq("checkout.session.completed"),
+                eq("reservation:res-1"), eq(payload), any())).thenReturn(1);
+
+        // When
+        boolean received = webhookService.receive(event, payload);
+
+        // Then
+        assertTrue(received);
+        verify(eventPublisher).publishEvent(new StripeWebhookReceivedEvent(event.getId()));
+    }
+
+    @Test
+    @DisplayName("Receive - Event already claimed and stored is not stored again")
+    void receive_AlreadyClaimed_Skipped() {
+        // Given
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+        when(webhookEventRepository.existsById(event.getId())).thenReturn(true);
+
+        // When
+        boolean received = webhookService.receive(event, payload);
+
+        // Then
+        assertFalse(received);
+        verify(webhookEventRepository, never()).insertIfAbsent(anyString(), anyString(), anyString(), anyString(),
+                any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    @DisplayName("Receive - Claim left by a request that never stored the event does not drop the redelivery")
+    void receive_ClaimedButNotStored_Stored() {
+        // Given
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+        when(webhookEventRepository.existsById(event.getId())).thenReturn(false);
+        when(webhookEventRepository.insertIfAbsent(anyString(), anyString(), anyString(), anyString(), any()))
+                .thenReturn(1);
+
+        // When
+        boolean received = webhookService.receive(event, payload);
+
+        // Then
+        assertTrue(received);
+        verify(eventPublisher).publishEvent(new StripeWebhookReceivedEvent(event.getId()));
+    }
+
+    @Test
+    @DisplayName("Receive - Failed insert releases the claim so Stripe's retry is accepted")
+    void receive_InsertFails_ReleasesClaim() {
+        // Given
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+        when(webhookEventRepository.insertIfAbsent(anyString(), anyString(), anyString(), anyString(), any()))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+
+        // When & Then
+        assertThrows(DataAccessResourceFailureException.class, () -> webhookService.receive(event, payload));
+        verify(redisTemplate).delete("stripe:webhook:" + event.getId());
+        verifyNoInteractions(eventPublisher);
+    }
+}
@@ -0,0 +1,146 @@
+package com.hotelmanagement.quanlikhachsan.services.stripe;
+
+import com.hotelmanagement.quanlikhachsan.fake.FakeStripeServer;
+import com.hotelmanagement.quanlikhachsan.model.payment.StripeWebhookDeadLetter;
+import com.hotelmanagement.quanlikhachsan.model.payment.StripeWebhookEvent;
+import com.hotelmanagement.quanlikhachsan.model.payment.StripeWebhookEventStatus;
+import com.hotelmanagement.quanlikhachsan.repository.StripeWebhookDeadLetterRepository;
+import com.hotelmanagement.quanlikhachsan.repository.StripeWebhookEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for StripeWebhookWorker
+ * Payment handling and the repositories are mocked
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("StripeWebhookWorker Tests")
+class StripeWebhookWorkerTest {
+
+    @Mock
+    private StripeWebhookEventRepository webhookEventRepository;
+
+    @Mock
+    private StripeWebhookDeadLetterRepository deadLetterRepository;
+
+    @Mock
+    private IStripeService stripeService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final FakeStripeServer stripe = new FakeStripeServer("whsec_test");
+    private StripeWebhookWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        worker = new StripeWebhookWorker(webhookEventRepository, deadLetterRepository, stripeService,
+                new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(worker, "concurrency", 4);
+        ReflectionTestUtils.setField(worker, "maxAttempts", 3);
+        ReflectionTestUtils.setField(worker, "backoffMillis", 1000L);
+        ReflectionTestUtils.setField(worker, "maxBackoffMillis", 60_000L);
+        worker.init();
+    }
+
+    @Test
+    @DisplayName("Process - Completed checkout session is applied and the event marked PROCESSED")
+    void process_CheckoutCompleted_MarksProcessed() throws Exception {
+        // Given
+        StripeWebhookEvent event = storedEvent("checkout.session.completed",
+                Map.of("id", "cs_test_123", "object", "checkout.session"));
+
+        // When
+        worker.process(event);
+
+        // Then
+        verify(stripeService).handleCheckoutSessionCompleted("cs_test_123");
+        assertEquals(StripeWebhookEventStatus.PROCESSED, event.getStatus());
+        assertNotNull(event.getProcessedAt());
+        verify(webhookEventRepository).save(event);
+    }
+
+    @Test
+    @DisplayName("Process - Failure schedules a retry with backoff")
+    void process_HandlerFails_SchedulesRetry() throws Exception {
+        // Given
+        StripeWebhookEvent event = storedEvent("payment_intent.succeeded",
+                Map.of("id", "pi_123", "object", "payment_intent"));
+        doThrow(new IllegalStateException("Database unavailable"))
+                .when(stripeService).updatePaymentStatusFromWebhook("pi_123", "COMPLETED");
+
+        // When
+        worker.process(event);
+
+        // Then
+        assertEquals(StripeWebhookEventStatus.PENDING, event.getStatus());
+        assertEquals(1, event.getAttempts());
+        assertEquals("Database unavailable", event.getLastError());
+        assertTrue(event.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        verify(deadLetterRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Process - Last failed attempt moves the event to the dead-letter table")
+    void process_RetriesExhausted_DeadLetters() throws Exception {
+        // Given
+        StripeWebhookEvent event = storedEvent("checkout.session.expired",
+                Map.of("id", "cs_test_456", "object", "checkout.session"));
+        event.setAttempts(2);
+        doThrow(new IllegalStateException("Status FAILED not found"))
+                .when(stripeService).handleCheckoutSessionExpired("cs_test_456");
+
+        // When
+        worker.process(event);
+
+        // Then
+        ArgumentCaptor<StripeWebhookDeadLetter> deadLetter = ArgumentCaptor.forClass(StripeWebhookDeadLetter.class);
+        verify(deadLetterRepository).save(deadLetter.capture());
+        assertEquals(event.getId(), deadLetter.getValue().getEventId());
+        assertEquals(3, deadLetter.getValue().getAttempts());
+        assertEquals("Status FAILED not found", deadLetter.getValue().getLastError());
+        verify(webhookEventRepository).delete(event);
+    }
+
+    @Test
+    @DisplayName("Process - Unhandled event type is marked PROCESSED without side effects")
+    void process_UnhandledType_MarksProcessed() throws Exception {
+        // Given
+        StripeWebhookEvent event = storedEvent("customer.created", Map.of("id", "cus_123", "object", "customer"));
+
+        // When
+        worker.process(event);
+
+        // Then
+        verifyNoInteractions(stripeService);
+        assertEquals(StripeWebhookEventStatus.PROCESSED, event.getStatus());
+    }
+
+    private StripeWebhookEvent storedEvent(String type, Map<String, Object> object) throws Exception {
+        String payload = stripe.event(type, object);
+        return StripeWebhookEvent.builder()
+                .id("evt_" + type)
+                .type(type)
+                .orderingKey("object:" + object.get("id"))
+                .payload(payload)
+                .status(StripeWebhookEventStatus.PENDING)
+                .nextAttemptAt(LocalDateTime.now())
+                .receivedAt(LocalDateTime.now())
+                .build();
+    }
+}
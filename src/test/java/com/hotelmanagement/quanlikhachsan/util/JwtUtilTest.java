@@ -6,6 +6,8 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.util.Optional;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -134,6 +136,58 @@ class JwtUtilTest {
         assertFalse(jwtUtil.isTokenValid(null));
     }
 
+    @Test
+    @DisplayName("Verify - Returns typed claims for valid token")
+    void verify_WithValidToken_ReturnsClaims() {
+        // Given
+        String token = jwtUtil.generateToken("user-123", "test@example.com", "John Doe", "ADMIN");
+
+        // When
+        Optional<JwtClaims> claims = jwtUtil.verify(token);
+
+        // Then
+        assertTrue(claims.isPresent());
+        assertEquals("user-123", claims.get().userId());
+        assertEquals("test@example.com", claims.get().email());
+        assertEquals("John Doe", claims.get().fullName());
+        assertEquals("ADMIN", claims.get().role());
+        assertFalse(claims.get().isExpired());
+    }
+
+    @Test
+    @DisplayName("Verify - Repeat token is served from cache")
+    void verify_SameTokenTwice_ReturnsCachedClaims() {
+        // Given
+        String token = jwtUtil.generateToken("user-123", "test@example.com", "John Doe", "USER");
+
+        // When
+        JwtClaims first = jwtUtil.verify(token).orElseThrow();
+        JwtClaims second = jwtUtil.verify(token).orElseThrow();
+
+        // Then
+        assertSame(first, second);
+    }
+
+    @Test
+    @DisplayName("Verify - Rejects tampered, expired and missing tokens")
+    void verify_WithBadTokens_ReturnsEmpty() throws InterruptedException {
+        // Given
+        String token = jwtUtil.generateToken("user-123", "test@example.com", "John Doe", "USER");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        JwtUtil shortExpirationUtil = new JwtUtil();
+        ReflectionTestUtils.setField(shortExpirationUtil, "secret", TEST_SECRET);
+        ReflectionTestUtils.setField(shortExpirationUtil, "expiration", 1L);
+        String expired = shortExpirationUtil.generateToken("user-123", "test@example.com", "John Doe", "USER");
+        Thread.sleep(10);
+
+        // When & Then
+        assertTrue(jwtUtil.verify(tampered).isEmpty());
+        assertTrue(shortExpirationUtil.verify(expired).isEmpty());
+        assertTrue(jwtUtil.verify(null).isEmpty());
+        assertTrue(jwtUtil.verify("").isEmpty());
+    }
+
     @Test
     @DisplayName("Is Token Expired - Returns false for fresh token")
     void isTokenExpired_WithFreshToken_ReturnsFalse() {